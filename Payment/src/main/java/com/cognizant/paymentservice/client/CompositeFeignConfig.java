@@ -4,6 +4,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
 @Configuration
-@Import({OrderClientConfiguration.class, FeignClientInterceptor.class})
+@Import({OrderClientConfiguration.class, FeignClientInterceptor.class, ServiceTokenProvider.class})
 public class CompositeFeignConfig {
 }
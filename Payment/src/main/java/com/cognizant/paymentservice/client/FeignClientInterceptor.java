@@ -1,10 +1,10 @@
 package com.cognizant.paymentservice.client;
 
-import java.net.Authenticator;
+import java.util.function.Supplier;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Component;
 
@@ -14,13 +14,36 @@ import feign.RequestTemplate;
 @Component
 public class FeignClientInterceptor implements RequestInterceptor{
 
+	// Set while Payment Service calls on its own behalf (outbox deliveries)
+	private static final ThreadLocal<Boolean> SERVICE_CALL = new ThreadLocal<>();
+
+	@Autowired
+	private ServiceTokenProvider serviceTokenProvider;
+
 	@Override
 	public void apply(RequestTemplate template) {
+		if (Boolean.TRUE.equals(SERVICE_CALL.get())) {
+			template.header("Authorization", "Bearer " + serviceTokenProvider.getToken());
+			return;
+		}
 		Authentication auth=SecurityContextHolder.getContext().getAuthentication();
-		
+
 		if (auth instanceof JwtAuthenticationToken jwtAuth) {
 			String token=jwtAuth.getToken().getTokenValue();
 			template.header("Authorization", "Bearer " + token);
 		}
 	}
+
+	/**
+	 * Run a Feign call with the service's client-credentials token instead of the
+	 * caller's JWT, e.g. an outbox delivery that may be retried long after the request
+	 */
+	public static <T> T callAsService(Supplier<T> call) {
+		SERVICE_CALL.set(Boolean.TRUE);
+		try {
+			return call.get();
+		} finally {
+			SERVICE_CALL.remove();
+		}
+	}
 }
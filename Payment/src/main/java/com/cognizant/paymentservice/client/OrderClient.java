@@ -1,11 +1,16 @@
 package com.cognizant.paymentservice.client;
 
 import com.cognizant.paymentservice.dto.OrderResponseDto;
+import com.cognizant.paymentservice.dto.OrderStatusUpdateDto;
+import com.cognizant.paymentservice.dto.OrderStatusUpdateResultDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+
 /**
  * Feign Client for Order Service Integration
  * Handles Saga communication between Payment and Order services
@@ -34,4 +39,16 @@ public interface OrderClient {
         @PathVariable("orderId") String orderId,
         @RequestParam("paymentStatus") String paymentStatus
     );
-}
\ No newline at end of file
+
+    /**
+     * SAGA STEP (bulk): Update the status of many orders in one call.
+     * Used by batch payments; each entry is applied independently and
+     * reported back, so one unknown order does not fail the others.
+     *
+     * @param updates Order ID and payment status per order
+     * @return One result per update, in request order
+     * @throws feign.FeignException if communication fails
+     */
+    @PutMapping("/api/orders/update-status/batch")
+    List<OrderStatusUpdateResultDto> updateOrderStatusesByPayment(@RequestBody List<OrderStatusUpdateDto> updates);
+}
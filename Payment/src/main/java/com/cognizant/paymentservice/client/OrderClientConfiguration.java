@@ -13,12 +13,14 @@ public class OrderClientConfiguration {
 
     /**
      * Retry configuration for Feign client
-     * Retries 3 times with exponential backoff
+     * No retries inside a call: the outbox retries with backoff, and the
+     * order-service circuit breaker (OrderServiceGateway) should see each failure once
+     * instead of a call that holds a bulkhead permit through three timeouts
      */
     @Bean
     public Retryer retryer() {
-        logger.info("Configuring Feign Retryer: 3 attempts with 100ms initial interval");
-        return new Retryer.Default(100, 1000, 3);
+        logger.info("Configuring Feign Retryer: no retries (outbox and circuit breaker handle failures)");
+        return Retryer.NEVER_RETRY;
     }
 
     /**
@@ -0,0 +1,113 @@
+package com.cognizant.paymentservice.client;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Bearer token for calls Payment Service makes on its own behalf
+ *
+ * Outbox deliveries run long after the user's request has ended (relay retries,
+ * manual recovery), so they cannot reuse the user's JWT. They authenticate as the
+ * service instead, with an OAuth2 client-credentials token from the auth server.
+ * The token is cached and fetched again shortly before it expires. The fetch is
+ * guarded by a ReentrantLock rather than synchronized, so a delivery thread waiting
+ * on the auth server never pins its carrier when running on virtual threads.
+ */
+@Component
+public class ServiceTokenProvider {
+	private static final Logger logger = LoggerFactory.getLogger(ServiceTokenProvider.class);
+
+	private final RestClient restClient;
+	private final String tokenUri;
+	private final String clientId;
+	private final String clientSecret;
+	private final String scope;
+	private final long refreshSkewSeconds;
+	private final Clock clock;
+
+	private final ReentrantLock fetchLock = new ReentrantLock();
+
+	private volatile CachedToken cached;
+
+	@Autowired
+	public ServiceTokenProvider(RestClient.Builder restClientBuilder,
+								@Value("${payment.service-auth.token-uri:http://localhost:9001/oauth2/token}") String tokenUri,
+								@Value("${payment.service-auth.client-id:paymentservice}") String clientId,
+								@Value("${payment.service-auth.client-secret:}") String clientSecret,
+								@Value("${payment.service-auth.scope:internal}") String scope,
+								@Value("${payment.service-auth.refresh-skew-seconds:30}") long refreshSkewSeconds) {
+		this(restClientBuilder, tokenUri, clientId, clientSecret, scope, refreshSkewSeconds, Clock.systemUTC());
+	}
+
+	ServiceTokenProvider(RestClient.Builder restClientBuilder, String tokenUri, String clientId, String clientSecret,
+						 String scope, long refreshSkewSeconds, Clock clock) {
+		this.restClient = restClientBuilder.build();
+		this.tokenUri = tokenUri;
+		this.clientId = clientId;
+		this.clientSecret = clientSecret;
+		this.scope = scope;
+		this.refreshSkewSeconds = refreshSkewSeconds;
+		this.clock = clock;
+	}
+
+	/**
+	 * Current service token, fetched from the auth server when missing or about to expire
+	 * @throws IllegalStateException if the auth server returns no access token
+	 * @throws org.springframework.web.client.RestClientException if the auth server cannot be reached
+	 */
+	public String getToken() {
+		CachedToken token = cached;
+		if (token != null && clock.instant().isBefore(token.refreshAt())) {
+			return token.value();
+		}
+		fetchLock.lock();
+		try {
+			token = cached;
+			if (token == null || !clock.instant().isBefore(token.refreshAt())) {
+				token = fetch();
+				cached = token;
+			}
+			return token.value();
+		} finally {
+			fetchLock.unlock();
+		}
+	}
+
+	private CachedToken fetch() {
+		MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+		form.add("grant_type", "client_credentials");
+		if (scope != null && !scope.isEmpty()) {
+			form.add("scope", scope);
+		}
+		Map<String, Object> body = restClient.post()
+				.uri(tokenUri)
+				.headers(headers -> headers.setBasicAuth(clientId, clientSecret))
+				.contentType(MediaType.APPLICATION_FORM_URLENCODED)
+				.body(form)
+				.retrieve()
+				.body(new ParameterizedTypeReference<Map<String, Object>>() {});
+		if (body == null || !(body.get("access_token") instanceof String value)) {
+			throw new IllegalStateException("No access token from " + tokenUri);
+		}
+		long expiresIn = body.get("expires_in") instanceof Number n ? n.longValue() : 0;
+		Instant refreshAt = clock.instant().plusSeconds(Math.max(0, expiresIn - refreshSkewSeconds));
+		logger.info("🔑 Service token for {} fetched, valid for {} s", clientId, expiresIn);
+		return new CachedToken(value, refreshAt);
+	}
+
+	private record CachedToken(String value, Instant refreshAt) {
+	}
+}
@@ -1,14 +1,46 @@
 package com.cognizant.paymentservice.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.context.annotation.Bean;
 import java.util.concurrent.Executor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+/**
+ * Executor for background saga work (outbox relay deliveries, aggregate rebuilds)
+ *
+ * Two modes, switched with spring.threads.virtual.enabled:
+ * - platform (default): bounded ThreadPoolTaskExecutor sized by spring.task.execution.pool.*
+ * - virtual: one virtual thread per task, capped at payment.threads.virtual.max-concurrency.
+ *   Spring Boot moves Tomcat request handling and @Scheduled onto virtual threads
+ *   with the same switch.
+ *
+ * Virtual threads need Java 21+; on an older runtime the platform pool is used
+ * and a warning is logged.
+ */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncConfig.class);
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${payment.threads.virtual.max-concurrency:200}")
+    private int virtualMaxConcurrency;
+
+    @Value("${spring.task.execution.pool.core-size:5}")
+    private int corePoolSize;
+
+    @Value("${spring.task.execution.pool.max-size:10}")
+    private int maxPoolSize;
+
+    @Value("${spring.task.execution.pool.queue-capacity:100}")
+    private int queueCapacity;
 
     /**
      * Configure thread pool for async compensating transactions
@@ -16,12 +48,29 @@ public class AsyncConfig {
      */
     @Bean(name = "taskExecutor")
     public Executor taskExecutor() {
+        if (virtualThreads && supportsVirtualThreads()) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("async-saga-vt-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(virtualMaxConcurrency);  // protects the JDBC pool and Order Service
+            logger.info("🧵 Saga executor: virtual threads (max {} concurrent)", virtualMaxConcurrency);
+            return executor;
+        }
+        if (virtualThreads) {
+            logger.warn("⚠️ spring.threads.virtual.enabled=true needs Java 21+, running on Java {} - using platform threads",
+                    Runtime.version().feature());
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);           // Min threads
-        executor.setMaxPoolSize(10);           // Max threads
-        executor.setQueueCapacity(100);        // Queue size
+        executor.setCorePoolSize(corePoolSize);     // Min threads
+        executor.setMaxPoolSize(maxPoolSize);       // Max threads
+        executor.setQueueCapacity(queueCapacity);   // Queue size
         executor.setThreadNamePrefix("async-compensating-tx-");
         executor.initialize();
+        logger.info("🧵 Saga executor: platform threads ({}-{}, queue {})", corePoolSize, maxPoolSize, queueCapacity);
         return executor;
     }
-}
\ No newline at end of file
+
+    private static boolean supportsVirtualThreads() {
+        return Runtime.version().feature() >= 21;
+    }
+}
@@ -0,0 +1,76 @@
+package com.cognizant.paymentservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-time data migration from DOUBLE rupee columns to BIGINT paise columns
+ *
+ * Hibernate adds balance_paise, amount_paise and total_paise next to the old
+ * DOUBLE columns. This copies the rounded values across in chunks, then drops
+ * the DOUBLE column so new inserts (which no longer set it) cannot trip over
+ * its NOT NULL constraint. Once the legacy columns are gone it is a no-op.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class MoneyColumnMigration implements InitializingBean {
+    private static final Logger logger = LoggerFactory.getLogger(MoneyColumnMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${payment.migration.money-paise.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.migration.money-paise.chunk-size:10000}")
+    private int chunkSize;
+
+    public MoneyColumnMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+
+        convert("wallets", "balance", "balance_paise", 100);
+        convert("transactions", "amount", "amount_paise", 100);
+        convert("payment_aggregates", "total_amount", "total_paise", 100);
+        convert("payment_aggregates", "sum_squares", "sum_squares_paise", 10_000);
+    }
+
+    private void convert(String table, String legacyColumn, String paiseColumn, int factor) {
+        if (!columnExists(table, legacyColumn)) {
+            return;
+        }
+
+        String scaled = "ROUND(" + legacyColumn + " * " + factor + ")";
+        int total = 0;
+        int updated;
+        do {
+            updated = jdbcTemplate.update("UPDATE " + table + " SET " + paiseColumn + " = " + scaled
+                    + " WHERE " + paiseColumn + " = 0 AND " + scaled + " <> 0 LIMIT " + chunkSize);
+            total += updated;
+        } while (updated == chunkSize);
+
+        jdbcTemplate.execute("ALTER TABLE " + table + " DROP COLUMN " + legacyColumn);
+        logger.info("✅ Migrated {} rows of {}.{} to {} and dropped the legacy column",
+                total, table, legacyColumn, paiseColumn);
+    }
+
+    private boolean columnExists(String table, String column) {
+        try {
+            jdbcTemplate.queryForList("SELECT " + column + " FROM " + table + " WHERE 1 = 0");
+            return true;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.cognizant.paymentservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops order_status_outbox.auth_token
+ *
+ * Outbox events used to store the caller's JWT for their later delivery. Deliveries
+ * now use the service's client-credentials token, so the column (and any user
+ * tokens still in it) is removed. Hibernate's ddl-auto=update never drops columns.
+ * Once the column is gone it is a no-op.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class OutboxAuthTokenMigration implements InitializingBean {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxAuthTokenMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${payment.migration.outbox-auth-token.enabled:true}")
+    private boolean enabled;
+
+    public OutboxAuthTokenMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled || !columnExists("order_status_outbox", "auth_token")) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE order_status_outbox DROP COLUMN auth_token");
+        logger.info("✅ Dropped order_status_outbox.auth_token (deliveries use the service token)");
+    }
+
+    private boolean columnExists(String table, String column) {
+        try {
+            jdbcTemplate.queryForList("SELECT " + column + " FROM " + table + " WHERE 1 = 0");
+            return true;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.cognizant.paymentservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-time data migration for the transactions.status split
+ *
+ * Older rows store composite strings ("FAILED:INSUFFICIENT_BALANCE",
+ * "FAILED:COMPENSATED"). This rewrites them into the enum status plus the
+ * failure_reason column, in chunks so large ledgers are not locked at once.
+ * Runs after Hibernate has added the failure_reason column and before the
+ * app serves traffic; once no legacy rows remain it is a single cheap query.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class TransactionStatusMigration implements InitializingBean {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionStatusMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${payment.migration.status-split.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.migration.status-split.chunk-size:10000}")
+    private int chunkSize;
+
+    public TransactionStatusMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+
+        int compensated = migrate("UPDATE transactions SET status = 'COMPENSATED', failure_reason = 'ORDER_UPDATE_UNDELIVERED' "
+                + "WHERE status = 'FAILED:COMPENSATED' LIMIT " + chunkSize);
+        int failed = migrate("UPDATE transactions SET failure_reason = SUBSTRING(status, 8), status = 'FAILED' "
+                + "WHERE status LIKE 'FAILED:%' LIMIT " + chunkSize);
+
+        if (compensated + failed > 0) {
+            logger.info("✅ Migrated {} compensated and {} failed transactions to status + failure_reason",
+                    compensated, failed);
+            dropLegacyStatusIndex();
+        }
+    }
+
+    private int migrate(String chunkedUpdate) {
+        int total = 0;
+        int updated;
+        do {
+            updated = jdbcTemplate.update(chunkedUpdate);
+            total += updated;
+        } while (updated == chunkSize);
+        return total;
+    }
+
+    private void dropLegacyStatusIndex() {
+        try {
+            jdbcTemplate.execute("DROP INDEX idx_status ON transactions");
+            logger.info("✅ Dropped legacy idx_status (replaced by composite status indexes)");
+        } catch (Exception e) {
+            logger.debug("Legacy idx_status not present: {}", e.getMessage());
+        }
+    }
+}
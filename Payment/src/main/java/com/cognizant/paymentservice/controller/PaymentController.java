@@ -2,24 +2,50 @@ package com.cognizant.paymentservice.controller;
 
 import com.cognizant.paymentservice.exception.ResourceNotFoundException;
 import com.cognizant.paymentservice.exception.SagaExecutionException;
+import com.cognizant.paymentservice.model.AggregateScope;
+import com.cognizant.paymentservice.model.BatchPaymentResponse;
+import com.cognizant.paymentservice.model.LedgerArchive;
+import com.cognizant.paymentservice.model.PaymentAggregate;
 import com.cognizant.paymentservice.model.PaymentRequest;
 import com.cognizant.paymentservice.model.PaymentResponse;
+import com.cognizant.paymentservice.model.RefundJobProgress;
+import com.cognizant.paymentservice.model.RefundJobRequest;
+import com.cognizant.paymentservice.model.SagaDetails;
+import com.cognizant.paymentservice.model.SagaInstance;
+import com.cognizant.paymentservice.model.SettlementReport;
 import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.model.TransactionFilter;
+import com.cognizant.paymentservice.model.TransactionPage;
+import com.cognizant.paymentservice.model.TransactionStatus;
 import com.cognizant.paymentservice.model.Wallet;
 import com.cognizant.paymentservice.model.WalletTopUpRequest;
 import com.cognizant.paymentservice.model.WalletTopUpResponse;
+import com.cognizant.paymentservice.service.LedgerArchiveService;
+import com.cognizant.paymentservice.service.PaymentAggregateService;
 import com.cognizant.paymentservice.service.PaymentService;
+import com.cognizant.paymentservice.service.RefundQueueService;
+import com.cognizant.paymentservice.service.SagaEngine;
+import com.cognizant.paymentservice.service.SettlementService;
 
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +58,21 @@ public class PaymentController {
 
     @Autowired
     private PaymentService paymentService;
+
+    @Autowired
+    private PaymentAggregateService aggregateService;
+
+    @Autowired
+    private LedgerArchiveService ledgerArchiveService;
+
+    @Autowired
+    private SagaEngine sagaEngine;
+
+    @Autowired
+    private SettlementService settlementService;
+
+    @Autowired
+    private RefundQueueService refundQueueService;
 //    @PreAuthorize("hasAnyRole('CUSTOMER','VENDOR','ADMIN')")
     @PostMapping("/wallet/add")
 	public WalletTopUpResponse addMoneyToWallet(@Valid @RequestBody WalletTopUpRequest request) {
@@ -49,23 +90,29 @@ public class PaymentController {
      * Process a payment
      * 
      * POST /payment/pay
+     * Header: Idempotency-Key (optional) - retries with the same key return the
+     *         original response instead of charging again
      * Body: PaymentRequest
      * 
      * Response:
-     * - 200 OK: Payment successful, Order Service confirmed
-     * - 202 ACCEPTED: Payment successful but Order Service failed (Compensating TX executed, wallet refunded)
-     * - 400 BAD_REQUEST: Validation or payment processing failed
-     * - 503 SERVICE_UNAVAILABLE: Order Service unavailable
+     * - 200 OK: Payment durable, order confirmation queued in the outbox
+     *   (sagaStatus ORDER_UPDATE_PENDING, or PAYMENT_FAILED when payment was declined)
+     * - 400 BAD_REQUEST: Validation failed
+     *
+     * Order Service is notified in the background; if it never accepts the
+     * update the relay compensates the payment and cancels the order.
      */
    // @PreAuthorize("hasRole('CUSTOMER')")
     @PostMapping("/pay")
-    public ResponseEntity<?> processPayment(@RequestBody PaymentRequest request) {
-        logger.info("🔄 Received payment request for order: {}", 
-            request.getRestaurant() != null ? request.getRestaurant().getOrderId() : "UNKNOWN");
+    public ResponseEntity<?> processPayment(@RequestBody PaymentRequest request,
+                                            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("🔄 Received payment request for order: {}",
+                request.getRestaurant() != null ? request.getRestaurant().getOrderId() : "UNKNOWN");
+        }
         
         try {
-            PaymentResponse response = paymentService.processPayment(request);
-            logger.info("✅ Payment processed successfully - Saga completed");
+            PaymentResponse response = paymentService.processPayment(request, idempotencyKey);
             return ResponseEntity.ok(response);
 
         } catch (SagaExecutionException e) {
@@ -110,6 +157,52 @@ public class PaymentController {
         }
     }
 
+    /**
+     * Process a batch of payments (bulk settlement)
+     *
+     * POST /payment/pay/batch
+     * Body: array of PaymentRequest (at most payment.batch.max-size)
+     *
+     * Response:
+     * - 200 OK: One result per payment, in request order; declined payments
+     *   are FAILED results and do not fail the batch
+     * - 400 BAD_REQUEST: Empty or oversized batch
+     *
+     * Wallet debits are grouped per user and Order Service gets one bulk
+     * status update; orders it does not accept are retried by the outbox relay.
+     */
+   // @PreAuthorize("hasAnyRole('CUSTOMER','ADMIN')")
+    @PostMapping("/pay/batch")
+    public ResponseEntity<?> processBatch(@RequestBody List<PaymentRequest> requests) {
+        logger.info("🔄 Received batch of {} payments", requests == null ? 0 : requests.size());
+        try {
+            BatchPaymentResponse response = paymentService.processBatch(requests);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            logger.error("❌ Batch validation error: {}", e.getMessage());
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("status", "FAILED");
+            errorResponse.put("message", e.getMessage());
+            errorResponse.put("errorCode", "VALIDATION_ERROR");
+            errorResponse.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.badRequest().body(errorResponse);
+
+        } catch (Exception e) {
+            logger.error("❌ Unexpected error during batch payment processing: {}", e.getMessage(), e);
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("status", "FAILED");
+            errorResponse.put("message", e.getMessage());
+            errorResponse.put("errorCode", "INTERNAL_SERVER_ERROR");
+            errorResponse.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
     /**
      * Refund a payment
      * 
@@ -143,6 +236,17 @@ public class PaymentController {
             
             return ResponseEntity.status(HttpStatus.ACCEPTED).body(errorResponse);
 
+        } catch (IllegalArgumentException e) {
+            logger.error("❌ Refund rejected: {}", e.getMessage());
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("status", "FAILED");
+            errorResponse.put("message", e.getMessage());
+            errorResponse.put("errorCode", "REFUND_NOT_ALLOWED");
+            errorResponse.put("timestamp", System.currentTimeMillis());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+
         } catch (Exception e) {
             logger.error("❌ Refund failed: {}", e.getMessage());
             
@@ -156,6 +260,55 @@ public class PaymentController {
         }
     }
 
+    // ==================== REFUND QUEUE ====================
+
+    /**
+     * Queue a bulk refund: a restaurant's successful payments in [from, to), or those of a list of orders
+     * 
+     * POST /payment/refunds/jobs
+     * {"restaurantId": "R1", "from": "2024-05-01T18:00:00", "to": "2024-05-01T22:00:00"}
+     * {"orderIds": ["O1", "O2"]}
+     * 
+     * Payments already queued by an earlier job are counted as duplicates and not queued again.
+     * The refund worker processes the queue in batches (payment.refunds.*).
+     * 
+     * Responses:
+     * - 202 ACCEPTED: Job queued, body is its progress
+     * - 400 BAD_REQUEST: Invalid or too large selection
+     * - 409 CONFLICT: A concurrent job queued some of the same payments; retry
+     */
+//	@PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/refunds/jobs")
+    public ResponseEntity<?> enqueueRefunds(@RequestBody RefundJobRequest request) {
+        logger.info("🔄 Bulk refund requested (restaurant={}, orders={})", request.getRestaurantId(),
+                request.getOrderIds() == null ? 0 : request.getOrderIds().size());
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(refundQueueService.enqueue(request));
+
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("⚠️ Bulk refund overlaps a concurrent job: {}", e.getMessage());
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("status", "FAILED");
+            errorResponse.put("message", "Some of these payments were queued by a concurrent refund job, retry");
+            errorResponse.put("errorCode", "REFUND_JOB_CONFLICT");
+            errorResponse.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        }
+    }
+
+    /**
+     * Progress of a bulk refund job
+     * 
+     * GET /payment/refunds/jobs/{jobId}
+     */
+//	@PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/refunds/jobs/{jobId}")
+    public ResponseEntity<RefundJobProgress> getRefundJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(refundQueueService.getProgress(jobId));
+    }
+
     // ==================== RECOVERY ENDPOINT ====================
 
     /**
@@ -163,8 +316,9 @@ public class PaymentController {
      * ║   RECOVER COMPENSATED TRANSACTION - Finalize Saga      ║
      * ╚═════════════════════════════════════════════════════════╝
      * 
-     * Call this endpoint after Order Service restarts to finalize 
-     * the compensation for a failed payment saga.
+     * The outbox relay finalizes compensations automatically once Order
+     * Service is reachable. Call this endpoint to drain an order's outbox
+     * events immediately instead of waiting for the next relay run.
      * 
      * Flow:
      * 1. Find the compensated transaction for the order
@@ -296,16 +450,42 @@ public class PaymentController {
     // ==================== TRANSACTION QUERY ENDPOINTS ====================
 
     /**
-     * Get all transactions
+     * Get all transactions, newest first
      * 
-     * GET /payment/transactions
+     * GET /payment/transactions?cursor=&limit=
+     * 
+     * All list endpoints below are keyset-paginated on (transactionDate, id):
+     * - limit: page size (default 50, max 500)
+     * - cursor: nextCursor from the previous page; omit for the first page
+     * The response carries items, hasMore and nextCursor.
      */
 //	@PreAuthorize("hasAnyRole('CUSTOMER','VENDOR','ADMIN')")
     @GetMapping("/transactions")
-    public ResponseEntity<List<Transaction>> getAllTransactions() {
+    public ResponseEntity<TransactionPage> getAllTransactions(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer limit) {
         logger.info("📋 Fetching all transactions");
-        List<Transaction> transactions = paymentService.getAllTransactions();
-        return ResponseEntity.ok(transactions);
+        return ResponseEntity.ok(paymentService.getTransactionPage(TransactionFilter.all(), cursor, limit));
+    }
+
+    /**
+     * Export transactions as NDJSON (one JSON object per line), newest first
+     * 
+     * GET /payment/transactions/export?userId=|restaurantId=|status=
+     * 
+     * At most one filter; none exports everything. Rows are written as they
+     * are read from the database, so the export is never held in memory.
+     */
+//	@PreAuthorize("hasAnyRole('VENDOR','ADMIN')")
+    @GetMapping(value = "/transactions/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(@RequestParam(required = false) String userId,
+                                                                    @RequestParam(required = false) String restaurantId,
+                                                                    @RequestParam(required = false) String status) {
+        TransactionFilter filter = TransactionFilter.of(userId, restaurantId, status);
+        logger.info("📤 Export requested ({})", filter);
+        StreamingResponseBody body = out -> paymentService.exportTransactions(filter, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
     /**
@@ -339,58 +519,228 @@ public class PaymentController {
     /**
      * Get transactions by order ID
      * 
-     * GET /payment/transactions/order/{orderId}
+     * GET /payment/transactions/order/{orderId}?cursor=&limit=
      */
 //	@PreAuthorize("hasAnyRole('CUSTOMER','VENDOR','ADMIN')")
     @GetMapping("/transactions/order/{orderId}")
-    public ResponseEntity<List<Transaction>> getTransactionsByOrderId(@PathVariable String orderId) {
+    public ResponseEntity<TransactionPage> getTransactionsByOrderId(@PathVariable String orderId,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(required = false) Integer limit) {
         logger.info("🔍 Fetching transactions for order: {}", orderId);
-        List<Transaction> transactions = paymentService.getTransactionsByOrderId(orderId);
-        return ResponseEntity.ok(transactions);
+        return ResponseEntity.ok(paymentService.getTransactionPage(TransactionFilter.byOrder(orderId), cursor, limit));
     }
 
     /**
      * Get transactions by user ID
      * 
-     * GET /payment/transactions/user/{userId}
+     * GET /payment/transactions/user/{userId}?cursor=&limit=
      */
 //	@PreAuthorize("hasAnyRole('CUSTOMER','VENDOR','ADMIN')")
     @GetMapping("/transactions/user/{userId}")
-    public ResponseEntity<List<Transaction>> getTransactionsByUserId(@PathVariable String userId) {
+    public ResponseEntity<TransactionPage> getTransactionsByUserId(@PathVariable String userId,
+                                                                   @RequestParam(required = false) String cursor,
+                                                                   @RequestParam(required = false) Integer limit) {
         logger.info("🔍 Fetching transactions for user: {}", userId);
-        List<Transaction> transactions = paymentService.getTransactionsByUserId(userId);
-        return ResponseEntity.ok(transactions);
+        return ResponseEntity.ok(paymentService.getTransactionPage(TransactionFilter.byUser(userId), cursor, limit));
     }
 
     /**
      * Get transactions by restaurant ID
      * 
-     * GET /payment/transactions/restaurant/{restaurantId}
+     * GET /payment/transactions/restaurant/{restaurantId}?cursor=&limit=
      */
 //	@PreAuthorize("hasAnyRole('CUSTOMER','VENDOR','ADMIN')")
     @GetMapping("/transactions/restaurant/{restaurantId}")
-    public ResponseEntity<List<Transaction>> getTransactionsByRestaurantId(@PathVariable String restaurantId) {
+    public ResponseEntity<TransactionPage> getTransactionsByRestaurantId(@PathVariable String restaurantId,
+                                                                         @RequestParam(required = false) String cursor,
+                                                                         @RequestParam(required = false) Integer limit) {
         logger.info("🔍 Fetching transactions for restaurant: {}", restaurantId);
-        List<Transaction> transactions = paymentService.getTransactionsByRestaurantId(restaurantId);
-        return ResponseEntity.ok(transactions);
+        return ResponseEntity.ok(paymentService.getTransactionPage(TransactionFilter.byRestaurant(restaurantId), cursor, limit));
     }
 
     /**
      * Get transactions by status
      * 
-     * GET /payment/transactions/status/{status}
+     * GET /payment/transactions/status/{status}?cursor=&limit=
      * 
      * Filter by transaction status:
      * - SUCCESS: Payment successful
-     * - FAILED:COMPENSATED: Payment failed, compensating TX executed
+     * - FAILED: Payment failed (see failureReason on each transaction)
+     * - COMPENSATED: Order update failed, compensating TX executed
      * - REFUNDED: Payment refunded
+     * - PENDING: Payment not settled yet
+     * Legacy values such as FAILED:COMPENSATED are still accepted.
      */
 //	@PreAuthorize("hasAnyRole('CUSTOMER','VENDOR','ADMIN')")
     @GetMapping("/transactions/status/{status}")
-    public ResponseEntity<List<Transaction>> getTransactionsByStatus(@PathVariable String status) {
+    public ResponseEntity<TransactionPage> getTransactionsByStatus(@PathVariable String status,
+                                                                   @RequestParam(required = false) String cursor,
+                                                                   @RequestParam(required = false) Integer limit) {
         logger.info("🔍 Fetching transactions with status: {}", status);
-        List<Transaction> transactions = paymentService.getTransactionsByStatus(status);
-        return ResponseEntity.ok(transactions);
+        TransactionFilter filter = TransactionFilter.byStatus(TransactionStatus.parse(status));
+        return ResponseEntity.ok(paymentService.getTransactionPage(filter, cursor, limit));
+    }
+
+    // ==================== PAYMENT STATISTICS ====================
+
+    /**
+     * Successful payment statistics for a user
+     * 
+     * GET /payment/stats/user/{userId}
+     * 
+     * Served from the precomputed aggregate table: count, totalAmount,
+     * averageAmount, stdDevAmount, lastTransactionAt. Refunded and
+     * compensated payments are excluded.
+     */
+//	@PreAuthorize("hasAnyRole('CUSTOMER','VENDOR','ADMIN')")
+    @GetMapping("/stats/user/{userId}")
+    public ResponseEntity<PaymentAggregate> getUserStats(@PathVariable String userId) {
+        logger.info("📊 Fetching payment stats for user: {}", userId);
+        return ResponseEntity.ok(aggregateService.getUserAggregate(userId));
+    }
+
+    /**
+     * Successful payment statistics for a restaurant
+     * 
+     * GET /payment/stats/restaurant/{restaurantId}
+     */
+//	@PreAuthorize("hasAnyRole('VENDOR','ADMIN')")
+    @GetMapping("/stats/restaurant/{restaurantId}")
+    public ResponseEntity<PaymentAggregate> getRestaurantStats(@PathVariable String restaurantId) {
+        logger.info("📊 Fetching payment stats for restaurant: {}", restaurantId);
+        return ResponseEntity.ok(aggregateService.getRestaurantAggregate(restaurantId));
+    }
+
+    /**
+     * Recompute all payment aggregates from the ledger
+     * 
+     * POST /payment/stats/rebuild
+     * 
+     * Also runs nightly (payment.aggregates.rebuild-cron).
+     */
+//	@PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildStats() {
+        logger.info("🔁 Payment aggregate rebuild requested");
+        Map<String, Object> response = new HashMap<>();
+        response.put("users", aggregateService.rebuild(AggregateScope.USER));
+        response.put("restaurants", aggregateService.rebuild(AggregateScope.RESTAURANT));
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    // ==================== LEDGER ARCHIVE ====================
+
+    /**
+     * Transactions in a date range, including months moved to archive files
+     * 
+     * GET /payment/transactions/range?from=2024-01-01T00:00:00&to=2024-03-31T23:59:59&userId=&cursor=&limit=
+     * 
+     * Optional filter: userId or restaurantId. Newest first, keyset-paginated
+     * like the list endpoints above. Fails with 500 rather than returning a
+     * partial page if an archived month's file cannot be read on this node.
+     */
+//	@PreAuthorize("hasAnyRole('CUSTOMER','VENDOR','ADMIN')")
+    @GetMapping("/transactions/range")
+    public ResponseEntity<TransactionPage> getTransactionsByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String restaurantId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        logger.info("🔍 Fetching transactions from {} to {} (user={}, restaurant={})", from, to, userId, restaurantId);
+        return ResponseEntity.ok(ledgerArchiveService.findByDateRange(from, to, userId, restaurantId, cursor, limit));
+    }
+
+    /**
+     * Catalog of archived ledger months
+     * 
+     * GET /payment/ledger/archives
+     */
+//	@PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/ledger/archives")
+    public ResponseEntity<List<LedgerArchive>> getLedgerArchives() {
+        return ResponseEntity.ok(ledgerArchiveService.getArchives());
+    }
+
+    /**
+     * Archive all cold ledger months now
+     * 
+     * POST /payment/ledger/archive
+     * 
+     * Also runs daily (payment.ledger.archive.cron).
+     */
+//	@PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/ledger/archive")
+    public ResponseEntity<Map<String, Object>> archiveLedger() {
+        logger.info("🗄️ Ledger archival requested");
+        List<YearMonth> months = ledgerArchiveService.archiveColdMonths();
+        Map<String, Object> response = new HashMap<>();
+        response.put("archivedMonths", months.stream().map(YearMonth::toString).toList());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    // ==================== SETTLEMENTS ====================
+
+    /**
+     * Settle a range of days: per-restaurant summary and detail files on local disk
+     * 
+     * POST /payment/settlements?from=2024-05-01&to=2024-05-31
+     * 
+     * Continues an interrupted run of the same range; returns the stored report
+     * if the range was already settled and ended before today. A range that
+     * includes today is settled again on every request. Yesterday is settled
+     * daily (payment.settlement.cron).
+     * 409 CONFLICT with the runId of the run in progress if one is already running.
+     */
+//	@PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/settlements")
+    public ResponseEntity<SettlementReport> settle(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        logger.info("💰 Settlement requested from {} to {}", from, to);
+        return ResponseEntity.ok(settlementService.settle(from, to));
+    }
+
+    /**
+     * Summary CSV of a completed settlement run
+     * 
+     * GET /payment/settlements/{runId}/summary.csv
+     */
+//	@PreAuthorize("hasAnyRole('VENDOR','ADMIN')")
+    @GetMapping(value = "/settlements/{runId}/summary.csv", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> getSettlementSummary(@PathVariable String runId) {
+        Path file = settlementService.getSummaryFile(runId);
+        StreamingResponseBody body = out -> Files.copy(file, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .body(body);
+    }
+
+    // ==================== SAGA INSPECTION ====================
+
+    /**
+     * Sagas still running or compensating, oldest first
+     * 
+     * GET /payment/sagas?limit=100
+     */
+//	@PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/sagas")
+    public ResponseEntity<List<SagaInstance>> getInFlightSagas(@RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(sagaEngine.getInFlight(limit));
+    }
+
+    /**
+     * One saga with its step log
+     * 
+     * GET /payment/sagas/{sagaId}
+     */
+//	@PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/sagas/{sagaId}")
+    public ResponseEntity<SagaDetails> getSaga(@PathVariable String sagaId) {
+        return ResponseEntity.ok(sagaEngine.getSaga(sagaId));
     }
 
     // ==================== HEALTH CHECK ====================
@@ -420,17 +770,40 @@ public class PaymentController {
      * POST /payment/pay                              - Process payment
      * POST /payment/refund/{id}                      - Refund payment
      * 
+     * REFUND QUEUE:
+     * POST /payment/refunds/jobs                     - Queue a bulk refund (restaurant range or orders)
+     * GET  /payment/refunds/jobs/{jobId}             - Progress of a bulk refund
+     * 
      * RECOVERY:
-     * POST /payment/recover/{orderId}                - Recover compensated transaction
+     * POST /payment/recover/{orderId}                - Drain outbox now for a compensated order
      * 
      * TRANSACTION QUERIES:
-     * GET  /payment/transactions                     - Get all transactions
+     * GET  /payment/transactions                     - Get all transactions (paged)
+     * GET  /payment/transactions/export              - Stream transactions as NDJSON
      * GET  /payment/transactions/{id}                - Get transaction by ID
      * GET  /payment/transactions/order/{orderId}     - Get transactions by order ID
      * GET  /payment/transactions/user/{userId}       - Get transactions by user ID
      * GET  /payment/transactions/restaurant/{restaurantId} - Get by restaurant ID
      * GET  /payment/transactions/status/{status}     - Get transactions by status
      * 
+     * STATISTICS:
+     * GET  /payment/stats/user/{userId}              - Payment aggregates for a user
+     * GET  /payment/stats/restaurant/{restaurantId}  - Payment aggregates for a restaurant
+     * POST /payment/stats/rebuild                    - Recompute aggregates from the ledger
+     * 
+     * LEDGER ARCHIVE:
+     * GET  /payment/transactions/range               - Transactions in a date range (incl. archived months)
+     * GET  /payment/ledger/archives                  - Catalog of archived months
+     * POST /payment/ledger/archive                   - Archive cold months now
+     * 
+     * SETTLEMENTS:
+     * POST /payment/settlements                      - Settle a range of days per restaurant
+     * GET  /payment/settlements/{runId}/summary.csv  - Summary of a completed run
+     * 
+     * SAGAS:
+     * GET  /payment/sagas                            - In-flight payment sagas
+     * GET  /payment/sagas/{sagaId}                   - Saga with its step log
+     * 
      * HEALTH:
      * GET  /payment/health                           - Health check
      */
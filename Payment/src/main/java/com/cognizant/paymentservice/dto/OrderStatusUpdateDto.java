@@ -0,0 +1,48 @@
+package com.cognizant.paymentservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One entry of a bulk order status update sent to Order Service
+ */
+public class OrderStatusUpdateDto {
+
+    @JsonProperty("orderId")
+    private String orderId;
+
+    @JsonProperty("paymentStatus")
+    private String paymentStatus;  // SUCCESS, FAILED, REFUNDED
+
+    // ==================== CONSTRUCTORS ====================
+
+    public OrderStatusUpdateDto() {}
+
+    public OrderStatusUpdateDto(String orderId, String paymentStatus) {
+        this.orderId = orderId;
+        this.paymentStatus = paymentStatus;
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public String getOrderId() { 
+        return orderId; 
+    }
+    public void setOrderId(String orderId) { 
+        this.orderId = orderId; 
+    }
+
+    public String getPaymentStatus() { 
+        return paymentStatus; 
+    }
+    public void setPaymentStatus(String paymentStatus) { 
+        this.paymentStatus = paymentStatus; 
+    }
+
+    @Override
+    public String toString() {
+        return "OrderStatusUpdateDto{" +
+                "orderId='" + orderId + '\'' +
+                ", paymentStatus='" + paymentStatus + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package com.cognizant.paymentservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Outcome of one entry of a bulk order status update
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderStatusUpdateResultDto {
+
+    @JsonProperty("orderId")
+    private String orderId;
+
+    @JsonProperty("updated")
+    private boolean updated;
+
+    @JsonProperty("orderStatus")
+    private String orderStatus;  // new order status when updated
+
+    @JsonProperty("error")
+    private String error;  // reason when not updated
+
+    // ==================== CONSTRUCTORS ====================
+
+    public OrderStatusUpdateResultDto() {}
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public String getOrderId() { 
+        return orderId; 
+    }
+    public void setOrderId(String orderId) { 
+        this.orderId = orderId; 
+    }
+
+    public boolean isUpdated() { 
+        return updated; 
+    }
+    public void setUpdated(boolean updated) { 
+        this.updated = updated; 
+    }
+
+    public String getOrderStatus() { 
+        return orderStatus; 
+    }
+    public void setOrderStatus(String orderStatus) { 
+        this.orderStatus = orderStatus; 
+    }
+
+    public String getError() { 
+        return error; 
+    }
+    public void setError(String error) { 
+        this.error = error; 
+    }
+
+    @Override
+    public String toString() {
+        return "OrderStatusUpdateResultDto{" +
+                "orderId='" + orderId + '\'' +
+                ", updated=" + updated +
+                ", orderStatus='" + orderStatus + '\'' +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
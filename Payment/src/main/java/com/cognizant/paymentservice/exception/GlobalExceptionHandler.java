@@ -61,6 +61,27 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handle SettlementInProgressException: the caller retries later or polls the run
+     */
+    @ExceptionHandler(SettlementInProgressException.class)
+    public ResponseEntity<Map<String, Object>> handleSettlementInProgressException(
+            SettlementInProgressException ex, 
+            WebRequest request) {
+        
+        logger.warn("🟡 SettlementInProgressException: {}", ex.getMessage());
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.CONFLICT.value());
+        response.put("error", "SETTLEMENT_IN_PROGRESS");
+        response.put("message", ex.getMessage());
+        response.put("runId", ex.getRunId());
+        response.put("path", request.getDescription(false).replace("uri=", ""));
+        
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
     /**
      * Handle IllegalArgumentException
      */
@@ -0,0 +1,15 @@
+package com.cognizant.paymentservice.exception;
+
+// A settlement run is already in progress on this node
+public class SettlementInProgressException extends RuntimeException {
+    private final String runId;
+
+    public SettlementInProgressException(String runId) {
+        super("Settlement " + (runId != null ? runId : "run") + " is already in progress");
+        this.runId = runId;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+}
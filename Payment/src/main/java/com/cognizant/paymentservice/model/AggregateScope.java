@@ -0,0 +1,9 @@
+package com.cognizant.paymentservice.model;
+
+/**
+ * What a payment aggregate row is keyed by
+ */
+public enum AggregateScope {
+    USER,
+    RESTAURANT
+}
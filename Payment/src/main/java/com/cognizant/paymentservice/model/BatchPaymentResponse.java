@@ -0,0 +1,66 @@
+package com.cognizant.paymentservice.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response of POST /payment/pay/batch.
+ * Every request gets a result at the same index; a declined payment does not
+ * fail the batch. orderNotification is DELIVERED when Order Service accepted
+ * the bulk status update, QUEUED when the outbox relay will deliver it.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchPaymentResponse {
+
+    @JsonProperty("total")
+    private int total;
+
+    @JsonProperty("succeeded")
+    private int succeeded;
+
+    @JsonProperty("failed")
+    private int failed;
+
+    @JsonProperty("orderNotification")
+    private String orderNotification;  // DELIVERED, PARTIALLY_DELIVERED, QUEUED, NONE
+
+    @JsonProperty("results")
+    private List<BatchPaymentResult> results;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("responseTimestamp")
+    private LocalDateTime responseTimestamp;
+
+    public BatchPaymentResponse() {
+        this.responseTimestamp = LocalDateTime.now();
+    }
+
+    public BatchPaymentResponse(List<BatchPaymentResult> results) {
+        this();
+        this.results = results;
+        this.total = results.size();
+        this.succeeded = (int) results.stream().filter(r -> r.getStatus() == TransactionStatus.SUCCESS).count();
+        this.failed = total - succeeded;
+    }
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getSucceeded() { return succeeded; }
+    public void setSucceeded(int succeeded) { this.succeeded = succeeded; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public String getOrderNotification() { return orderNotification; }
+    public void setOrderNotification(String orderNotification) { this.orderNotification = orderNotification; }
+
+    public List<BatchPaymentResult> getResults() { return results; }
+    public void setResults(List<BatchPaymentResult> results) { this.results = results; }
+
+    public LocalDateTime getResponseTimestamp() { return responseTimestamp; }
+    public void setResponseTimestamp(LocalDateTime responseTimestamp) { this.responseTimestamp = responseTimestamp; }
+}
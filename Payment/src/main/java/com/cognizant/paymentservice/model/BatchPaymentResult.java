@@ -0,0 +1,61 @@
+package com.cognizant.paymentservice.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.UUID;
+
+/**
+ * Outcome of one payment in a batch, in request order
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchPaymentResult {
+
+    @JsonProperty("index")
+    private int index;  // position in the request array
+
+    @JsonProperty("orderId")
+    private String orderId;
+
+    @JsonProperty("transactionId")
+    private UUID transactionId;
+
+    @JsonProperty("amount")
+    private Money amount;
+
+    @JsonProperty("status")
+    private TransactionStatus status;  // SUCCESS or FAILED
+
+    @JsonProperty("failureReason")
+    private String failureReason;
+
+    public BatchPaymentResult() {}
+
+    public static BatchPaymentResult of(int index, Transaction tx) {
+        BatchPaymentResult result = new BatchPaymentResult();
+        result.index = index;
+        result.orderId = tx.getOrderId();
+        result.transactionId = tx.getId();
+        result.amount = tx.getAmount();
+        result.status = tx.getStatus();
+        result.failureReason = tx.getFailureReason();
+        return result;
+    }
+
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public String getOrderId() { return orderId; }
+    public void setOrderId(String orderId) { this.orderId = orderId; }
+
+    public UUID getTransactionId() { return transactionId; }
+    public void setTransactionId(UUID transactionId) { this.transactionId = transactionId; }
+
+    public Money getAmount() { return amount; }
+    public void setAmount(Money amount) { this.amount = amount; }
+
+    public TransactionStatus getStatus() { return status; }
+    public void setStatus(TransactionStatus status) { this.status = status; }
+
+    public String getFailureReason() { return failureReason; }
+    public void setFailureReason(String failureReason) { this.failureReason = failureReason; }
+}
@@ -0,0 +1,131 @@
+package com.cognizant.paymentservice.model;
+
+import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Catalog entry for one month of the ledger that was moved to an archive file.
+ * Inserted first as a claim (claimedBy set) by the node that archives the month:
+ * the primary key makes every other node back off. The claim is cleared in the
+ * DB transaction that takes the month out of the aggregates' live share, so a
+ * month is never archived twice. Only entries without a claim are archived months.
+ */
+@Entity
+@Table(name = "ledger_archives")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LedgerArchive {
+
+    @Id
+    @JsonProperty("month")
+    @Column(name = "archive_month", length = 7)
+    private String month;  // yyyy-MM
+
+    @JsonProperty("fileName")
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @JsonProperty("rowCount")
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @JsonProperty("sizeBytes")
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("archivedAt")
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @JsonProperty("claimedBy")
+    @Column(name = "claimed_by")
+    private String claimedBy;  // archiver claim token while the month is being archived, null once archived
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("claimedUntil")
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    // ==================== CONSTRUCTORS ====================
+
+    public LedgerArchive() {
+    }
+
+    public LedgerArchive(YearMonth month, String fileName, long rowCount, long sizeBytes) {
+        this.month = month.toString();
+        this.fileName = fileName;
+        this.rowCount = rowCount;
+        this.sizeBytes = sizeBytes;
+        this.archivedAt = LocalDateTime.now();
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public String getMonth() {
+        return month;
+    }
+    public void setMonth(String month) {
+        this.month = month;
+    }
+
+    public YearMonth yearMonth() {
+        return YearMonth.parse(month);
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+    public void setRowCount(long rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+    public void setClaimedUntil(LocalDateTime claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+
+    @Override
+    public String toString() {
+        return "LedgerArchive{" +
+                "month='" + month + '\'' +
+                ", fileName='" + fileName + '\'' +
+                ", rowCount=" + rowCount +
+                ", sizeBytes=" + sizeBytes +
+                ", claimedBy='" + claimedBy + '\'' +
+                '}';
+    }
+}
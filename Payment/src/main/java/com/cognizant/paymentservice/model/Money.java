@@ -0,0 +1,152 @@
+package com.cognizant.paymentservice.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * INR amount held as a whole number of paise.
+ *
+ * Immutable and exact: no rounding drift in sums, no boxing in arithmetic.
+ * Stored as BIGINT paise (see {@link MoneyConverter}) and written to JSON as a
+ * decimal rupee amount ("amount": 250.50), so the API shape is unchanged.
+ * Hot paths (wallet debit/credit, aggregates) work on the raw paise via
+ * {@link #paise()} and the static helpers instead of allocating instances.
+ */
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public final class Money implements Comparable<Money>, Serializable {
+
+    public static final Money ZERO = new Money(0);
+
+    private final long paise;
+
+    private Money(long paise) {
+        this.paise = paise;
+    }
+
+    // ==================== FACTORIES ====================
+
+    public static Money ofPaise(long paise) {
+        return paise == 0 ? ZERO : new Money(paise);
+    }
+
+    /**
+     * Exact conversion from rupees
+     * @throws IllegalArgumentException if the amount has more than 2 decimal places
+     */
+    public static Money ofRupees(BigDecimal rupees) {
+        try {
+            return ofPaise(rupees.movePointRight(2).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must have at most 2 decimal places: " + rupees.toPlainString());
+        }
+    }
+
+    /**
+     * Conversion from a rupee string such as "250.50"
+     */
+    public static Money parse(String rupees) {
+        return ofRupees(new BigDecimal(rupees.trim()));
+    }
+
+    // ==================== ARITHMETIC ====================
+
+    public long paise() {
+        return paise;
+    }
+
+    public Money plus(Money other) {
+        return ofPaise(Math.addExact(paise, other.paise));
+    }
+
+    public Money minus(Money other) {
+        return ofPaise(Math.subtractExact(paise, other.paise));
+    }
+
+    public Money negate() {
+        return ofPaise(Math.negateExact(paise));
+    }
+
+    public boolean isPositive() {
+        return paise > 0;
+    }
+
+    public boolean isNegative() {
+        return paise < 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return paise < other.paise;
+    }
+
+    public BigDecimal toRupees() {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    /**
+     * Null-safe paise of an optional amount
+     */
+    public static long paiseOf(Money money) {
+        return money == null ? 0L : money.paise;
+    }
+
+    // ==================== OBJECT ====================
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(paise, other.paise);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money && ((Money) o).paise == paise);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(paise);
+    }
+
+    @Override
+    public String toString() {
+        return toRupees().toPlainString();
+    }
+
+    // ==================== JSON ====================
+
+    public static class Serializer extends JsonSerializer<Money> {
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(value.toRupees());
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<Money> {
+        @Override
+        public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            try {
+                if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                    return ofRupees(p.getDecimalValue());
+                }
+                if (token == JsonToken.VALUE_STRING) {
+                    return parse(p.getText());
+                }
+            } catch (IllegalArgumentException e) {
+                return (Money) ctxt.handleWeirdStringValue(Money.class, p.getText(), e.getMessage());
+            }
+            return (Money) ctxt.handleUnexpectedToken(Money.class, p);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.cognizant.paymentservice.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores {@link Money} as a BIGINT column of paise
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.paise();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(Long paise) {
+        return paise == null ? null : Money.ofPaise(paise);
+    }
+}
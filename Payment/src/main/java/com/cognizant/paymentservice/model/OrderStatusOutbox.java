@@ -0,0 +1,191 @@
+package com.cognizant.paymentservice.model;
+
+import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Transactional outbox row for Order Service status propagation.
+ * Written in the same DB transaction as the Transaction row and
+ * delivered later by the outbox relay.
+ */
+@Entity
+@Table(name = "order_status_outbox", indexes = {
+    @Index(name = "idx_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+    @Index(name = "idx_outbox_order_id", columnList = "order_id")
+})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderStatusOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonProperty("id")
+    @Column(name = "id")
+    private Long id;
+
+    @JsonProperty("orderId")
+    @Column(name = "order_id", nullable = false)
+    private String orderId;
+
+    @JsonProperty("transactionId")
+    @Column(name = "transaction_id", nullable = false)
+    private UUID transactionId;
+
+    @JsonProperty("paymentStatus")
+    @Column(name = "payment_status", nullable = false)
+    private String paymentStatus;  // SUCCESS, FAILED, REFUNDED
+
+    @JsonProperty("status")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private OutboxStatus status;
+
+    @JsonProperty("attempts")
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("nextAttemptAt")
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @JsonProperty("lastError")
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @JsonProperty("claimedBy")
+    @Column(name = "claimed_by")
+    private String claimedBy;  // relay claim token (node + run), null when not leased
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("claimedUntil")
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("createdAt")
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("deliveredAt")
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+
+    // ==================== CONSTRUCTORS ====================
+
+    public OrderStatusOutbox() {
+        this.status = OutboxStatus.PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    public OrderStatusOutbox(String orderId, UUID transactionId, String paymentStatus) {
+        this();
+        this.orderId = orderId;
+        this.transactionId = transactionId;
+        this.paymentStatus = paymentStatus;
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public UUID getTransactionId() {
+        return transactionId;
+    }
+    public void setTransactionId(UUID transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+    public void setPaymentStatus(String paymentStatus) {
+        this.paymentStatus = paymentStatus;
+    }
+
+    public OutboxStatus getStatus() {
+        return status;
+    }
+    public void setStatus(OutboxStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+    public void setClaimedUntil(LocalDateTime claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getDeliveredAt() {
+        return deliveredAt;
+    }
+    public void setDeliveredAt(LocalDateTime deliveredAt) {
+        this.deliveredAt = deliveredAt;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderStatusOutbox{" +
+                "id=" + id +
+                ", orderId='" + orderId + '\'' +
+                ", transactionId=" + transactionId +
+                ", paymentStatus='" + paymentStatus + '\'' +
+                ", status=" + status +
+                ", attempts=" + attempts +
+                ", nextAttemptAt=" + nextAttemptAt +
+                '}';
+    }
+}
@@ -0,0 +1,7 @@
+package com.cognizant.paymentservice.model;
+
+public enum OutboxStatus {
+    PENDING,
+    DELIVERED,
+    DEAD
+}
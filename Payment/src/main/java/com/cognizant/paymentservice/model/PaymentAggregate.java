@@ -0,0 +1,232 @@
+package com.cognizant.paymentservice.model;
+
+import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Running totals of successful payments per user and per restaurant.
+ * Maintained in the same DB transaction as each SUCCESS, REFUND or compensation,
+ * so reads never have to aggregate the transactions table.
+ * Refunded and compensated payments are subtracted again, matching a
+ * status = SUCCESS query over the ledger.
+ * Totals are kept in paise, so incremental updates never accumulate rounding error;
+ * the sum of squares (paise²) stays a double because it can outgrow a long.
+ * The archived* columns hold the share of the totals whose ledger rows were moved
+ * to archive files, so a rebuild from the live ledger can add them back.
+ */
+@Entity
+@Table(name = "payment_aggregates")
+@IdClass(PaymentAggregate.Key.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaymentAggregate {
+
+    @Id
+    @JsonProperty("scope")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope", length = 16)
+    private AggregateScope scope;
+
+    @Id
+    @JsonProperty("scopeId")
+    @Column(name = "scope_id")
+    private String scopeId;  // userId or restaurantId
+
+    @JsonProperty("count")
+    @Column(name = "tx_count", nullable = false)
+    private long txCount;
+
+    @JsonIgnore
+    @Column(name = "total_paise", nullable = false)
+    private long totalPaise;
+
+    @JsonIgnore
+    @Column(name = "sum_squares_paise", nullable = false)
+    private double sumSquares;
+
+    @JsonIgnore
+    @Column(name = "archived_count", nullable = false)
+    private long archivedCount;
+
+    @JsonIgnore
+    @Column(name = "archived_paise", nullable = false)
+    private long archivedPaise;
+
+    @JsonIgnore
+    @Column(name = "archived_sum_squares_paise", nullable = false)
+    private double archivedSumSquares;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("lastTransactionAt")
+    @Column(name = "last_transaction_at")
+    private LocalDateTime lastTransactionAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("updatedAt")
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // ==================== CONSTRUCTORS ====================
+
+    public PaymentAggregate() {
+    }
+
+    /**
+     * Empty aggregate for a user or restaurant with no payments yet
+     */
+    public PaymentAggregate(AggregateScope scope, String scopeId) {
+        this.scope = scope;
+        this.scopeId = scopeId;
+    }
+
+    // ==================== DERIVED VALUES ====================
+
+    @JsonProperty("totalAmount")
+    public Money getTotalAmount() {
+        return Money.ofPaise(totalPaise);
+    }
+
+    /**
+     * Mean payment amount in rupees
+     */
+    @JsonProperty("averageAmount")
+    public double getAverageAmount() {
+        return txCount == 0 ? 0.0 : (double) totalPaise / txCount / 100.0;
+    }
+
+    /**
+     * Population standard deviation of the payment amounts, in rupees
+     */
+    @JsonProperty("stdDevAmount")
+    public double getStdDevAmount() {
+        if (txCount == 0) {
+            return 0.0;
+        }
+        double mean = (double) totalPaise / txCount;
+        return Math.sqrt(Math.max(0.0, sumSquares / txCount - mean * mean)) / 100.0;
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public AggregateScope getScope() {
+        return scope;
+    }
+    public void setScope(AggregateScope scope) {
+        this.scope = scope;
+    }
+
+    public String getScopeId() {
+        return scopeId;
+    }
+    public void setScopeId(String scopeId) {
+        this.scopeId = scopeId;
+    }
+
+    public long getTxCount() {
+        return txCount;
+    }
+    public void setTxCount(long txCount) {
+        this.txCount = txCount;
+    }
+
+    public long getTotalPaise() {
+        return totalPaise;
+    }
+    public void setTotalPaise(long totalPaise) {
+        this.totalPaise = totalPaise;
+    }
+
+    public double getSumSquares() {
+        return sumSquares;
+    }
+    public void setSumSquares(double sumSquares) {
+        this.sumSquares = sumSquares;
+    }
+
+    public long getArchivedCount() {
+        return archivedCount;
+    }
+    public void setArchivedCount(long archivedCount) {
+        this.archivedCount = archivedCount;
+    }
+
+    public long getArchivedPaise() {
+        return archivedPaise;
+    }
+    public void setArchivedPaise(long archivedPaise) {
+        this.archivedPaise = archivedPaise;
+    }
+
+    public double getArchivedSumSquares() {
+        return archivedSumSquares;
+    }
+    public void setArchivedSumSquares(double archivedSumSquares) {
+        this.archivedSumSquares = archivedSumSquares;
+    }
+
+    public LocalDateTime getLastTransactionAt() {
+        return lastTransactionAt;
+    }
+    public void setLastTransactionAt(LocalDateTime lastTransactionAt) {
+        this.lastTransactionAt = lastTransactionAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentAggregate{" +
+                "scope=" + scope +
+                ", scopeId='" + scopeId + '\'' +
+                ", txCount=" + txCount +
+                ", totalAmount=" + getTotalAmount() +
+                ", lastTransactionAt=" + lastTransactionAt +
+                '}';
+    }
+
+    // ==================== COMPOSITE KEY ====================
+
+    public static class Key implements Serializable {
+        private AggregateScope scope;
+        private String scopeId;
+
+        public Key() {
+        }
+
+        public Key(AggregateScope scope, String scopeId) {
+            this.scope = scope;
+            this.scopeId = scopeId;
+        }
+
+        public AggregateScope getScope() {
+            return scope;
+        }
+
+        public String getScopeId() {
+            return scopeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return scope == key.scope && Objects.equals(scopeId, key.scopeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, scopeId);
+        }
+    }
+}
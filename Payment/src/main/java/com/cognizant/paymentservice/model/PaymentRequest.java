@@ -6,8 +6,7 @@ import jakarta.validation.constraints.*;
 public class PaymentRequest {
 
     @NotNull(message = "Amount is required")
-    @Positive(message = "Amount must be greater than zero")
-    private Double amount;
+    private Money amount;
 
     @NotBlank(message = "Payment method is required")
     private String method; // CARD or UPI
@@ -26,6 +25,11 @@ public class PaymentRequest {
     private RestaurantInfo restaurant;
 
     // ----------------- Conditional validations -----------------
+    @AssertTrue(message = "Amount must be greater than zero")
+    private boolean isAmountPositive() {
+        return amount == null || amount.isPositive();
+    }
+
     @AssertTrue(message = "Card number is required")
     private boolean isCardNumberValid() {
         return !"CARD".equalsIgnoreCase(method) || (cardNumber != null && !cardNumber.isBlank());
@@ -47,8 +51,8 @@ public class PaymentRequest {
     }
 
     // ----------------- Getters and Setters -----------------
-    public Double getAmount() { return amount; }
-    public void setAmount(Double amount) { this.amount = amount; }
+    public Money getAmount() { return amount; }
+    public void setAmount(Money amount) { this.amount = amount; }
 
     public String getMethod() { return method; }
     public void setMethod(String method) { this.method = method; }
@@ -40,6 +40,9 @@ public class PaymentResponse {
     @JsonProperty("sagaStatus")
     private String sagaStatus;  // SUCCESS, PARTIAL_SUCCESS, FAILED
 
+    @JsonProperty("sagaId")
+    private String sagaId;  // step log under GET /payment/sagas/{sagaId}
+
     @JsonProperty("message")
     private String message;
 
@@ -66,7 +69,7 @@ public class PaymentResponse {
         
         if (transaction != null) {
             this.transactionId = transaction.getId();  // ✅ UUID to UUID
-            this.sagaStatus = "SUCCESS".equalsIgnoreCase(transaction.getStatus()) 
+            this.sagaStatus = transaction.getStatus() == TransactionStatus.SUCCESS
                 ? "PAYMENT_SUCCESS" 
                 : "PAYMENT_FAILED";
             this.message = "Payment processing completed";
@@ -162,6 +165,13 @@ public class PaymentResponse {
         this.sagaStatus = sagaStatus; 
     }
 
+    public String getSagaId() { 
+        return sagaId; 
+    }
+    public void setSagaId(String sagaId) { 
+        this.sagaId = sagaId; 
+    }
+
     public String getMessage() { 
         return message; 
     }
@@ -176,8 +186,7 @@ public class PaymentResponse {
      */
     public boolean isPaymentSuccessful() {
         return transaction != null && 
-               transaction.getStatus() != null &&
-               "SUCCESS".equalsIgnoreCase(transaction.getStatus());
+               transaction.getStatus() == TransactionStatus.SUCCESS;
     }
 
     /**
@@ -201,8 +210,7 @@ public class PaymentResponse {
      */
     public boolean isPaymentFailed() {
         return transaction != null && 
-               transaction.getStatus() != null &&
-               "FAILED".equalsIgnoreCase(transaction.getStatus());
+               transaction.getStatus() == TransactionStatus.FAILED;
     }
 
     /**
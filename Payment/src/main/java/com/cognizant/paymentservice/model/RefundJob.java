@@ -0,0 +1,129 @@
+package com.cognizant.paymentservice.model;
+
+import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+
+/**
+ * A bulk refund request: the payments it selected are in refund_queue under its ID.
+ * Either restaurantId with a time range, or a number of order IDs, was given.
+ */
+@Entity
+@Table(name = "refund_jobs")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RefundJob {
+
+    @Id
+    @JsonProperty("jobId")
+    @Column(name = "job_id", length = 36)
+    private String id;
+
+    @JsonProperty("restaurantId")
+    @Column(name = "restaurant_id")
+    private String restaurantId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("from")
+    @Column(name = "range_from")
+    private LocalDateTime from;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("to")
+    @Column(name = "range_to")
+    private LocalDateTime to;
+
+    @JsonProperty("orders")
+    @Column(name = "orders")
+    private Integer orders;  // order IDs requested, null for a restaurant job
+
+    @JsonProperty("queued")
+    @Column(name = "queued", nullable = false)
+    private int queued;
+
+    @JsonProperty("duplicates")
+    @Column(name = "duplicates", nullable = false)
+    private int duplicates;  // selected payments already queued by an earlier job
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("createdAt")
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // ==================== CONSTRUCTORS ====================
+
+    public RefundJob() {
+    }
+
+    public RefundJob(String id) {
+        this.id = id;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getRestaurantId() {
+        return restaurantId;
+    }
+
+    public void setRestaurantId(String restaurantId) {
+        this.restaurantId = restaurantId;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public Integer getOrders() {
+        return orders;
+    }
+
+    public void setOrders(Integer orders) {
+        this.orders = orders;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public void setQueued(int queued) {
+        this.queued = queued;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(int duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
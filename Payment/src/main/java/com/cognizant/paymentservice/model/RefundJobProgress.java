@@ -0,0 +1,97 @@
+package com.cognizant.paymentservice.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk refund job: its queued payments by refund status.
+ * The job is complete once nothing is pending.
+ */
+public class RefundJobProgress {
+
+    @JsonProperty("job")
+    private RefundJob job;
+
+    @JsonProperty("pending")
+    private long pending;
+
+    @JsonProperty("refunded")
+    private long refunded;
+
+    @JsonProperty("skipped")
+    private long skipped;
+
+    @JsonProperty("failed")
+    private long failed;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("lastProcessedAt")
+    private LocalDateTime lastProcessedAt;
+
+    public RefundJobProgress() {
+    }
+
+    public RefundJobProgress(RefundJob job) {
+        this.job = job;
+    }
+
+    @JsonProperty("complete")
+    public boolean isComplete() {
+        return pending == 0;
+    }
+
+    @JsonProperty("percentDone")
+    public double getPercentDone() {
+        long total = pending + refunded + skipped + failed;
+        return total == 0 ? 100.0 : Math.round(1000.0 * (total - pending) / total) / 10.0;
+    }
+
+    public RefundJob getJob() {
+        return job;
+    }
+
+    public void setJob(RefundJob job) {
+        this.job = job;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+
+    public void setPending(long pending) {
+        this.pending = pending;
+    }
+
+    public long getRefunded() {
+        return refunded;
+    }
+
+    public void setRefunded(long refunded) {
+        this.refunded = refunded;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public LocalDateTime getLastProcessedAt() {
+        return lastProcessedAt;
+    }
+
+    public void setLastProcessedAt(LocalDateTime lastProcessedAt) {
+        this.lastProcessedAt = lastProcessedAt;
+    }
+}
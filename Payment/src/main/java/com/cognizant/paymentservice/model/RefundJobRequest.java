@@ -0,0 +1,73 @@
+package com.cognizant.paymentservice.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bulk refund selection: the successful payments of a restaurant within [from, to),
+ * or the successful payments of the given orders
+ */
+public class RefundJobRequest {
+
+    @JsonProperty("restaurantId")
+    private String restaurantId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("from")
+    private LocalDateTime from;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("to")
+    private LocalDateTime to;
+
+    @JsonProperty("orderIds")
+    private List<String> orderIds;
+
+    public static RefundJobRequest forRestaurant(String restaurantId, LocalDateTime from, LocalDateTime to) {
+        RefundJobRequest request = new RefundJobRequest();
+        request.restaurantId = restaurantId;
+        request.from = from;
+        request.to = to;
+        return request;
+    }
+
+    public static RefundJobRequest forOrders(List<String> orderIds) {
+        RefundJobRequest request = new RefundJobRequest();
+        request.orderIds = orderIds;
+        return request;
+    }
+
+    public String getRestaurantId() {
+        return restaurantId;
+    }
+
+    public void setRestaurantId(String restaurantId) {
+        this.restaurantId = restaurantId;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public List<String> getOrderIds() {
+        return orderIds;
+    }
+
+    public void setOrderIds(List<String> orderIds) {
+        this.orderIds = orderIds;
+    }
+}
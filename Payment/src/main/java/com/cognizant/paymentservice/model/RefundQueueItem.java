@@ -0,0 +1,164 @@
+package com.cognizant.paymentservice.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One payment waiting in the refund queue.
+ * A transaction is queued at most once (uk_refund_queue_transaction), whichever job asked first.
+ */
+@Entity
+@Table(name = "refund_queue", indexes = {
+    @Index(name = "idx_refund_queue_status", columnList = "status, id"),
+    @Index(name = "idx_refund_queue_job_status", columnList = "job_id, status")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_refund_queue_transaction", columnNames = "transaction_id"))
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RefundQueueItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonProperty("id")
+    @Column(name = "id")
+    private Long id;
+
+    @JsonProperty("jobId")
+    @Column(name = "job_id", nullable = false, length = 36)
+    private String jobId;
+
+    @JsonProperty("transactionId")
+    @Column(name = "transaction_id", nullable = false)
+    private UUID transactionId;
+
+    @JsonProperty("status")
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "status", nullable = false, length = 32)
+    private RefundStatus status;
+
+    @JsonProperty("attempts")
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @JsonProperty("lastError")
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @JsonProperty("claimedBy")
+    @Column(name = "claimed_by")
+    private String claimedBy;  // worker claim token (node + run), null when not leased
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("claimedUntil")
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("createdAt")
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("processedAt")
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    // ==================== CONSTRUCTORS ====================
+
+    public RefundQueueItem() {
+    }
+
+    public RefundQueueItem(String jobId, UUID transactionId) {
+        this.jobId = jobId;
+        this.transactionId = transactionId;
+        this.status = RefundStatus.PENDING;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public UUID getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(UUID transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public RefundStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(RefundStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(LocalDateTime claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(LocalDateTime processedAt) {
+        this.processedAt = processedAt;
+    }
+}
@@ -0,0 +1,8 @@
+package com.cognizant.paymentservice.model;
+
+public enum RefundStatus {
+    PENDING,
+    REFUNDED,
+    SKIPPED,   // no longer SUCCESS when its turn came (refunded or compensated meanwhile)
+    FAILED
+}
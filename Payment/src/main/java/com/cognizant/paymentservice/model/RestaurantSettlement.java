@@ -0,0 +1,131 @@
+package com.cognizant.paymentservice.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+
+/**
+ * One restaurant's line of a settlement run
+ * Amounts in paise; the payout is the sum of the payments still SUCCESS at settlement time.
+ */
+public class RestaurantSettlement {
+
+    @JsonProperty("restaurantId")
+    private String restaurantId;
+
+    @JsonProperty("successCount")
+    private long successCount;
+
+    @JsonProperty("successPaise")
+    private long successPaise;
+
+    @JsonProperty("refundedCount")
+    private long refundedCount;
+
+    @JsonProperty("refundedPaise")
+    private long refundedPaise;
+
+    @JsonProperty("compensatedCount")
+    private long compensatedCount;
+
+    @JsonProperty("compensatedPaise")
+    private long compensatedPaise;
+
+    @JsonProperty("failedCount")
+    private long failedCount;
+
+    @JsonProperty("pendingCount")
+    private long pendingCount;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSSSS")
+    @JsonProperty("firstPayment")
+    private LocalDateTime firstPayment;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSSSS")
+    @JsonProperty("lastPayment")
+    private LocalDateTime lastPayment;
+
+    public RestaurantSettlement() {
+    }
+
+    public RestaurantSettlement(String restaurantId) {
+        this.restaurantId = restaurantId;
+    }
+
+    /**
+     * Count one ledger row of this restaurant
+     */
+    public void add(Transaction tx) {
+        long paise = Money.paiseOf(tx.getAmount());
+        if (tx.getStatus() != null) {
+            switch (tx.getStatus()) {
+                case SUCCESS:
+                    successCount++;
+                    successPaise += paise;
+                    break;
+                case REFUNDED:
+                    refundedCount++;
+                    refundedPaise += paise;
+                    break;
+                case COMPENSATED:
+                    compensatedCount++;
+                    compensatedPaise += paise;
+                    break;
+                case FAILED:
+                    failedCount++;
+                    break;
+                case PENDING:
+                    pendingCount++;
+                    break;
+                default:
+                    break;
+            }
+        }
+        LocalDateTime at = tx.getTransactionDate();
+        if (firstPayment == null || at.isBefore(firstPayment)) {
+            firstPayment = at;
+        }
+        if (lastPayment == null || at.isAfter(lastPayment)) {
+            lastPayment = at;
+        }
+    }
+
+    @JsonIgnore
+    public long getPayoutPaise() {
+        return successPaise;
+    }
+
+    public String getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(String restaurantId) { this.restaurantId = restaurantId; }
+
+    public long getSuccessCount() { return successCount; }
+    public void setSuccessCount(long successCount) { this.successCount = successCount; }
+
+    public long getSuccessPaise() { return successPaise; }
+    public void setSuccessPaise(long successPaise) { this.successPaise = successPaise; }
+
+    public long getRefundedCount() { return refundedCount; }
+    public void setRefundedCount(long refundedCount) { this.refundedCount = refundedCount; }
+
+    public long getRefundedPaise() { return refundedPaise; }
+    public void setRefundedPaise(long refundedPaise) { this.refundedPaise = refundedPaise; }
+
+    public long getCompensatedCount() { return compensatedCount; }
+    public void setCompensatedCount(long compensatedCount) { this.compensatedCount = compensatedCount; }
+
+    public long getCompensatedPaise() { return compensatedPaise; }
+    public void setCompensatedPaise(long compensatedPaise) { this.compensatedPaise = compensatedPaise; }
+
+    public long getFailedCount() { return failedCount; }
+    public void setFailedCount(long failedCount) { this.failedCount = failedCount; }
+
+    public long getPendingCount() { return pendingCount; }
+    public void setPendingCount(long pendingCount) { this.pendingCount = pendingCount; }
+
+    public LocalDateTime getFirstPayment() { return firstPayment; }
+    public void setFirstPayment(LocalDateTime firstPayment) { this.firstPayment = firstPayment; }
+
+    public LocalDateTime getLastPayment() { return lastPayment; }
+    public void setLastPayment(LocalDateTime lastPayment) { this.lastPayment = lastPayment; }
+}
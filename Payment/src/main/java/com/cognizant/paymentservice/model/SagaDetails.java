@@ -0,0 +1,38 @@
+package com.cognizant.paymentservice.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * A saga with its step log, oldest entry first
+ */
+public class SagaDetails {
+
+    @JsonProperty("saga")
+    private SagaInstance saga;
+
+    @JsonProperty("steps")
+    private List<SagaStepLog> steps;
+
+    public SagaDetails() {
+    }
+
+    public SagaDetails(SagaInstance saga, List<SagaStepLog> steps) {
+        this.saga = saga;
+        this.steps = steps;
+    }
+
+    public SagaInstance getSaga() {
+        return saga;
+    }
+    public void setSaga(SagaInstance saga) {
+        this.saga = saga;
+    }
+
+    public List<SagaStepLog> getSteps() {
+        return steps;
+    }
+    public void setSteps(List<SagaStepLog> steps) {
+        this.steps = steps;
+    }
+}
@@ -0,0 +1,167 @@
+package com.cognizant.paymentservice.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+
+/**
+ * One run of a saga. The steps it went through are in saga_step_log.
+ * A RUNNING or COMPENSATING saga whose lease has expired belongs to a node
+ * that stopped mid-way and is picked up by saga recovery.
+ */
+@Entity
+@Table(name = "saga_instances", indexes = {
+    @Index(name = "idx_saga_status_lease", columnList = "status, lease_until"),
+    @Index(name = "idx_saga_status_updated", columnList = "status, updated_at")
+})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SagaInstance {
+
+    @Id
+    @JsonProperty("sagaId")
+    @Column(name = "saga_id", length = 36)
+    private String id;
+
+    @JsonProperty("sagaType")
+    @Column(name = "saga_type", nullable = false, length = 64)
+    private String sagaType;
+
+    @JsonProperty("status")
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "status", nullable = false, length = 32)
+    private SagaStatus status;
+
+    @JsonProperty("data")
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;  // JSON of the values the saga started with
+
+    @JsonProperty("failedStep")
+    @Column(name = "failed_step", length = 64)
+    private String failedStep;
+
+    @JsonProperty("lastError")
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @JsonProperty("ownerNode")
+    @Column(name = "owner_node", length = 64)
+    private String ownerNode;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("leaseUntil")
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("createdAt")
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("updatedAt")
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // ==================== CONSTRUCTORS ====================
+
+    public SagaInstance() {
+    }
+
+    public SagaInstance(String id, String sagaType, String payload, String ownerNode, LocalDateTime leaseUntil) {
+        this.id = id;
+        this.sagaType = sagaType;
+        this.status = SagaStatus.RUNNING;
+        this.payload = payload;
+        this.ownerNode = ownerNode;
+        this.leaseUntil = leaseUntil;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public String getId() {
+        return id;
+    }
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getSagaType() {
+        return sagaType;
+    }
+    public void setSagaType(String sagaType) {
+        this.sagaType = sagaType;
+    }
+
+    public SagaStatus getStatus() {
+        return status;
+    }
+    public void setStatus(SagaStatus status) {
+        this.status = status;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public String getFailedStep() {
+        return failedStep;
+    }
+    public void setFailedStep(String failedStep) {
+        this.failedStep = failedStep;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getOwnerNode() {
+        return ownerNode;
+    }
+    public void setOwnerNode(String ownerNode) {
+        this.ownerNode = ownerNode;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "SagaInstance{" +
+                "id='" + id + '\'' +
+                ", sagaType='" + sagaType + '\'' +
+                ", status=" + status +
+                ", failedStep='" + failedStep + '\'' +
+                '}';
+    }
+}
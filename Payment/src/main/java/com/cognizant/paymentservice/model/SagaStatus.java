@@ -0,0 +1,13 @@
+package com.cognizant.paymentservice.model;
+
+/**
+ * Lifecycle of a saga instance
+ * RUNNING → COMPLETED, or RUNNING → COMPENSATING → ABORTED when a step fails
+ * (or the owning node stopped mid-way)
+ */
+public enum SagaStatus {
+    RUNNING,
+    COMPENSATING,
+    COMPLETED,
+    ABORTED
+}
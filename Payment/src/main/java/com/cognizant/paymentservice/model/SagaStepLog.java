@@ -0,0 +1,146 @@
+package com.cognizant.paymentservice.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+
+/**
+ * Append-only log entry for one saga step.
+ * A SUCCEEDED or COMPENSATED entry is written in the same DB transaction as
+ * the step's own changes, so the log never claims work that was rolled back.
+ */
+@Entity
+@Table(name = "saga_step_log", indexes = {
+    @Index(name = "idx_saga_step_log_saga", columnList = "saga_id, id")
+})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SagaStepLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    @Column(name = "id")
+    private Long id;
+
+    @JsonIgnore
+    @Column(name = "saga_id", nullable = false, length = 36)
+    private String sagaId;
+
+    @JsonProperty("step")
+    @Column(name = "step", nullable = false, length = 64)
+    private String step;
+
+    @JsonProperty("status")
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "status", nullable = false, length = 32)
+    private SagaStepStatus status;
+
+    @JsonProperty("output")
+    @Column(name = "output", columnDefinition = "TEXT")
+    private String output;  // JSON of the values the step added, needed to compensate it later
+
+    @JsonProperty("error")
+    @Column(name = "error", columnDefinition = "TEXT")
+    private String error;
+
+    @JsonProperty("durationMs")
+    @Column(name = "duration_ms", nullable = false)
+    private long durationMs;
+
+    @JsonProperty("node")
+    @Column(name = "node", length = 64)
+    private String node;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    @JsonProperty("loggedAt")
+    @Column(name = "logged_at", nullable = false)
+    private LocalDateTime loggedAt;
+
+    // ==================== CONSTRUCTORS ====================
+
+    public SagaStepLog() {
+    }
+
+    public SagaStepLog(String sagaId, String step, SagaStepStatus status, String output, String error,
+                       long durationMs, String node) {
+        this.sagaId = sagaId;
+        this.step = step;
+        this.status = status;
+        this.output = output;
+        this.error = error;
+        this.durationMs = durationMs;
+        this.node = node;
+        this.loggedAt = LocalDateTime.now();
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSagaId() {
+        return sagaId;
+    }
+    public void setSagaId(String sagaId) {
+        this.sagaId = sagaId;
+    }
+
+    public String getStep() {
+        return step;
+    }
+    public void setStep(String step) {
+        this.step = step;
+    }
+
+    public SagaStepStatus getStatus() {
+        return status;
+    }
+    public void setStatus(SagaStepStatus status) {
+        this.status = status;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+    public void setOutput(String output) {
+        this.output = output;
+    }
+
+    public String getError() {
+        return error;
+    }
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public String getNode() {
+        return node;
+    }
+    public void setNode(String node) {
+        this.node = node;
+    }
+
+    public LocalDateTime getLoggedAt() {
+        return loggedAt;
+    }
+    public void setLoggedAt(LocalDateTime loggedAt) {
+        this.loggedAt = loggedAt;
+    }
+}
@@ -0,0 +1,11 @@
+package com.cognizant.paymentservice.model;
+
+/**
+ * Outcome recorded in the saga step log
+ */
+public enum SagaStepStatus {
+    SUCCEEDED,
+    FAILED,
+    COMPENSATED,
+    COMPENSATION_FAILED
+}
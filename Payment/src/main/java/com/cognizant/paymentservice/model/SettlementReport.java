@@ -0,0 +1,87 @@
+package com.cognizant.paymentservice.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Result of a settlement run over a range of days (written as report.json when the run is complete)
+ * summaryFile holds one line per restaurant; detailFiles hold the settled ledger rows
+ * in the columnar archive format, one file per restaurant partition.
+ */
+public class SettlementReport {
+
+    @JsonProperty("runId")
+    private String runId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    @JsonProperty("from")
+    private LocalDate from;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    @JsonProperty("to")
+    private LocalDate to;
+
+    @JsonProperty("rows")
+    private long rows;
+
+    @JsonProperty("restaurants")
+    private int restaurants;
+
+    @JsonProperty("payoutPaise")
+    private long payoutPaise;
+
+    @JsonProperty("resumedAtRow")
+    private long resumedAtRow;  // rows already settled by an interrupted run, 0 for a fresh run
+
+    @JsonProperty("summaryFile")
+    private String summaryFile;
+
+    @JsonProperty("detailFiles")
+    private List<String> detailFiles;
+
+    @JsonProperty("durationMs")
+    private long durationMs;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("completedAt")
+    private LocalDateTime completedAt;
+
+    public SettlementReport() {
+    }
+
+    public String getRunId() { return runId; }
+    public void setRunId(String runId) { this.runId = runId; }
+
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+
+    public long getRows() { return rows; }
+    public void setRows(long rows) { this.rows = rows; }
+
+    public int getRestaurants() { return restaurants; }
+    public void setRestaurants(int restaurants) { this.restaurants = restaurants; }
+
+    public long getPayoutPaise() { return payoutPaise; }
+    public void setPayoutPaise(long payoutPaise) { this.payoutPaise = payoutPaise; }
+
+    public long getResumedAtRow() { return resumedAtRow; }
+    public void setResumedAtRow(long resumedAtRow) { this.resumedAtRow = resumedAtRow; }
+
+    public String getSummaryFile() { return summaryFile; }
+    public void setSummaryFile(String summaryFile) { this.summaryFile = summaryFile; }
+
+    public List<String> getDetailFiles() { return detailFiles; }
+    public void setDetailFiles(List<String> detailFiles) { this.detailFiles = detailFiles; }
+
+    public long getDurationMs() { return durationMs; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
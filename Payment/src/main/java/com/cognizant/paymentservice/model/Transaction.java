@@ -1,6 +1,9 @@
 package com.cognizant.paymentservice.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.SecondaryRow;
+import org.hibernate.type.SqlTypes;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -10,10 +13,20 @@ import java.util.UUID;
 @Entity
 @Table(name = "transactions", indexes = {
     @Index(name = "idx_order_id", columnList = "order_id"),
-    @Index(name = "idx_user_id", columnList = "user_id"),
-    @Index(name = "idx_restaurant_id", columnList = "restaurant_id"),
-    @Index(name = "idx_status", columnList = "status")
+    @Index(name = "idx_user_status_date", columnList = "user_id, status, transaction_date"),
+    @Index(name = "idx_restaurant_status_date", columnList = "restaurant_id, status, transaction_date"),
+    @Index(name = "idx_status_date", columnList = "status, transaction_date"),
+    @Index(name = "idx_user_date", columnList = "user_id, transaction_date, id"),
+    @Index(name = "idx_restaurant_date", columnList = "restaurant_id, transaction_date, id"),
+    @Index(name = "idx_date", columnList = "transaction_date, id")
 })
+// Idempotency keys live in a side table: on MySQL the ledger is RANGE-partitioned by
+// transaction_date, and a partitioned table cannot carry a unique key without that column
+@SecondaryTable(name = "transaction_idempotency_keys",
+    pkJoinColumns = @PrimaryKeyJoinColumn(name = "transaction_id"),
+    foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT),
+    uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_key", columnNames = "idempotency_key"))
+@SecondaryRow(table = "transaction_idempotency_keys", optional = true)  // row only when a key was sent
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class Transaction {
     
@@ -36,21 +49,27 @@ public class Transaction {
     private String restaurantId;
     
     @JsonProperty("amount")
-    @Column(name = "amount", nullable = false)
-    private Double amount;
+    @Column(name = "amount_paise", nullable = false)
+    private Money amount;
     
     @JsonProperty("method")
     @Column(name = "method", nullable = false)
     private String method;  // CARD, WALLET, UPI
     
     @JsonProperty("status")
-    @Column(name = "status", nullable = false)
-    private String status;  // SUCCESS, FAILED, REFUNDED, PENDING
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)  // plain VARCHAR, not a MySQL ENUM, so adding a status needs no ALTER
+    @Column(name = "status", nullable = false, length = 32)
+    private TransactionStatus status;  // PENDING, SUCCESS, FAILED, COMPENSATED, REFUNDED
+    
+    @JsonProperty("failureReason")
+    @Column(name = "failure_reason", length = 64)
+    private String failureReason;  // INSUFFICIENT_BALANCE, MISSING_USER_ID, ... (null unless FAILED)
     
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
     @JsonProperty("transactionDate")
-    @Column(name = "transaction_date")
-    private LocalDateTime transactionDate;
+    @Column(name = "transaction_date", nullable = false)
+    private LocalDateTime transactionDate;  // partition key of the ledger
     
     @JsonProperty("message")
     @Column(name = "message", columnDefinition = "TEXT")
@@ -60,15 +79,19 @@ public class Transaction {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    @JsonProperty("idempotencyKey")
+    @Column(name = "idempotency_key", length = 128, table = "transaction_idempotency_keys")
+    private String idempotencyKey;  // client Idempotency-Key for /pay, null when not sent
+
     // ==================== CONSTRUCTORS ====================
 
     public Transaction() {
         this.id = UUID.randomUUID();
         this.transactionDate = LocalDateTime.now();
-        this.status = "PENDING";
+        this.status = TransactionStatus.PENDING;
     }
 
-    public Transaction(String orderId, String userId, String restaurantId, Double amount, String method) {
+    public Transaction(String orderId, String userId, String restaurantId, Money amount, String method) {
         this();
         this.orderId = orderId;
         this.userId = userId;
@@ -107,10 +130,10 @@ public class Transaction {
         this.restaurantId = restaurantId; 
     }
 
-    public Double getAmount() { 
+    public Money getAmount() { 
         return amount; 
     }
-    public void setAmount(Double amount) { 
+    public void setAmount(Money amount) { 
         this.amount = amount; 
     }
 
@@ -121,13 +144,35 @@ public class Transaction {
         this.method = method; 
     }
 
-    public String getStatus() { 
+    public TransactionStatus getStatus() { 
         return status; 
     }
-    public void setStatus(String status) { 
+    public void setStatus(TransactionStatus status) { 
         this.status = status; 
     }
 
+    public String getFailureReason() { 
+        return failureReason; 
+    }
+    public void setFailureReason(String failureReason) { 
+        this.failureReason = failureReason; 
+    }
+
+    /**
+     * Mark the transaction FAILED with a reason code
+     */
+    public void markFailed(String failureReason) {
+        this.status = TransactionStatus.FAILED;
+        this.failureReason = failureReason;
+    }
+
+    public String getIdempotencyKey() { 
+        return idempotencyKey; 
+    }
+    public void setIdempotencyKey(String idempotencyKey) { 
+        this.idempotencyKey = idempotencyKey; 
+    }
+
     public LocalDateTime getTransactionDate() { 
         return transactionDate; 
     }
@@ -151,7 +196,8 @@ public class Transaction {
                 ", restaurantId='" + restaurantId + '\'' +
                 ", amount=" + amount +
                 ", method='" + method + '\'' +
-                ", status='" + status + '\'' +
+                ", status=" + status +
+                ", failureReason='" + failureReason + '\'' +
                 ", transactionDate=" + transactionDate +
                 ", message='" + message + '\'' +
                 '}';
@@ -0,0 +1,63 @@
+package com.cognizant.paymentservice.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position in the transaction history, ordered by (transactionDate, id) newest first.
+ * Sent to clients as an opaque URL-safe token.
+ */
+public class TransactionCursor {
+
+    /** Position before the newest transaction (first page) */
+    public static final TransactionCursor START =
+            new TransactionCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), new UUID(-1L, -1L));
+
+    private final LocalDateTime transactionDate;
+    private final UUID id;
+
+    public TransactionCursor(LocalDateTime transactionDate, UUID id) {
+        this.transactionDate = transactionDate;
+        this.id = id;
+    }
+
+    /**
+     * Cursor pointing just after a transaction
+     */
+    public static TransactionCursor after(Transaction tx) {
+        return new TransactionCursor(tx.getTransactionDate(), tx.getId());
+    }
+
+    /**
+     * Decode a client token; null or blank means the first page
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static TransactionCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new TransactionCursor(LocalDateTime.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        String raw = transactionDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getTransactionDate() {
+        return transactionDate;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+}
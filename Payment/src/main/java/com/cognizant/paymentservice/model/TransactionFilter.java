@@ -0,0 +1,80 @@
+package com.cognizant.paymentservice.model;
+
+/**
+ * Filter for transaction history queries. At most one criterion is set;
+ * an empty filter matches every transaction.
+ */
+public class TransactionFilter {
+
+    private String userId;
+    private String restaurantId;
+    private String orderId;
+    private TransactionStatus status;
+
+    public static TransactionFilter all() {
+        return new TransactionFilter();
+    }
+
+    public static TransactionFilter byUser(String userId) {
+        TransactionFilter filter = new TransactionFilter();
+        filter.userId = userId;
+        return filter;
+    }
+
+    public static TransactionFilter byRestaurant(String restaurantId) {
+        TransactionFilter filter = new TransactionFilter();
+        filter.restaurantId = restaurantId;
+        return filter;
+    }
+
+    public static TransactionFilter byOrder(String orderId) {
+        TransactionFilter filter = new TransactionFilter();
+        filter.orderId = orderId;
+        return filter;
+    }
+
+    public static TransactionFilter byStatus(TransactionStatus status) {
+        TransactionFilter filter = new TransactionFilter();
+        filter.status = status;
+        return filter;
+    }
+
+    /**
+     * Build a filter from optional request parameters
+     *
+     * @throws IllegalArgumentException if more than one criterion is given
+     */
+    public static TransactionFilter of(String userId, String restaurantId, String status) {
+        int given = (userId != null ? 1 : 0) + (restaurantId != null ? 1 : 0) + (status != null ? 1 : 0);
+        if (given > 1) {
+            throw new IllegalArgumentException("Only one of userId, restaurantId or status may be given");
+        }
+        if (userId != null) {
+            return byUser(userId);
+        }
+        if (restaurantId != null) {
+            return byRestaurant(restaurantId);
+        }
+        if (status != null) {
+            return byStatus(TransactionStatus.parse(status));
+        }
+        return all();
+    }
+
+    public String getUserId() { return userId; }
+
+    public String getRestaurantId() { return restaurantId; }
+
+    public String getOrderId() { return orderId; }
+
+    public TransactionStatus getStatus() { return status; }
+
+    @Override
+    public String toString() {
+        if (userId != null) return "userId=" + userId;
+        if (restaurantId != null) return "restaurantId=" + restaurantId;
+        if (orderId != null) return "orderId=" + orderId;
+        if (status != null) return "status=" + status;
+        return "all";
+    }
+}
@@ -0,0 +1,53 @@
+package com.cognizant.paymentservice.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * One page of transaction history.
+ * Pass nextCursor back as ?cursor= to fetch the following page; it is absent on the last page.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionPage {
+
+    @JsonProperty("items")
+    private List<Transaction> items;
+
+    @JsonProperty("size")
+    private int size;
+
+    @JsonProperty("hasMore")
+    private boolean hasMore;
+
+    @JsonProperty("nextCursor")
+    private String nextCursor;
+
+    public TransactionPage() {}
+
+    /**
+     * Build a page from a query that fetched limit + 1 rows
+     */
+    public static TransactionPage of(List<Transaction> rows, int limit) {
+        TransactionPage page = new TransactionPage();
+        page.hasMore = rows.size() > limit;
+        page.items = page.hasMore ? rows.subList(0, limit) : rows;
+        page.size = page.items.size();
+        if (page.hasMore) {
+            page.nextCursor = TransactionCursor.after(page.items.get(limit - 1)).encode();
+        }
+        return page;
+    }
+
+    public List<Transaction> getItems() { return items; }
+    public void setItems(List<Transaction> items) { this.items = items; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -1,7 +1,22 @@
 package com.cognizant.paymentservice.model;
 
 public enum TransactionStatus {
+    PENDING,
     SUCCESS,
     FAILED,
-    REFUNDED
+    COMPENSATED,
+    REFUNDED;
+
+    /**
+     * Parse a status, accepting the legacy composite form
+     * ("FAILED:COMPENSATED" → COMPENSATED, "FAILED:REASON" → FAILED)
+     */
+    public static TransactionStatus parse(String value) {
+        String upper = value.trim().toUpperCase();
+        if (upper.equals("FAILED:COMPENSATED")) {
+            return COMPENSATED;
+        }
+        int colon = upper.indexOf(':');
+        return valueOf(colon < 0 ? upper : upper.substring(0, colon));
+    }
 }
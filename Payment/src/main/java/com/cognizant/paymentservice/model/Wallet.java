@@ -2,6 +2,7 @@ package com.cognizant.paymentservice.model;
 
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDateTime;
@@ -23,8 +24,8 @@ public class Wallet {
     private String walletId;
     
     @JsonProperty("balance")
-    @Column(name = "balance", nullable = false)
-    private Double balance = 0.0;
+    @Column(name = "balance_paise", nullable = false)
+    private Money balance = Money.ZERO;
     
     @JsonProperty("currency")
     @Column(name = "currency")
@@ -35,6 +36,14 @@ public class Wallet {
     @Column(name = "last_updated")
     private LocalDateTime lastUpdated;
 
+    /**
+     * Incremented by every balance update; stamps cached wallet snapshots.
+     * Null for wallets written before versioning (treated as 0).
+     */
+    @JsonIgnore
+    @Column(name = "version")
+    private Long version;
+
     // ==================== CONSTRUCTORS ====================
 
     public Wallet() {
@@ -42,7 +51,7 @@ public class Wallet {
         this.currency = "INR";
     }
 
-    public Wallet(String userId, String walletId, Double balance) {
+    public Wallet(String userId, String walletId, Money balance) {
         this();
         this.userId = userId;
         this.walletId = walletId;
@@ -65,10 +74,10 @@ public class Wallet {
         this.walletId = walletId; 
     }
 
-    public Double getBalance() { 
+    public Money getBalance() { 
         return balance; 
     }
-    public void setBalance(Double balance) { 
+    public void setBalance(Money balance) { 
         this.balance = balance; 
     }
 
@@ -86,6 +95,13 @@ public class Wallet {
         this.lastUpdated = lastUpdated; 
     }
 
+    public Long getVersion() {
+        return version;
+    }
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Wallet{" +
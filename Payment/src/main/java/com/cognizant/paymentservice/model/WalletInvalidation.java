@@ -0,0 +1,53 @@
+package com.cognizant.paymentservice.model;
+
+/**
+ * Broadcast after a node changes a wallet: other nodes drop cached snapshots
+ * of the wallet older than the given version.
+ */
+public class WalletInvalidation {
+
+    private String sourceNode;
+    private String userId;
+    private long version;
+
+    public WalletInvalidation() {
+    }
+
+    public WalletInvalidation(String sourceNode, String userId, long version) {
+        this.sourceNode = sourceNode;
+        this.userId = userId;
+        this.version = version;
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public String getSourceNode() {
+        return sourceNode;
+    }
+    public void setSourceNode(String sourceNode) {
+        this.sourceNode = sourceNode;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Override
+    public String toString() {
+        return "WalletInvalidation{" +
+                "sourceNode='" + sourceNode + '\'' +
+                ", userId='" + userId + '\'' +
+                ", version=" + version +
+                '}';
+    }
+}
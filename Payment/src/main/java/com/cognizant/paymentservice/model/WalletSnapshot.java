@@ -0,0 +1,86 @@
+package com.cognizant.paymentservice.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of a wallet row, as held by the wallet cache.
+ * The version is the row's version when the snapshot was taken.
+ */
+public final class WalletSnapshot {
+
+    private final String userId;
+    private final String walletId;
+    private final Money balance;
+    private final String currency;
+    private final LocalDateTime lastUpdated;
+    private final long version;
+
+    public WalletSnapshot(String userId, String walletId, Money balance, String currency,
+                          LocalDateTime lastUpdated, long version) {
+        this.userId = userId;
+        this.walletId = walletId;
+        this.balance = balance;
+        this.currency = currency;
+        this.lastUpdated = lastUpdated;
+        this.version = version;
+    }
+
+    public static WalletSnapshot of(Wallet wallet) {
+        return new WalletSnapshot(wallet.getUserId(), wallet.getWalletId(), wallet.getBalance(),
+                wallet.getCurrency(), wallet.getLastUpdated(),
+                wallet.getVersion() != null ? wallet.getVersion() : 0L);
+    }
+
+    /**
+     * State after a versioned update of this snapshot succeeded in the database
+     */
+    public WalletSnapshot withBalance(Money newBalance, LocalDateTime now) {
+        return new WalletSnapshot(userId, walletId, newBalance, currency, now, version + 1);
+    }
+
+    /**
+     * Detached wallet for responses; changes to it are never written back
+     */
+    public Wallet toWallet() {
+        Wallet wallet = new Wallet(userId, walletId, balance);
+        wallet.setCurrency(currency);
+        wallet.setLastUpdated(lastUpdated);
+        wallet.setVersion(version);
+        return wallet;
+    }
+
+    // ==================== GETTERS ====================
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getWalletId() {
+        return walletId;
+    }
+
+    public Money getBalance() {
+        return balance;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public LocalDateTime getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "WalletSnapshot{" +
+                "userId='" + userId + '\'' +
+                ", balance=" + balance +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -1,15 +1,16 @@
 package com.cognizant.paymentservice.model;
 
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.NotNull;
 
 public class WalletTopUpRequest {
 
     @NotBlank(message = "User ID is required")
     private String userId;
 
-    @Positive(message = "Amount must be greater than zero")
-    private double amount;
+    @NotNull(message = "Amount is required")
+    private Money amount;
 
     @NotBlank(message = "Payment method is required")
     private String method; 
@@ -23,8 +24,13 @@ public class WalletTopUpRequest {
     public String getUserId() { return userId; }
     public void setUserId(String userId) { this.userId = userId; }
 
-    public double getAmount() { return amount; }
-    public void setAmount(double amount) { this.amount = amount; }
+    @AssertTrue(message = "Amount must be greater than zero")
+    private boolean isAmountPositive() {
+        return amount == null || amount.isPositive();
+    }
+
+    public Money getAmount() { return amount; }
+    public void setAmount(Money amount) { this.amount = amount; }
 
     public String getMethod() { return method; }
     public void setMethod(String method) { this.method = method; }
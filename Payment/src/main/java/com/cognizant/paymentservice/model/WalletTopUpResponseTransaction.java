@@ -7,7 +7,7 @@ public class WalletTopUpResponseTransaction {
     private UUID id;
     private String userId;
     private String method;
-    private double amount;
+    private Money amount;
     private String status;
     private LocalDateTime createdAt;
 
@@ -20,8 +20,8 @@ public class WalletTopUpResponseTransaction {
     public String getMethod() { return method; }
     public void setMethod(String method) { this.method = method; }
 
-    public double getAmount() { return amount; }
-    public void setAmount(double amount) { this.amount = amount; }
+    public Money getAmount() { return amount; }
+    public void setAmount(Money amount) { this.amount = amount; }
 
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
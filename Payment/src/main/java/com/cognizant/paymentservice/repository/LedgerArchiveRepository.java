@@ -0,0 +1,56 @@
+package com.cognizant.paymentservice.repository;
+
+import com.cognizant.paymentservice.model.LedgerArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for the catalog of archived ledger months
+ */
+@Repository
+public interface LedgerArchiveRepository extends JpaRepository<LedgerArchive, String> {
+
+    /**
+     * Archived months overlapping a range of months, oldest first
+     * @param fromMonth First month (yyyy-MM, inclusive)
+     * @param toMonth Last month (yyyy-MM, inclusive)
+     * @return Catalog entries
+     */
+    @Query("SELECT a FROM LedgerArchive a WHERE a.month >= :fromMonth AND a.month <= :toMonth "
+            + "AND a.claimedBy IS NULL ORDER BY a.month ASC")
+    List<LedgerArchive> findMonthsBetween(@Param("fromMonth") String fromMonth, @Param("toMonth") String toMonth);
+
+    /**
+     * Take over the claim on a month whose archiver stopped before finishing
+     * @return 1 if claimed, 0 if the month is archived or its claim is still live
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE LedgerArchive a SET a.claimedBy = :claimToken, a.claimedUntil = :claimedUntil "
+            + "WHERE a.month = :month AND a.claimedBy IS NOT NULL AND a.claimedUntil < :now")
+    int takeOverClaim(@Param("month") String month, @Param("claimToken") String claimToken,
+                      @Param("claimedUntil") LocalDateTime claimedUntil, @Param("now") LocalDateTime now);
+
+    /**
+     * Turn a claim into the catalog entry of the archived month; runs in the caller's transaction
+     * @return 0 if the claim was taken over by another node
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE LedgerArchive a SET a.fileName = :fileName, a.rowCount = :rowCount, a.sizeBytes = :sizeBytes, "
+            + "a.archivedAt = :archivedAt, a.claimedBy = NULL, a.claimedUntil = NULL "
+            + "WHERE a.month = :month AND a.claimedBy = :claimToken")
+    int completeClaim(@Param("month") String month, @Param("claimToken") String claimToken,
+                      @Param("fileName") String fileName, @Param("rowCount") long rowCount,
+                      @Param("sizeBytes") long sizeBytes, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM LedgerArchive a WHERE a.month = :month AND a.claimedBy = :claimToken")
+    int releaseClaim(@Param("month") String month, @Param("claimToken") String claimToken);
+}
@@ -0,0 +1,106 @@
+package com.cognizant.paymentservice.repository;
+
+import com.cognizant.paymentservice.model.OrderStatusOutbox;
+import com.cognizant.paymentservice.model.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for the order status outbox
+ * Feeds the background relay that propagates payment outcomes to Order Service
+ */
+@Repository
+public interface OrderStatusOutboxRepository extends JpaRepository<OrderStatusOutbox, Long> {
+
+    /**
+     * Find the ids of the next batch of events that are due for delivery and not leased, oldest first.
+     * Only the oldest pending event of each order is returned, so status
+     * changes for one order are always delivered in the order they were written.
+     * @param status Outbox status (normally PENDING)
+     * @param now Current time
+     * @param pageable Batch size
+     * @return Due outbox event ids
+     */
+    @Query("SELECT o.id FROM OrderStatusOutbox o WHERE o.status = :status AND o.nextAttemptAt <= :now "
+            + "AND (o.claimedUntil IS NULL OR o.claimedUntil < :now) "
+            + "AND NOT EXISTS (SELECT p FROM OrderStatusOutbox p WHERE p.orderId = o.orderId AND p.status = :status AND p.id < o.id) "
+            + "ORDER BY o.id ASC")
+    List<Long> findDueIds(@Param("status") OutboxStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Lease events for one relay run. Rows already leased by another node are skipped,
+     * so concurrent payment nodes never deliver the same event twice.
+     * @param ids Candidate event ids
+     * @param claimToken Token identifying this node and run
+     * @param leaseUntil Lease expiry
+     * @param now Current time
+     * @param status Outbox status (normally PENDING)
+     * @return Rows claimed
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderStatusOutbox o SET o.claimedBy = :claimToken, o.claimedUntil = :leaseUntil "
+            + "WHERE o.id IN :ids AND o.status = :status AND (o.claimedUntil IS NULL OR o.claimedUntil < :now)")
+    int claim(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken,
+              @Param("leaseUntil") LocalDateTime leaseUntil, @Param("now") LocalDateTime now,
+              @Param("status") OutboxStatus status);
+
+    /**
+     * Release every lease still held by a relay run
+     * @param claimToken Token identifying the run
+     * @return Rows released
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderStatusOutbox o SET o.claimedBy = NULL, o.claimedUntil = NULL WHERE o.claimedBy = :claimToken")
+    int releaseClaims(@Param("claimToken") String claimToken);
+
+    /**
+     * Load the events leased by a relay run
+     * @param claimToken Token identifying the run
+     * @return Claimed events, oldest first
+     */
+    List<OrderStatusOutbox> findByClaimedByOrderByIdAsc(String claimToken);
+
+    /**
+     * Find outbox events for an order that have not been delivered yet
+     * @param orderId Order ID
+     * @param statuses Outbox statuses to include
+     * @return Matching events, oldest first
+     */
+    List<OrderStatusOutbox> findByOrderIdAndStatusInOrderByIdAsc(String orderId, List<OutboxStatus> statuses);
+
+    /**
+     * Count events waiting for delivery
+     * @param status Outbox status
+     * @return Event count
+     */
+    long countByStatus(OutboxStatus status);
+
+    /**
+     * Creation time of the oldest event in a status (backlog age)
+     * @param status Outbox status
+     * @return Oldest creation time, empty when there are no events
+     */
+    @Query("SELECT MIN(o.createdAt) FROM OrderStatusOutbox o WHERE o.status = :status")
+    Optional<LocalDateTime> findOldestCreatedAt(@Param("status") OutboxStatus status);
+
+    /**
+     * Delete the undelivered events a holder still leases (a payment saga rolling back)
+     * @param claimToken Lease owner
+     * @param status Outbox status (normally PENDING)
+     * @return Rows deleted
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM OrderStatusOutbox o WHERE o.claimedBy = :claimToken AND o.status = :status")
+    int deleteClaimed(@Param("claimToken") String claimToken, @Param("status") OutboxStatus status);
+}
@@ -0,0 +1,97 @@
+package com.cognizant.paymentservice.repository;
+
+import com.cognizant.paymentservice.model.AggregateScope;
+import com.cognizant.paymentservice.model.PaymentAggregate;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for per-user and per-restaurant payment aggregates
+ */
+@Repository
+public interface PaymentAggregateRepository extends JpaRepository<PaymentAggregate, PaymentAggregate.Key> {
+
+    /**
+     * Add one payment to (or, with negative values, remove one from) an aggregate.
+     * Runs in the caller's transaction and keeps the row locked until it commits.
+     * @param scope USER or RESTAURANT
+     * @param scopeId User or restaurant ID
+     * @param count +1 or -1
+     * @param paise Signed amount in paise
+     * @param squares Signed amount squared (paise²)
+     * @param at Transaction time
+     * @param now Update timestamp
+     * @return Rows affected (0 = aggregate row does not exist yet)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE PaymentAggregate a SET a.txCount = a.txCount + :count, a.totalPaise = a.totalPaise + :paise, "
+            + "a.sumSquares = a.sumSquares + :squares, "
+            + "a.lastTransactionAt = CASE WHEN a.lastTransactionAt IS NULL OR a.lastTransactionAt < :at THEN :at ELSE a.lastTransactionAt END, "
+            + "a.updatedAt = :now WHERE a.scope = :scope AND a.scopeId = :scopeId")
+    int applyDelta(@Param("scope") AggregateScope scope, @Param("scopeId") String scopeId, @Param("count") long count,
+                   @Param("paise") long paise, @Param("squares") double squares,
+                   @Param("at") LocalDateTime at, @Param("now") LocalDateTime now);
+
+    /**
+     * Create an empty aggregate row in its own transaction, so a duplicate-key
+     * failure never rolls back the caller. Fails if the row already exists.
+     * @param scope USER or RESTAURANT
+     * @param scopeId User or restaurant ID
+     * @param now Creation timestamp
+     * @return Rows inserted
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("INSERT INTO PaymentAggregate (scope, scopeId, txCount, totalPaise, sumSquares, "
+            + "archivedCount, archivedPaise, archivedSumSquares, updatedAt) "
+            + "VALUES (:scope, :scopeId, 0, 0, 0.0, 0, 0, 0.0, :now)")
+    int insertEmpty(@Param("scope") AggregateScope scope, @Param("scopeId") String scopeId, @Param("now") LocalDateTime now);
+
+    /**
+     * Overwrite an aggregate with values recomputed from the ledger
+     * @return Rows affected
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE PaymentAggregate a SET a.txCount = :count, a.totalPaise = :paise, a.sumSquares = :squares, "
+            + "a.lastTransactionAt = :lastAt, a.updatedAt = :now WHERE a.scope = :scope AND a.scopeId = :scopeId")
+    int overwrite(@Param("scope") AggregateScope scope, @Param("scopeId") String scopeId, @Param("count") long count,
+                  @Param("paise") long paise, @Param("squares") double squares,
+                  @Param("lastAt") LocalDateTime lastAt, @Param("now") LocalDateTime now);
+
+    /**
+     * Record that part of an aggregate's payments moved from the ledger to an archive file.
+     * The visible totals do not change; a rebuild adds this share back.
+     * @return Rows affected (0 = aggregate row does not exist yet)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE PaymentAggregate a SET a.archivedCount = a.archivedCount + :count, "
+            + "a.archivedPaise = a.archivedPaise + :paise, a.archivedSumSquares = a.archivedSumSquares + :squares, "
+            + "a.updatedAt = :now WHERE a.scope = :scope AND a.scopeId = :scopeId")
+    int addArchived(@Param("scope") AggregateScope scope, @Param("scopeId") String scopeId, @Param("count") long count,
+                    @Param("paise") long paise, @Param("squares") double squares, @Param("now") LocalDateTime now);
+
+    /**
+     * Lock the aggregate rows of a rebuild chunk until its transaction commits.
+     * Payments for these users/restaurants wait, so none is lost between the
+     * ledger read and the overwrite.
+     * @param scope USER or RESTAURANT
+     * @param scopeIds User or restaurant IDs
+     * @return Existing rows
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM PaymentAggregate a WHERE a.scope = :scope AND a.scopeId IN :scopeIds")
+    List<PaymentAggregate> lockAll(@Param("scope") AggregateScope scope, @Param("scopeIds") Collection<String> scopeIds);
+}
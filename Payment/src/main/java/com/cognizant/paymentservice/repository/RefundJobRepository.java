@@ -0,0 +1,12 @@
+package com.cognizant.paymentservice.repository;
+
+import com.cognizant.paymentservice.model.RefundJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for bulk refund jobs
+ */
+@Repository
+public interface RefundJobRepository extends JpaRepository<RefundJob, String> {
+}
@@ -0,0 +1,126 @@
+package com.cognizant.paymentservice.repository;
+
+import com.cognizant.paymentservice.model.RefundQueueItem;
+import com.cognizant.paymentservice.model.RefundStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for the refund queue
+ * Feeds the background worker that refunds queued payments in batches
+ */
+@Repository
+public interface RefundQueueRepository extends JpaRepository<RefundQueueItem, Long> {
+
+    /**
+     * Which of the given transactions are already queued (by any job)
+     * @param transactionIds Candidate transaction IDs
+     * @return The queued ones
+     */
+    @Query("SELECT i.transactionId FROM RefundQueueItem i WHERE i.transactionId IN :transactionIds")
+    List<UUID> findQueuedTransactionIds(@Param("transactionIds") Collection<UUID> transactionIds);
+
+    /**
+     * Ids of the next pending items that are not leased, oldest first
+     * @param status Refund status (normally PENDING)
+     * @param now Current time
+     * @param pageable Batch size
+     * @return Item ids
+     */
+    @Query("SELECT i.id FROM RefundQueueItem i WHERE i.status = :status "
+            + "AND (i.claimedUntil IS NULL OR i.claimedUntil < :now) ORDER BY i.id ASC")
+    List<Long> findDueIds(@Param("status") RefundStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Lease items for one worker run. Rows already leased by another node are skipped.
+     * @param ids Candidate item ids
+     * @param claimToken Token identifying this node and run
+     * @param leaseUntil Lease expiry
+     * @param now Current time
+     * @param status Refund status (normally PENDING)
+     * @return Rows claimed
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RefundQueueItem i SET i.claimedBy = :claimToken, i.claimedUntil = :leaseUntil "
+            + "WHERE i.id IN :ids AND i.status = :status AND (i.claimedUntil IS NULL OR i.claimedUntil < :now)")
+    int claim(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken,
+              @Param("leaseUntil") LocalDateTime leaseUntil, @Param("now") LocalDateTime now,
+              @Param("status") RefundStatus status);
+
+    /**
+     * Load the items leased by a worker run
+     * @param claimToken Token identifying the run
+     * @return Claimed items, oldest first
+     */
+    List<RefundQueueItem> findByClaimedByOrderByIdAsc(String claimToken);
+
+    /**
+     * Settle items and release their lease in one statement
+     * @param ids Item ids
+     * @param status Final refund status
+     * @param error Reason for SKIPPED / FAILED, null otherwise
+     * @param now Current time
+     * @return Rows updated
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RefundQueueItem i SET i.status = :status, i.lastError = :error, i.processedAt = :now, "
+            + "i.attempts = i.attempts + 1, i.claimedBy = NULL, i.claimedUntil = NULL WHERE i.id IN :ids")
+    int settle(@Param("ids") Collection<Long> ids, @Param("status") RefundStatus status,
+               @Param("error") String error, @Param("now") LocalDateTime now);
+
+    /**
+     * Count a failed attempt on one item and release its lease
+     * @param id Item id
+     * @param error Failure message
+     * @return Rows updated
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RefundQueueItem i SET i.attempts = i.attempts + 1, i.lastError = :error, "
+            + "i.claimedBy = NULL, i.claimedUntil = NULL WHERE i.id = :id")
+    int recordAttempt(@Param("id") Long id, @Param("error") String error);
+
+    /**
+     * Release every lease still held by a worker run
+     * @param claimToken Token identifying the run
+     * @return Rows released
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RefundQueueItem i SET i.claimedBy = NULL, i.claimedUntil = NULL WHERE i.claimedBy = :claimToken")
+    int releaseClaims(@Param("claimToken") String claimToken);
+
+    /**
+     * Item count per refund status for one job
+     * @param jobId Job ID
+     * @return Rows of [status, count]
+     */
+    @Query("SELECT i.status, COUNT(i) FROM RefundQueueItem i WHERE i.jobId = :jobId GROUP BY i.status")
+    List<Object[]> countByJobGroupedByStatus(@Param("jobId") String jobId);
+
+    /**
+     * When the last item of a job was settled
+     * @param jobId Job ID
+     * @return Latest processing time, null if nothing was processed yet
+     */
+    @Query("SELECT MAX(i.processedAt) FROM RefundQueueItem i WHERE i.jobId = :jobId")
+    LocalDateTime findLastProcessedAt(@Param("jobId") String jobId);
+
+    /**
+     * Count items in a refund status (queue backlog)
+     * @param status Refund status
+     * @return Item count
+     */
+    long countByStatus(RefundStatus status);
+}
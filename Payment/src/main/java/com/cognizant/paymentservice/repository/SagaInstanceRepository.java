@@ -0,0 +1,84 @@
+package com.cognizant.paymentservice.repository;
+
+import com.cognizant.paymentservice.model.SagaInstance;
+import com.cognizant.paymentservice.model.SagaStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for saga instances
+ * Status changes are single UPDATE statements so they can join a step's transaction
+ */
+@Repository
+public interface SagaInstanceRepository extends JpaRepository<SagaInstance, String> {
+
+    /**
+     * Sagas in the given states, oldest first (in-flight sagas for inspection)
+     */
+    List<SagaInstance> findByStatusInOrderByCreatedAtAsc(List<SagaStatus> statuses, Pageable pageable);
+
+    /**
+     * Ids of unfinished sagas whose owner's lease has expired
+     * @param statuses Unfinished states (RUNNING, COMPENSATING)
+     * @param now Current time
+     * @param pageable Batch size
+     * @return Saga ids, longest expired first
+     */
+    @Query("SELECT s.id FROM SagaInstance s WHERE s.status IN :statuses AND s.leaseUntil < :now ORDER BY s.leaseUntil ASC")
+    List<String> findStaleIds(@Param("statuses") List<SagaStatus> statuses, @Param("now") LocalDateTime now,
+                              Pageable pageable);
+
+    /**
+     * Take over an unfinished saga whose lease has expired.
+     * Only one node can win, so a saga is never recovered twice at the same time.
+     * @return 1 if this node now owns the saga
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE SagaInstance s SET s.ownerNode = :node, s.leaseUntil = :leaseUntil "
+            + "WHERE s.id = :id AND s.status IN :statuses AND s.leaseUntil < :now")
+    int claim(@Param("id") String id, @Param("node") String node, @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("statuses") List<SagaStatus> statuses, @Param("now") LocalDateTime now);
+
+    /**
+     * Extend the lease of an unfinished saga this node still owns
+     * @return 1 if the lease was extended, 0 if recovery has taken the saga over (or it finished)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE SagaInstance s SET s.leaseUntil = :leaseUntil "
+            + "WHERE s.id = :id AND s.ownerNode = :node AND s.status IN :statuses")
+    int renewLease(@Param("id") String id, @Param("node") String node, @Param("leaseUntil") LocalDateTime leaseUntil,
+                   @Param("statuses") List<SagaStatus> statuses);
+
+    /**
+     * Move a saga owned by the given node to a new state
+     * @param failedStep Step that failed, or null to keep the recorded one
+     * @param lastError Error to record, or null to keep the recorded one
+     * @return 1 if updated, 0 if another node owns the saga
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE SagaInstance s SET s.status = :status, s.failedStep = COALESCE(:failedStep, s.failedStep), "
+            + "s.lastError = COALESCE(:lastError, s.lastError), s.leaseUntil = :leaseUntil, s.updatedAt = :now "
+            + "WHERE s.id = :id AND s.ownerNode = :node")
+    int updateStatus(@Param("id") String id, @Param("node") String node, @Param("status") SagaStatus status,
+                     @Param("failedStep") String failedStep, @Param("lastError") String lastError,
+                     @Param("leaseUntil") LocalDateTime leaseUntil, @Param("now") LocalDateTime now);
+
+    /**
+     * Delete finished sagas last changed before a cutoff (their step log first, see SagaStepLogRepository)
+     * @return Sagas deleted
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SagaInstance s WHERE s.status IN :statuses AND s.updatedAt < :before")
+    int deleteFinishedBefore(@Param("statuses") List<SagaStatus> statuses, @Param("before") LocalDateTime before);
+}
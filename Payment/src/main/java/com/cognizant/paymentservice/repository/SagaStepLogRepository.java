@@ -0,0 +1,34 @@
+package com.cognizant.paymentservice.repository;
+
+import com.cognizant.paymentservice.model.SagaStatus;
+import com.cognizant.paymentservice.model.SagaStepLog;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for the saga step log
+ */
+@Repository
+public interface SagaStepLogRepository extends JpaRepository<SagaStepLog, Long> {
+
+    /**
+     * Step log of one saga in the order it was written
+     */
+    List<SagaStepLog> findBySagaIdOrderByIdAsc(String sagaId);
+
+    /**
+     * Delete the step log of finished sagas last changed before a cutoff
+     * @return Log entries deleted
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SagaStepLog l WHERE l.sagaId IN (SELECT s.id FROM SagaInstance s "
+            + "WHERE s.status IN :statuses AND s.updatedAt < :before)")
+    int deleteForFinishedBefore(@Param("statuses") List<SagaStatus> statuses, @Param("before") LocalDateTime before);
+}
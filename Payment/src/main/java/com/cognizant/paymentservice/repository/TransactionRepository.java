@@ -1,15 +1,26 @@
 package com.cognizant.paymentservice.repository;
 
 import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.model.TransactionStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 /**
  * Repository for Transaction entity
@@ -52,7 +63,7 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
      * @param status Transaction status (SUCCESS, FAILED, REFUNDED, PENDING, COMPENSATED)
      * @return List of transactions
      */
-    List<Transaction> findByStatus(String status);
+    List<Transaction> findByStatus(TransactionStatus status);
     
     /**
      * ✅ FIXED: Use transactionDate instead of createdAt
@@ -69,7 +80,7 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
      * @param status Transaction status
      * @return List of transactions matching criteria
      */
-    List<Transaction> findByUserIdAndStatus(String userId, String status);
+    List<Transaction> findByUserIdAndStatus(String userId, TransactionStatus status);
     
     /**
      * Find transactions by order and status
@@ -77,7 +88,7 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
      * @param status Transaction status
      * @return List of transactions matching criteria
      */
-    List<Transaction> findByOrderIdAndStatus(String orderId, String status);
+    List<Transaction> findByOrderIdAndStatus(String orderId, TransactionStatus status);
     
     /**
      * Find transactions by restaurant and status
@@ -85,7 +96,7 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
      * @param status Transaction status
      * @return List of transactions matching criteria
      */
-    List<Transaction> findByRestaurantIdAndStatus(String restaurantId, String status);
+    List<Transaction> findByRestaurantIdAndStatus(String restaurantId, TransactionStatus status);
     
     /**
      * Find transactions by payment method
@@ -100,12 +111,14 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
      * @param status Transaction status
      * @return List of transactions
      */
-    List<Transaction> findByMethodAndStatus(String method, String status);
+    List<Transaction> findByMethodAndStatus(String method, TransactionStatus status);
     
     // ==================== DATE RANGE QUERIES ====================
     
     /**
      * Find transactions within a date range
+     * Only months still in the database; LedgerArchiveService also reads archived months.
+     * On MySQL the range prunes to the partitions of the months it covers.
      * @param startDate Start date
      * @param endDate End date
      * @return List of transactions in date range
@@ -132,27 +145,29 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
      * Find compensated transactions (for recovery operations)
      * @return List of compensated transactions
      */
-    @Query("SELECT t FROM Transaction t WHERE t.status LIKE '%COMPENSATED%' ORDER BY t.transactionDate DESC")
+    @Query("SELECT t FROM Transaction t WHERE t.status = com.cognizant.paymentservice.model.TransactionStatus.COMPENSATED ORDER BY t.transactionDate DESC")
     List<Transaction> findCompensatedTransactions();
     
     /**
-     * Find failed transactions (for audit/retry)
+     * Find failed transactions (for audit/retry), including compensated ones
      * @return List of failed transactions
      */
-    @Query("SELECT t FROM Transaction t WHERE t.status LIKE '%FAILED%' ORDER BY t.transactionDate DESC")
+    @Query("SELECT t FROM Transaction t WHERE t.status IN (com.cognizant.paymentservice.model.TransactionStatus.FAILED, com.cognizant.paymentservice.model.TransactionStatus.COMPENSATED) ORDER BY t.transactionDate DESC")
     List<Transaction> findFailedTransactions();
     
     /**
-     * Find transactions by order ID with status containing a pattern
+     * Find transactions by order ID that failed for a specific reason
      * @param orderId Order ID
-     * @param statusPattern Status pattern (e.g., "%COMPENSATED%")
+     * @param failureReason Failure reason code (e.g., "INSUFFICIENT_BALANCE")
      * @return List of matching transactions
      */
-    @Query("SELECT t FROM Transaction t WHERE t.orderId = :orderId AND t.status LIKE :statusPattern ORDER BY t.transactionDate DESC")
-    List<Transaction> findByOrderIdAndStatusPattern(@Param("orderId") String orderId, @Param("statusPattern") String statusPattern);
+    @Query("SELECT t FROM Transaction t WHERE t.orderId = :orderId AND t.failureReason = :failureReason ORDER BY t.transactionDate DESC")
+    List<Transaction> findByOrderIdAndFailureReason(@Param("orderId") String orderId, @Param("failureReason") String failureReason);
     
     /**
      * Find transactions for a user within date range
+     * Only months still in the database; LedgerArchiveService also reads archived months.
+     * On MySQL the range prunes to the partitions of the months it covers.
      * @param userId User ID
      * @param startDate Start date
      * @param endDate End date
@@ -163,6 +178,8 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
     
     /**
      * Find transactions for a restaurant within date range
+     * Only months still in the database; LedgerArchiveService also reads archived months.
+     * On MySQL the range prunes to the partitions of the months it covers.
      * @param restaurantId Restaurant ID
      * @param startDate Start date
      * @param endDate End date
@@ -170,7 +187,184 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
      */
     @Query("SELECT t FROM Transaction t WHERE t.restaurantId = :restaurantId AND t.transactionDate BETWEEN :startDate AND :endDate ORDER BY t.transactionDate DESC")
     List<Transaction> findRestaurantTransactionsByDateRange(@Param("restaurantId") String restaurantId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    // ==================== BULK REFUND SELECTION ====================
+
+    /**
+     * IDs of a restaurant's transactions in a status within [from, to), oldest first
+     * (served by idx_restaurant_status_date)
+     * @param restaurantId Restaurant ID
+     * @param status Transaction status
+     * @param from Range start (inclusive)
+     * @param to Range end (exclusive)
+     * @return Transaction IDs
+     */
+    @Query("SELECT t.id FROM Transaction t WHERE t.restaurantId = :restaurantId AND t.status = :status "
+            + "AND t.transactionDate >= :from AND t.transactionDate < :to ORDER BY t.transactionDate ASC, t.id ASC")
+    List<UUID> findIdsByRestaurantAndStatusBetween(@Param("restaurantId") String restaurantId,
+                                                   @Param("status") TransactionStatus status,
+                                                   @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * IDs of the transactions in a status for any of the given orders
+     * @param orderIds Order IDs
+     * @param status Transaction status
+     * @return Transaction IDs
+     */
+    @Query("SELECT t.id FROM Transaction t WHERE t.orderId IN :orderIds AND t.status = :status")
+    List<UUID> findIdsByOrderIdInAndStatus(@Param("orderIds") Collection<String> orderIds,
+                                           @Param("status") TransactionStatus status);
     
+    // ==================== STATUS TRANSITIONS ====================
+
+    /**
+     * Move a transaction from one status to another, only if it is still in the first.
+     * Refunds and compensations race on the same SUCCESS row; the row lock taken by
+     * this UPDATE lets exactly one of them see SUCCESS, and only that one may credit the wallet.
+     * @param id Transaction ID
+     * @param from Expected current status
+     * @param to New status
+     * Native: JPQL would treat the entity (it has a secondary table) as multi-table and
+     * evaluate the WHERE in a separate, non-locking select into a temporary table.
+     * @return 1 if the status changed, 0 if the row was missing or no longer in {@code from}
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE transactions SET status = :#{#to.name()} WHERE id = :id AND status = :#{#from.name()}",
+            nativeQuery = true)
+    int updateStatusIf(@Param("id") UUID id, @Param("from") TransactionStatus from, @Param("to") TransactionStatus to);
+
+    /**
+     * Bulk form of {@link #updateStatusIf(UUID, TransactionStatus, TransactionStatus)}.
+     * Clears the persistence context: loaded transactions no longer reflect the new status.
+     * @return Rows changed
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE transactions SET status = :#{#to.name()} WHERE id IN :ids AND status = :#{#from.name()}",
+            nativeQuery = true)
+    int updateStatusIf(@Param("ids") Collection<UUID> ids, @Param("from") TransactionStatus from,
+                       @Param("to") TransactionStatus to);
+
+    /**
+     * Lock the transactions among ids that are still in a status, in ID order so
+     * concurrent callers lock rows in the same order. Held until commit: the
+     * returned rows cannot change status under the caller. A row that another
+     * transaction is changing is waited for and then reported with its new status.
+     * @return Locked transaction IDs
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t.id FROM Transaction t WHERE t.id IN :ids AND t.status = :status ORDER BY t.id")
+    List<UUID> lockIdsInStatus(@Param("ids") Collection<UUID> ids, @Param("status") TransactionStatus status);
+
+    // ==================== KEYSET PAGINATION QUERIES ====================
+    // Newest first on (transactionDate, id); pass TransactionCursor.START for the first page
+    // and request limit + 1 rows to detect whether another page exists.
+
+    String AFTER_CURSOR = "(t.transactionDate < :date OR (t.transactionDate = :date AND t.id < :id)) ";
+    String NEWEST_FIRST = "ORDER BY t.transactionDate DESC, t.id DESC";
+
+    /**
+     * Page through all transactions
+     * @param date Cursor transaction date
+     * @param id Cursor transaction ID
+     * @param pageable Page size (offset is always 0)
+     * @return Transactions after the cursor, newest first
+     */
+    @Query("SELECT t FROM Transaction t WHERE " + AFTER_CURSOR + NEWEST_FIRST)
+    List<Transaction> findPageAfter(@Param("date") LocalDateTime date, @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Page through a user's transactions
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<Transaction> findPageByUserIdAfter(@Param("userId") String userId, @Param("date") LocalDateTime date,
+                                            @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Page through a restaurant's transactions
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.restaurantId = :restaurantId AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<Transaction> findPageByRestaurantIdAfter(@Param("restaurantId") String restaurantId, @Param("date") LocalDateTime date,
+                                                  @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Page through an order's transactions
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.orderId = :orderId AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<Transaction> findPageByOrderIdAfter(@Param("orderId") String orderId, @Param("date") LocalDateTime date,
+                                             @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Page through transactions in a status
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.status = :status AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<Transaction> findPageByStatusAfter(@Param("status") TransactionStatus status, @Param("date") LocalDateTime date,
+                                            @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Page through a date range (inclusive); only months still in the database,
+     * LedgerArchiveService merges in archived months
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.transactionDate BETWEEN :from AND :to AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<Transaction> findPageBetweenAfter(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                           @Param("date") LocalDateTime date, @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Page through a user's transactions in a date range (inclusive)
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId AND t.transactionDate BETWEEN :from AND :to AND "
+            + AFTER_CURSOR + NEWEST_FIRST)
+    List<Transaction> findPageByUserIdBetweenAfter(@Param("userId") String userId,
+                                                   @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                   @Param("date") LocalDateTime date, @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Page through a restaurant's transactions in a date range (inclusive)
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.restaurantId = :restaurantId AND t.transactionDate BETWEEN :from AND :to AND "
+            + AFTER_CURSOR + NEWEST_FIRST)
+    List<Transaction> findPageByRestaurantIdBetweenAfter(@Param("restaurantId") String restaurantId,
+                                                         @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                         @Param("date") LocalDateTime date, @Param("id") UUID id, Pageable pageable);
+
+    // ==================== STREAMING EXPORT QUERIES ====================
+    // Must be consumed inside a transaction and closed. Rows are fetched from a
+    // server-side cursor in chunks of the fetch size (MySQL needs useCursorFetch=true).
+
+    String EXPORT_FETCH_SIZE = "500";
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT t FROM Transaction t " + NEWEST_FIRST)
+    Stream<Transaction> streamAll();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId " + NEWEST_FIRST)
+    Stream<Transaction> streamByUserId(@Param("userId") String userId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT t FROM Transaction t WHERE t.restaurantId = :restaurantId " + NEWEST_FIRST)
+    Stream<Transaction> streamByRestaurantId(@Param("restaurantId") String restaurantId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT t FROM Transaction t WHERE t.status = :status " + NEWEST_FIRST)
+    Stream<Transaction> streamByStatus(@Param("status") TransactionStatus status);
+
+    /**
+     * Stream a time range oldest first on (transactionDate, id), resuming after a position.
+     * Pass a date before the range start (and any ID) to begin at the first row.
+     * @param from Range start (inclusive)
+     * @param to Range end (exclusive)
+     * @param afterDate Transaction date of the last row already processed
+     * @param afterId ID of the last row already processed
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT t FROM Transaction t WHERE t.transactionDate >= :from AND t.transactionDate < :to "
+            + "AND (t.transactionDate > :afterDate OR (t.transactionDate = :afterDate AND t.id > :afterId)) "
+            + "ORDER BY t.transactionDate ASC, t.id ASC")
+    Stream<Transaction> streamBetweenAfter(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                           @Param("afterDate") LocalDateTime afterDate, @Param("afterId") UUID afterId);
+
     // ==================== AGGREGATE QUERIES ====================
     
     /**
@@ -185,42 +379,99 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
      * Count successful transactions for a user
      * @param userId User ID
      * @return Count of successful transactions
+     * @deprecated Scans the ledger; read PaymentAggregateService instead
      */
-    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId AND t.status = 'SUCCESS'")
+    @Deprecated
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId AND t.status = com.cognizant.paymentservice.model.TransactionStatus.SUCCESS")
     Long countSuccessfulByUserId(@Param("userId") String userId);
     
     /**
      * Sum of transaction amounts for a user
      * @param userId User ID
-     * @return Total amount
+     * @return Total amount in paise
+     * @deprecated Scans the ledger; read PaymentAggregateService instead
      */
-    @Query("SELECT COALESCE(SUM(t.amount), 0.0) FROM Transaction t WHERE t.userId = :userId AND t.status = 'SUCCESS'")
-    Double sumAmountByUserId(@Param("userId") String userId);
+    @Deprecated
+    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.userId = :userId AND t.status = com.cognizant.paymentservice.model.TransactionStatus.SUCCESS")
+    Long sumAmountByUserId(@Param("userId") String userId);
     
     /**
      * Sum of transaction amounts for a restaurant
      * @param restaurantId Restaurant ID
-     * @return Total amount
+     * @return Total amount in paise
+     * @deprecated Scans the ledger; read PaymentAggregateService instead
      */
-    @Query("SELECT COALESCE(SUM(t.amount), 0.0) FROM Transaction t WHERE t.restaurantId = :restaurantId AND t.status = 'SUCCESS'")
-    Double sumAmountByRestaurantId(@Param("restaurantId") String restaurantId);
+    @Deprecated
+    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.restaurantId = :restaurantId AND t.status = com.cognizant.paymentservice.model.TransactionStatus.SUCCESS")
+    Long sumAmountByRestaurantId(@Param("restaurantId") String restaurantId);
     
     /**
      * Average transaction amount for a user
      * @param userId User ID
-     * @return Average amount
+     * @return Average amount in paise
+     * @deprecated Scans the ledger; read PaymentAggregateService instead
      */
-    @Query("SELECT COALESCE(AVG(t.amount), 0.0) FROM Transaction t WHERE t.userId = :userId AND t.status = 'SUCCESS'")
+    @Deprecated
+    @Query("SELECT COALESCE(AVG(t.amount), 0.0) FROM Transaction t WHERE t.userId = :userId AND t.status = com.cognizant.paymentservice.model.TransactionStatus.SUCCESS")
     Double averageAmountByUserId(@Param("userId") String userId);
     
+    // ==================== AGGREGATE REBUILD QUERIES ====================
+    
+    /**
+     * Next chunk of distinct user IDs in the ledger (keyset on userId)
+     * @param after Last user ID of the previous chunk ("" for the first)
+     * @param pageable Chunk size
+     * @return User IDs, ascending
+     */
+    @Query("SELECT DISTINCT t.userId FROM Transaction t WHERE t.userId > :after ORDER BY t.userId")
+    List<String> findUserIdsAfter(@Param("after") String after, Pageable pageable);
+    
+    /**
+     * Next chunk of distinct restaurant IDs in the ledger (keyset on restaurantId)
+     * @param after Last restaurant ID of the previous chunk ("" for the first)
+     * @param pageable Chunk size
+     * @return Restaurant IDs, ascending
+     */
+    @Query("SELECT DISTINCT t.restaurantId FROM Transaction t WHERE t.restaurantId > :after ORDER BY t.restaurantId")
+    List<String> findRestaurantIdsAfter(@Param("after") String after, Pageable pageable);
+    
+    /**
+     * Successful payment totals per user: [userId, count, sum, sum of squares, last date].
+     * Wallet top-ups (no order) are not payments and are left out, as in recordPayment.
+     * @param userIds Users in the chunk
+     * @return One row per user with at least one successful payment
+     */
+    @Query("SELECT t.userId, COUNT(t), SUM(t.amount), SUM(CAST(t.amount AS double) * CAST(t.amount AS double)), MAX(t.transactionDate) FROM Transaction t "
+            + "WHERE t.userId IN :userIds AND t.status = com.cognizant.paymentservice.model.TransactionStatus.SUCCESS "
+            + "AND t.orderId <> '' GROUP BY t.userId")
+    List<Object[]> aggregateSuccessByUser(@Param("userIds") Collection<String> userIds);
+    
+    /**
+     * Successful payment totals per restaurant: [restaurantId, count, sum, sum of squares, last date].
+     * Wallet top-ups are left out.
+     * @param restaurantIds Restaurants in the chunk
+     * @return One row per restaurant with at least one successful payment
+     */
+    @Query("SELECT t.restaurantId, COUNT(t), SUM(t.amount), SUM(CAST(t.amount AS double) * CAST(t.amount AS double)), MAX(t.transactionDate) FROM Transaction t "
+            + "WHERE t.restaurantId IN :restaurantIds AND t.status = com.cognizant.paymentservice.model.TransactionStatus.SUCCESS "
+            + "AND t.orderId <> '' GROUP BY t.restaurantId")
+    List<Object[]> aggregateSuccessByRestaurant(@Param("restaurantIds") Collection<String> restaurantIds);
+    
     // ==================== VERIFICATION QUERIES ====================
     
+    /**
+     * Find the transaction created for a client Idempotency-Key
+     * @param idempotencyKey Idempotency-Key sent with POST /payment/pay
+     * @return Transaction stored under the key
+     */
+    Optional<Transaction> findByIdempotencyKey(String idempotencyKey);
+    
     /**
      * Check if transaction exists for order
      * @param orderId Order ID
      * @return true if transaction exists
      */
-    @Query("SELECT CASE WHEN COUNT(t) > 0 THEN true ELSE false END FROM Transaction t WHERE t.orderId = :orderId AND t.status = 'SUCCESS'")
+    @Query("SELECT CASE WHEN COUNT(t) > 0 THEN true ELSE false END FROM Transaction t WHERE t.orderId = :orderId AND t.status = com.cognizant.paymentservice.model.TransactionStatus.SUCCESS")
     boolean existsSuccessfulTransactionForOrder(@Param("orderId") String orderId);
     
     /**
@@ -254,15 +505,25 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
      * Find transactions pending recovery (SAGA_FAILED or COMPENSATED)
      * @return List of transactions needing recovery
      */
-    @Query("SELECT t FROM Transaction t WHERE t.status LIKE '%COMPENSATED%' OR t.status LIKE '%PENDING%' ORDER BY t.transactionDate ASC")
+    @Query("SELECT t FROM Transaction t WHERE t.status IN (com.cognizant.paymentservice.model.TransactionStatus.COMPENSATED, com.cognizant.paymentservice.model.TransactionStatus.PENDING) ORDER BY t.transactionDate ASC")
     List<Transaction> findTransactionsPendingRecovery();
     
+    /**
+     * Find compensated transactions that have no FAILED order status event queued
+     * @param pageable Batch size
+     * @return Compensated transactions whose order still needs cancelling
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.status = com.cognizant.paymentservice.model.TransactionStatus.COMPENSATED AND t.orderId IS NOT NULL "
+            + "AND NOT EXISTS (SELECT o FROM OrderStatusOutbox o WHERE o.transactionId = t.id AND o.paymentStatus = 'FAILED') "
+            + "ORDER BY t.transactionDate ASC")
+    List<Transaction> findCompensatedWithoutStatusEvent(Pageable pageable);
+    
     /**
      * Find all failed transactions for a specific restaurant (for compensation)
      * @param restaurantId Restaurant ID
      * @return List of failed transactions
      */
-    @Query("SELECT t FROM Transaction t WHERE t.restaurantId = :restaurantId AND (t.status LIKE '%FAILED%' OR t.status LIKE '%COMPENSATED%') ORDER BY t.transactionDate DESC")
+    @Query("SELECT t FROM Transaction t WHERE t.restaurantId = :restaurantId AND t.status IN (com.cognizant.paymentservice.model.TransactionStatus.FAILED, com.cognizant.paymentservice.model.TransactionStatus.COMPENSATED) ORDER BY t.transactionDate DESC")
     List<Transaction> findFailedTransactionsByRestaurant(@Param("restaurantId") String restaurantId);
     
     /**
@@ -270,6 +531,56 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
      * @param userId User ID
      * @return List of failed transactions
      */
-    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId AND (t.status LIKE '%FAILED%' OR t.status LIKE '%COMPENSATED%') ORDER BY t.transactionDate DESC")
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId AND t.status IN (com.cognizant.paymentservice.model.TransactionStatus.FAILED, com.cognizant.paymentservice.model.TransactionStatus.COMPENSATED) ORDER BY t.transactionDate DESC")
     List<Transaction> findFailedTransactionsByUser(@Param("userId") String userId);
-}
\ No newline at end of file
+    
+    // ==================== LEDGER ARCHIVAL ====================
+    // Month ranges are [from, to): on MySQL they prune to the month's partition.
+    
+    /**
+     * Oldest transaction still in the ledger
+     * @return Its transaction date, null if the ledger is empty
+     */
+    @Query("SELECT MIN(t.transactionDate) FROM Transaction t")
+    LocalDateTime findOldestTransactionDate();
+    
+    /**
+     * Count transactions of a time range still waiting for a final status
+     * @param from Range start (inclusive)
+     * @param to Range end (exclusive)
+     * @return PENDING transactions in the range
+     */
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.transactionDate >= :from AND t.transactionDate < :to "
+            + "AND t.status = com.cognizant.paymentservice.model.TransactionStatus.PENDING")
+    long countPendingBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    /**
+     * Stream a time range oldest first, for writing it to an archive file
+     * @param from Range start (inclusive)
+     * @param to Range end (exclusive)
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT t FROM Transaction t WHERE t.transactionDate >= :from AND t.transactionDate < :to "
+            + "ORDER BY t.transactionDate ASC, t.id ASC")
+    Stream<Transaction> streamBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    /**
+     * Successful payment totals per user in a time range: [userId, count, sum, sum of squares, last date].
+     * Wallet top-ups are left out, as in aggregateSuccessByUser.
+     */
+    @Query("SELECT t.userId, COUNT(t), SUM(t.amount), SUM(CAST(t.amount AS double) * CAST(t.amount AS double)), MAX(t.transactionDate) FROM Transaction t "
+            + "WHERE t.transactionDate >= :from AND t.transactionDate < :to "
+            + "AND t.status = com.cognizant.paymentservice.model.TransactionStatus.SUCCESS "
+            + "AND t.orderId <> '' GROUP BY t.userId")
+    List<Object[]> aggregateSuccessByUserBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    /**
+     * Successful payment totals per restaurant in a time range: [restaurantId, count, sum, sum of squares, last date].
+     * Wallet top-ups are left out, so no aggregate is keyed by their empty restaurant ID.
+     */
+    @Query("SELECT t.restaurantId, COUNT(t), SUM(t.amount), SUM(CAST(t.amount AS double) * CAST(t.amount AS double)), MAX(t.transactionDate) FROM Transaction t "
+            + "WHERE t.transactionDate >= :from AND t.transactionDate < :to "
+            + "AND t.status = com.cognizant.paymentservice.model.TransactionStatus.SUCCESS "
+            + "AND t.orderId <> '' GROUP BY t.restaurantId")
+    List<Object[]> aggregateSuccessByRestaurantBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
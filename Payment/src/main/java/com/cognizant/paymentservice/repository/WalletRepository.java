@@ -1,11 +1,14 @@
 package com.cognizant.paymentservice.repository;
 
+import com.cognizant.paymentservice.model.Money;
 import com.cognizant.paymentservice.model.Wallet;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,28 +39,28 @@ public interface WalletRepository extends JpaRepository<Wallet, String> {
      * @param balance Balance threshold
      * @return List of wallets
      */
-    List<Wallet> findByBalanceGreaterThan(Double balance);
+    List<Wallet> findByBalanceGreaterThan(Money balance);
     
     /**
      * Find all wallets with balance less than amount
      * @param balance Balance threshold
      * @return List of wallets
      */
-    List<Wallet> findByBalanceLessThan(Double balance);
+    List<Wallet> findByBalanceLessThan(Money balance);
     
     /**
      * Get total balance across all wallets
-     * @return Total balance
+     * @return Total balance in paise (exact)
      */
-    @Query("SELECT COALESCE(SUM(w.balance), 0.0) FROM Wallet w")
-    Double getTotalBalance();
+    @Query("SELECT COALESCE(SUM(w.balance), 0) FROM Wallet w")
+    Long getTotalBalancePaise();
     
     /**
      * Get average balance
-     * @return Average balance
+     * @return Average balance in paise
      */
     @Query("SELECT COALESCE(AVG(w.balance), 0.0) FROM Wallet w")
-    Double getAverageBalance();
+    Double getAverageBalancePaise();
     
     /**
      * Check if user has sufficient balance
@@ -65,16 +68,16 @@ public interface WalletRepository extends JpaRepository<Wallet, String> {
      * @param amount Required amount
      * @return true if balance >= amount
      */
-    @Query("SELECT CASE WHEN (SELECT COALESCE(w.balance, 0.0) FROM Wallet w WHERE w.userId = :userId) >= :amount THEN true ELSE false END")
-    boolean hasSufficientBalance(@Param("userId") String userId, @Param("amount") Double amount);
+    @Query("SELECT CASE WHEN COUNT(w) > 0 THEN true ELSE false END FROM Wallet w WHERE w.userId = :userId AND w.balance >= :amount")
+    boolean hasSufficientBalance(@Param("userId") String userId, @Param("amount") Money amount);
     
     /**
      * Get wallet balance by user ID
      * @param userId User ID
-     * @return Balance amount
+     * @return Balance amount, null if the wallet does not exist
      */
-    @Query("SELECT COALESCE(w.balance, 0.0) FROM Wallet w WHERE w.userId = :userId")
-    Double getBalance(@Param("userId") String userId);
+    @Query("SELECT w.balance FROM Wallet w WHERE w.userId = :userId")
+    Money getBalance(@Param("userId") String userId);
     
     /**
      * Find wallets by currency
@@ -82,4 +85,72 @@ public interface WalletRepository extends JpaRepository<Wallet, String> {
      * @return List of wallets
      */
     List<Wallet> findByCurrency(String currency);
-}
\ No newline at end of file
+    
+    // ==================== GUARDED BALANCE UPDATES ====================
+    
+    /**
+     * Atomically debit a wallet only if it holds enough balance.
+     * The balance check and the write happen in one UPDATE statement,
+     * so concurrent debits for the same user can never overdraw or lose updates.
+     * @param userId User ID
+     * @param amount Amount to debit
+     * @param now Update timestamp
+     * @return Rows affected (1 = debited, 0 = wallet missing or insufficient balance)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Wallet w SET w.balance = w.balance - :amount, w.lastUpdated = :now, w.version = COALESCE(w.version, 0) + 1 WHERE w.userId = :userId AND w.balance >= :amount")
+    int debitIfSufficient(@Param("userId") String userId, @Param("amount") Money amount, @Param("now") LocalDateTime now);
+    
+    /**
+     * Atomically credit a wallet
+     * @param userId User ID
+     * @param amount Amount to credit
+     * @param now Update timestamp
+     * @return Rows affected (1 = credited, 0 = wallet missing)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Wallet w SET w.balance = w.balance + :amount, w.lastUpdated = :now, w.version = COALESCE(w.version, 0) + 1 WHERE w.userId = :userId")
+    int credit(@Param("userId") String userId, @Param("amount") Money amount, @Param("now") LocalDateTime now);
+    
+    /**
+     * Insert a new wallet without reading it first.
+     * Fails with a constraint violation if the wallet already exists, instead of overwriting it.
+     * @param userId User ID
+     * @param amount Opening balance
+     * @param now Creation timestamp
+     * @return Rows inserted
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("INSERT INTO Wallet (userId, balance, currency, lastUpdated, version) VALUES (:userId, :amount, 'INR', :now, 0)")
+    int insertWallet(@Param("userId") String userId, @Param("amount") Money amount, @Param("now") LocalDateTime now);
+    
+    // ==================== VERSIONED BALANCE UPDATES ====================
+    
+    /**
+     * Debit a wallet only if it is still at the given version and holds enough balance.
+     * Used to write through a cached snapshot: one row updated means the snapshot was
+     * current, so the new balance is known without reading the row back.
+     * @param userId User ID
+     * @param amount Amount to debit
+     * @param version Version of the cached snapshot
+     * @param now Update timestamp
+     * @return Rows affected (1 = debited, 0 = snapshot stale, wallet missing or insufficient balance)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Wallet w SET w.balance = w.balance - :amount, w.lastUpdated = :now, w.version = :version + 1 WHERE w.userId = :userId AND w.version = :version AND w.balance >= :amount")
+    int debitIfSufficientAtVersion(@Param("userId") String userId, @Param("amount") Money amount,
+                                   @Param("version") long version, @Param("now") LocalDateTime now);
+    
+    /**
+     * Credit a wallet only if it is still at the given version
+     * @param userId User ID
+     * @param amount Amount to credit
+     * @param version Version of the cached snapshot
+     * @param now Update timestamp
+     * @return Rows affected (1 = credited, 0 = snapshot stale or wallet missing)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Wallet w SET w.balance = w.balance + :amount, w.lastUpdated = :now, w.version = :version + 1 WHERE w.userId = :userId AND w.version = :version")
+    int creditAtVersion(@Param("userId") String userId, @Param("amount") Money amount,
+                        @Param("version") long version, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,190 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.PaymentResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key deduplication for payment submissions
+ *
+ * Lookup order for a key:
+ * 1. Bounded LRU of recent responses (in memory, expires after the TTL)
+ * 2. A submission with the same key already running on this node → wait for it
+ * 3. Transaction stored under the key (unique index, survives restarts and spans nodes)
+ * 4. Otherwise run the payment and remember its response
+ *
+ * Metrics:
+ * - payment.idempotency.requests{result=hit|stored|miss}  lookups by outcome
+ * - payment.idempotency.cache.hit.ratio                   in-memory hits / lookups
+ * - payment.idempotency.cache.size                        cached responses
+ *
+ * The LRU is guarded by a ReentrantLock rather than synchronized, so request
+ * threads never pin their carrier when running on virtual threads.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final Map<String, CachedResponse> cache;
+    private final ReentrantLock cacheLock = new ReentrantLock();
+    private final Map<String, CompletableFuture<PaymentResponse>> inFlight = new ConcurrentHashMap<>();
+    private final long ttlMs;
+
+    private final Counter hitCounter;
+    private final Counter storedCounter;
+    private final Counter missCounter;
+
+    public IdempotencyService(MeterRegistry meterRegistry,
+                              @Value("${payment.idempotency.cache-size:10000}") int maxEntries,
+                              @Value("${payment.idempotency.ttl-ms:86400000}") long ttlMs) {
+        this.ttlMs = ttlMs;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        this.hitCounter = requestCounter(meterRegistry, "hit");
+        this.storedCounter = requestCounter(meterRegistry, "stored");
+        this.missCounter = requestCounter(meterRegistry, "miss");
+        Gauge.builder("payment.idempotency.cache.hit.ratio", this, IdempotencyService::hitRatio)
+                .description("Share of idempotent payment lookups answered from memory")
+                .register(meterRegistry);
+        Gauge.builder("payment.idempotency.cache.size", this, IdempotencyService::cacheSize)
+                .description("Payment responses held in the idempotency cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a payment at most once per key
+     *
+     * @param key Idempotency-Key from the client
+     * @param stored Looks up the response of a payment already stored under the key
+     * @param payment Runs the payment
+     * @return The original response for a repeated key, otherwise the new one
+     */
+    public PaymentResponse execute(String key, Supplier<Optional<PaymentResponse>> stored, Supplier<PaymentResponse> payment) {
+        PaymentResponse cached = getCached(key);
+        if (cached != null) {
+            hitCounter.increment();
+            logger.debug("♻️ Idempotency-Key {} answered from cache", key);
+            return cached;
+        }
+
+        CompletableFuture<PaymentResponse> mine = new CompletableFuture<>();
+        CompletableFuture<PaymentResponse> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            hitCounter.increment();
+            logger.debug("♻️ Idempotency-Key {} already in progress, waiting for it", key);
+            return join(running);
+        }
+
+        try {
+            Optional<PaymentResponse> previous = stored.get();
+            PaymentResponse response;
+            if (previous.isPresent()) {
+                storedCounter.increment();
+                logger.debug("♻️ Idempotency-Key {} matched a stored transaction", key);
+                response = previous.get();
+            } else {
+                missCounter.increment();
+                response = payment.get();
+            }
+            put(key, response);
+            mine.complete(response);
+            return response;
+
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // ==================== CACHE ====================
+
+    private PaymentResponse getCached(String key) {
+        cacheLock.lock();
+        try {
+            CachedResponse entry = cache.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt < System.currentTimeMillis()) {
+                cache.remove(key);
+                return null;
+            }
+            return entry.response;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private void put(String key, PaymentResponse response) {
+        cacheLock.lock();
+        try {
+            cache.put(key, new CachedResponse(response, System.currentTimeMillis() + ttlMs));
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    int cacheSize() {
+        cacheLock.lock();
+        try {
+            return cache.size();
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    double hitRatio() {
+        double hits = hitCounter.count();
+        double total = hits + storedCounter.count() + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private static PaymentResponse join(CompletableFuture<PaymentResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("payment.idempotency.requests")
+                .description("Idempotent payment lookups by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class CachedResponse {
+        private final PaymentResponse response;
+        private final long expiresAt;
+
+        private CachedResponse(PaymentResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
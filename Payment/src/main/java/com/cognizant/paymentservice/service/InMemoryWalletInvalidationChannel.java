@@ -0,0 +1,40 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.WalletInvalidation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Invalidation channel within one JVM: delivers synchronously to every subscriber.
+ * Default for single-node deployments and tests; a multi-node deployment sets
+ * payment.wallet.cache.channel to its broker-backed implementation.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.wallet.cache.channel", havingValue = "in-memory", matchIfMissing = true)
+public class InMemoryWalletInvalidationChannel implements WalletInvalidationChannel {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryWalletInvalidationChannel.class);
+
+    private final List<Consumer<WalletInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(WalletInvalidation invalidation) {
+        for (Consumer<WalletInvalidation> listener : listeners) {
+            try {
+                listener.accept(invalidation);
+            } catch (RuntimeException e) {
+                logger.warn("⚠️ Wallet invalidation listener failed for {}: {}", invalidation, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<WalletInvalidation> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,373 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.model.TransactionStatus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compressed columnar file format for archived ledger months
+ *
+ * A file is a sequence of row blocks. Each block has a small uncompressed header
+ * (row count, min/max transaction date, payload length) followed by a
+ * GZIP-compressed payload that stores the block column by column:
+ * ids, dates and amounts as fixed-width longs, low-cardinality strings
+ * (user, restaurant, method, status, failure reason) dictionary-encoded,
+ * the rest as length-prefixed UTF-8.
+ *
+ * Readers skip whole blocks outside the requested date range without
+ * decompressing them, and skip the rest of a block as soon as its dictionary
+ * shows that the requested user or restaurant does not occur in it.
+ */
+final class LedgerArchiveFormat {
+
+    private static final int MAGIC = 0x504C4131;  // "PLA1"
+    private static final int END_OF_FILE = 0;
+
+    private LedgerArchiveFormat() {
+    }
+
+    // ==================== WRITING ====================
+
+    /**
+     * Appends transactions in blocks of blockRows; close() writes the last block
+     */
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private final int blockRows;
+        private final List<Transaction> block;
+        private long rowCount;
+
+        Writer(Path file, int blockRows) throws IOException {
+            this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING), blockRows);
+            out.writeInt(MAGIC);
+        }
+
+        private Writer(FileChannel channel, int blockRows) {
+            this.channel = channel;
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            this.blockRows = blockRows;
+            this.block = new ArrayList<>(blockRows);
+        }
+
+        /**
+         * Continue an unfinished file from a length returned by {@link #checkpoint()};
+         * anything written after that checkpoint is cut off
+         */
+        static Writer resume(Path file, long length, int blockRows) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            channel.truncate(length);
+            channel.position(length);
+            return new Writer(channel, blockRows);
+        }
+
+        /**
+         * Write the buffered rows as a (possibly short) block and sync the file
+         * @return File length to pass to {@link #resume}
+         */
+        long checkpoint() throws IOException {
+            writeBlock();
+            out.flush();
+            channel.force(false);
+            return channel.position();
+        }
+
+        void add(Transaction tx) throws IOException {
+            block.add(tx);
+            rowCount++;
+            if (block.size() == blockRows) {
+                writeBlock();
+            }
+        }
+
+        /**
+         * Close the file without writing the buffered rows, leaving it to be resumed
+         * from its last checkpoint
+         */
+        void abandon() throws IOException {
+            channel.close();
+        }
+
+        long getRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                writeBlock();
+                out.writeInt(END_OF_FILE);
+            } finally {
+                out.close();
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (block.isEmpty()) {
+                return;
+            }
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            try (DataOutputStream columns = new DataOutputStream(new GZIPOutputStream(payload))) {
+                // Filter columns first, so readers can stop early
+                writeDictionary(columns, block, Transaction::getUserId);
+                writeDictionary(columns, block, Transaction::getRestaurantId);
+                for (Transaction tx : block) {
+                    long micros = toMicros(tx.getTransactionDate());
+                    min = Math.min(min, micros);
+                    max = Math.max(max, micros);
+                    columns.writeLong(micros);
+                }
+                for (Transaction tx : block) {
+                    columns.writeLong(tx.getId().getMostSignificantBits());
+                    columns.writeLong(tx.getId().getLeastSignificantBits());
+                }
+                for (Transaction tx : block) {
+                    columns.writeLong(Money.paiseOf(tx.getAmount()));
+                }
+                writeDictionary(columns, block, Transaction::getMethod);
+                writeDictionary(columns, block, tx -> tx.getStatus() != null ? tx.getStatus().name() : null);
+                writeDictionary(columns, block, Transaction::getFailureReason);
+                writeStrings(columns, block, Transaction::getOrderId);
+                writeStrings(columns, block, Transaction::getIdempotencyKey);
+                writeStrings(columns, block, Transaction::getMessage);
+            }
+            out.writeInt(block.size());
+            out.writeLong(min);
+            out.writeLong(max);
+            out.writeInt(payload.size());
+            payload.writeTo(out);
+            block.clear();
+        }
+    }
+
+    private static void writeDictionary(DataOutputStream out, List<Transaction> rows,
+                                        Function<Transaction, String> column) throws IOException {
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        int[] indexes = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            String value = column.apply(rows.get(i));
+            if (value == null) {
+                indexes[i] = -1;
+                continue;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                codes.put(value, code);
+                dictionary.add(value);
+            }
+            indexes[i] = code;
+        }
+        out.writeInt(dictionary.size());
+        for (String value : dictionary) {
+            writeString(out, value);
+        }
+        for (int index : indexes) {
+            out.writeInt(index);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, List<Transaction> rows,
+                                     Function<Transaction, String> column) throws IOException {
+        for (Transaction tx : rows) {
+            writeString(out, column.apply(tx));
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // ==================== READING ====================
+
+    /**
+     * Read the transactions of a file that match the filters
+     * @param file Archive file
+     * @param from Earliest transaction date (inclusive), null for no bound
+     * @param to Latest transaction date (inclusive), null for no bound
+     * @param userId Only this user's transactions, null for all
+     * @param restaurantId Only this restaurant's transactions, null for all
+     * @param sink Receives matching transactions in file order (oldest first)
+     */
+    static void read(Path file, LocalDateTime from, LocalDateTime to, String userId, String restaurantId,
+                     Consumer<Transaction> sink) throws IOException {
+        long fromMicros = from != null ? toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? toMicros(to) : Long.MAX_VALUE;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a ledger archive: " + file);
+            }
+            int rows;
+            while ((rows = in.readInt()) != END_OF_FILE) {
+                long min = in.readLong();
+                long max = in.readLong();
+                int length = in.readInt();
+                if (max < fromMicros || min > toMicros) {
+                    in.skipNBytes(length);
+                    continue;
+                }
+                byte[] payload = in.readNBytes(length);
+                try (DataInputStream columns = new DataInputStream(
+                        new GZIPInputStream(new ByteArrayInputStream(payload)))) {
+                    readBlock(columns, rows, fromMicros, toMicros, userId, restaurantId, sink);
+                }
+            }
+        }
+    }
+
+    private static void readBlock(DataInputStream in, int rows, long fromMicros, long toMicros,
+                                  String userId, String restaurantId, Consumer<Transaction> sink) throws IOException {
+        Dictionary users = readDictionary(in, rows);
+        Dictionary restaurants = readDictionary(in, rows);
+        int userCode = users.codeOf(userId);
+        int restaurantCode = restaurants.codeOf(restaurantId);
+        if ((userId != null && userCode < 0) || (restaurantId != null && restaurantCode < 0)) {
+            return;  // requested user/restaurant not in this block
+        }
+
+        boolean[] match = new boolean[rows];
+        long[] micros = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            micros[i] = in.readLong();
+            match[i] = micros[i] >= fromMicros && micros[i] <= toMicros
+                    && (userId == null || users.indexes[i] == userCode)
+                    && (restaurantId == null || restaurants.indexes[i] == restaurantCode);
+        }
+        UUID[] ids = new UUID[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = new UUID(in.readLong(), in.readLong());
+        }
+        long[] paise = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            paise[i] = in.readLong();
+        }
+        Dictionary methods = readDictionary(in, rows);
+        Dictionary statuses = readDictionary(in, rows);
+        Dictionary failureReasons = readDictionary(in, rows);
+        String[] orderIds = readStrings(in, rows);
+        String[] idempotencyKeys = readStrings(in, rows);
+        String[] messages = readStrings(in, rows);
+
+        for (int i = 0; i < rows; i++) {
+            if (!match[i]) {
+                continue;
+            }
+            Transaction tx = new Transaction();
+            tx.setId(ids[i]);
+            tx.setTransactionDate(fromMicros(micros[i]));
+            tx.setUserId(users.valueAt(i));
+            tx.setRestaurantId(restaurants.valueAt(i));
+            tx.setAmount(Money.ofPaise(paise[i]));
+            tx.setMethod(methods.valueAt(i));
+            String status = statuses.valueAt(i);
+            tx.setStatus(status != null ? TransactionStatus.valueOf(status) : null);
+            tx.setFailureReason(failureReasons.valueAt(i));
+            tx.setOrderId(orderIds[i]);
+            tx.setIdempotencyKey(idempotencyKeys[i]);
+            tx.setMessage(messages[i]);
+            sink.accept(tx);
+        }
+    }
+
+    private static Dictionary readDictionary(DataInputStream in, int rows) throws IOException {
+        String[] values = new String[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString(in);
+        }
+        int[] indexes = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            indexes[i] = in.readInt();
+        }
+        return new Dictionary(values, indexes);
+    }
+
+    private static String[] readStrings(DataInputStream in, int rows) throws IOException {
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = readString(in);
+        }
+        return values;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static final class Dictionary {
+        private final String[] values;
+        private final int[] indexes;
+
+        Dictionary(String[] values, int[] indexes) {
+            this.values = values;
+            this.indexes = indexes;
+        }
+
+        int codeOf(String value) {
+            if (value == null) {
+                return -1;
+            }
+            for (int code = 0; code < values.length; code++) {
+                if (values[code].equals(value)) {
+                    return code;
+                }
+            }
+            return -1;
+        }
+
+        String valueAt(int row) {
+            int code = indexes[row];
+            return code < 0 ? null : values[code];
+        }
+    }
+
+    // ==================== DATES ====================
+
+    private static long toMicros(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + date.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,459 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.AggregateScope;
+import com.cognizant.paymentservice.model.LedgerArchive;
+import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.model.TransactionCursor;
+import com.cognizant.paymentservice.model.TransactionPage;
+import com.cognizant.paymentservice.repository.LedgerArchiveRepository;
+import com.cognizant.paymentservice.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Archival of cold ledger months to compressed columnar files
+ *
+ * Responsibilities:
+ * 1. Move every month older than payment.ledger.archive.after-months out of the
+ *    database into one file per month under payment.ledger.archive.dir
+ * 2. Keep a catalog of archived months (ledger_archives) and carry their
+ *    successful payments into the aggregates' archived share
+ * 3. Answer keyset-paginated date-range queries from the database and the archive
+ *    files together; a read fails if an archived month's file is missing, so every
+ *    node serving reads needs payment.ledger.archive.dir on shared storage
+ *
+ * Per month: the month is claimed by inserting its catalog entry, so one node
+ * archives it and every other node backs off on the primary key; the file is
+ * written and synced under a temporary name, then renamed; then, in one DB
+ * transaction, the month's rows are locked and checked against the file
+ * (row count, and count and amount per status), the claim is completed, the
+ * aggregates' archived share recorded, and the idempotency keys and rows deleted.
+ * A row that changed after the file was written (a refund, say) fails the check:
+ * the claim is released and the month is archived again by a later run.
+ * On MySQL the emptied partition is dropped afterwards.
+ * A crash at any point is finished by the next run; a claim left by a node that
+ * stopped is taken over once it is older than payment.ledger.archive.lease-ms.
+ */
+@Service
+public class LedgerArchiveService {
+    private static final Logger logger = LoggerFactory.getLogger(LedgerArchiveService.class);
+
+    private static final String FILE_SUFFIX = ".pla";
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerArchiveRepository archiveRepository;
+
+    @Autowired
+    private PaymentAggregateService aggregateService;
+
+    @Autowired
+    private LedgerPartitionService partitionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${payment.ledger.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${payment.ledger.archive.dir:./ledger-archive}")
+    private String archiveDir;
+
+    @Value("${payment.ledger.archive.after-months:12}")
+    private int afterMonths;
+
+    @Value("${payment.ledger.archive.block-rows:50000}")
+    private int blockRows;
+
+    @Value("${payment.ledger.archive.lease-ms:3600000}")
+    private long leaseMs;
+
+    @Value("${payment.query.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${payment.query.max-page-size:500}")
+    private int maxPageSize;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public LedgerArchiveService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ==================== ARCHIVAL ====================
+
+    @Scheduled(cron = "${payment.ledger.archive.cron:0 0 4 * * *}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archiveColdMonths();
+        }
+    }
+
+    /**
+     * Archive every month, oldest first, that is older than after-months
+     * @return Months archived by this run
+     */
+    public synchronized List<YearMonth> archiveColdMonths() {
+        YearMonth cutoff = YearMonth.now().minusMonths(afterMonths);
+        List<YearMonth> archived = new ArrayList<>();
+        LocalDateTime oldest = transactionRepository.findOldestTransactionDate();
+        for (YearMonth month = oldest != null ? YearMonth.from(oldest) : cutoff;
+             month.isBefore(cutoff); month = month.plusMonths(1)) {
+            if (!archiveMonth(month)) {
+                break;  // keep months contiguous: never archive past a month that has to wait
+            }
+            archived.add(month);
+        }
+        return archived;
+    }
+
+    /**
+     * Move one month of the ledger to its archive file
+     * @return false if the month still has PENDING transactions, another node is archiving it,
+     *         or its rows changed while the file was written, and it was left in place
+     */
+    public synchronized boolean archiveMonth(YearMonth month) {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        LedgerArchive entry = archiveRepository.findById(month.toString()).orElse(null);
+        if (entry == null || entry.getClaimedBy() != null) {
+            if (transactionRepository.countPendingBetween(from, to) > 0) {
+                logger.warn("⚠️ Ledger month {} still has PENDING transactions, not archiving", month);
+                return false;
+            }
+            String claimToken = nodeId + "-" + UUID.randomUUID();
+            if (!claim(month, entry != null, claimToken)) {
+                logger.info("🗄️ Ledger month {} is being archived by another node", month);
+                return false;
+            }
+            boolean archived;
+            try {
+                archived = archiveClaimed(month, from, to, claimToken);
+            } catch (RuntimeException e) {
+                archiveRepository.releaseClaim(month.toString(), claimToken);
+                throw e;
+            }
+            if (!archived) {
+                archiveRepository.releaseClaim(month.toString(), claimToken);
+                return false;
+            }
+        }
+
+        // Catalogued: drop the emptied partition; a month catalogued before rows were
+        // deleted with it (older archiver) still has its rows removed here
+        if (!partitionService.dropMonth(month)) {
+            int deleted = jdbcTemplate.update("DELETE FROM transactions WHERE transaction_date >= ? AND transaction_date < ?",
+                    Timestamp.valueOf(from), Timestamp.valueOf(to));
+            if (deleted > 0) {
+                logger.info("🗄️ Deleted {} archived rows of {} from the ledger", deleted, month);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Claim a month for this node: insert its catalog entry, or take over a claim that expired
+     * @param claimed Whether the month already has a (claim) entry
+     * @return false if another node holds the month
+     */
+    private boolean claim(YearMonth month, boolean claimed, String claimToken) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime claimedUntil = now.plusNanos(leaseMs * 1_000_000);
+        if (claimed) {
+            return archiveRepository.takeOverClaim(month.toString(), claimToken, claimedUntil, now) == 1;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO ledger_archives (archive_month, file_name, row_count, size_bytes, "
+                            + "archived_at, claimed_by, claimed_until) VALUES (?, ?, 0, 0, ?, ?, ?)",
+                    month.toString(), fileName(month), Timestamp.valueOf(now), claimToken, Timestamp.valueOf(claimedUntil));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write the claimed month's file, then move the month out of the database if its rows still match the file
+     * @return false if the rows changed after the file was written; nothing was removed
+     */
+    private boolean archiveClaimed(YearMonth month, LocalDateTime from, LocalDateTime to, String claimToken) {
+        long start = System.currentTimeMillis();
+        Path file = writeFile(month, from, to, claimToken);
+        MonthChecksum archived = checksumOf(file, month);
+        boolean removed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            // Lock the month: a refund or compensation now waits, then finds the row gone
+            MonthChecksum current = new MonthChecksum();
+            jdbcTemplate.query("SELECT status, amount_paise FROM transactions "
+                            + "WHERE transaction_date >= ? AND transaction_date < ? FOR UPDATE",
+                    rs -> { current.add(rs.getString(1), rs.getLong(2)); },
+                    Timestamp.valueOf(from), Timestamp.valueOf(to));
+            if (!current.equals(archived)) {
+                return false;
+            }
+            if (archiveRepository.completeClaim(month.toString(), claimToken, file.getFileName().toString(),
+                    archived.rows, sizeOf(file), LocalDateTime.now()) == 0) {
+                throw new IllegalStateException("Claim on ledger month " + month + " was taken over by another node");
+            }
+            aggregateService.recordArchived(AggregateScope.USER,
+                    transactionRepository.aggregateSuccessByUserBetween(from, to));
+            aggregateService.recordArchived(AggregateScope.RESTAURANT,
+                    transactionRepository.aggregateSuccessByRestaurantBetween(from, to));
+            jdbcTemplate.update("DELETE FROM transaction_idempotency_keys WHERE transaction_id IN "
+                            + "(SELECT id FROM transactions WHERE transaction_date >= ? AND transaction_date < ?)",
+                    Timestamp.valueOf(from), Timestamp.valueOf(to));
+            int deleted = jdbcTemplate.update("DELETE FROM transactions WHERE transaction_date >= ? AND transaction_date < ?",
+                    Timestamp.valueOf(from), Timestamp.valueOf(to));
+            if (deleted != archived.rows) {
+                throw new IllegalStateException("Ledger month " + month + ": deleted " + deleted
+                        + " rows but archived " + archived.rows);
+            }
+            return true;
+        }));
+        if (!removed) {
+            logger.warn("⚠️ Ledger month {} changed while it was archived, leaving it for the next run", month);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("⚠️ Could not remove stale ledger archive {}: {}", file, e.getMessage());
+            }
+            return false;
+        }
+        logger.info("🗄️ Archived ledger month {}: {} rows to {} in {} ms",
+                month, archived.rows, file.getFileName(), System.currentTimeMillis() - start);
+        return true;
+    }
+
+    private static String fileName(YearMonth month) {
+        return "transactions-" + month + FILE_SUFFIX;
+    }
+
+    private Path writeFile(YearMonth month, LocalDateTime from, LocalDateTime to, String claimToken) {
+        Path dir = Paths.get(archiveDir);
+        Path file = dir.resolve(fileName(month));
+        Path temp = dir.resolve(fileName(month) + "." + claimToken + ".tmp");
+        try {
+            Files.createDirectories(dir);
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Transaction> rows = transactionRepository.streamBetween(from, to);
+                     LedgerArchiveFormat.Writer writer = new LedgerArchiveFormat.Writer(temp, blockRows)) {
+                    Iterator<Transaction> it = rows.iterator();
+                    while (it.hasNext()) {
+                        Transaction tx = it.next();
+                        writer.add(tx);
+                        entityManager.detach(tx);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write ledger archive for " + month, e);
+        }
+    }
+
+    private MonthChecksum checksumOf(Path file, YearMonth month) {
+        MonthChecksum checksum = new MonthChecksum();
+        try {
+            LedgerArchiveFormat.read(file, null, null, null, null, tx -> checksum.add(
+                    tx.getStatus() != null ? tx.getStatus().name() : null, tx.getAmount().paise()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not verify ledger archive for " + month, e);
+        }
+        return checksum;
+    }
+
+    /**
+     * Row count, and count and amount per status, of one ledger month
+     */
+    private static final class MonthChecksum {
+        private long rows;
+        private final Map<String, long[]> byStatus = new HashMap<>();
+
+        void add(String status, long paise) {
+            rows++;
+            long[] totals = byStatus.computeIfAbsent(String.valueOf(status), s -> new long[2]);
+            totals[0]++;
+            totals[1] += paise;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof MonthChecksum that) || rows != that.rows || !byStatus.keySet().equals(that.byStatus.keySet())) {
+                return false;
+            }
+            return byStatus.entrySet().stream().allMatch(e -> Arrays.equals(e.getValue(), that.byStatus.get(e.getKey())));
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(rows);
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // ==================== READ PATH ====================
+
+    /**
+     * Newest first on (transactionDate, id), ids compared as unsigned bytes as the database orders them
+     */
+    private static final Comparator<Transaction> NEWEST_FIRST = Comparator
+            .comparing(Transaction::getTransactionDate)
+            .thenComparing(Transaction::getId, (a, b) -> {
+                int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+                return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+            })
+            .reversed();
+
+    /**
+     * One keyset page of a date range, from the database and the archive files, newest first.
+     * The database returns its page directly; archived months are read newest first into a
+     * heap of limit + 1 rows, and reading stops at the first month older than a full heap,
+     * so a page holds at most limit + 1 rows from each source whatever the range.
+     * @param startDate Range start (inclusive)
+     * @param endDate Range end (inclusive)
+     * @param userId Only this user's transactions, null for all
+     * @param restaurantId Only this restaurant's transactions, null for all (at most one of the two)
+     * @param cursor nextCursor of the previous page, null for the first page
+     * @param limit Page size (capped at payment.query.max-page-size)
+     * @throws UncheckedIOException if an archived month's file cannot be read on this node
+     */
+    public TransactionPage findByDateRange(LocalDateTime startDate, LocalDateTime endDate,
+                                           String userId, String restaurantId, String cursor, Integer limit) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("A date range with from <= to is required");
+        }
+        if (userId != null && restaurantId != null) {
+            throw new IllegalArgumentException("Filter by userId or restaurantId, not both");
+        }
+        TransactionCursor after = TransactionCursor.decode(cursor);
+        int pageSize = resolvePageSize(limit);
+        Pageable page = PageRequest.of(0, pageSize + 1);
+        LocalDateTime date = after.getTransactionDate();
+        UUID id = after.getId();
+
+        List<Transaction> rows;
+        if (userId != null) {
+            rows = transactionRepository.findPageByUserIdBetweenAfter(userId, startDate, endDate, date, id, page);
+        } else if (restaurantId != null) {
+            rows = transactionRepository.findPageByRestaurantIdBetweenAfter(restaurantId, startDate, endDate, date, id, page);
+        } else {
+            rows = transactionRepository.findPageBetweenAfter(startDate, endDate, date, id, page);
+        }
+
+        LocalDateTime upper = date.isBefore(endDate) ? date : endDate;
+        if (upper.isBefore(startDate)) {
+            return TransactionPage.of(rows, pageSize);
+        }
+        List<LedgerArchive> months = archiveRepository.findMonthsBetween(
+                YearMonth.from(startDate).toString(), YearMonth.from(upper).toString());
+        if (months.isEmpty()) {
+            return TransactionPage.of(rows, pageSize);
+        }
+        // Head is the oldest row kept, evicted when a newer one arrives on a full heap
+        Transaction cursorRow = cursorRow(after);
+        PriorityQueue<Transaction> newest = new PriorityQueue<>(pageSize + 2, NEWEST_FIRST.reversed());
+        newest.addAll(rows);
+        for (int i = months.size() - 1; i >= 0; i--) {
+            LedgerArchive archive = months.get(i);
+            if (newest.size() > pageSize
+                    && !newest.peek().getTransactionDate().isBefore(YearMonth.parse(archive.getMonth()).plusMonths(1).atDay(1).atStartOfDay())) {
+                break;  // every row of this and older months is older than the page
+            }
+            Path file = Paths.get(archiveDir).resolve(archive.getFileName());
+            try {
+                LedgerArchiveFormat.read(file, startDate, upper, userId, restaurantId, tx -> {
+                    if (NEWEST_FIRST.compare(tx, cursorRow) > 0) {
+                        newest.add(tx);
+                        if (newest.size() > pageSize + 1) {
+                            newest.poll();
+                        }
+                    }
+                });
+            } catch (NoSuchFileException e) {
+                throw new UncheckedIOException("Ledger archive " + file + " for " + archive.getMonth()
+                        + " is not on this node; payment.ledger.archive.dir must be shared by all nodes", e);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read ledger archive " + file, e);
+            }
+        }
+        List<Transaction> merged = new ArrayList<>(newest);
+        merged.sort(NEWEST_FIRST);
+        return TransactionPage.of(merged, pageSize);
+    }
+
+    private static Transaction cursorRow(TransactionCursor cursor) {
+        Transaction row = new Transaction();
+        row.setId(cursor.getId());
+        row.setTransactionDate(cursor.getTransactionDate());
+        return row;
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    public List<LedgerArchive> getArchives() {
+        return archiveRepository.findAll();
+    }
+}
@@ -0,0 +1,182 @@
+package com.cognizant.paymentservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Monthly RANGE partitioning of the transactions table, managed from the app
+ *
+ * Responsibilities:
+ * 1. Move legacy idempotency keys to their side table (a partitioned table cannot
+ *    keep a unique key that does not contain the partition column)
+ * 2. On MySQL, convert the ledger to RANGE COLUMNS(transaction_date) with one
+ *    partition per month, primary key (id, transaction_date)
+ * 3. Keep partitions created ahead of time for the coming months
+ * 4. Drop the partition of a month once it has been archived
+ *
+ * Date-range queries on transaction_date are pruned by MySQL to the partitions
+ * of the months they cover. On other databases (tests) only step 1 runs and the
+ * ledger stays a single table.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class LedgerPartitionService implements InitializingBean {
+    private static final Logger logger = LoggerFactory.getLogger(LedgerPartitionService.class);
+
+    private static final String TABLE = "transactions";
+    private static final String CATCH_ALL = "pmax";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${payment.ledger.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.ledger.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    private volatile boolean mysql;
+
+    public LedgerPartitionService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        migrateIdempotencyKeys();
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        mysql = product != null && product.toLowerCase().contains("mysql");
+        if (enabled && mysql) {
+            maintainPartitions();
+        }
+    }
+
+    // ==================== PARTITION MAINTENANCE ====================
+
+    /**
+     * Partition the ledger if it is not yet partitioned, then make sure the
+     * current month and the next months-ahead months have their own partition
+     */
+    @Scheduled(cron = "${payment.ledger.partitioning.cron:0 0 2 * * *}")
+    public synchronized void maintainPartitions() {
+        if (!enabled || !mysql) {
+            return;
+        }
+        YearMonth last = YearMonth.now().plusMonths(monthsAhead);
+        Set<String> existing = partitionNames();
+        if (existing.isEmpty()) {
+            partitionTable(last);
+            return;
+        }
+        for (YearMonth month = YearMonth.now(); !month.isAfter(last); month = month.plusMonths(1)) {
+            String name = month.format(PARTITION_NAME);
+            if (!existing.contains(name)) {
+                // The catch-all partition only holds rows with dates beyond the last month,
+                // so splitting it off is cheap
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + CATCH_ALL + " INTO ("
+                        + partition(month) + ", PARTITION " + CATCH_ALL + " VALUES LESS THAN (MAXVALUE))");
+                logger.info("🗂️ Added ledger partition {}", name);
+            }
+        }
+    }
+
+    /**
+     * Drop the partition holding one month, after the month was archived.
+     * Only the oldest partition may be dropped this way: it must not hold rows
+     * from before the month, which would otherwise be lost with it.
+     *
+     * @return true if the partition was dropped; false if the caller has to delete the rows
+     */
+    public synchronized boolean dropMonth(YearMonth month) {
+        if (!enabled || !mysql || !partitionNames().contains(month.format(PARTITION_NAME))) {
+            return false;
+        }
+        Long older = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE + " WHERE transaction_date < ?",
+                Long.class, Timestamp.valueOf(month.atDay(1).atStartOfDay()));
+        if (older != null && older > 0) {
+            return false;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + month.format(PARTITION_NAME));
+        logger.info("🗂️ Dropped ledger partition {}", month.format(PARTITION_NAME));
+        return true;
+    }
+
+    public boolean isPartitioned() {
+        return mysql && !partitionNames().isEmpty();
+    }
+
+    private void partitionTable(YearMonth last) {
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(transaction_date) FROM " + TABLE, LocalDateTime.class);
+        YearMonth first = oldest != null ? YearMonth.from(oldest) : YearMonth.now();
+        if (first.isAfter(last)) {
+            first = last;
+        }
+
+        long start = System.currentTimeMillis();
+        logger.info("🗂️ Partitioning {} by month from {} to {} (one-time table rebuild)", TABLE, first, last);
+        jdbcTemplate.update("UPDATE " + TABLE + " SET transaction_date = NOW(6) WHERE transaction_date IS NULL");
+        // Every unique key of a partitioned table must contain the partition column
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " MODIFY transaction_date DATETIME(6) NOT NULL, "
+                + "DROP PRIMARY KEY, ADD PRIMARY KEY (id, transaction_date)");
+
+        StringJoiner partitions = new StringJoiner(", ");
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            partitions.add(partition(month));
+        }
+        partitions.add("PARTITION " + CATCH_ALL + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " PARTITION BY RANGE COLUMNS(transaction_date) (" + partitions + ")");
+        logger.info("✅ Partitioned {} in {} ms", TABLE, System.currentTimeMillis() - start);
+    }
+
+    private static String partition(YearMonth month) {
+        return "PARTITION " + month.format(PARTITION_NAME)
+                + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + " 00:00:00')";
+    }
+
+    private Set<String> partitionNames() {
+        List<String> names = jdbcTemplate.queryForList("SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL", String.class, TABLE);
+        return new HashSet<>(names);
+    }
+
+    // ==================== IDEMPOTENCY KEY MIGRATION ====================
+
+    /**
+     * Copy keys from the legacy transactions.idempotency_key column into
+     * transaction_idempotency_keys, then drop the column and its unique index.
+     * A no-op once the column is gone.
+     */
+    private void migrateIdempotencyKeys() {
+        try {
+            jdbcTemplate.queryForList("SELECT idempotency_key FROM " + TABLE + " WHERE 1 = 0");
+        } catch (DataAccessException e) {
+            return;
+        }
+        int copied = jdbcTemplate.update("INSERT INTO transaction_idempotency_keys (transaction_id, idempotency_key) "
+                + "SELECT id, idempotency_key FROM " + TABLE + " WHERE idempotency_key IS NOT NULL");
+        try {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP INDEX uk_idempotency_key");
+        } catch (DataAccessException e) {
+            // Index already gone or named differently; dropping the column removes it too
+        }
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP COLUMN idempotency_key");
+        logger.info("✅ Moved {} idempotency keys to transaction_idempotency_keys", copied);
+    }
+}
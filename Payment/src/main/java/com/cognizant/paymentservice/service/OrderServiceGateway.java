@@ -0,0 +1,54 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.client.OrderClient;
+import com.cognizant.paymentservice.dto.OrderResponseDto;
+import com.cognizant.paymentservice.dto.OrderStatusUpdateDto;
+import com.cognizant.paymentservice.dto.OrderStatusUpdateResultDto;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Order Service calls behind the "order-service" circuit breaker and semaphore bulkhead
+ *
+ * Wraps OrderClient the way RestaurantValidatorService wraps RestaurantClient in Menu.
+ * While the circuit is open, or every bulkhead permit is taken, a call fails at once
+ * with CallNotPermittedException / BulkheadFullException instead of waiting on Order
+ * Service; callers treat it as a failed delivery and leave the event to the outbox.
+ * There is no fallback value: a status update either reached Order Service or it did not.
+ *
+ * Breaker state: /actuator/health (circuitBreakers), /actuator/circuitbreakers and the
+ * resilience4j.circuitbreaker.* / resilience4j.bulkhead.* meters.
+ */
+@Service
+public class OrderServiceGateway {
+
+    public static final String ORDER_SERVICE = "order-service";
+
+    @Autowired
+    private OrderClient orderClient;
+
+    @CircuitBreaker(name = ORDER_SERVICE)
+    @Bulkhead(name = ORDER_SERVICE)
+    public OrderResponseDto updateOrderStatusByPayment(String orderId, String paymentStatus) {
+        return orderClient.updateOrderStatusByPayment(orderId, paymentStatus);
+    }
+
+    @CircuitBreaker(name = ORDER_SERVICE)
+    @Bulkhead(name = ORDER_SERVICE)
+    public List<OrderStatusUpdateResultDto> updateOrderStatusesByPayment(List<OrderStatusUpdateDto> updates) {
+        return orderClient.updateOrderStatusesByPayment(updates);
+    }
+
+    /**
+     * Whether a call was turned away without reaching Order Service (open circuit or full bulkhead)
+     */
+    public static boolean isRejected(Throwable error) {
+        return error instanceof CallNotPermittedException || error instanceof BulkheadFullException;
+    }
+}
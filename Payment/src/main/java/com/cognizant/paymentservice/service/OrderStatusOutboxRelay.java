@@ -0,0 +1,167 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.OrderStatusOutbox;
+import feign.RetryableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background recovery engine that drains the order status outbox
+ *
+ * Every tick it leases the next page of due events (so other payment nodes
+ * skip them) and delivers them to Order Service on the shared taskExecutor,
+ * at most {@code payment.outbox.concurrency} calls at a time.
+ * Only the oldest pending event of an order is leased, so events for one
+ * order are delivered in the order they were written.
+ * A connection-level failure ends the run early so a down Order Service
+ * is not hammered; failed events are rescheduled with backoff.
+ * When a SUCCESS event runs out of attempts the payment is compensated
+ * and a FAILED event is queued so the order gets cancelled automatically.
+ *
+ * Metrics:
+ * - payment.recovery.backlog             events waiting for delivery
+ * - payment.recovery.oldest.age.seconds  age of the oldest waiting event
+ * - payment.recovery.delivered           delivered events (rate = recoveries per second)
+ * - payment.recovery.failed              failed delivery attempts
+ */
+@Component
+public class OrderStatusOutboxRelay {
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusOutboxRelay.class);
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong oldestAgeSeconds = new AtomicLong();
+    private final Counter deliveredCounter;
+    private final Counter failedCounter;
+
+    @Autowired
+    private OrderStatusOutboxService outboxService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    @Value("${payment.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${payment.outbox.concurrency:5}")
+    private int concurrency;
+
+    @Value("${payment.outbox.lease-ms:60000}")
+    private long leaseMs;
+
+    public OrderStatusOutboxRelay(MeterRegistry meterRegistry) {
+        Gauge.builder("payment.recovery.backlog", backlog, AtomicLong::get)
+                .description("Order status events waiting for delivery")
+                .register(meterRegistry);
+        Gauge.builder("payment.recovery.oldest.age.seconds", oldestAgeSeconds, AtomicLong::get)
+                .description("Age of the oldest order status event waiting for delivery")
+                .register(meterRegistry);
+        this.deliveredCounter = Counter.builder("payment.recovery.delivered")
+                .description("Order status events delivered to Order Service")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("payment.recovery.failed")
+                .description("Failed order status delivery attempts")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.outbox.relay-interval-ms:1000}")
+    public void drain() {
+        String claimToken = nodeId + "-" + UUID.randomUUID();
+        List<OrderStatusOutbox> batch = outboxService.claimDueBatch(batchSize, claimToken, leaseMs);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        AtomicInteger delivered = new AtomicInteger();
+        AtomicBoolean orderServiceDown = new AtomicBoolean();
+        try {
+            for (int from = 0; from < batch.size() && !orderServiceDown.get(); from += concurrency) {
+                List<CompletableFuture<Void>> chunk = new ArrayList<>();
+                for (OrderStatusOutbox event : batch.subList(from, Math.min(from + concurrency, batch.size()))) {
+                    chunk.add(CompletableFuture
+                            .runAsync(() -> {
+                                deliverOne(event);
+                                delivered.incrementAndGet();
+                            }, taskExecutor)
+                            .exceptionally(e -> {
+                                if (e.getCause() instanceof RetryableException
+                                        || OrderServiceGateway.isRejected(e.getCause())) {
+                                    orderServiceDown.set(true);
+                                }
+                                return null;
+                            }));
+                }
+                CompletableFuture.allOf(chunk.toArray(new CompletableFuture[0])).join();
+            }
+        } finally {
+            // Events not attempted after an early stop go back to the pool right away
+            outboxService.releaseClaims(claimToken);
+        }
+        logger.info("📤 Outbox relay delivered {}/{} order status events", delivered.get(), batch.size());
+    }
+
+    /**
+     * Refresh backlog gauges from the outbox table
+     */
+    @Scheduled(fixedDelayString = "${payment.outbox.metrics-interval-ms:15000}")
+    public void refreshBacklogMetrics() {
+        backlog.set(outboxService.backlogSize());
+        LocalDateTime oldest = outboxService.oldestPendingCreatedAt();
+        oldestAgeSeconds.set(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).getSeconds());
+    }
+
+    /**
+     * Queue cancellations for compensated payments that never got an outbox event
+     */
+    @Scheduled(fixedDelayString = "${payment.outbox.backfill-interval-ms:300000}")
+    public void backfillCompensated() {
+        int queued = outboxService.backfillCompensated(batchSize);
+        if (queued > 0) {
+            logger.info("📥 Queued {} order cancellations for compensated transactions", queued);
+        }
+    }
+
+    private void deliverOne(OrderStatusOutbox event) {
+        try {
+            outboxService.deliver(event);
+            deliveredCounter.increment();
+        } catch (RuntimeException e) {
+            failedCounter.increment();
+            if (outboxService.isExhausted(event)) {
+                giveUp(event);
+            }
+            throw e;
+        }
+    }
+
+    private void giveUp(OrderStatusOutbox event) {
+        outboxService.markDead(event);
+        if ("SUCCESS".equals(event.getPaymentStatus())) {
+            paymentService.compensateUndeliveredPayment(event.getTransactionId());
+        }
+    }
+}
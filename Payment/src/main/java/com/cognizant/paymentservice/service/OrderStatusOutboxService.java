@@ -0,0 +1,446 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.client.FeignClientInterceptor;
+import com.cognizant.paymentservice.dto.OrderResponseDto;
+import com.cognizant.paymentservice.dto.OrderStatusUpdateDto;
+import com.cognizant.paymentservice.dto.OrderStatusUpdateResultDto;
+import com.cognizant.paymentservice.model.OrderStatusOutbox;
+import com.cognizant.paymentservice.model.OutboxStatus;
+import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.model.TransactionStatus;
+import com.cognizant.paymentservice.repository.OrderStatusOutboxRepository;
+import com.cognizant.paymentservice.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Transactional outbox for Payment → Order status propagation
+ *
+ * Responsibilities:
+ * 1. Write the Transaction row and its order status event in one DB transaction
+ * 2. Deliver a single event to Order Service and record the outcome
+ * 3. Schedule retries with exponential backoff
+ * 4. Lease due events so several payment nodes never deliver the same one
+ * 5. Write and deliver batch payments (JDBC-batched inserts, one bulk Order Service call)
+ * 6. Hold a payment saga's event until the payment commits, then release or discard it
+ *
+ * Order Service is called through OrderServiceGateway: with its circuit open a delivery
+ * fails in microseconds and the event simply waits for its next attempt.
+ * Deliveries authenticate with the service's own client-credentials token
+ * (ServiceTokenProvider), never a stored user JWT that may have expired by then.
+ */
+@Service
+public class OrderStatusOutboxService {
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusOutboxService.class);
+
+    @Autowired
+    private OrderServiceGateway orderServiceGateway;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private OrderStatusOutboxRepository outboxRepository;
+
+    @Autowired
+    private PaymentAggregateService aggregateService;
+
+    @Autowired
+    private PaymentMetrics paymentMetrics;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
+
+    @Value("${payment.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${payment.outbox.backoff-initial-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${payment.outbox.backoff-max-ms:60000}")
+    private long maxBackoffMs;
+
+    @Value("${payment.outbox.lease-ms:60000}")
+    private long leaseMs;
+
+    // Lease of a held event: never expires on its own
+    private static final LocalDateTime HELD_UNTIL = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    // ==================== WRITE SIDE ====================
+
+    /**
+     * Save a transaction together with the order status event that must follow it,
+     * and apply it to the payment aggregates. All rows commit or none do.
+     * A SUCCESS transaction is added to the aggregates; a REFUNDED or COMPENSATED
+     * one (always a former SUCCESS) is removed again.
+     *
+     * @param tx Transaction to save
+     * @param paymentStatus Payment status to propagate (SUCCESS, FAILED, REFUNDED)
+     * @return Saved transaction
+     */
+    @Transactional
+    public Transaction saveWithStatusEvent(Transaction tx, String paymentStatus) {
+        Transaction savedTx = transactionRepository.save(tx);
+        if (savedTx.getStatus() == TransactionStatus.SUCCESS) {
+            aggregateService.recordPayment(savedTx);
+        } else if (savedTx.getStatus() == TransactionStatus.REFUNDED || savedTx.getStatus() == TransactionStatus.COMPENSATED) {
+            aggregateService.reversePayment(savedTx);
+        }
+        if (savedTx.getOrderId() != null && !savedTx.getOrderId().isEmpty()) {
+            enqueue(savedTx.getOrderId(), savedTx.getId(), paymentStatus);
+        }
+        return savedTx;
+    }
+
+    /**
+     * Save a batch of new transactions, apply the successful ones to the aggregates
+     * and queue a SUCCESS event per paid order, all in one DB transaction.
+     * Transactions are persisted (not merged) and flushed every jdbc batch_size
+     * rows, so Hibernate sends the INSERTs as JDBC batches.
+     * The events are created already leased to {@code claimToken}: the relay skips
+     * them while the caller delivers them with {@link #deliverBatch}.
+     *
+     * @param txs New transactions
+     * @param claimToken Lease owner for the queued events
+     * @param leaseMs Lease duration
+     * @return Queued events
+     */
+    @Transactional
+    public List<OrderStatusOutbox> saveBatchWithStatusEvents(List<Transaction> txs, String claimToken, long leaseMs) {
+        for (int i = 0; i < txs.size(); i++) {
+            Transaction tx = txs.get(i);
+            tx.setId(null);  // assigned by the UUID generator on persist; a preset id would force a SELECT via merge
+            entityManager.persist(tx);
+            if ((i + 1) % jdbcBatchSize == 0) {
+                entityManager.flush();
+            }
+        }
+        entityManager.flush();
+
+        List<Transaction> succeeded = txs.stream()
+                .filter(tx -> tx.getStatus() == TransactionStatus.SUCCESS)
+                .toList();
+        aggregateService.recordPayments(succeeded);
+
+        LocalDateTime leaseUntil = LocalDateTime.now().plusNanos(leaseMs * 1_000_000);
+        List<OrderStatusOutbox> events = new ArrayList<>();
+        for (Transaction tx : succeeded) {
+            if (tx.getOrderId() == null || tx.getOrderId().isEmpty()) {
+                continue;
+            }
+            OrderStatusOutbox event = new OrderStatusOutbox(tx.getOrderId(), tx.getId(), "SUCCESS");
+            event.setClaimedBy(claimToken);
+            event.setClaimedUntil(leaseUntil);
+            events.add(event);
+        }
+        return outboxRepository.saveAll(events);
+    }
+
+    /**
+     * Queue the same order status event for each transaction that has an order.
+     * Must run in the transaction that saves the status changes.
+     *
+     * @param txs Transactions whose status changed
+     * @param paymentStatus Payment status to propagate
+     * @return Queued events
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<OrderStatusOutbox> enqueueAll(List<Transaction> txs, String paymentStatus) {
+        List<OrderStatusOutbox> events = new ArrayList<>();
+        for (Transaction tx : txs) {
+            if (tx.getOrderId() == null || tx.getOrderId().isEmpty()) {
+                continue;
+            }
+            events.add(new OrderStatusOutbox(tx.getOrderId(), tx.getId(), paymentStatus));
+        }
+        return outboxRepository.saveAll(events);
+    }
+
+    /**
+     * Queue an order status event for the relay
+     */
+    @Transactional
+    public OrderStatusOutbox enqueue(String orderId, UUID transactionId, String paymentStatus) {
+        return outboxRepository.save(new OrderStatusOutbox(orderId, transactionId, paymentStatus));
+    }
+
+    // ==================== HELD EVENTS (PAYMENT SAGA) ====================
+
+    /**
+     * Queue an event that the relay must not deliver yet: it is leased to
+     * {@code holder} with no expiry until {@link #saveAndRelease} or {@link #discardHeld}.
+     * Lets a payment saga prepare the order notification while the payment is still running.
+     *
+     * @param orderId Order ID
+     * @param transactionId Transaction the event belongs to
+     * @param paymentStatus Payment status to propagate
+     * @param holder Lease owner (the saga)
+     * @return Held event
+     */
+    @Transactional
+    public OrderStatusOutbox hold(String orderId, UUID transactionId, String paymentStatus, String holder) {
+        OrderStatusOutbox event = new OrderStatusOutbox(orderId, transactionId, paymentStatus);
+        event.setClaimedBy(holder);
+        event.setClaimedUntil(HELD_UNTIL);
+        return outboxRepository.save(event);
+    }
+
+    /**
+     * Save a transaction, apply it to the aggregates and hand its held events to the relay,
+     * all in one DB transaction (same rules as {@link #saveWithStatusEvent})
+     *
+     * @param tx Transaction to save
+     * @param holder Lease owner the events were held for
+     * @return Saved transaction
+     */
+    @Transactional
+    public Transaction saveAndRelease(Transaction tx, String holder) {
+        Transaction savedTx = transactionRepository.save(tx);
+        outboxRepository.releaseClaims(holder);
+        if (savedTx.getStatus() == TransactionStatus.SUCCESS) {
+            // Last, so the hot aggregate rows stay locked only until the commit
+            aggregateService.recordPayment(savedTx);
+        }
+        return savedTx;
+    }
+
+    /**
+     * Drop the events still held for a holder
+     * @return Events dropped
+     */
+    @Transactional
+    public int discardHeld(String holder) {
+        return outboxRepository.deleteClaimed(holder, OutboxStatus.PENDING);
+    }
+
+    // ==================== DELIVERY ====================
+
+    /**
+     * Lease the next batch of due events for one relay run.
+     * Rows leased by another node are skipped; a lease that is never released
+     * (node crash) expires after leaseMs and the rows become claimable again.
+     *
+     * @param batchSize Maximum events to lease
+     * @param claimToken Token identifying this node and run
+     * @param leaseMs Lease duration
+     * @return Events leased by this run, oldest first
+     */
+    public List<OrderStatusOutbox> claimDueBatch(int batchSize, String claimToken, long leaseMs) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = outboxRepository.findDueIds(OutboxStatus.PENDING, now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        int claimed = outboxRepository.claim(ids, claimToken, now.plusNanos(leaseMs * 1_000_000), now, OutboxStatus.PENDING);
+        if (claimed == 0) {
+            return List.of();
+        }
+        return outboxRepository.findByClaimedByOrderByIdAsc(claimToken);
+    }
+
+    /**
+     * Release the leases a relay run did not settle
+     */
+    public void releaseClaims(String claimToken) {
+        outboxRepository.releaseClaims(claimToken);
+    }
+
+    /**
+     * Queue FAILED events for compensated transactions that have none yet
+     * (compensated before the outbox existed, or enqueue lost)
+     *
+     * @param batchSize Maximum transactions to backfill
+     * @return Events queued
+     */
+    @Transactional
+    public int backfillCompensated(int batchSize) {
+        List<Transaction> orphans = transactionRepository.findCompensatedWithoutStatusEvent(PageRequest.of(0, batchSize));
+        for (Transaction tx : orphans) {
+            outboxRepository.save(new OrderStatusOutbox(tx.getOrderId(), tx.getId(), "FAILED"));
+        }
+        return orphans.size();
+    }
+
+    /**
+     * Deliver one event to Order Service.
+     * On success the event is marked DELIVERED; on failure the next attempt is
+     * scheduled with exponential backoff and the exception is rethrown.
+     *
+     * @param event Outbox event
+     * @return Order Service response
+     */
+    public OrderResponseDto deliver(OrderStatusOutbox event) {
+        long start = paymentMetrics.start();
+        try {
+            OrderResponseDto response = FeignClientInterceptor.callAsService(
+                    () -> orderServiceGateway.updateOrderStatusByPayment(event.getOrderId(), event.getPaymentStatus()));
+            paymentMetrics.success(PaymentMetrics.ORDER_NOTIFY, null, start);
+
+            markDelivered(event);
+            return response;
+
+        } catch (RuntimeException e) {
+            paymentMetrics.failure(PaymentMetrics.ORDER_NOTIFY, null, e, start);
+            int attempts = event.getAttempts() + 1;
+            long backoffMs = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+            event.setAttempts(attempts);
+            event.setLastError(e.getMessage());
+            event.setNextAttemptAt(LocalDateTime.now().plusNanos(backoffMs * 1_000_000));
+            releaseLease(event);
+            outboxRepository.save(event);
+            logger.warn("⚠️ Outbox delivery failed for order {} (attempt {}), next try in {} ms: {}",
+                    event.getOrderId(), attempts, backoffMs, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Deliver a batch of leased events to Order Service in one bulk call.
+     * Events Order Service accepted are marked DELIVERED; the others, or all of
+     * them when the call fails, are released for the relay to retry one by one.
+     *
+     * @param events Events leased to claimToken
+     * @param claimToken Lease owner
+     * @return Events delivered
+     */
+    public int deliverBatch(List<OrderStatusOutbox> events, String claimToken) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<OrderStatusUpdateDto> updates = events.stream()
+                .map(e -> new OrderStatusUpdateDto(e.getOrderId(), e.getPaymentStatus()))
+                .toList();
+        int delivered = 0;
+        long start = paymentMetrics.start();
+        try {
+            List<OrderStatusUpdateResultDto> results = FeignClientInterceptor.callAsService(
+                    () -> orderServiceGateway.updateOrderStatusesByPayment(updates));
+            paymentMetrics.success(PaymentMetrics.ORDER_NOTIFY, "BATCH", start);
+            for (int i = 0; i < events.size() && results != null && i < results.size(); i++) {
+                OrderStatusOutbox event = events.get(i);
+                OrderStatusUpdateResultDto result = results.get(i);
+                if (result.isUpdated() && event.getOrderId().equals(result.getOrderId())) {
+                    markDelivered(event);
+                    delivered++;
+                } else {
+                    logger.warn("⚠️ Order {} not updated by bulk call, leaving it to the outbox relay: {}",
+                            event.getOrderId(), result.getError());
+                }
+            }
+        } catch (RuntimeException e) {
+            paymentMetrics.failure(PaymentMetrics.ORDER_NOTIFY, "BATCH", e, start);
+            logger.warn("⚠️ Bulk order status update for {} orders failed, leaving them to the outbox relay: {}",
+                    events.size(), e.getMessage());
+        } finally {
+            outboxRepository.releaseClaims(claimToken);
+        }
+        return delivered;
+    }
+
+    /**
+     * Deliver every undelivered event for an order right now, oldest first.
+     * Used by the manual recovery endpoint; DEAD events get another chance.
+     * The events are leased first with the relay's conditional claim, so an event
+     * the relay is delivering at the same moment is never sent twice.
+     *
+     * @param orderId Order ID
+     * @return Response for the last delivered event, or null if nothing was pending
+     * @throws IllegalStateException if another node holds a lease on one of the events
+     */
+    public OrderResponseDto deliverNow(String orderId) {
+        List<OrderStatusOutbox> undelivered = outboxRepository.findByOrderIdAndStatusInOrderByIdAsc(
+                orderId, List.of(OutboxStatus.PENDING, OutboxStatus.DEAD));
+        if (undelivered.isEmpty()) {
+            return null;
+        }
+        String claimToken = "manual-" + UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusNanos(leaseMs * 1_000_000);
+        int claimed = 0;
+        for (OutboxStatus status : List.of(OutboxStatus.PENDING, OutboxStatus.DEAD)) {
+            List<Long> ids = undelivered.stream().filter(e -> e.getStatus() == status).map(OrderStatusOutbox::getId).toList();
+            if (!ids.isEmpty()) {
+                claimed += outboxRepository.claim(ids, claimToken, leaseUntil, now, status);
+            }
+        }
+
+        try {
+            if (claimed < undelivered.size()) {
+                // Delivering the rest could overtake the leased ones
+                throw new IllegalStateException("Status events of order " + orderId + " are being delivered by the outbox relay");
+            }
+            OrderResponseDto response = null;
+            for (OrderStatusOutbox event : outboxRepository.findByClaimedByOrderByIdAsc(claimToken)) {
+                event.setStatus(OutboxStatus.PENDING);
+                response = deliver(event);
+            }
+            return response;
+        } finally {
+            outboxRepository.releaseClaims(claimToken);
+        }
+    }
+
+    /**
+     * Whether an event has used up its delivery attempts
+     */
+    public boolean isExhausted(OrderStatusOutbox event) {
+        return event.getAttempts() >= maxAttempts;
+    }
+
+    // ==================== BACKLOG ====================
+
+    /**
+     * Number of events waiting for delivery
+     */
+    public long backlogSize() {
+        return outboxRepository.countByStatus(OutboxStatus.PENDING);
+    }
+
+    /**
+     * Creation time of the oldest event waiting for delivery, or null when the backlog is empty
+     */
+    public LocalDateTime oldestPendingCreatedAt() {
+        return outboxRepository.findOldestCreatedAt(OutboxStatus.PENDING).orElse(null);
+    }
+
+    private void markDelivered(OrderStatusOutbox event) {
+        event.setAttempts(event.getAttempts() + 1);
+        event.setStatus(OutboxStatus.DELIVERED);
+        event.setDeliveredAt(LocalDateTime.now());
+        event.setLastError(null);
+        releaseLease(event);
+        outboxRepository.save(event);
+    }
+
+    private void releaseLease(OrderStatusOutbox event) {
+        event.setClaimedBy(null);
+        event.setClaimedUntil(null);
+    }
+
+    /**
+     * Stop retrying an event
+     */
+    public void markDead(OrderStatusOutbox event) {
+        event.setStatus(OutboxStatus.DEAD);
+        releaseLease(event);
+        outboxRepository.save(event);
+        logger.error("❌ Outbox event {} for order {} given up after {} attempts",
+                event.getId(), event.getOrderId(), event.getAttempts());
+    }
+}
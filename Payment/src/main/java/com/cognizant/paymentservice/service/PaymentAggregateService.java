@@ -0,0 +1,383 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.AggregateScope;
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.PaymentAggregate;
+import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.repository.PaymentAggregateRepository;
+import com.cognizant.paymentservice.repository.TransactionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-user and per-restaurant payment aggregates
+ *
+ * Responsibilities:
+ * 1. Apply each SUCCESS / REFUND / compensation to the aggregates inside the ledger write's transaction
+ * 2. Serve reads from the aggregate table, with an optional Caffeine cache in front
+ * 3. Rebuild aggregates from the ledger in parallel chunks (scheduled, or on demand)
+ */
+@Service
+public class PaymentAggregateService {
+    private static final Logger logger = LoggerFactory.getLogger(PaymentAggregateService.class);
+
+    @Autowired
+    private PaymentAggregateRepository aggregateRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    @Value("${payment.aggregates.rebuild-chunk-size:500}")
+    private int rebuildChunkSize;
+
+    @Value("${payment.aggregates.rebuild-parallelism:4}")
+    private int rebuildParallelism;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<PaymentAggregate.Key, PaymentAggregate> cache;  // null when disabled
+
+    // Invalidations per stripe of keys; a read that overlaps one does not keep its value cached
+    private static final int INVALIDATION_STRIPES = 64;
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    public PaymentAggregateService(PlatformTransactionManager transactionManager,
+                                   @Value("${payment.aggregates.cache.enabled:true}") boolean cacheEnabled,
+                                   @Value("${payment.aggregates.cache.max-size:10000}") long cacheMaxSize,
+                                   @Value("${payment.aggregates.cache.ttl-ms:30000}") long cacheTtlMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cache = cacheEnabled
+                ? Caffeine.newBuilder()
+                        .maximumSize(cacheMaxSize)
+                        .expireAfterWrite(Duration.ofMillis(cacheTtlMs))
+                        .build()
+                : null;
+    }
+
+    // ==================== WRITE SIDE ====================
+
+    /**
+     * Add a successful payment to its user and restaurant aggregates.
+     * Must run in the transaction that saves the payment.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPayment(Transaction tx) {
+        apply(tx, 1);
+    }
+
+    /**
+     * Remove a refunded or compensated payment from its user and restaurant aggregates.
+     * Must run in the transaction that saves the status change.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reversePayment(Transaction tx) {
+        apply(tx, -1);
+    }
+
+    /**
+     * Add a batch of successful payments with one UPDATE per user and restaurant
+     * instead of two per payment. Rows are updated in key order, so concurrent
+     * batches lock aggregate rows in the same order and cannot deadlock.
+     * Must run in the transaction that saves the payments.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPayments(List<Transaction> txs) {
+        applyBatch(txs, 1);
+    }
+
+    /**
+     * Remove a batch of refunded payments, one UPDATE per user and restaurant,
+     * locking rows in the same key order as {@link #recordPayments}.
+     * Must run in the transaction that saves the status changes.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reversePayments(List<Transaction> txs) {
+        applyBatch(txs, -1);
+    }
+
+    /**
+     * Move the totals of ledger rows that are being archived into the archived
+     * share of their aggregates. Rows are [scopeId, count, paise, paise², lastAt]
+     * as returned by the ledger aggregate queries.
+     * Must run in the transaction that records the archive.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordArchived(AggregateScope scope, List<Object[]> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Object[] row : rows) {
+            String scopeId = (String) row[0];
+            long count = ((Number) row[1]).longValue();
+            long paise = ((Number) row[2]).longValue();
+            double squares = ((Number) row[3]).doubleValue();
+            if (aggregateRepository.addArchived(scope, scopeId, count, paise, squares, now) == 0) {
+                // Ledger rows that predate the aggregates: start the row from them
+                ensureRow(scope, scopeId, now);
+                aggregateRepository.applyDelta(scope, scopeId, count, paise, squares, (LocalDateTime) row[4], now);
+                aggregateRepository.addArchived(scope, scopeId, count, paise, squares, now);
+            }
+            evictAfterCommit(new PaymentAggregate.Key(scope, scopeId));
+        }
+    }
+
+    private void applyBatch(List<Transaction> txs, int sign) {
+        Map<PaymentAggregate.Key, Delta> deltas = new TreeMap<>(KEY_ORDER);
+        for (Transaction tx : txs) {
+            long paise = Money.paiseOf(tx.getAmount());
+            addDelta(deltas, AggregateScope.USER, tx.getUserId(), paise, tx.getTransactionDate());
+            addDelta(deltas, AggregateScope.RESTAURANT, tx.getRestaurantId(), paise, tx.getTransactionDate());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        deltas.forEach((key, d) -> applyTo(key.getScope(), key.getScopeId(), sign * d.count, sign * d.paise,
+                sign * d.squares, d.lastAt, now));
+    }
+
+    private void apply(Transaction tx, int sign) {
+        long paise = Money.paiseOf(tx.getAmount());
+        double squares = (double) paise * paise;
+        LocalDateTime now = LocalDateTime.now();
+        applyTo(AggregateScope.USER, tx.getUserId(), sign, sign * paise, sign * squares, tx.getTransactionDate(), now);
+        applyTo(AggregateScope.RESTAURANT, tx.getRestaurantId(), sign, sign * paise, sign * squares, tx.getTransactionDate(), now);
+    }
+
+    private void applyTo(AggregateScope scope, String scopeId, long count, long paise, double squares,
+                         LocalDateTime at, LocalDateTime now) {
+        if (scopeId == null) {
+            return;
+        }
+        if (aggregateRepository.applyDelta(scope, scopeId, count, paise, squares, at, now) == 0) {
+            ensureRow(scope, scopeId, now);
+            aggregateRepository.applyDelta(scope, scopeId, count, paise, squares, at, now);
+        }
+        evictAfterCommit(new PaymentAggregate.Key(scope, scopeId));
+    }
+
+    private static void addDelta(Map<PaymentAggregate.Key, Delta> deltas, AggregateScope scope, String scopeId,
+                                 long paise, LocalDateTime at) {
+        if (scopeId == null) {
+            return;
+        }
+        Delta d = deltas.computeIfAbsent(new PaymentAggregate.Key(scope, scopeId), k -> new Delta());
+        d.count++;
+        d.paise += paise;
+        d.squares += (double) paise * paise;
+        if (at != null && (d.lastAt == null || at.isAfter(d.lastAt))) {
+            d.lastAt = at;
+        }
+    }
+
+    private static final Comparator<PaymentAggregate.Key> KEY_ORDER =
+            Comparator.comparing(PaymentAggregate.Key::getScope).thenComparing(PaymentAggregate.Key::getScopeId);
+
+    /**
+     * Accumulated change to one aggregate row
+     */
+    private static final class Delta {
+        long count;
+        long paise;
+        double squares;
+        LocalDateTime lastAt;
+    }
+
+    private void ensureRow(AggregateScope scope, String scopeId, LocalDateTime now) {
+        try {
+            aggregateRepository.insertEmpty(scope, scopeId, now);
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently by another payment or a rebuild
+        }
+    }
+
+    private void evictAfterCommit(PaymentAggregate.Key key) {
+        if (cache == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(key);
+            }
+        });
+    }
+
+    // ==================== READ SIDE ====================
+
+    /**
+     * Aggregates of a user's successful payments (zeros if none)
+     */
+    public PaymentAggregate getUserAggregate(String userId) {
+        return get(new PaymentAggregate.Key(AggregateScope.USER, userId));
+    }
+
+    /**
+     * Aggregates of a restaurant's successful payments (zeros if none)
+     */
+    public PaymentAggregate getRestaurantAggregate(String restaurantId) {
+        return get(new PaymentAggregate.Key(AggregateScope.RESTAURANT, restaurantId));
+    }
+
+    private PaymentAggregate get(PaymentAggregate.Key key) {
+        if (cache == null) {
+            return load(key);
+        }
+        // Not cache.get(key, loader): the loader would run the DB read inside a
+        // ConcurrentHashMap bin lock and pin the carrier of a virtual thread
+        PaymentAggregate aggregate = cache.getIfPresent(key);
+        if (aggregate == null) {
+            int stripe = stripe(key);
+            long seen = invalidations.get(stripe);
+            aggregate = load(key);
+            cache.put(key, aggregate);
+            if (invalidations.get(stripe) != seen) {
+                // An evict ran during the load, which may have read the row before that commit
+                cache.asMap().remove(key, aggregate);
+            }
+        }
+        return aggregate;
+    }
+
+    /**
+     * Drop a cached aggregate. Counted first, so a concurrent {@link #get} that put
+     * a value loaded earlier sees the change and removes it again.
+     */
+    private void invalidate(PaymentAggregate.Key key) {
+        invalidations.incrementAndGet(stripe(key));
+        cache.invalidate(key);
+    }
+
+    private static int stripe(PaymentAggregate.Key key) {
+        return Math.floorMod(key.hashCode(), INVALIDATION_STRIPES);
+    }
+
+    private PaymentAggregate load(PaymentAggregate.Key key) {
+        return aggregateRepository.findById(key)
+                .orElseGet(() -> new PaymentAggregate(key.getScope(), key.getScopeId()));
+    }
+
+    // ==================== REBUILD ====================
+
+    /**
+     * Nightly reconciliation of every aggregate against the ledger
+     */
+    @Scheduled(cron = "${payment.aggregates.rebuild-cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        rebuild(AggregateScope.USER);
+        rebuild(AggregateScope.RESTAURANT);
+    }
+
+    /**
+     * Recompute all aggregates of a scope from the ledger.
+     * Distinct IDs are walked in chunks; up to rebuild-parallelism chunks run
+     * at once on the taskExecutor, each in its own transaction.
+     *
+     * @param scope USER or RESTAURANT
+     * @return Aggregates rebuilt
+     */
+    public int rebuild(AggregateScope scope) {
+        long start = System.currentTimeMillis();
+        logger.info("🔁 Rebuilding {} payment aggregates", scope);
+
+        int rebuilt = 0;
+        String after = "";
+        List<CompletableFuture<Integer>> wave = new ArrayList<>();
+        while (true) {
+            List<String> ids = scope == AggregateScope.USER
+                    ? transactionRepository.findUserIdsAfter(after, PageRequest.of(0, rebuildChunkSize))
+                    : transactionRepository.findRestaurantIdsAfter(after, PageRequest.of(0, rebuildChunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            after = ids.get(ids.size() - 1);
+            wave.add(CompletableFuture.supplyAsync(() -> rebuildChunk(scope, ids), taskExecutor));
+            if (wave.size() >= rebuildParallelism) {
+                rebuilt += joinAll(wave);
+            }
+        }
+        rebuilt += joinAll(wave);
+
+        logger.info("✅ Rebuilt {} {} aggregates in {} ms", rebuilt, scope, System.currentTimeMillis() - start);
+        return rebuilt;
+    }
+
+    private int rebuildChunk(AggregateScope scope, List<String> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        for (String id : ids) {
+            if (!aggregateRepository.existsById(new PaymentAggregate.Key(scope, id))) {
+                ensureRow(scope, id, now);
+            }
+        }
+
+        Integer rebuilt = transactionTemplate.execute(status -> {
+            Map<String, PaymentAggregate> locked = new HashMap<>();
+            for (PaymentAggregate aggregate : aggregateRepository.lockAll(scope, ids)) {
+                locked.put(aggregate.getScopeId(), aggregate);
+            }
+            List<Object[]> rows = scope == AggregateScope.USER
+                    ? transactionRepository.aggregateSuccessByUser(ids)
+                    : transactionRepository.aggregateSuccessByRestaurant(ids);
+            Map<String, Object[]> byId = new HashMap<>();
+            for (Object[] row : rows) {
+                byId.put((String) row[0], row);
+            }
+            for (String id : ids) {
+                // Payments already moved to archive files are no longer in the ledger
+                PaymentAggregate archived = locked.get(id);
+                long count = archived != null ? archived.getArchivedCount() : 0;
+                long paise = archived != null ? archived.getArchivedPaise() : 0;
+                double squares = archived != null ? archived.getArchivedSumSquares() : 0.0;
+                LocalDateTime lastAt = count > 0 ? archived.getLastTransactionAt() : null;
+                Object[] row = byId.get(id);
+                if (row != null) {
+                    count += ((Number) row[1]).longValue();
+                    paise += ((Number) row[2]).longValue();
+                    squares += ((Number) row[3]).doubleValue();
+                    lastAt = (LocalDateTime) row[4];
+                }
+                aggregateRepository.overwrite(scope, id, count, paise, squares, lastAt, now);
+            }
+            return ids.size();
+        });
+
+        if (cache != null) {
+            ids.forEach(id -> invalidate(new PaymentAggregate.Key(scope, id)));
+        }
+        return rebuilt == null ? 0 : rebuilt;
+    }
+
+    private static int joinAll(List<CompletableFuture<Integer>> futures) {
+        int total = 0;
+        for (CompletableFuture<Integer> future : futures) {
+            total += future.join();
+        }
+        futures.clear();
+        return total;
+    }
+}
@@ -0,0 +1,87 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Structured payment events: one log event per finished payment, with every field
+ *
+ * Replaces the per-step banner lines of the payment path. The fields are logstash
+ * structured arguments, so they arrive in Logstash as JSON fields (event, sagaId,
+ * transactionId, orderId, userId, restaurantId, method, amountPaise, status,
+ * failureReason, failedStep, durationMs) and read as key=value in plain text.
+ *
+ * Step detail stays available at DEBUG on the emitting classes.
+ */
+@Component
+public class PaymentEventLogger {
+    private static final Logger logger = LoggerFactory.getLogger(PaymentEventLogger.class);
+
+    private static final String COMPLETED = "payment.completed";
+    private static final String COMPENSATED = "payment.compensated";
+    private static final String BATCH_COMPLETED = "payment.batch.completed";
+
+    /**
+     * A single payment finished: committed, declined, failed validation or rolled back
+     *
+     * @param sagaId Saga ID (also set when validation failed before the saga started)
+     * @param tx Transaction in its final state
+     * @param failedStep Step that failed, or null
+     * @param startNanos System.nanoTime() when the payment started
+     */
+    public void paymentCompleted(String sagaId, Transaction tx, String failedStep, long startNanos) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        logger.info("{} {} {} {} {} {} {} {} {} {} {} {}",
+                kv("event", COMPLETED), kv("sagaId", sagaId), kv("transactionId", tx.getId()),
+                kv("orderId", tx.getOrderId()), kv("userId", tx.getUserId()), kv("restaurantId", tx.getRestaurantId()),
+                kv("method", tx.getMethod()), kv("amountPaise", paiseOf(tx.getAmount())), kv("status", tx.getStatus()),
+                kv("failureReason", tx.getFailureReason()), kv("failedStep", failedStep),
+                kv("durationMs", elapsedMs(startNanos)));
+    }
+
+    /**
+     * A committed payment was compensated because Order Service never accepted it
+     *
+     * @param tx Compensated transaction
+     * @param walletRefunded Whether the amount went back to the wallet
+     * @param startNanos System.nanoTime() when the compensation started
+     */
+    public void paymentCompensated(Transaction tx, boolean walletRefunded, long startNanos) {
+        if (!logger.isWarnEnabled()) {
+            return;
+        }
+        logger.warn("{} {} {} {} {} {} {} {} {}",
+                kv("event", COMPENSATED), kv("transactionId", tx.getId()), kv("orderId", tx.getOrderId()),
+                kv("userId", tx.getUserId()), kv("method", tx.getMethod()), kv("amountPaise", paiseOf(tx.getAmount())),
+                kv("failureReason", tx.getFailureReason()), kv("walletRefunded", walletRefunded),
+                kv("durationMs", elapsedMs(startNanos)));
+    }
+
+    /**
+     * A batch of payments finished
+     */
+    public void batchCompleted(String batchId, int payments, int succeeded, int failed, int delivered, long startNanos) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        logger.info("{} {} {} {} {} {} {}",
+                kv("event", BATCH_COMPLETED), kv("batchId", batchId), kv("payments", payments),
+                kv("succeeded", succeeded), kv("failed", failed), kv("ordersNotified", delivered),
+                kv("durationMs", elapsedMs(startNanos)));
+    }
+
+    private static Long paiseOf(Money amount) {
+        return amount != null ? Money.paiseOf(amount) : null;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,141 @@
+package com.cognizant.paymentservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters for the stages of the payment path
+ *
+ * Meters (tags: stage, method, outcome, reason):
+ * - payment.stage.calls     every call, exact
+ * - payment.stage.duration  latency with a percentile histogram for /actuator/prometheus
+ *
+ * Stages: validation, process (per payment method), ledger-save, order-notify, compensation.
+ *
+ * With payment.metrics.sample-rate below 1 only that share of calls is timed:
+ * the rest skip the clock reads and the histogram update, and only bump their counter.
+ * Meters are resolved once per tag combination and reused.
+ */
+@Component
+public class PaymentMetrics {
+
+    public static final String VALIDATION = "validation";
+    public static final String PROCESS = "process";
+    public static final String LEDGER_SAVE = "ledger-save";
+    public static final String ORDER_NOTIFY = "order-notify";
+    public static final String COMPENSATION = "compensation";
+
+    /** start() value of a call that is counted but not timed */
+    public static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private static final String NONE = "NONE";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<MeterKey, StageMeters> meters = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final double sampleRate;
+    private final boolean percentileHistogram;
+    private final Duration maxExpected;
+
+    public PaymentMetrics(MeterRegistry meterRegistry,
+                          @Value("${payment.metrics.enabled:true}") boolean enabled,
+                          @Value("${payment.metrics.sample-rate:1.0}") double sampleRate,
+                          @Value("${payment.metrics.percentile-histogram:true}") boolean percentileHistogram,
+                          @Value("${payment.metrics.max-expected-ms:10000}") long maxExpectedMs) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("payment.metrics.sample-rate must be between 0 and 1");
+        }
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.percentileHistogram = percentileHistogram;
+        this.maxExpected = Duration.ofMillis(maxExpectedMs);
+    }
+
+    /**
+     * Start timing a call
+     * @return Start time to pass to {@link #success} or {@link #failure}, or NOT_SAMPLED
+     */
+    public long start() {
+        if (!enabled || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return NOT_SAMPLED;
+        }
+        return System.nanoTime();
+    }
+
+    public void success(String stage, String method, long start) {
+        record(stage, method, "success", NONE, start);
+    }
+
+    /**
+     * @param reason Failure reason code (e.g. INSUFFICIENT_BALANCE) or exception, never free text
+     */
+    public void failure(String stage, String method, String reason, long start) {
+        record(stage, method, "failure", reason != null ? reason : "UNKNOWN", start);
+    }
+
+    public void failure(String stage, String method, Throwable error, long start) {
+        failure(stage, method, error.getClass().getSimpleName(), start);
+    }
+
+    private void record(String stage, String method, String outcome, String reason, long start) {
+        if (!enabled) {
+            return;
+        }
+        StageMeters stageMeters = meters.computeIfAbsent(new MeterKey(stage, methodTag(method), outcome, reason),
+                this::register);
+        stageMeters.calls.increment();
+        if (start != NOT_SAMPLED) {
+            stageMeters.duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private StageMeters register(MeterKey key) {
+        Counter calls = Counter.builder("payment.stage.calls")
+                .description("Payment path calls by stage and outcome")
+                .tags("stage", key.stage(), "method", key.method(), "outcome", key.outcome(), "reason", key.reason())
+                .register(meterRegistry);
+        Timer duration = Timer.builder("payment.stage.duration")
+                .description("Payment path latency by stage and outcome (sampled at payment.metrics.sample-rate)")
+                .tags("stage", key.stage(), "method", key.method(), "outcome", key.outcome(), "reason", key.reason())
+                .publishPercentileHistogram(percentileHistogram)
+                .maximumExpectedValue(maxExpected)
+                .register(meterRegistry);
+        return new StageMeters(calls, duration);
+    }
+
+    /**
+     * Payment methods become tags, so anything outside the known ones is folded into OTHER
+     */
+    private static String methodTag(String method) {
+        if (method == null) {
+            return NONE;
+        }
+        String upper = method.toUpperCase(Locale.ROOT);
+        switch (upper) {
+            case "UPI":
+            case "CARD":
+            case "WALLET":
+            case "BATCH":
+                return upper;
+            default:
+                return "OTHER";
+        }
+    }
+
+    private record MeterKey(String stage, String method, String outcome, String reason) {
+    }
+
+    private record StageMeters(Counter calls, Timer duration) {
+    }
+}
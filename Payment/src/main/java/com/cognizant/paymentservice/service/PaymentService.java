@@ -1,53 +1,138 @@
 package com.cognizant.paymentservice.service;
 
-import com.cognizant.paymentservice.client.OrderClient;
 import com.cognizant.paymentservice.dto.OrderResponseDto;
 import com.cognizant.paymentservice.exception.ResourceNotFoundException;
 import com.cognizant.paymentservice.exception.SagaExecutionException;
 import com.cognizant.paymentservice.model.*;
 import com.cognizant.paymentservice.repository.TransactionRepository;
-import com.cognizant.paymentservice.repository.WalletRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Payment Service - Implements Saga Pattern for Distributed Transactions
  * 
  * Responsibilities:
- * 1. Orchestrate payment processing (Validation → Payment → Transaction Save)
- * 2. Manage inter-service communication with Order Service via Feign
+ * 1. Orchestrate payment processing as a logged saga (Validation → Open → Payment ‖ Order event → Commit)
+ * 2. Propagate order status changes to Order Service through the transactional outbox
  * 3. Execute compensating transactions on failure
  * 4. Provide transaction recovery after service restoration
  * 5. Provide transaction query operations
  * 6. Handle refunds with saga pattern
+ * 7. Process batches of payments with grouped wallet debits
  */
 @Service
 public class PaymentService {
     private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
 
     @Autowired
-    private OrderClient orderClient;
+    private TransactionRepository transactionRepository;
 
     @Autowired
-    private TransactionRepository transactionRepository;
+    private WalletCacheService walletCacheService;
+
+    @Autowired
+    private OrderStatusOutboxService outboxService;
+
+    @Autowired
+    private SagaEngine sagaEngine;
+
+    @Autowired
+    private PaymentMetrics paymentMetrics;
+
+    @Autowired
+    private PaymentEventLogger paymentEvents;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${payment.query.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${payment.query.max-page-size:500}")
+    private int maxPageSize;
 
     @Autowired
-    private WalletRepository walletRepository;
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private VelocityCheckService velocityCheckService;
+
+    @Value("${payment.batch.max-size:500}")
+    private int maxBatchSize;
+
+    @Value("${payment.outbox.lease-ms:60000}")
+    private long leaseMs;
+
+    private SagaDefinition paymentSaga;
+
+    private static final int EXPORT_FLUSH_EVERY = 500;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 128;
     
  
     // ==================== TRANSACTION QUERY METHODS ====================
 
-    public List<Transaction> getAllTransactions() {
-        logger.info("📋 Fetching all transactions");
-        return transactionRepository.findAll();
+    /**
+     * One page of transaction history, newest first.
+     * At most one filter may be given; none returns all transactions.
+     *
+     * @param filter Query filter
+     * @param cursor nextCursor from the previous page, or null for the first page
+     * @param limit Page size (capped at payment.query.max-page-size)
+     * @return Page with the cursor for the next one
+     */
+    public TransactionPage getTransactionPage(TransactionFilter filter, String cursor, Integer limit) {
+        TransactionCursor after = TransactionCursor.decode(cursor);
+        int pageSize = resolvePageSize(limit);
+        // Fetch one extra row to know whether another page exists
+        Pageable page = PageRequest.of(0, pageSize + 1);
+        LocalDateTime date = after.getTransactionDate();
+        UUID id = after.getId();
+
+        logger.info("📋 Fetching transaction page ({}), size {}", filter, pageSize);
+        List<Transaction> rows;
+        if (filter.getUserId() != null) {
+            rows = transactionRepository.findPageByUserIdAfter(filter.getUserId(), date, id, page);
+        } else if (filter.getRestaurantId() != null) {
+            rows = transactionRepository.findPageByRestaurantIdAfter(filter.getRestaurantId(), date, id, page);
+        } else if (filter.getOrderId() != null) {
+            rows = transactionRepository.findPageByOrderIdAfter(filter.getOrderId(), date, id, page);
+        } else if (filter.getStatus() != null) {
+            rows = transactionRepository.findPageByStatusAfter(filter.getStatus(), date, id, page);
+        } else {
+            rows = transactionRepository.findPageAfter(date, id, page);
+        }
+        return TransactionPage.of(rows, pageSize);
     }
 
     public Transaction getTransactionById(UUID id) {
@@ -59,24 +144,58 @@ public class PaymentService {
                 });
     }
 
-    public List<Transaction> getTransactionsByOrderId(String orderId) {
-        logger.info("🔍 Fetching transactions for order: {}", orderId);
-        return transactionRepository.findByOrderId(orderId);
-    }
-
-    public List<Transaction> getTransactionsByUserId(String userId) {
-        logger.info("🔍 Fetching transactions for user: {}", userId);
-        return transactionRepository.findByUserId(userId);
+    /**
+     * Write matching transactions as NDJSON (one JSON object per line), newest first.
+     * Rows are streamed from the database and detached once written, so the
+     * result set is never held in memory.
+     *
+     * @param filter Query filter (orderId is not supported; use the paged endpoint)
+     * @param out Response body
+     * @return Rows written
+     */
+    @Transactional(readOnly = true)
+    public long exportTransactions(TransactionFilter filter, OutputStream out) throws IOException {
+        logger.info("📤 Exporting transactions ({})", filter);
+        long written = 0;
+        try (Stream<Transaction> rows = openExportStream(filter)) {
+            Iterator<Transaction> it = rows.iterator();
+            while (it.hasNext()) {
+                Transaction tx = it.next();
+                out.write(objectMapper.writeValueAsBytes(tx));
+                out.write('\n');
+                entityManager.detach(tx);
+                if (++written % EXPORT_FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+        logger.info("✅ Exported {} transactions", written);
+        return written;
     }
 
-    public List<Transaction> getTransactionsByRestaurantId(String restaurantId) {
-        logger.info("🔍 Fetching transactions for restaurant: {}", restaurantId);
-        return transactionRepository.findByRestaurantId(restaurantId);
+    private Stream<Transaction> openExportStream(TransactionFilter filter) {
+        if (filter.getOrderId() != null) {
+            throw new IllegalArgumentException("Export by order is not supported");
+        }
+        if (filter.getUserId() != null) {
+            return transactionRepository.streamByUserId(filter.getUserId());
+        } else if (filter.getRestaurantId() != null) {
+            return transactionRepository.streamByRestaurantId(filter.getRestaurantId());
+        } else if (filter.getStatus() != null) {
+            return transactionRepository.streamByStatus(filter.getStatus());
+        }
+        return transactionRepository.streamAll();
     }
 
-    public List<Transaction> getTransactionsByStatus(String status) {
-        logger.info("🔍 Fetching transactions with status: {}", status);
-        return transactionRepository.findByStatus(status);
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return Math.min(limit, maxPageSize);
     }
 
     // ==================== SAGA ORCHESTRATION ====================
@@ -87,104 +206,274 @@ public class PaymentService {
      * ╚═════════════════════════════════════════════════════════╝
      * 
      * STEP 1: Validate Payment Request
-     * STEP 2: Process Payment
-     * STEP 3: Save Transaction (POINT OF NO RETURN)
-     * STEP 4: Call Order Service
-     *   ✓ If SUCCESS → Return 200 OK
-     *   ✗ If FAILED → Execute Compensating Transaction
+     * STEP 2: Open a PENDING Transaction
+     * STEP 3: Process Payment ‖ Hold the Order Status Event (in parallel)
+     * STEP 4: Commit Transaction + Release Event (POINT OF NO RETURN)
+     *   ✗ A failed step → earlier steps compensated by the saga engine
+     * STEP 5: Return as soon as the payment is durable
+     *   → Outbox relay notifies Order Service in the background
+     *   ✗ If delivery is exhausted → Compensating Transaction (by the relay)
+     *
+     * Steps 2-4 are the "payment" saga; its step log is under GET /payment/sagas/{sagaId}.
      */
     public PaymentResponse processPayment(PaymentRequest request) {
-        String sagaId = UUID.randomUUID().toString();
-        logger.info("🔄 ╔════════════════════════════════════════╗");
-        logger.info("🔄 ║  SAGA START: {}  ║", sagaId.substring(0, Math.min(28, sagaId.length())));
-        logger.info("🔄 ╚════════════════════════════════════════╝");
+        return processPayment(request, null);
+    }
 
-        Transaction tx = new Transaction();
-        Wallet updatedWallet = null;
+    /**
+     * Process a payment at most once per Idempotency-Key.
+     * A repeated key returns the original response without touching the wallet;
+     * a key reused for a different payment is rejected.
+     *
+     * @param request Payment request
+     * @param idempotencyKey Client Idempotency-Key, or null to always process
+     * @return Payment response (the original one for a repeated key)
+     */
+    public PaymentResponse processPayment(PaymentRequest request, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return executePayment(request, null);
+        }
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be at most " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
 
-        RestaurantInfo restaurant = request.getRestaurant();
-        String restaurantId = (restaurant != null) ? restaurant.getId() : null;
-        String orderId = (restaurant != null) ? restaurant.getOrderId() : null;
+        PaymentResponse response = idempotencyService.execute(idempotencyKey,
+                () -> transactionRepository.findByIdempotencyKey(idempotencyKey).map(this::replayPayment),
+                () -> executePayment(request, idempotencyKey));
+        ensureSameRequest(response, request, idempotencyKey);
+        return response;
+    }
 
-        tx.setOrderId(orderId);
-        tx.setUserId(request.getUserId());
-        tx.setRestaurantId(restaurantId);
-        tx.setAmount(request.getAmount());
-        tx.setMethod(request.getMethod());
+    private PaymentResponse executePayment(PaymentRequest request, String idempotencyKey) {
+        long start = System.nanoTime();
+        String sagaId = UUID.randomUUID().toString();
+        Transaction tx = newTransaction(request);
+        tx.setIdempotencyKey(idempotencyKey);
+        String orderId = tx.getOrderId();
+        if (logger.isDebugEnabled()) {
+            logger.debug("🔄 Saga {} started for order {}", sagaId, orderId);
+        }
 
-        // ===== STEP 1: VALIDATION =====
-        logger.info("📋 STEP 1: Validating payment request for Order ID: {}", orderId);
+        // ===== STEP 1: VALIDATION (nothing to undo yet, so before the saga starts) =====
         if (!validatePaymentRequest(request, tx, orderId)) {
-            logger.error("❌ SAGA FAILED at STEP 1: Validation failed");
-            transactionRepository.save(tx);
+            Transaction failedTx;
+            try {
+                failedTx = transactionRepository.save(tx);
+            } catch (DataIntegrityViolationException e) {
+                return replayDuplicate(idempotencyKey, e);
+            }
+            paymentEvents.paymentCompleted(sagaId, failedTx, PaymentMetrics.VALIDATION, start);
             return new PaymentResponse(tx, null);
         }
-        logger.info("✅ STEP 1 COMPLETE: Validation passed");
 
-        // ===== STEP 2: PROCESS PAYMENT =====
-        logger.info("💳 STEP 2: Processing payment by method: {}", request.getMethod());
-        PaymentProcessResult paymentResult = processPaymentByMethod(request, tx);
-        if (!paymentResult.isSuccess()) {
-            logger.error("❌ SAGA FAILED at STEP 2: Payment processing failed");
-            transactionRepository.save(tx);
-            return new PaymentResponse(tx, paymentResult.getWallet());
+        // ===== STEPS 2-5: PAYMENT SAGA (open → debit ‖ hold order event → commit) =====
+        SagaState state = new SagaState(sagaId);
+        state.put(SAGA_USER_ID, tx.getUserId());
+        state.put(SAGA_AMOUNT_PAISE, String.valueOf(Money.paiseOf(tx.getAmount())));
+        state.put(SAGA_METHOD, tx.getMethod());
+        state.put(SAGA_ORDER_ID, orderId);
+        state.setAttribute(SAGA_REQUEST, request);
+        state.setAttribute(SAGA_TRANSACTION, tx);
+
+        SagaEngine.Outcome outcome = sagaEngine.execute(paymentSaga, state);
+        Transaction savedTx = state.attribute(SAGA_TRANSACTION);
+        Wallet updatedWallet = state.attribute(SAGA_WALLET);
+
+        if (!outcome.isCompleted()) {
+            RuntimeException failure = outcome.getFailure();
+            if (STEP_OPEN.equals(outcome.getFailedStep()) && failure instanceof DataIntegrityViolationException duplicate) {
+                // Same Idempotency-Key stored by a concurrent request: nothing was debited
+                return replayDuplicate(idempotencyKey, duplicate);
+            }
+            paymentEvents.paymentCompleted(sagaId, savedTx, outcome.getFailedStep(), start);
+            if (outcome.getStatus() == SagaStatus.COMPENSATING) {
+                throw new SagaExecutionException("Payment failed at step " + outcome.getFailedStep()
+                        + " and its rollback is still pending (saga " + sagaId + ")", "SAGA_COMPENSATION_PENDING", failure);
+            }
+            if (!(failure instanceof PaymentDeclinedException)) {
+                throw new SagaExecutionException("Payment failed at step " + outcome.getFailedStep()
+                        + " and was rolled back: " + failure.getMessage(), "SAGA_ABORTED", failure);
+            }
+            PaymentResponse response = new PaymentResponse(savedTx, updatedWallet);
+            response.setSagaId(sagaId);
+            return response;
+        }
+
+        // ===== ORDER SERVICE NOTIFICATION (ASYNC VIA OUTBOX) =====
+        // The outbox relay delivers the status change in the background and
+        // compensates the payment if Order Service never accepts it.
+        paymentEvents.paymentCompleted(sagaId, savedTx, null, start);
+
+        PaymentResponse response = new PaymentResponse(savedTx, updatedWallet);
+        response.setSagaId(sagaId);
+        response.setSagaStatus("ORDER_UPDATE_PENDING");
+        response.setMessage("Payment successful - Order confirmation queued");
+        return response;
+    }
+
+    // ==================== PAYMENT SAGA ====================
+
+    static final String PAYMENT_SAGA = "payment";
+    static final String STEP_OPEN = "open-transaction";
+    static final String STEP_DEBIT = "debit";
+    static final String STEP_HOLD_ORDER_EVENT = "hold-order-event";
+    static final String STEP_COMMIT = "commit";
+
+    // Durable saga values (available to compensations after a crash)
+    private static final String SAGA_USER_ID = "userId";
+    private static final String SAGA_AMOUNT_PAISE = "amountPaise";
+    private static final String SAGA_METHOD = "method";
+    private static final String SAGA_ORDER_ID = "orderId";
+    private static final String SAGA_TRANSACTION_ID = "transactionId";
+    private static final String SAGA_DEBITED = "walletDebited";
+    private static final String SAGA_FAILURE_REASON = "failureReason";
+
+    // In-memory saga attributes
+    private static final String SAGA_REQUEST = "request";
+    private static final String SAGA_TRANSACTION = "transaction";
+    private static final String SAGA_WALLET = "wallet";
+
+    /**
+     * ╔═════════════════════════════════════════════════════════╗
+     * ║         PAYMENT SAGA                                    ║
+     * ╚═════════════════════════════════════════════════════════╝
+     *
+     * open-transaction   PENDING transaction row (a repeated Idempotency-Key stops here,
+     *                    before any money moves)        ↺ mark it FAILED
+     * debit              charge the payment method      ↺ credit the wallet back
+     * hold-order-event   SUCCESS outbox event, held from the relay  ↺ discard it
+     * commit             transaction SUCCESS + aggregates + release the event (POINT OF NO RETURN)
+     *
+     * debit and hold-order-event only need the transaction row, so they run in parallel.
+     */
+    @PostConstruct
+    void registerPaymentSaga() {
+        paymentSaga = SagaDefinition.builder(PAYMENT_SAGA)
+                .step(STEP_OPEN, this::openTransaction, this::failTransaction)
+                .step(STEP_DEBIT, this::debit, this::refundDebit, STEP_OPEN)
+                .step(STEP_HOLD_ORDER_EVENT, this::holdOrderEvent, this::discardOrderEvent, STEP_OPEN)
+                .step(STEP_COMMIT, this::commitPayment, null, STEP_DEBIT, STEP_HOLD_ORDER_EVENT)
+                .build();
+        sagaEngine.register(paymentSaga);
+    }
+
+    private void openTransaction(SagaState state) {
+        long start = paymentMetrics.start();
+        Transaction opened;
+        try {
+            opened = transactionRepository.save(state.<Transaction>attribute(SAGA_TRANSACTION));
+        } catch (RuntimeException e) {
+            paymentMetrics.failure(PaymentMetrics.LEDGER_SAVE, state.get(SAGA_METHOD), e, start);
+            throw e;
+        }
+        paymentMetrics.success(PaymentMetrics.LEDGER_SAVE, state.get(SAGA_METHOD), start);
+        state.setAttribute(SAGA_TRANSACTION, opened);
+        state.put(SAGA_TRANSACTION_ID, opened.getId().toString());
+        if (logger.isDebugEnabled()) {
+            logger.debug("📝 Transaction {} opened as PENDING", opened.getId());
+        }
+    }
+
+    private void failTransaction(SagaState state) {
+        long start = paymentMetrics.start();
+        String reason = state.get(SAGA_FAILURE_REASON, "SAGA_ABORTED");
+        UUID id = UUID.fromString(state.get(SAGA_TRANSACTION_ID));
+        Transaction tx = transactionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with ID: " + id));
+        if (tx.getStatus() == TransactionStatus.PENDING) {
+            tx.markFailed(reason);
+            tx = transactionRepository.save(tx);
         }
-        updatedWallet = paymentResult.getWallet();
-        tx.setStatus(TransactionStatus.SUCCESS.name());
-        logger.info("✅ STEP 2 COMPLETE: Payment processed successfully");
+        state.setAttribute(SAGA_TRANSACTION, tx);
+        // A compensation that completes is recorded under the failure it undid
+        paymentMetrics.failure(PaymentMetrics.COMPENSATION, state.get(SAGA_METHOD), reason, start);
+    }
 
-        // ===== STEP 3: SAVE TRANSACTION (POINT OF NO RETURN) =====
-        logger.info("💾 STEP 3: Saving transaction to database (POINT OF NO RETURN)");
-        Transaction savedTx = transactionRepository.save(tx);
-        logger.info("✅ STEP 3 COMPLETE: Transaction saved - ID: {}", savedTx.getId());
+    private void debit(SagaState state) {
+        PaymentRequest request = state.attribute(SAGA_REQUEST);
+        Transaction tx = state.attribute(SAGA_TRANSACTION);
+        PaymentProcessResult result = processPaymentByMethod(request, tx);
+        state.setAttribute(SAGA_WALLET, result.getWallet());
+        if (!result.isSuccess()) {
+            state.put(SAGA_FAILURE_REASON, tx.getFailureReason());
+            throw new PaymentDeclinedException(tx.getFailureReason());
+        }
+        if ("WALLET".equalsIgnoreCase(request.getMethod())) {
+            state.put(SAGA_DEBITED, "true");
+        }
+    }
+
+    private void refundDebit(SagaState state) {
+        if (!"true".equals(state.get(SAGA_DEBITED))) {
+            return;
+        }
+        Wallet wallet = creditWallet(state.get(SAGA_USER_ID), Money.ofPaise(Long.parseLong(state.get(SAGA_AMOUNT_PAISE))));
+        state.setAttribute(SAGA_WALLET, wallet);
+        if (logger.isDebugEnabled()) {
+            logger.debug("💰 Wallet debit of user {} returned", state.get(SAGA_USER_ID));
+        }
+    }
 
-        // ===== STEP 4: SAGA ORCHESTRATION - CALL ORDER SERVICE =====
-        logger.info("🔗 STEP 4: Initiating SAGA with Order Service for Order ID: {}", orderId);
+    private void holdOrderEvent(SagaState state) {
+        outboxService.hold(state.get(SAGA_ORDER_ID), UUID.fromString(state.get(SAGA_TRANSACTION_ID)), "SUCCESS",
+                holderOf(state));
+    }
+
+    private void discardOrderEvent(SagaState state) {
+        outboxService.discardHeld(holderOf(state));
+    }
+
+    private void commitPayment(SagaState state) {
+        Transaction tx = state.attribute(SAGA_TRANSACTION);
+        tx.setStatus(TransactionStatus.SUCCESS);
+        long start = paymentMetrics.start();
+        Transaction savedTx;
         try {
-            OrderResponseDto orderResponse = notifyOrderStatusChange(orderId, "SUCCESS");
-            logger.info("✅ STEP 4 COMPLETE: Order Service successfully updated");
-            logger.info("✅ SAGA SUCCESS for Order: {} - Status: {}", orderId, orderResponse.getOrderStatus());
-            logger.info("✅ ╔════════════════════════════════════════╗");
-            logger.info("✅ ║  SAGA COMPLETED SUCCESSFULLY          ║");
-            logger.info("✅ ╚════════════════════════════════════════╝");
-            
-            return new PaymentResponse(savedTx, updatedWallet, orderResponse);
+            savedTx = outboxService.saveAndRelease(tx, holderOf(state));
+        } catch (RuntimeException e) {
+            paymentMetrics.failure(PaymentMetrics.LEDGER_SAVE, tx.getMethod(), e, start);
+            throw e;
+        }
+        paymentMetrics.success(PaymentMetrics.LEDGER_SAVE, tx.getMethod(), start);
+        state.setAttribute(SAGA_TRANSACTION, savedTx);
+        if (logger.isDebugEnabled()) {
+            logger.debug("✅ Transaction {} committed, order status event released", savedTx.getId());
+        }
+    }
 
-        } catch (FeignException e) {
-            logger.error("❌ SAGA FAILED at STEP 4: Order Service error - {}", e.getMessage());
-            logger.warn("⚠️ Executing compensating transaction...");
-            
-            try {
-                executeCompensatingTransaction(savedTx, updatedWallet);
-                logger.info("✅ Compensating transaction completed successfully");
-                
-                throw new SagaExecutionException(
-                    "Order Service communication failed - Compensating transaction executed. Wallet refunded and transaction marked COMPENSATED. Call POST /payment/recover/{orderId} after Order Service restarts.", 
-                    "FEIGN_ERROR", e);
-            } catch (Exception compEx) {
-                logger.error("❌ Compensating transaction failed: {}", compEx.getMessage());
-                throw new SagaExecutionException(
-                    "Order Service communication failed - Compensating transaction also failed", 
-                    "COMPENSATING_TX_FAILED", compEx);
-            }
+    private static String holderOf(SagaState state) {
+        return "saga-" + state.getSagaId();
+    }
 
-        } catch (Exception e) {
-            logger.error("❌ SAGA FAILED at STEP 4: Unexpected error - {}", e.getMessage());
-            logger.warn("⚠️ Executing compensating transaction...");
-            
-            try {
-                executeCompensatingTransaction(savedTx, updatedWallet);
-                throw new SagaExecutionException(
-                    "Unexpected error in Saga - Compensating transaction executed", 
-                    "UNKNOWN_ERROR", e);
-            } catch (Exception compEx) {
-                throw new SagaExecutionException(
-                    "Unexpected error - Compensating transaction also failed", 
-                    "COMPENSATING_TX_FAILED", compEx);
-            }
+    /**
+     * A payment method refused the payment: an expected saga failure, not an error
+     */
+    private static class PaymentDeclinedException extends RuntimeException {
+        PaymentDeclinedException(String reason) {
+            super("Payment declined: " + reason, null, false, false);
         }
     }
 
+    /**
+     * Compensate a payment whose SUCCESS status could not be delivered to Order Service.
+     * Called by the outbox relay once delivery attempts are exhausted.
+     * Runs in one DB transaction; SUCCESS → COMPENSATED is a guarded UPDATE, so a
+     * refund of the same payment and this compensation never both credit the wallet.
+     *
+     * @param transactionId Transaction to compensate
+     */
+    @Transactional
+    public void compensateUndeliveredPayment(UUID transactionId) {
+        Transaction tx = transactionRepository.findById(transactionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with ID: " + transactionId));
+        if (tx.getStatus() != TransactionStatus.SUCCESS
+                || transactionRepository.updateStatusIf(transactionId, TransactionStatus.SUCCESS, TransactionStatus.COMPENSATED) == 0) {
+            logger.warn("⚠️ Transaction {} is no longer SUCCESS - skipping compensation", transactionId);
+            return;
+        }
+        executeCompensatingTransaction(tx);
+    }
+
     /**
      * ╔═════════════════════════════════════════════════════════╗
      * ║     COMPENSATING TRANSACTION EXECUTION                  ║
@@ -195,44 +484,35 @@ public class PaymentService {
      * Actions:
      * 1. ✅ Mark transaction as COMPENSATED
      * 2. ✅ Refund wallet if applicable
-     * 3. ⏭️ DO NOT try to notify Order Service (it's down)
-     *    Instead, leave order in PLACED state for manual recovery
+     * 3. ✅ Queue a FAILED status event so the outbox relay cancels the order
+     *    once Order Service is reachable again
      */
-    private void executeCompensatingTransaction(Transaction failedTx, Wallet wallet) {
-        logger.warn("🔄 ╔════════════════════════════════════════╗");
-        logger.warn("🔄 ║  EXECUTING COMPENSATING TRANSACTION    ║");
-        logger.warn("🔄 ║  Order ID: " + (failedTx.getOrderId() != null ? failedTx.getOrderId() : "NULL"));
-        logger.warn("🔄 ╚════════════════════════════════════════╝");
+    private void executeCompensatingTransaction(Transaction failedTx) {
+        long startNanos = System.nanoTime();
+        long start = paymentMetrics.start();
 
         // ACTION 1: Mark transaction as COMPENSATED
-        logger.info("📝 ACTION 1: Marking transaction as COMPENSATED");
-        failedTx.setStatus(TransactionStatus.FAILED.name() + ":COMPENSATED");
-        Transaction compensatedTx = transactionRepository.save(failedTx);
-        logger.info("✅ ACTION 1 COMPLETE: Transaction marked as compensated - ID: {}", compensatedTx.getId());
+        failedTx.setStatus(TransactionStatus.COMPENSATED);
+        failedTx.setFailureReason("ORDER_UPDATE_UNDELIVERED");
+        Transaction compensatedTx = outboxService.saveWithStatusEvent(failedTx, "FAILED");
+        if (logger.isDebugEnabled()) {
+            logger.debug("📝 Transaction {} of order {} marked COMPENSATED", compensatedTx.getId(), compensatedTx.getOrderId());
+        }
 
         // ACTION 2: Refund wallet
-        if ("WALLET".equalsIgnoreCase(failedTx.getMethod()) && wallet != null) {
-            logger.info("💰 ACTION 2: Refunding wallet - Amount: {}", failedTx.getAmount());
-            wallet.setBalance(wallet.getBalance() + failedTx.getAmount());
-            Wallet refundedWallet = walletRepository.save(wallet);
-            logger.info("✅ ACTION 2 COMPLETE: Wallet refunded - New Balance: {}", refundedWallet.getBalance());
-        } else {
-            logger.info("⏭️ ACTION 2 SKIPPED: Not a wallet payment (Method: {})", failedTx.getMethod());
+        boolean walletRefunded = "WALLET".equalsIgnoreCase(failedTx.getMethod());
+        if (walletRefunded) {
+            Wallet refundedWallet = creditWallet(failedTx.getUserId(), failedTx.getAmount());
+            if (logger.isDebugEnabled()) {
+                logger.debug("💰 Wallet of user {} refunded {}, new balance {}",
+                        failedTx.getUserId(), failedTx.getAmount(), refundedWallet.getBalance());
+            }
         }
 
-        // ACTION 3: ⏭️ Skip Order Service notification (it's unreachable)
-        logger.info("⏭️ ACTION 3 SKIPPED: Order Service is unreachable");
-        logger.info("   Order remains in PLACED state");
-        logger.info("   Manual recovery required - Use POST /payment/recover/{orderId}");
-        logger.info("   This will update the order to CANCELLED once Order Service is back up");
-
-        logger.warn("✅ ╔════════════════════════════════════════╗");
-        logger.warn("✅ ║  COMPENSATING TRANSACTION COMPLETE     ║");
-        logger.warn("✅ ║  Transaction: COMPENSATED ✅            ║");
-        logger.warn("✅ ║  Wallet: REFUNDED ✅                   ║");
-        logger.warn("✅ ║  Order: PENDING RECOVERY               ║");
-        logger.warn("✅ ║  (Run recovery endpoint when ready)    ║");
-        logger.warn("✅ ╚════════════════════════════════════════╝");
+        // ACTION 3: Order cancellation was queued with the COMPENSATED save above;
+        // the order stays PLACED until Order Service is back up
+        paymentMetrics.failure(PaymentMetrics.COMPENSATION, failedTx.getMethod(), "ORDER_UPDATE_UNDELIVERED", start);
+        paymentEvents.paymentCompensated(compensatedTx, walletRefunded, startNanos);
     }
 
     /**
@@ -245,8 +525,9 @@ public class PaymentService {
      * 2. ✅ Transaction is marked COMPENSATED
      * 3. ❌ Order remains PLACED (Order Service was unreachable)
      * 
-     * Solution: Call this endpoint after Order Service restarts
-     * It will update all pending orders to CANCELLED
+     * The outbox relay cancels the order automatically once Order Service
+     * is reachable. This endpoint drains the order's outbox events right away
+     * instead of waiting for the next relay tick.
      * 
      * @param orderId Order ID to recover
      * @return PaymentResponse with updated order status
@@ -274,7 +555,7 @@ public class PaymentService {
             }
 
             Transaction compensatedTx = compensatedTxs.stream()
-                .filter(tx -> tx.getStatus() != null && tx.getStatus().contains("COMPENSATED"))
+                .filter(tx -> tx.getStatus() == TransactionStatus.COMPENSATED)
                 .findFirst()
                 .orElseThrow(() -> {
                     logger.warn("⚠️ No compensated transaction found for order: {}", orderId);
@@ -285,7 +566,12 @@ public class PaymentService {
 
             // STEP 3: Now attempt to notify Order Service to CANCEL the order
             logger.info("📤 STEP 2: Attempting to notify Order Service to CANCEL order: {}", orderId);
-            OrderResponseDto response = orderClient.updateOrderStatusByPayment(orderId, "FAILED");
+            OrderResponseDto response = outboxService.deliverNow(orderId);
+            if (response == null) {
+                // Nothing queued (compensated before the outbox existed) - queue and deliver now
+                outboxService.enqueue(orderId, compensatedTx.getId(), "FAILED");
+                response = outboxService.deliverNow(orderId);
+            }
 
             logger.info("✅ STEP 2 COMPLETE: Order Service responded");
             logger.info("   Order ID: {}", response.getOrderId());
@@ -306,6 +592,12 @@ public class PaymentService {
             logger.error("❌ RECOVERY FAILED: Resource not found - {}", e.getMessage());
             throw e;
 
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            logger.error("❌ RECOVERY FAILED: Order Service circuit open or saturated - {}", e.getMessage());
+            throw new SagaExecutionException(
+                "Order Service still unavailable. Please try again later.",
+                "SERVICE_STILL_DOWN", e);
+
         } catch (FeignException.ServiceUnavailable e) {
             logger.error("❌ RECOVERY FAILED: Order Service still unavailable (503)");
             throw new SagaExecutionException(
@@ -324,178 +616,401 @@ public class PaymentService {
         }
     }
 
-    // ==================== VALIDATION ====================
+    // ==================== BATCH PAYMENTS ====================
 
-    private boolean validatePaymentRequest(PaymentRequest request, Transaction tx, String orderId) {
-        logger.info("🔍 Validating: userId={}, restaurantId={}, orderId={}", 
-            request.getUserId(), 
-            (request.getRestaurant() != null ? request.getRestaurant().getId() : null),
-            orderId);
+    /**
+     * ╔═════════════════════════════════════════════════════════╗
+     * ║         BATCH SAGA: processBatch()                      ║
+     * ╚═════════════════════════════════════════════════════════╝
+     *
+     * STEP 1: Validate every request (invalid ones are reported as FAILED, not stored),
+     *         then check velocity limits once per user for all of the user's payments
+     * STEP 2: Debit wallets - one guarded UPDATE per user for the user's total
+     * STEP 3: Save all transactions + outbox events in one DB transaction
+     * STEP 4: Notify Order Service with one bulk status update
+     *   → Orders it did not accept stay in the outbox for the relay
+     *
+     * A user's wallet payments succeed or fail together: if the wallet cannot
+     * cover their sum, all of them fail with INSUFFICIENT_BALANCE.
+     * Likewise a user's payments are checked against the velocity limits together:
+     * each counts as one payment, the amount limits apply to their sum, and if
+     * any limit would be exceeded all of them fail with its VELOCITY_* reason.
+     *
+     * @param requests Payments, at most payment.batch.max-size
+     * @return One result per request, in request order
+     */
+    public BatchPaymentResponse processBatch(List<PaymentRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one payment");
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch must contain at most " + maxBatchSize + " payments");
+        }
+        long start = System.nanoTime();
+        String batchId = UUID.randomUUID().toString();
+        if (logger.isDebugEnabled()) {
+            logger.debug("🔄 Batch saga {} started ({} payments)", batchId, requests.size());
+        }
 
-        if (request.getUserId() == null || request.getUserId().isEmpty()) {
-            logger.error("❌ Validation FAILED: Missing User ID");
-            tx.setStatus(TransactionStatus.FAILED.name() + ":MISSING_USER_ID");
-            return false;
+        // ===== STEP 1: VALIDATION =====
+        List<Transaction> txs = new ArrayList<>(requests.size());
+        List<Transaction> valid = new ArrayList<>(requests.size());
+        boolean[] reportedOnly = new boolean[requests.size()];  // required columns missing: not stored
+        Map<String, List<PaymentRequest>> validByUser = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            PaymentRequest request = requests.get(i);
+            Transaction tx = newTransaction(request);
+            txs.add(tx);
+            if (request == null || !validatePaymentRequest(request, tx, tx.getOrderId(), false)) {
+                if (request == null) {
+                    tx.markFailed("EMPTY_REQUEST");
+                }
+                reportedOnly[i] = true;
+                continue;
+            }
+            valid.add(tx);
+            validByUser.computeIfAbsent(request.getUserId(), u -> new ArrayList<>()).add(request);
         }
 
-        if (request.getRestaurant() == null || request.getRestaurant().getId() == null) {
-            logger.error("❌ Validation FAILED: Missing Restaurant ID");
-            tx.setStatus(TransactionStatus.FAILED.name() + ":MISSING_RESTAURANT_ID");
-            return false;
+        // Velocity limits: a user's payments in the batch count as one payment of their total
+        Map<String, String> velocityFailures = new HashMap<>();
+        validByUser.forEach((userId, userRequests) -> {
+            String velocityFailure = velocityCheckService.admitBatch(userId, userRequests);
+            if (velocityFailure != null) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("❌ Batch payments of user {} rejected: {}", userId, velocityFailure);
+                }
+                velocityFailures.put(userId, velocityFailure);
+            }
+        });
+
+        Map<String, List<Transaction>> walletPaymentsByUser = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            PaymentRequest request = requests.get(i);
+            Transaction tx = txs.get(i);
+            if (reportedOnly[i]) {
+                continue;
+            }
+            if (velocityFailures.containsKey(request.getUserId())) {
+                tx.markFailed(velocityFailures.get(request.getUserId()));
+            } else if (request.getMethod() == null) {
+                tx.markFailed("UNKNOWN_METHOD");
+            } else if ("WALLET".equalsIgnoreCase(request.getMethod())) {
+                walletPaymentsByUser.computeIfAbsent(request.getUserId(), u -> new ArrayList<>()).add(tx);
+            } else if (processPaymentByMethod(request, tx).isSuccess()) {
+                tx.setStatus(TransactionStatus.SUCCESS);
+            }
         }
 
-        if (orderId == null || orderId.isEmpty()) {
-            logger.error("❌ Validation FAILED: Missing Order ID");
-            tx.setStatus(TransactionStatus.FAILED.name() + ":MISSING_ORDER_ID");
-            return false;
+        if (logger.isDebugEnabled()) {
+            logger.debug("✅ STEP 1 COMPLETE: {}/{} payments passed validation", valid.size(), txs.size());
+        }
+
+        // ===== STEP 2: GROUPED WALLET DEBITS =====
+        Map<String, Money> debited = new LinkedHashMap<>();
+        walletPaymentsByUser.forEach((userId, payments) -> {
+            long total = 0;
+            for (Transaction tx : payments) {
+                total = Math.addExact(total, tx.getAmount().paise());
+            }
+            Money sum = Money.ofPaise(total);
+            if (walletCacheService.debit(userId, sum) != null) {
+                debited.put(userId, sum);
+                payments.forEach(tx -> tx.setStatus(TransactionStatus.SUCCESS));
+            } else {
+                String reason = walletCacheService.exists(userId) ? "INSUFFICIENT_BALANCE" : "WALLET_ERROR";
+                if (logger.isDebugEnabled()) {
+                    logger.debug("❌ Batch wallet debit of {} for user {} declined: {}", sum, userId, reason);
+                }
+                payments.forEach(tx -> tx.markFailed(reason));
+            }
+        });
+        if (logger.isDebugEnabled()) {
+            logger.debug("✅ STEP 2 COMPLETE: {} wallet debits for {} users", debited.size(), walletPaymentsByUser.size());
+        }
+
+        // ===== STEP 3: SAVE TRANSACTIONS + OUTBOX EVENTS =====
+        String claimToken = "batch-" + batchId;
+        List<OrderStatusOutbox> events;
+        long saveStart = paymentMetrics.start();
+        try {
+            events = outboxService.saveBatchWithStatusEvents(valid, claimToken, leaseMs);
+            paymentMetrics.success(PaymentMetrics.LEDGER_SAVE, "BATCH", saveStart);
+        } catch (RuntimeException e) {
+            paymentMetrics.failure(PaymentMetrics.LEDGER_SAVE, "BATCH", e, saveStart);
+            logger.error("❌ BATCH SAGA FAILED at STEP 3, refunding {} wallet debits: {}", debited.size(), e.getMessage());
+            debited.forEach(this::creditWallet);
+            throw e;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("✅ STEP 3 COMPLETE: {} transactions saved", valid.size());
+        }
+
+        // ===== STEP 4: BULK ORDER SERVICE NOTIFICATION =====
+        int delivered = outboxService.deliverBatch(events, claimToken);
+        if (logger.isDebugEnabled()) {
+            logger.debug("📤 STEP 4 COMPLETE: {}/{} order updates delivered in bulk", delivered, events.size());
+        }
+
+        List<BatchPaymentResult> results = new ArrayList<>(txs.size());
+        for (int i = 0; i < txs.size(); i++) {
+            BatchPaymentResult result = BatchPaymentResult.of(i, txs.get(i));
+            if (reportedOnly[i]) {
+                result.setTransactionId(null);  // never stored
+            }
+            results.add(result);
+        }
+        BatchPaymentResponse response = new BatchPaymentResponse(results);
+        response.setOrderNotification(events.isEmpty() ? "NONE"
+                : delivered == events.size() ? "DELIVERED"
+                : delivered > 0 ? "PARTIALLY_DELIVERED" : "QUEUED");
+        paymentEvents.batchCompleted(batchId, txs.size(), response.getSucceeded(), response.getFailed(), delivered, start);
+        return response;
+    }
+
+    private static Transaction newTransaction(PaymentRequest request) {
+        Transaction tx = new Transaction();
+        if (request == null) {
+            return tx;
+        }
+        RestaurantInfo restaurant = request.getRestaurant();
+        tx.setOrderId(restaurant != null ? restaurant.getOrderId() : null);
+        tx.setUserId(request.getUserId());
+        tx.setRestaurantId(restaurant != null ? restaurant.getId() : null);
+        tx.setAmount(request.getAmount());
+        tx.setMethod(request.getMethod());
+        return tx;
+    }
+
+    // ==================== IDEMPOTENCY ====================
+
+    /**
+     * Rebuild the response of a payment stored under an Idempotency-Key
+     */
+    private PaymentResponse replayPayment(Transaction tx) {
+        Wallet wallet = "WALLET".equalsIgnoreCase(tx.getMethod())
+                ? walletCacheService.find(tx.getUserId()).orElse(null)
+                : null;
+        PaymentResponse response = new PaymentResponse(tx, wallet);
+        response.setMessage("Duplicate request - original payment returned");
+        return response;
+    }
+
+    /**
+     * Answer with the stored payment after losing a unique-key race, or rethrow
+     * if the violation was not caused by the Idempotency-Key
+     */
+    private PaymentResponse replayDuplicate(String idempotencyKey, DataIntegrityViolationException e) {
+        if (idempotencyKey == null) {
+            throw e;
+        }
+        logger.warn("⚠️ Idempotency-Key {} stored concurrently, returning the original payment", idempotencyKey);
+        return transactionRepository.findByIdempotencyKey(idempotencyKey)
+                .map(this::replayPayment)
+                .orElseThrow(() -> e);
+    }
+
+    private void ensureSameRequest(PaymentResponse response, PaymentRequest request, String idempotencyKey) {
+        Transaction tx = response.getTransaction();
+        if (tx == null) {
+            return;
+        }
+        String orderId = request.getRestaurant() != null ? request.getRestaurant().getOrderId() : null;
+        if (!Objects.equals(tx.getUserId(), request.getUserId())
+                || !Objects.equals(tx.getOrderId(), orderId)
+                || !Objects.equals(tx.getAmount(), request.getAmount())) {
+            throw new IllegalArgumentException("Idempotency-Key " + idempotencyKey + " was already used for a different payment");
         }
+    }
+
+    // ==================== VALIDATION ====================
+
+    private boolean validatePaymentRequest(PaymentRequest request, Transaction tx, String orderId) {
+        return validatePaymentRequest(request, tx, orderId, true);
+    }
 
-        if (request.getAmount() == null || request.getAmount() <= 0) {
-            logger.error("❌ Validation FAILED: Invalid Amount");
-            tx.setStatus(TransactionStatus.FAILED.name() + ":INVALID_AMOUNT");
-            return false;
+    /**
+     * @param countVelocity false for batch items: processBatch checks velocity once per user instead
+     */
+    private boolean validatePaymentRequest(PaymentRequest request, Transaction tx, String orderId, boolean countVelocity) {
+        long start = paymentMetrics.start();
+        boolean valid = checkPaymentRequest(request, tx, orderId, countVelocity);
+        if (valid) {
+            paymentMetrics.success(PaymentMetrics.VALIDATION, request.getMethod(), start);
+        } else {
+            paymentMetrics.failure(PaymentMetrics.VALIDATION, request.getMethod(), tx.getFailureReason(), start);
         }
+        return valid;
+    }
 
-        logger.info("✅ Validation PASSED");
-        return true;
+    private boolean checkPaymentRequest(PaymentRequest request, Transaction tx, String orderId, boolean countVelocity) {
+        if (request.getUserId() == null || request.getUserId().isEmpty()) {
+            tx.markFailed("MISSING_USER_ID");
+        } else if (request.getRestaurant() == null || request.getRestaurant().getId() == null) {
+            tx.markFailed("MISSING_RESTAURANT_ID");
+        } else if (orderId == null || orderId.isEmpty()) {
+            tx.markFailed("MISSING_ORDER_ID");
+        } else if (request.getAmount() == null || !request.getAmount().isPositive()) {
+            tx.markFailed("INVALID_AMOUNT");
+        } else if (!countVelocity) {
+            return true;
+        } else {
+            // Fields are fine: count the payment against its user's and card's velocity limits
+            String velocityFailure = velocityCheckService.admit(request);
+            if (velocityFailure == null) {
+                return true;
+            }
+            tx.markFailed(velocityFailure);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("❌ Validation failed for order {}: {}", orderId, tx.getFailureReason());
+        }
+        return false;
     }
 
     // ==================== PAYMENT PROCESSING ====================
 
     private PaymentProcessResult processPaymentByMethod(PaymentRequest request, Transaction tx) {
         String method = request.getMethod().toUpperCase();
-        logger.info("💳 Processing {} payment for amount: {}", method, request.getAmount());
 
+        long start = paymentMetrics.start();
+        PaymentProcessResult result;
         switch (method) {
             case "UPI":
-                return processUPIPayment(request, tx);
+                result = processUPIPayment(request, tx);
+                break;
             case "CARD":
-                return processCardPayment(request, tx);
+                result = processCardPayment(request, tx);
+                break;
             case "WALLET":
-                return processWalletPayment(request, tx);
+                result = processWalletPayment(request, tx);
+                break;
             default:
-                logger.error("❌ Unknown payment method: {}", method);
-                tx.setStatus(TransactionStatus.FAILED.name() + ":UNKNOWN_METHOD");
-                return new PaymentProcessResult(false, null);
+                tx.markFailed("UNKNOWN_METHOD");
+                result = new PaymentProcessResult(false, null);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("💳 {} payment of {} for order {}: {}", method, request.getAmount(), tx.getOrderId(),
+                    result.isSuccess() ? "processed" : tx.getFailureReason());
         }
+        if (result.isSuccess()) {
+            paymentMetrics.success(PaymentMetrics.PROCESS, method, start);
+        } else {
+            paymentMetrics.failure(PaymentMetrics.PROCESS, method, tx.getFailureReason(), start);
+        }
+        return result;
     }
 
     private PaymentProcessResult processUPIPayment(PaymentRequest request, Transaction tx) {
-        logger.info("🔄 Processing UPI payment...");
         if (request.getUpiId() == null || request.getUpiId().isEmpty()) {
-            logger.error("❌ UPI ID is required");
-            tx.setStatus(TransactionStatus.FAILED.name() + ":MISSING_UPI_ID");
+            tx.markFailed("MISSING_UPI_ID");
             return new PaymentProcessResult(false, null);
         }
-        logger.info("✅ UPI payment processed successfully");
         return new PaymentProcessResult(true, null);
     }
 
     private PaymentProcessResult processCardPayment(PaymentRequest request, Transaction tx) {
-        logger.info("🔄 Processing Card payment...");
         if (request.getCardNumber() == null || request.getCardExpiry() == null) {
-            logger.error("❌ Card details are incomplete");
-            tx.setStatus(TransactionStatus.FAILED.name() + ":INCOMPLETE_CARD_DETAILS");
+            tx.markFailed("INCOMPLETE_CARD_DETAILS");
             return new PaymentProcessResult(false, null);
         }
-        logger.info("✅ Card payment processed successfully");
         return new PaymentProcessResult(true, null);
     }
 
     private PaymentProcessResult processWalletPayment(PaymentRequest request, Transaction tx) {
-        logger.info("🔄 Processing Wallet payment...");
         try {
-            Wallet wallet = walletRepository.findById(request.getUserId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Wallet not found"));
-
-            if (wallet.getBalance() < request.getAmount()) {
-                logger.error("❌ Insufficient wallet balance. Required: {}, Available: {}", 
-                    request.getAmount(), wallet.getBalance());
-                tx.setStatus(TransactionStatus.FAILED.name() + ":INSUFFICIENT_BALANCE");
+            // Guarded debit: balance check and write happen in one UPDATE statement
+            Wallet updatedWallet = walletCacheService.debit(request.getUserId(), request.getAmount());
+
+            if (updatedWallet == null) {
+                Wallet wallet = walletCacheService.find(request.getUserId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Wallet not found"));
+                if (logger.isDebugEnabled()) {
+                    logger.debug("❌ Insufficient wallet balance. Required: {}, Available: {}",
+                            request.getAmount(), wallet.getBalance());
+                }
+                tx.markFailed("INSUFFICIENT_BALANCE");
                 return new PaymentProcessResult(false, wallet);
             }
 
-            wallet.setBalance(wallet.getBalance() - request.getAmount());
-            Wallet updatedWallet = walletRepository.save(wallet);
-            logger.info("✅ Wallet payment processed. New Balance: {}", updatedWallet.getBalance());
             return new PaymentProcessResult(true, updatedWallet);
 
         } catch (Exception e) {
             logger.error("❌ Wallet payment failed: {}", e.getMessage());
-            tx.setStatus(TransactionStatus.FAILED.name() + ":WALLET_ERROR");
+            tx.markFailed("WALLET_ERROR");
             return new PaymentProcessResult(false, null);
         }
     }
 
-    // ==================== ORDER SERVICE COMMUNICATION ====================
+    // ==================== REFUND ====================
 
-    private OrderResponseDto notifyOrderStatusChange(String orderId, String paymentStatus) {
-        if (orderId == null || orderId.isEmpty()) {
-            logger.warn("⚠️ Order ID is null/empty, skipping order status update");
-            throw new IllegalArgumentException("Order ID cannot be null or empty");
+    /**
+     * Refund a successful payment in one DB transaction:
+     * SUCCESS → REFUNDED, wallet credit (WALLET payments), aggregates and the REFUNDED order event.
+     * The status change is a guarded UPDATE made before the credit, so of a refund, a bulk
+     * refund and a compensation racing on the same payment only one credits the wallet.
+     *
+     * @param id Transaction ID
+     * @return Refunded transaction and, for WALLET payments, the credited wallet
+     * @throws IllegalArgumentException if the payment is not (or no longer) SUCCESS
+     */
+    @Transactional
+    public PaymentResponse refundPayment(UUID id) {
+        Transaction tx = transactionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Transaction not found"));
+        if (tx.getStatus() != TransactionStatus.SUCCESS) {
+            throw new IllegalArgumentException("Only successful payments can be refunded (status: " + tx.getStatus() + ")");
+        }
+
+        // STEP 1: Claim the refund - fails if a concurrent refund or compensation got there first
+        if (transactionRepository.updateStatusIf(id, TransactionStatus.SUCCESS, TransactionStatus.REFUNDED) == 0) {
+            throw new IllegalArgumentException("Payment " + id + " was refunded or compensated concurrently");
         }
+        tx.setStatus(TransactionStatus.REFUNDED);
 
+        Wallet updatedWallet = null;
         try {
-            logger.info("📤 Sending Feign request: PUT /api/orders/{}/update-status?paymentStatus={}", 
-                orderId, paymentStatus);
-            
-            OrderResponseDto response = orderClient.updateOrderStatusByPayment(orderId, paymentStatus);
-            
-            logger.info("✅ Order Service response received:");
-            logger.info("   Order ID: {}", response.getOrderId());
-            logger.info("   Order Status: {}", response.getOrderStatus());
-            
-            return response;
+            // STEP 2: Refund to wallet
+            if ("WALLET".equalsIgnoreCase(tx.getMethod())) {
+                updatedWallet = creditWallet(tx.getUserId(), tx.getAmount());
+            }
+
+            // STEP 3: Reverse the aggregates and queue the REFUNDED order event
+            //         (the outbox relay notifies Order Service when orderId exists)
+            Transaction savedTx = outboxService.saveWithStatusEvent(tx, "REFUNDED");
+
+            return new PaymentResponse(savedTx, updatedWallet);
 
-        } catch (FeignException e) {
-            logger.error("❌ Feign Exception - Status: {}, Message: {}", e.status(), e.getMessage());
-            throw e;
         } catch (Exception e) {
-            logger.error("❌ Unexpected error during Order Service call: {}", e.getMessage());
-            throw new RuntimeException("Failed to notify Order Service", e);
+            throw new RuntimeException("Refund saga execution failed: " + e.getMessage());
         }
     }
 
-    // ==================== REFUND ====================
+    // ==================== WALLET HELPERS ====================
 
-	 
-	 public PaymentResponse refundPayment(UUID id) {
-	     Transaction tx = transactionRepository.findById(id)
-	             .orElseThrow(() -> new ResourceNotFoundException("Transaction not found"));
-	
-	     Wallet updatedWallet = null;
-	     OrderResponseDto orderResponse = null;
-	
-	     try {
-	         // STEP 1: Refund to wallet
-	         if ("WALLET".equalsIgnoreCase(tx.getMethod())) {
-	             Wallet wallet = walletRepository.findById(tx.getUserId())
-	                     .orElseThrow(() -> new ResourceNotFoundException("Wallet not found for user: " + tx.getUserId()));
-	
-	             wallet.setBalance(wallet.getBalance() + tx.getAmount());
-	             updatedWallet = walletRepository.save(wallet);
-	         }
-	
-	         // STEP 2: Update transaction status
-	         tx.setStatus(TransactionStatus.REFUNDED.name());
-	         Transaction savedTx = transactionRepository.save(tx);
-	
-	         // STEP 3: Notify Order Service of refund (only if orderId exists)
-	         if (tx.getOrderId() != null && !tx.getOrderId().isEmpty()) {
-	             try {
-	                 // Use the correct Feign client method
-	                 orderResponse = orderClient.updateOrderStatusByPayment(tx.getOrderId(), "REFUNDED");
-	             } catch (Exception e) {
-	                 throw new RuntimeException("Order Service notification failed during refund: " + e.getMessage());
-	             }
-	         }
-	
-	         return new PaymentResponse(savedTx, updatedWallet, orderResponse);
-	
-	     } catch (Exception e) {
-	         throw new RuntimeException("Refund saga execution failed: " + e.getMessage());
-	     }
-	 }
+    /**
+     * Credit a wallet through the guarded UPDATE and return the refreshed wallet
+     */
+    private Wallet creditWallet(String userId, Money amount) {
+        Wallet wallet = walletCacheService.credit(userId, amount);
+        if (wallet == null) {
+            throw new ResourceNotFoundException("Wallet not found for user: " + userId);
+        }
+        return wallet;
+    }
+
+    /**
+     * Create a wallet on first top-up.
+     * If another request created it concurrently, fall back to a guarded credit.
+     */
+    private Wallet createWallet(String userId, Money amount) {
+        try {
+            return walletCacheService.create(userId, amount);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("⚠️ Wallet for user {} created concurrently, applying credit instead", userId);
+            return creditWallet(userId, amount);
+        }
+    }
 
     // ==================== HELPER CLASS ====================
 
@@ -521,9 +1036,9 @@ public class PaymentService {
 		//validateUser(request.getUserId()); // <---- Added
 
         String userId = request.getUserId();
-        double amount = request.getAmount();
+        Money amount = request.getAmount();
 
-        if (amount <= 0) {
+        if (amount == null || !amount.isPositive()) {
             throw new IllegalArgumentException("Amount must be greater than zero");
         }
 
@@ -560,21 +1075,22 @@ public class PaymentService {
                 throw new IllegalArgumentException("Invalid payment method (UPI, CARD)");
         }
 
-        // Update wallet
-        Wallet wallet = walletRepository.findById(userId).orElse(new Wallet());
-        wallet.setUserId(userId);
-        wallet.setBalance(wallet.getBalance() + amount);
-
-        Wallet savedWallet = walletRepository.save(wallet);
+        // Update wallet (guarded credit, first top-up creates the wallet)
+        Wallet savedWallet = walletCacheService.credit(userId, amount);
+        if (savedWallet == null) {
+            savedWallet = createWallet(userId, amount);
+        }
 
         // Create transaction ONLY for wallet top-up
         Transaction tx = new Transaction();
         tx.setUserId(userId);
         tx.setAmount(amount);
         tx.setMethod(method);
-        tx.setStatus(TransactionStatus.SUCCESS.name());
-        tx.setOrderId(null);
-        tx.setRestaurantId(null);
+        tx.setStatus(TransactionStatus.SUCCESS);
+        // No order or restaurant: the columns are NOT NULL, so a top-up stores "".
+        // The outbox, aggregates, archiver and settlements all skip an empty order / restaurant.
+        tx.setOrderId("");
+        tx.setRestaurantId("");
 
         Transaction savedTx = transactionRepository.save(tx);
 
@@ -584,14 +1100,14 @@ public class PaymentService {
         txResp.setUserId(savedTx.getUserId());
         txResp.setMethod(savedTx.getMethod());
         txResp.setAmount(savedTx.getAmount());
-        txResp.setStatus(savedTx.getStatus());
+        txResp.setStatus(savedTx.getStatus().name());
         txResp.setCreatedAt(savedTx.getCreatedAt());
 
         return new WalletTopUpResponse(txResp, savedWallet);
     }
 
 	public Wallet getWallet(String userId) {
-		return walletRepository.findById(userId)
+		return walletCacheService.find(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Wallet not found for user: " + userId));
     }
 	
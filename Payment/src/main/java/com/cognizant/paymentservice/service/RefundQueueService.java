@@ -0,0 +1,337 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.exception.ResourceNotFoundException;
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.RefundJob;
+import com.cognizant.paymentservice.model.RefundJobProgress;
+import com.cognizant.paymentservice.model.RefundJobRequest;
+import com.cognizant.paymentservice.model.RefundQueueItem;
+import com.cognizant.paymentservice.model.RefundStatus;
+import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.model.TransactionStatus;
+import com.cognizant.paymentservice.repository.RefundJobRepository;
+import com.cognizant.paymentservice.repository.RefundQueueRepository;
+import com.cognizant.paymentservice.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Queue for bulk refunds (e.g. every order of a restaurant outage)
+ *
+ * Responsibilities:
+ * 1. Select the successful payments of a restaurant time range or an order list
+ *    and queue each one once: a transaction already queued by any job is counted
+ *    as a duplicate, and the unique key on transaction_id backs this up
+ * 2. Lease pending items so several payment nodes never refund the same one
+ * 3. Refund a leased batch in one DB transaction: one ledger flush, one wallet
+ *    credit per user (credits of the batch are summed per wallet), one aggregate
+ *    UPDATE per user and restaurant, and a REFUNDED outbox event per order
+ * 4. Report a job's progress from the item counts per refund status
+ *
+ * Order Service is not called here: the REFUNDED events are delivered by the
+ * outbox relay like those of single refunds.
+ */
+@Service
+public class RefundQueueService {
+    private static final Logger logger = LoggerFactory.getLogger(RefundQueueService.class);
+
+    // IN-list size for selection and duplicate lookups
+    private static final int LOOKUP_CHUNK = 1000;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private RefundQueueRepository queueRepository;
+
+    @Autowired
+    private RefundJobRepository jobRepository;
+
+    @Autowired
+    private WalletCacheService walletCacheService;
+
+    @Autowired
+    private PaymentAggregateService aggregateService;
+
+    @Autowired
+    private OrderStatusOutboxService outboxService;
+
+    @Value("${payment.refunds.max-job-size:10000}")
+    private int maxJobSize;
+
+    @Value("${payment.refunds.max-attempts:3}")
+    private int maxAttempts;
+
+    // ==================== ENQUEUE ====================
+
+    /**
+     * Queue the successful payments selected by a request as a new job
+     *
+     * @param request Restaurant with [from, to), or order IDs
+     * @return Progress of the new job
+     * @throws IllegalArgumentException if the selection is invalid or too large
+     * @throws org.springframework.dao.DataIntegrityViolationException if a concurrent
+     *         job queued one of the payments first
+     */
+    @Transactional
+    public RefundJobProgress enqueue(RefundJobRequest request) {
+        RefundJob job = new RefundJob(UUID.randomUUID().toString());
+        List<UUID> selected = select(request, job);
+        if (selected.size() > maxJobSize) {
+            throw new IllegalArgumentException("Refund job selects " + selected.size()
+                    + " payments, more than the limit of " + maxJobSize);
+        }
+
+        Set<UUID> alreadyQueued = new HashSet<>();
+        for (int from = 0; from < selected.size(); from += LOOKUP_CHUNK) {
+            alreadyQueued.addAll(queueRepository.findQueuedTransactionIds(
+                    selected.subList(from, Math.min(from + LOOKUP_CHUNK, selected.size()))));
+        }
+        List<RefundQueueItem> items = new ArrayList<>();
+        for (UUID transactionId : selected) {
+            if (!alreadyQueued.contains(transactionId)) {
+                items.add(new RefundQueueItem(job.getId(), transactionId));
+            }
+        }
+        job.setQueued(items.size());
+        job.setDuplicates(selected.size() - items.size());
+
+        jobRepository.save(job);
+        queueRepository.saveAll(items);
+        logger.info("📥 Refund job {} queued {} payments ({} already queued)",
+                job.getId(), job.getQueued(), job.getDuplicates());
+
+        RefundJobProgress progress = new RefundJobProgress(job);
+        progress.setPending(items.size());
+        return progress;
+    }
+
+    private List<UUID> select(RefundJobRequest request, RefundJob job) {
+        boolean byRestaurant = request.getRestaurantId() != null && !request.getRestaurantId().isBlank();
+        boolean byOrders = request.getOrderIds() != null && !request.getOrderIds().isEmpty();
+        if (byRestaurant == byOrders) {
+            throw new IllegalArgumentException("Give either restaurantId with from/to, or orderIds");
+        }
+
+        if (byRestaurant) {
+            if (request.getFrom() == null || request.getTo() == null || !request.getFrom().isBefore(request.getTo())) {
+                throw new IllegalArgumentException("A restaurant refund needs from before to");
+            }
+            job.setRestaurantId(request.getRestaurantId());
+            job.setFrom(request.getFrom());
+            job.setTo(request.getTo());
+            return transactionRepository.findIdsByRestaurantAndStatusBetween(
+                    request.getRestaurantId(), TransactionStatus.SUCCESS, request.getFrom(), request.getTo());
+        }
+
+        List<String> orderIds = new ArrayList<>(new LinkedHashSet<>(request.getOrderIds()));
+        if (orderIds.size() > maxJobSize) {
+            throw new IllegalArgumentException("Refund job lists " + orderIds.size()
+                    + " orders, more than the limit of " + maxJobSize);
+        }
+        job.setOrders(orderIds.size());
+        Set<UUID> ids = new LinkedHashSet<>();
+        for (int from = 0; from < orderIds.size(); from += LOOKUP_CHUNK) {
+            ids.addAll(transactionRepository.findIdsByOrderIdInAndStatus(
+                    orderIds.subList(from, Math.min(from + LOOKUP_CHUNK, orderIds.size())), TransactionStatus.SUCCESS));
+        }
+        return new ArrayList<>(ids);
+    }
+
+    // ==================== PROGRESS ====================
+
+    /**
+     * Progress of a refund job
+     * @throws ResourceNotFoundException if the job does not exist
+     */
+    public RefundJobProgress getProgress(String jobId) {
+        RefundJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Refund job not found: " + jobId));
+        RefundJobProgress progress = new RefundJobProgress(job);
+        for (Object[] row : queueRepository.countByJobGroupedByStatus(jobId)) {
+            long count = ((Number) row[1]).longValue();
+            switch ((RefundStatus) row[0]) {
+                case PENDING -> progress.setPending(count);
+                case REFUNDED -> progress.setRefunded(count);
+                case SKIPPED -> progress.setSkipped(count);
+                case FAILED -> progress.setFailed(count);
+            }
+        }
+        progress.setLastProcessedAt(queueRepository.findLastProcessedAt(jobId));
+        return progress;
+    }
+
+    /**
+     * Items waiting to be refunded, over all jobs
+     */
+    public long backlogSize() {
+        return queueRepository.countByStatus(RefundStatus.PENDING);
+    }
+
+    // ==================== WORKER SIDE ====================
+
+    /**
+     * Lease the next pending items for one worker run
+     *
+     * @param batchSize Maximum items to lease
+     * @param claimToken Token identifying this node and run
+     * @param leaseMs Lease duration
+     * @return Leased items, oldest first
+     */
+    public List<RefundQueueItem> claimDueBatch(int batchSize, String claimToken, long leaseMs) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = queueRepository.findDueIds(RefundStatus.PENDING, now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        int claimed = queueRepository.claim(ids, claimToken, now.plusNanos(leaseMs * 1_000_000), now, RefundStatus.PENDING);
+        if (claimed == 0) {
+            return List.of();
+        }
+        return queueRepository.findByClaimedByOrderByIdAsc(claimToken);
+    }
+
+    /**
+     * Release the leases a worker run did not settle
+     */
+    public void releaseClaims(String claimToken) {
+        queueRepository.releaseClaims(claimToken);
+    }
+
+    /**
+     * Refund a batch of leased items in one DB transaction.
+     * The payments still SUCCESS are locked first and switched to REFUNDED with one
+     * guarded UPDATE; only those are credited. Items whose payment is missing or no
+     * longer SUCCESS (refunded or compensated elsewhere, also concurrently) are settled as SKIPPED.
+     * If any wallet credit fails the whole batch rolls back and stays leased.
+     *
+     * @param items Leased items
+     * @return Outcome counts
+     * @throws ResourceNotFoundException if a refunded WALLET payment's wallet is gone
+     */
+    @Transactional
+    public RefundBatchResult refundBatch(List<RefundQueueItem> items) {
+        List<UUID> ids = items.stream().map(RefundQueueItem::getTransactionId).toList();
+        Set<UUID> refundable = new HashSet<>(transactionRepository.lockIdsInStatus(ids, TransactionStatus.SUCCESS));
+        Map<UUID, Transaction> txs = transactionRepository.findAllById(ids)
+                .stream()
+                .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+
+        List<Transaction> refunded = new ArrayList<>();
+        List<Long> refundedItems = new ArrayList<>();
+        Map<String, List<Long>> skippedItems = new LinkedHashMap<>();
+        for (RefundQueueItem item : items) {
+            Transaction tx = txs.get(item.getTransactionId());
+            if (tx == null) {
+                skippedItems.computeIfAbsent("Transaction not found", k -> new ArrayList<>()).add(item.getId());
+            } else if (!refundable.remove(tx.getId())) {
+                // Not SUCCESS when locked, or refunded by an earlier item of this batch
+                TransactionStatus status = refunded.contains(tx) ? TransactionStatus.REFUNDED : tx.getStatus();
+                skippedItems.computeIfAbsent("Not refundable (status: " + status + ")", k -> new ArrayList<>())
+                        .add(item.getId());
+            } else {
+                refunded.add(tx);
+                refundedItems.add(item.getId());
+            }
+        }
+        if (!refunded.isEmpty()) {
+            // The rows are locked, so the guard must match every one of them
+            List<UUID> refundedIds = refunded.stream().map(Transaction::getId).toList();
+            int changed = transactionRepository.updateStatusIf(refundedIds, TransactionStatus.SUCCESS, TransactionStatus.REFUNDED);
+            if (changed != refundedIds.size()) {
+                throw new IllegalStateException("Refunded " + changed + " of " + refundedIds.size() + " locked payments");
+            }
+            refunded.forEach(tx -> tx.setStatus(TransactionStatus.REFUNDED));
+        }
+
+        // One credit per wallet, in user order so concurrent batches lock wallets in the same order
+        Map<String, Money> credits = new TreeMap<>();
+        for (Transaction tx : refunded) {
+            if ("WALLET".equalsIgnoreCase(tx.getMethod())) {
+                credits.merge(tx.getUserId(), tx.getAmount(), Money::plus);
+            }
+        }
+        credits.forEach((userId, amount) -> {
+            if (walletCacheService.credit(userId, amount) == null) {
+                throw new ResourceNotFoundException("Wallet not found for user: " + userId);
+            }
+        });
+
+        aggregateService.reversePayments(refunded);
+        outboxService.enqueueAll(refunded, "REFUNDED");
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!refundedItems.isEmpty()) {
+            queueRepository.settle(refundedItems, RefundStatus.REFUNDED, null, now);
+        }
+        int skipped = 0;
+        for (Map.Entry<String, List<Long>> entry : skippedItems.entrySet()) {
+            queueRepository.settle(entry.getValue(), RefundStatus.SKIPPED, entry.getKey(), now);
+            skipped += entry.getValue().size();
+        }
+        return new RefundBatchResult(refundedItems.size(), skipped, credits.size());
+    }
+
+    /**
+     * Record a failed attempt on one item: it is retried on a later run
+     * until payment.refunds.max-attempts, then settled as FAILED
+     * @return true if the item was settled as FAILED
+     */
+    public boolean recordFailure(RefundQueueItem item, String error) {
+        if (item.getAttempts() + 1 < maxAttempts) {
+            queueRepository.recordAttempt(item.getId(), error);
+            return false;
+        }
+        queueRepository.settle(List.of(item.getId()), RefundStatus.FAILED, error, LocalDateTime.now());
+        logger.error("❌ Refund of transaction {} failed after {} attempts: {}",
+                item.getTransactionId(), item.getAttempts() + 1, error);
+        return true;
+    }
+
+    // ==================== HELPER CLASS ====================
+
+    /**
+     * Outcome of one refunded batch
+     */
+    public static class RefundBatchResult {
+        private final int refunded;
+        private final int skipped;
+        private final int walletCredits;
+
+        public RefundBatchResult(int refunded, int skipped, int walletCredits) {
+            this.refunded = refunded;
+            this.skipped = skipped;
+            this.walletCredits = walletCredits;
+        }
+
+        public int getRefunded() {
+            return refunded;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public int getWalletCredits() {
+            return walletCredits;
+        }
+    }
+}
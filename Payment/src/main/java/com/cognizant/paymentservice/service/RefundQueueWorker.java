@@ -0,0 +1,119 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.RefundQueueItem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background worker that drains the refund queue
+ *
+ * Every tick it leases the next batch of pending items (so other payment nodes
+ * skip them) and refunds them in one DB transaction. If the batch fails, its
+ * items are retried one by one so a single bad payment (e.g. a deleted wallet)
+ * cannot hold back the others; a failing item is retried on later runs and
+ * settled as FAILED after payment.refunds.max-attempts.
+ *
+ * Metrics:
+ * - payment.refunds.backlog         items waiting to be refunded
+ * - payment.refunds.processed       settled items, tagged outcome=refunded|skipped|failed
+ * - payment.refunds.wallet.credits  wallet credits issued (one per user per batch)
+ */
+@Component
+public class RefundQueueWorker {
+    private static final Logger logger = LoggerFactory.getLogger(RefundQueueWorker.class);
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter refundedCounter;
+    private final Counter skippedCounter;
+    private final Counter failedCounter;
+    private final Counter walletCreditCounter;
+
+    @Autowired
+    private RefundQueueService refundQueueService;
+
+    @Value("${payment.refunds.batch-size:200}")
+    private int batchSize;
+
+    @Value("${payment.refunds.lease-ms:60000}")
+    private long leaseMs;
+
+    public RefundQueueWorker(MeterRegistry meterRegistry) {
+        Gauge.builder("payment.refunds.backlog", backlog, AtomicLong::get)
+                .description("Queued refunds waiting to be processed")
+                .register(meterRegistry);
+        this.refundedCounter = processedCounter(meterRegistry, "refunded");
+        this.skippedCounter = processedCounter(meterRegistry, "skipped");
+        this.failedCounter = processedCounter(meterRegistry, "failed");
+        this.walletCreditCounter = Counter.builder("payment.refunds.wallet.credits")
+                .description("Wallet credits issued by the refund worker")
+                .register(meterRegistry);
+    }
+
+    private static Counter processedCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("payment.refunds.processed")
+                .description("Queued refunds settled by the refund worker")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Refund the next batch of queued payments
+     * @return Items refunded
+     */
+    @Scheduled(fixedDelayString = "${payment.refunds.worker-interval-ms:1000}")
+    public int drain() {
+        String claimToken = nodeId + "-" + UUID.randomUUID();
+        List<RefundQueueItem> batch = refundQueueService.claimDueBatch(batchSize, claimToken, leaseMs);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        int refunded = 0;
+        try {
+            refunded = record(refundQueueService.refundBatch(batch));
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ Refund batch of {} failed, retrying item by item: {}", batch.size(), e.getMessage());
+            for (RefundQueueItem item : batch) {
+                try {
+                    refunded += record(refundQueueService.refundBatch(List.of(item)));
+                } catch (RuntimeException itemError) {
+                    if (refundQueueService.recordFailure(item, itemError.getMessage())) {
+                        failedCounter.increment();
+                    }
+                }
+            }
+        } finally {
+            refundQueueService.releaseClaims(claimToken);
+        }
+        logger.info("💸 Refund worker refunded {}/{} queued payments", refunded, batch.size());
+        return refunded;
+    }
+
+    /**
+     * Refresh the backlog gauge from the queue table
+     */
+    @Scheduled(fixedDelayString = "${payment.refunds.metrics-interval-ms:15000}")
+    public void refreshBacklogMetrics() {
+        backlog.set(refundQueueService.backlogSize());
+    }
+
+    private int record(RefundQueueService.RefundBatchResult result) {
+        refundedCounter.increment(result.getRefunded());
+        skippedCounter.increment(result.getSkipped());
+        walletCreditCounter.increment(result.getWalletCredits());
+        return result.getRefunded();
+    }
+}
@@ -0,0 +1,139 @@
+package com.cognizant.paymentservice.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Steps of a saga type and the order constraints between them
+ *
+ * Each step names the steps it depends on; a step runs once all of them have
+ * succeeded, and steps that become ready together run in parallel.
+ * Every step runs in one DB transaction together with its step log entry, and
+ * so does its compensation, so a step is either fully done and logged or not
+ * done at all. A step that talks to another system must therefore be
+ * idempotent: its transaction can roll back after the remote call was made.
+ */
+public final class SagaDefinition {
+
+    /**
+     * Work of a step, or of its compensation
+     */
+    @FunctionalInterface
+    public interface Action {
+        void run(SagaState state);
+    }
+
+    /**
+     * One step: its action, its compensation (null if it needs none) and its dependencies
+     */
+    public static final class Step {
+        private final String name;
+        private final Action action;
+        private final Action compensation;
+        private final Set<String> dependsOn;
+
+        private Step(String name, Action action, Action compensation, Set<String> dependsOn) {
+            this.name = name;
+            this.action = action;
+            this.compensation = compensation;
+            this.dependsOn = dependsOn;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public Action getCompensation() {
+            return compensation;
+        }
+
+        public Set<String> getDependsOn() {
+            return dependsOn;
+        }
+    }
+
+    private final String type;
+    private final Map<String, Step> steps;
+
+    private SagaDefinition(String type, Map<String, Step> steps) {
+        this.type = type;
+        this.steps = steps;
+    }
+
+    public static Builder builder(String type) {
+        return new Builder(type);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Collection<Step> getSteps() {
+        return steps.values();
+    }
+
+    public Step getStep(String name) {
+        return steps.get(name);
+    }
+
+    /**
+     * Steps not yet done whose dependencies have all succeeded, in declaration order
+     */
+    List<Step> ready(Set<String> done) {
+        List<Step> ready = new ArrayList<>();
+        for (Step step : steps.values()) {
+            if (!done.contains(step.name) && done.containsAll(step.dependsOn)) {
+                ready.add(step);
+            }
+        }
+        return ready;
+    }
+
+    // ==================== BUILDER ====================
+
+    public static final class Builder {
+        private final String type;
+        private final Map<String, Step> steps = new LinkedHashMap<>();
+
+        private Builder(String type) {
+            this.type = type;
+        }
+
+        /**
+         * Add a step. Dependencies must have been added before, which also rules out cycles.
+         * @param name Step name, unique within the saga
+         * @param action Work of the step
+         * @param compensation Undo for the step, or null if it needs none
+         * @param dependsOn Steps that must have succeeded first
+         */
+        public Builder step(String name, Action action, Action compensation, String... dependsOn) {
+            if (steps.containsKey(name)) {
+                throw new IllegalArgumentException("Duplicate saga step: " + name);
+            }
+            Set<String> dependencies = new LinkedHashSet<>(List.of(dependsOn));
+            for (String dependency : dependencies) {
+                if (!steps.containsKey(dependency)) {
+                    throw new IllegalArgumentException("Step " + name + " depends on unknown step " + dependency);
+                }
+            }
+            steps.put(name, new Step(name, action, compensation, dependencies));
+            return this;
+        }
+
+        public SagaDefinition build() {
+            if (steps.isEmpty()) {
+                throw new IllegalStateException("Saga " + type + " has no steps");
+            }
+            return new SagaDefinition(type, new LinkedHashMap<>(steps));
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.exception.ResourceNotFoundException;
+import com.cognizant.paymentservice.model.SagaDetails;
+import com.cognizant.paymentservice.model.SagaInstance;
+import com.cognizant.paymentservice.model.SagaStatus;
+import com.cognizant.paymentservice.model.SagaStepLog;
+import com.cognizant.paymentservice.model.SagaStepStatus;
+import com.cognizant.paymentservice.repository.SagaInstanceRepository;
+import com.cognizant.paymentservice.repository.SagaStepLogRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Orchestrator for sagas with a persisted step log
+ *
+ * Responsibilities:
+ * 1. Run a saga's steps in dependency order; steps that are ready together
+ *    run in parallel on the taskExecutor
+ * 2. Log each step outcome in the same DB transaction as the step's work
+ * 3. When a step fails, compensate the succeeded steps in reverse order
+ * 4. Recover sagas left unfinished by a node that stopped: their succeeded
+ *    steps are compensated from the logged values
+ * 5. Expose in-flight sagas and their step log
+ *
+ * The saga row is inserted with the first step and marked COMPLETED with the
+ * last one when those run alone, so on the success path a saga costs one log
+ * row per step plus a lease renewal per later wave.
+ *
+ * A running saga keeps its lease by renewing it before each wave and each
+ * compensation. Recovery only takes over sagas whose lease expired; once it has,
+ * the original node's renewals and status updates match no row, and that node
+ * stops and leaves the saga to recovery.
+ */
+@Service
+public class SagaEngine {
+    private static final Logger logger = LoggerFactory.getLogger(SagaEngine.class);
+
+    private static final List<SagaStatus> UNFINISHED = List.of(SagaStatus.RUNNING, SagaStatus.COMPENSATING);
+    private static final List<SagaStatus> FINISHED = List.of(SagaStatus.COMPLETED, SagaStatus.ABORTED);
+    private static final int MAX_ERROR_LENGTH = 2000;
+    private static final int MAX_LIST_SIZE = 500;
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final Map<String, SagaDefinition> definitions = new ConcurrentHashMap<>();
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SagaInstanceRepository instanceRepository;
+
+    @Autowired
+    private SagaStepLogRepository stepLogRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    @Value("${payment.saga.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${payment.saga.recovery-batch-size:50}")
+    private int recoveryBatchSize;
+
+    @Value("${payment.saga.retention-hours:72}")
+    private long retentionHours;
+
+    public SagaEngine(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Make a saga type known to recovery
+     */
+    public void register(SagaDefinition definition) {
+        definitions.put(definition.getType(), definition);
+    }
+
+    // ==================== EXECUTION ====================
+
+    /**
+     * Run a saga to its end: all steps succeeded, or the failed saga compensated
+     * (as far as possible; a compensation that fails is retried by recovery)
+     *
+     * @param definition Saga type
+     * @param state Values and attributes the saga starts with; its id is the saga id
+     * @return Outcome with the failed step and its exception, if any
+     */
+    public Outcome execute(SagaDefinition definition, SagaState state) {
+        String sagaId = state.getSagaId();
+        String payload = toJson(state.values());
+        Set<String> done = new LinkedHashSet<>();  // succeeded steps, in completion order
+        int total = definition.getSteps().size();
+        boolean persisted = false;
+
+        while (done.size() < total) {
+            List<SagaDefinition.Step> wave = definition.ready(done);
+            if (persisted && !renewLease(sagaId)) {
+                return leaseLost(sagaId, wave.get(0).getName());
+            }
+            // A step that runs alone carries the saga row's insert and final update
+            boolean alone = wave.size() == 1;
+            SagaInstance insert = null;
+            if (!persisted && alone) {
+                insert = newInstance(sagaId, definition, payload);
+            } else if (!persisted) {
+                SagaInstance instance = newInstance(sagaId, definition, payload);
+                transactionTemplate.executeWithoutResult(status -> entityManager.persist(instance));
+                persisted = true;
+            }
+            boolean completes = alone && done.size() + 1 == total;
+
+            Map<SagaDefinition.Step, StepResult> results = runWave(sagaId, wave, state, insert, completes);
+            SagaDefinition.Step failedStep = null;
+            StepResult failure = null;
+            for (Map.Entry<SagaDefinition.Step, StepResult> result : results.entrySet()) {
+                if (result.getValue().failure() == null) {
+                    done.add(result.getKey().getName());
+                    persisted = true;
+                } else if (failedStep == null) {
+                    failedStep = result.getKey();
+                    failure = result.getValue();
+                }
+            }
+            if (failedStep != null) {
+                if (persisted && !renewLease(sagaId)) {
+                    return leaseLost(sagaId, failedStep.getName());
+                }
+                return abort(definition, state, persisted ? null : newInstance(sagaId, definition, payload),
+                        done, failedStep.getName(), failure);
+            }
+            if (done.size() == total && !completes) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> markStatus(sagaId, SagaStatus.COMPLETED, null, null));
+                } catch (LeaseLostException e) {
+                    return leaseLost(sagaId, null);
+                }
+            }
+        }
+        return new Outcome(sagaId, SagaStatus.COMPLETED, null, null);
+    }
+
+    /**
+     * Recovery took the saga over while it ran (a wave outlasted the lease): it is
+     * compensating the saga, so this run stops without touching it further
+     */
+    private Outcome leaseLost(String sagaId, String step) {
+        logger.warn("⚠️ Saga {} lease lost before {} - recovery is rolling it back", sagaId, step);
+        return new Outcome(sagaId, SagaStatus.COMPENSATING, step,
+                new LeaseLostException("Saga " + sagaId + " was taken over by recovery"));
+    }
+
+    private Map<SagaDefinition.Step, StepResult> runWave(String sagaId, List<SagaDefinition.Step> wave, SagaState state,
+                                                         SagaInstance insert, boolean completes) {
+        Map<SagaDefinition.Step, CompletableFuture<StepResult>> parallel = new LinkedHashMap<>();
+        for (SagaDefinition.Step step : wave.subList(1, wave.size())) {
+            CompletableFuture<StepResult> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> runStep(sagaId, step, state, null, false), taskExecutor);
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.completedFuture(runStep(sagaId, step, state, null, false));  // executor saturated
+            }
+            parallel.put(step, future);
+        }
+        Map<SagaDefinition.Step, StepResult> results = new LinkedHashMap<>();
+        results.put(wave.get(0), runStep(sagaId, wave.get(0), state, insert, completes));  // on the caller's thread
+        parallel.forEach((step, future) -> results.put(step, future.join()));
+        return results;
+    }
+
+    private StepResult runStep(String sagaId, SagaDefinition.Step step, SagaState state,
+                               SagaInstance insert, boolean completes) {
+        long start = System.nanoTime();
+        SagaState view = state.forStep();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (insert != null) {
+                    entityManager.persist(insert);
+                }
+                step.getAction().run(view);
+                entityManager.persist(new SagaStepLog(sagaId, step.getName(), SagaStepStatus.SUCCEEDED,
+                        toJson(view.added()), null, elapsedMs(start), nodeId));
+                if (completes) {
+                    markStatus(sagaId, SagaStatus.COMPLETED, null, null);
+                }
+            });
+            return new StepResult(null, elapsedMs(start));
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ Saga {} step {} failed: {}", sagaId, step.getName(), e.getMessage());
+            return new StepResult(e, elapsedMs(start));
+        }
+    }
+
+    // ==================== COMPENSATION ====================
+
+    private Outcome abort(SagaDefinition definition, SagaState state, SagaInstance insert,
+                          Set<String> done, String failedStep, StepResult failure) {
+        String sagaId = state.getSagaId();
+        String error = describe(failure.failure());
+        List<SagaDefinition.Step> toCompensate = compensable(definition, done);
+        SagaStatus next = toCompensate.isEmpty() ? SagaStatus.ABORTED : SagaStatus.COMPENSATING;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (insert != null) {
+                insert.setStatus(next);
+                insert.setFailedStep(failedStep);
+                insert.setLastError(error);
+                entityManager.persist(insert);
+            } else {
+                markStatus(sagaId, next, failedStep, error);
+            }
+            entityManager.persist(new SagaStepLog(sagaId, failedStep, SagaStepStatus.FAILED, null, error,
+                    failure.durationMs(), nodeId));
+        });
+        if (!toCompensate.isEmpty()) {
+            logger.warn("🔄 Saga {} failed at {} - compensating {}", sagaId, failedStep,
+                    toCompensate.stream().map(SagaDefinition.Step::getName).toList());
+        }
+        boolean compensated = compensate(sagaId, state, toCompensate);
+        return new Outcome(sagaId, compensated ? SagaStatus.ABORTED : SagaStatus.COMPENSATING,
+                failedStep, failure.failure());
+    }
+
+    /**
+     * Run compensations in the given order, each in one transaction with its log entry.
+     * The last one also marks the saga ABORTED. Stops at the first compensation that
+     * fails and leaves the saga COMPENSATING for recovery, or when another node has
+     * taken the saga over.
+     *
+     * @return true if every compensation succeeded
+     */
+    private boolean compensate(String sagaId, SagaState state, List<SagaDefinition.Step> steps) {
+        for (int i = 0; i < steps.size(); i++) {
+            SagaDefinition.Step step = steps.get(i);
+            boolean last = i == steps.size() - 1;
+            if (!renewLease(sagaId)) {
+                logger.warn("⚠️ Saga {} lease lost before compensating {} - left to its new owner", sagaId, step.getName());
+                return false;
+            }
+            long start = System.nanoTime();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    step.getCompensation().run(state);
+                    entityManager.persist(new SagaStepLog(sagaId, step.getName(), SagaStepStatus.COMPENSATED,
+                            null, null, elapsedMs(start), nodeId));
+                    if (last) {
+                        markStatus(sagaId, SagaStatus.ABORTED, null, null);
+                    }
+                });
+            } catch (RuntimeException e) {
+                String error = describe(e);
+                logger.error("❌ Saga {} compensation of {} failed, recovery will retry: {}", sagaId, step.getName(), error);
+                transactionTemplate.executeWithoutResult(status -> {
+                    entityManager.persist(new SagaStepLog(sagaId, step.getName(), SagaStepStatus.COMPENSATION_FAILED,
+                            null, error, elapsedMs(start), nodeId));
+                    markStatus(sagaId, SagaStatus.COMPENSATING, null, error);
+                });
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Steps to undo, latest first, skipping those without a compensation
+     */
+    private static List<SagaDefinition.Step> compensable(SagaDefinition definition, Set<String> succeeded) {
+        List<SagaDefinition.Step> steps = new ArrayList<>();
+        for (String name : succeeded) {
+            SagaDefinition.Step step = definition.getStep(name);
+            if (step != null && step.getCompensation() != null) {
+                steps.add(step);
+            }
+        }
+        Collections.reverse(steps);
+        return steps;
+    }
+
+    // ==================== RECOVERY ====================
+
+    @Scheduled(fixedDelayString = "${payment.saga.recovery-interval-ms:30000}",
+            initialDelayString = "${payment.saga.recovery-initial-delay-ms:10000}")
+    public void scheduledRecovery() {
+        int recovered = recoverStaleSagas();
+        if (recovered > 0) {
+            logger.info("✅ Recovered {} unfinished sagas", recovered);
+        }
+    }
+
+    /**
+     * Take over unfinished sagas whose lease expired and roll them back.
+     * A payment in flight when its node stopped never reported success to its
+     * caller, so its succeeded steps are compensated rather than resumed.
+     * A saga whose every step had committed is just marked COMPLETED.
+     *
+     * @return Sagas brought to an end by this run
+     */
+    public int recoverStaleSagas() {
+        LocalDateTime now = LocalDateTime.now();
+        int recovered = 0;
+        for (String sagaId : instanceRepository.findStaleIds(UNFINISHED, now, PageRequest.of(0, recoveryBatchSize))) {
+            if (instanceRepository.claim(sagaId, nodeId, leaseUntil(), UNFINISHED, now) == 1 && recover(sagaId)) {
+                recovered++;
+            }
+        }
+        return recovered;
+    }
+
+    private boolean recover(String sagaId) {
+        SagaInstance instance = instanceRepository.findById(sagaId).orElse(null);
+        if (instance == null) {
+            return false;
+        }
+        SagaDefinition definition = definitions.get(instance.getSagaType());
+        if (definition == null) {
+            logger.warn("⚠️ Saga {} has unknown type {} - leaving it to a node that knows it", sagaId, instance.getSagaType());
+            return false;
+        }
+
+        SagaState state = new SagaState(sagaId);
+        state.putAll(fromJson(instance.getPayload()));
+        Set<String> succeeded = new LinkedHashSet<>();
+        Set<String> compensated = new HashSet<>();
+        for (SagaStepLog entry : stepLogRepository.findBySagaIdOrderByIdAsc(sagaId)) {
+            if (entry.getStatus() == SagaStepStatus.SUCCEEDED) {
+                succeeded.add(entry.getStep());
+                state.putAll(fromJson(entry.getOutput()));
+            } else if (entry.getStatus() == SagaStepStatus.COMPENSATED) {
+                compensated.add(entry.getStep());
+            }
+        }
+        succeeded.removeAll(compensated);
+
+        if (instance.getStatus() == SagaStatus.RUNNING && succeeded.size() == definition.getSteps().size()) {
+            transactionTemplate.executeWithoutResult(status -> markStatus(sagaId, SagaStatus.COMPLETED, null, null));
+            return true;
+        }
+        List<SagaDefinition.Step> toCompensate = compensable(definition, succeeded);
+        logger.warn("🔄 Recovering saga {} ({}, {}) - compensating {}", sagaId, instance.getSagaType(),
+                instance.getStatus(), toCompensate.stream().map(SagaDefinition.Step::getName).toList());
+        String error = instance.getStatus() == SagaStatus.RUNNING ? "Owner node stopped before the saga finished" : null;
+        transactionTemplate.executeWithoutResult(status -> markStatus(sagaId,
+                toCompensate.isEmpty() ? SagaStatus.ABORTED : SagaStatus.COMPENSATING, null, error));
+        return compensate(sagaId, state, toCompensate);
+    }
+
+    // ==================== RETENTION ====================
+
+    /**
+     * Delete finished sagas and their step log after payment.saga.retention-hours
+     */
+    @Scheduled(cron = "${payment.saga.purge-cron:0 15 * * * *}")
+    public void purgeFinishedSagas() {
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        transactionTemplate.executeWithoutResult(status -> {
+            int entries = stepLogRepository.deleteForFinishedBefore(FINISHED, before);
+            int sagas = instanceRepository.deleteFinishedBefore(FINISHED, before);
+            if (sagas > 0) {
+                logger.info("🧹 Purged {} finished sagas ({} step log entries)", sagas, entries);
+            }
+        });
+    }
+
+    // ==================== INSPECTION ====================
+
+    public SagaDetails getSaga(String sagaId) {
+        SagaInstance instance = instanceRepository.findById(sagaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Saga not found with ID: " + sagaId));
+        return new SagaDetails(instance, stepLogRepository.findBySagaIdOrderByIdAsc(sagaId));
+    }
+
+    /**
+     * Sagas still RUNNING or COMPENSATING, oldest first
+     */
+    public List<SagaInstance> getInFlight(int limit) {
+        return instanceRepository.findByStatusInOrderByCreatedAtAsc(UNFINISHED,
+                PageRequest.of(0, Math.max(1, Math.min(limit, MAX_LIST_SIZE))));
+    }
+
+    // ==================== HELPERS ====================
+
+    private SagaInstance newInstance(String sagaId, SagaDefinition definition, String payload) {
+        return new SagaInstance(sagaId, definition.getType(), payload, nodeId, leaseUntil());
+    }
+
+    /**
+     * @throws LeaseLostException if another node owns the saga now (rolls back the caller's transaction)
+     */
+    private void markStatus(String sagaId, SagaStatus status, String failedStep, String error) {
+        if (instanceRepository.updateStatus(sagaId, nodeId, status, failedStep, error, leaseUntil(),
+                LocalDateTime.now()) == 0) {
+            throw new LeaseLostException("Saga " + sagaId + " is owned by another node");
+        }
+    }
+
+    private boolean renewLease(String sagaId) {
+        return instanceRepository.renewLease(sagaId, nodeId, leaseUntil(), UNFINISHED) == 1;
+    }
+
+    private LocalDateTime leaseUntil() {
+        return LocalDateTime.now().plusNanos(leaseMs * 1_000_000);
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static String describe(Throwable failure) {
+        String error = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private String toJson(Map<String, String> values) {
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Saga values are not serializable", e);
+        }
+    }
+
+    private Map<String, String> fromJson(String json) {
+        if (json == null || json.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, String>>() { });
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable saga values: " + json, e);
+        }
+    }
+
+    private record StepResult(RuntimeException failure, long durationMs) {
+    }
+
+    private static final class LeaseLostException extends IllegalStateException {
+        LeaseLostException(String message) {
+            super(message);
+        }
+    }
+
+    // ==================== OUTCOME ====================
+
+    /**
+     * How a saga run ended: COMPLETED, ABORTED (failed and compensated), or
+     * COMPENSATING (failed, and a compensation is left for recovery)
+     */
+    public static final class Outcome {
+        private final String sagaId;
+        private final SagaStatus status;
+        private final String failedStep;
+        private final RuntimeException failure;
+
+        Outcome(String sagaId, SagaStatus status, String failedStep, RuntimeException failure) {
+            this.sagaId = sagaId;
+            this.status = status;
+            this.failedStep = failedStep;
+            this.failure = failure;
+        }
+
+        public String getSagaId() {
+            return sagaId;
+        }
+
+        public SagaStatus getStatus() {
+            return status;
+        }
+
+        public boolean isCompleted() {
+            return status == SagaStatus.COMPLETED;
+        }
+
+        public String getFailedStep() {
+            return failedStep;
+        }
+
+        public RuntimeException getFailure() {
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.cognizant.paymentservice.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Data shared by the steps of one saga run
+ *
+ * Values are strings that survive a crash: the ones a saga starts with are
+ * stored with the saga, the ones a step adds are stored in its log entry,
+ * and recovery hands all of them to the compensations.
+ * Attributes are in-memory objects for the current run only (request,
+ * entities, the response wallet) and are gone after a crash.
+ *
+ * Steps of one wave run in parallel, so both maps are concurrent.
+ */
+public class SagaState {
+
+    private final String sagaId;
+    private final Map<String, String> values;
+    private final Map<String, Object> attributes;
+    private final Map<String, String> added;  // values put through this view; null for the saga's own state
+
+    public SagaState(String sagaId) {
+        this(sagaId, new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), null);
+    }
+
+    private SagaState(String sagaId, Map<String, String> values, Map<String, Object> attributes,
+                      Map<String, String> added) {
+        this.sagaId = sagaId;
+        this.values = values;
+        this.attributes = attributes;
+        this.added = added;
+    }
+
+    public String getSagaId() {
+        return sagaId;
+    }
+
+    // ==================== DURABLE VALUES ====================
+
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    public String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    /**
+     * Set a value; null values are not stored
+     */
+    public void put(String key, String value) {
+        if (value == null) {
+            return;
+        }
+        values.put(key, value);
+        if (added != null) {
+            added.put(key, value);
+        }
+    }
+
+    void putAll(Map<String, String> restored) {
+        values.putAll(restored);
+    }
+
+    Map<String, String> values() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * View for one step: same data, but records what the step puts
+     */
+    SagaState forStep() {
+        return new SagaState(sagaId, values, attributes, new LinkedHashMap<>());
+    }
+
+    Map<String, String> added() {
+        return added != null ? added : Map.of();
+    }
+
+    // ==================== IN-MEMORY ATTRIBUTES ====================
+
+    @SuppressWarnings("unchecked")
+    public <T> T attribute(String key) {
+        return (T) attributes.get(key);
+    }
+
+    /**
+     * Set an attribute; a null value removes it
+     */
+    public void setAttribute(String key, Object value) {
+        if (value == null) {
+            attributes.remove(key);
+        } else {
+            attributes.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.exception.ResourceNotFoundException;
+import com.cognizant.paymentservice.exception.SettlementInProgressException;
+import com.cognizant.paymentservice.model.LedgerArchive;
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.RestaurantSettlement;
+import com.cognizant.paymentservice.model.SettlementReport;
+import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.repository.LedgerArchiveRepository;
+import com.cognizant.paymentservice.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Per-restaurant settlement reports for restaurant payouts
+ *
+ * A run settles a range of days in one streaming, read-only pass over the ledger,
+ * oldest first. Rows are taken in chunks of payment.settlement.chunk-rows and split
+ * into restaurant partitions (by restaurant ID hash); the partitions of a chunk are
+ * aggregated and written in parallel on a fork-join pool. Each partition owns its
+ * accumulators and its detail file, so the workers share nothing.
+ *
+ * Output under payment.settlement.dir/settlement-&lt;from&gt;_&lt;to&gt;/:
+ * - summary.csv                one line per restaurant, sorted by restaurant ID
+ * - transactions-p&lt;n&gt;.pla  the settled rows of partition n, columnar archive format
+ * - report.json                written last; its presence marks the run complete
+ *
+ * Heap stays bounded by chunk-rows plus the open blocks of the detail files
+ * (partitions x block-rows), however many rows the range holds. Every
+ * checkpoint-every-chunks chunks the detail files are synced and checkpoint.json
+ * records the ledger position, file lengths and accumulators; an interrupted run
+ * continues from there, cutting the detail files back to the checkpointed lengths.
+ *
+ * Rows without a restaurant (wallet top-ups) are read but not settled.
+ * Only months still in the database can be settled.
+ *
+ * One run at a time per node: a request made while a run is in progress fails
+ * with SettlementInProgressException (409) instead of waiting behind it. The lock
+ * is a ReentrantLock, so a waiting virtual thread never pins its carrier.
+ * A completed report is reused only for ranges that ended before today; a range
+ * that includes today is settled again from scratch on every request.
+ */
+@Service
+public class SettlementService {
+    private static final Logger logger = LoggerFactory.getLogger(SettlementService.class);
+
+    static final String SUMMARY_FILE = "summary.csv";
+    static final String REPORT_FILE = "report.json";
+    static final String CHECKPOINT_FILE = "checkpoint.json";
+    private static final Pattern RUN_ID = Pattern.compile("settlement-\\d{4}-\\d{2}-\\d{2}_\\d{4}-\\d{2}-\\d{2}");
+    private static final String CSV_HEADER = "restaurant_id,success_count,success_amount,refunded_count,refunded_amount,"
+            + "compensated_count,compensated_amount,failed_count,pending_count,payout_amount,first_payment,last_payment";
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerArchiveRepository archiveRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${payment.settlement.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.settlement.dir:./settlements}")
+    private String settlementDir;
+
+    @Value("${payment.settlement.parallelism:0}")
+    private int parallelism;  // 0 = available processors
+
+    @Value("${payment.settlement.chunk-rows:10000}")
+    private int chunkRows;
+
+    @Value("${payment.settlement.block-rows:10000}")
+    private int blockRows;
+
+    @Value("${payment.settlement.checkpoint-every-chunks:10}")
+    private int checkpointEveryChunks;
+
+    final ReentrantLock runLock = new ReentrantLock();
+
+    private volatile String runningId;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public SettlementService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    // ==================== SETTLEMENT RUNS ====================
+
+    @Scheduled(cron = "${payment.settlement.cron:0 30 1 * * *}")
+    public void scheduledSettlement() {
+        if (enabled) {
+            try {
+                settleDay(LocalDate.now().minusDays(1));
+            } catch (SettlementInProgressException e) {
+                logger.warn("⚠️ Scheduled settlement skipped: {}", e.getMessage());
+            }
+        }
+    }
+
+    public SettlementReport settleDay(LocalDate day) {
+        return settle(day, day);
+    }
+
+    /**
+     * Settle a range of days, continuing an interrupted run of the same range
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @return Report of the run; the stored report if the range was already settled and ended before today
+     * @throws SettlementInProgressException if a run is already in progress on this node
+     */
+    public SettlementReport settle(LocalDate from, LocalDate to) {
+        return settle(from, to, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxChunks Stop, as if interrupted, after this many chunks
+     * @return null when stopped by maxChunks
+     */
+    SettlementReport settle(LocalDate from, LocalDate to, int maxChunks) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("A date range with from <= to is required");
+        }
+        List<LedgerArchive> archived = archiveRepository.findMonthsBetween(
+                YearMonth.from(from).toString(), YearMonth.from(to).toString());
+        if (!archived.isEmpty()) {
+            throw new IllegalArgumentException("Cannot settle archived ledger month " + archived.get(0).getMonth());
+        }
+
+        String runId = runId(from, to);
+        if (!runLock.tryLock()) {
+            throw new SettlementInProgressException(runningId);
+        }
+        runningId = runId;
+        try {
+            return settleLocked(runId, from, to, maxChunks);
+        } finally {
+            runningId = null;
+            runLock.unlock();
+        }
+    }
+
+    private SettlementReport settleLocked(String runId, LocalDate from, LocalDate to, int maxChunks) {
+        Path runDir = Paths.get(settlementDir).resolve(runId);
+        boolean open = !to.isBefore(LocalDate.now());  // today's rows are still coming in
+        try {
+            if (open) {
+                Files.deleteIfExists(runDir.resolve(REPORT_FILE));
+                Files.deleteIfExists(runDir.resolve(CHECKPOINT_FILE));
+            } else if (Files.exists(runDir.resolve(REPORT_FILE))) {
+                return objectMapper.readValue(runDir.resolve(REPORT_FILE).toFile(), SettlementReport.class);
+            }
+            Files.createDirectories(runDir);
+            Run run = openRun(runDir);
+            if (run.rows > 0) {
+                logger.info("💰 Resuming settlement {} after {} rows", runId, run.rows);
+            }
+            if (!stream(run, from.atStartOfDay(), to.plusDays(1).atStartOfDay(), maxChunks)) {
+                logger.warn("⚠️ Settlement {} stopped after {} rows, resumable from its last checkpoint",
+                        runId, run.rows);
+                return null;
+            }
+            return finish(run, runId, from, to);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write settlement " + runId, e);
+        }
+    }
+
+    /**
+     * Stream the range after the run's position through the partitions
+     * @return false if stopped by maxChunks (the writers are then abandoned, not closed)
+     */
+    private boolean stream(Run run, LocalDateTime start, LocalDateTime end, int maxChunks) throws IOException {
+        LocalDateTime afterDate = run.lastDate != null ? run.lastDate : start.minusSeconds(1);
+        UUID afterId = run.lastId != null ? run.lastId : new UUID(0, 0);
+        ForkJoinPool pool = new ForkJoinPool(run.partitions.size());
+        boolean completed = false;
+        try {
+            completed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                try (Stream<Transaction> rows = transactionRepository.streamBetweenAfter(start, end, afterDate, afterId)) {
+                    Iterator<Transaction> it = rows.iterator();
+                    List<Transaction> chunk = new ArrayList<>(chunkRows);
+                    int chunks = 0;
+                    while (it.hasNext()) {
+                        chunk.add(it.next());
+                        if (chunk.size() < chunkRows) {
+                            continue;
+                        }
+                        settleChunk(run, chunk, pool);
+                        if (++chunks % checkpointEveryChunks == 0) {
+                            checkpoint(run);
+                        }
+                        if (chunks >= maxChunks) {
+                            return false;
+                        }
+                    }
+                    settleChunk(run, chunk, pool);
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            return completed;
+        } finally {
+            pool.shutdown();
+            if (!completed) {
+                for (Partition partition : run.partitions) {
+                    partition.writer.abandon();
+                }
+            }
+        }
+    }
+
+    /**
+     * Aggregate and write one chunk, one fork-join task per restaurant partition
+     */
+    private void settleChunk(Run run, List<Transaction> chunk, ForkJoinPool pool) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        int count = run.partitions.size();
+        List<List<Transaction>> slices = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            slices.add(new ArrayList<>(chunk.size() / count + 1));
+        }
+        for (Transaction tx : chunk) {
+            if (StringUtils.hasLength(tx.getRestaurantId())) {  // wallet top-ups are not restaurant revenue
+                slices.get(partitionOf(tx.getRestaurantId(), count)).add(tx);
+            }
+        }
+        List<Callable<Void>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Partition partition = run.partitions.get(i);
+            List<Transaction> slice = slices.get(i);
+            if (!slice.isEmpty()) {
+                tasks.add(() -> {
+                    partition.settle(slice);
+                    return null;
+                });
+            }
+        }
+        for (Future<Void> task : pool.invokeAll(tasks)) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Settlement interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IllegalStateException("Settlement partition failed", e.getCause());
+            }
+        }
+
+        Transaction last = chunk.get(chunk.size() - 1);
+        run.rows += chunk.size();
+        run.lastDate = last.getTransactionDate();
+        run.lastId = last.getId();
+        chunk.clear();
+        entityManager.clear();  // the chunk's rows are written, let them go
+    }
+
+    private static int partitionOf(String restaurantId, int partitions) {
+        return Math.floorMod(restaurantId.hashCode(), partitions);
+    }
+
+    // ==================== CHECKPOINTS ====================
+
+    /**
+     * Open a run: from checkpoint.json if an earlier run was interrupted, empty otherwise
+     */
+    private Run openRun(Path runDir) throws IOException {
+        Path checkpointFile = runDir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpointFile)) {
+            try (Stream<Path> stale = Files.list(runDir)) {
+                for (Path file : stale.toList()) {
+                    Files.delete(file);  // written before the first checkpoint of an interrupted run
+                }
+            }
+            int count = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+            Run run = new Run(runDir);
+            for (int i = 0; i < count; i++) {
+                run.partitions.add(new Partition(detailFile(runDir, i),
+                        new LedgerArchiveFormat.Writer(detailFile(runDir, i), blockRows)));
+            }
+            return run;
+        }
+
+        Checkpoint checkpoint = objectMapper.readValue(checkpointFile.toFile(), Checkpoint.class);
+        Run run = new Run(runDir);
+        run.rows = checkpoint.getRows();
+        run.resumedAtRow = checkpoint.getRows();
+        run.lastDate = checkpoint.getLastDate();
+        run.lastId = checkpoint.getLastId();
+        List<Long> lengths = checkpoint.getFileLengths();
+        for (int i = 0; i < lengths.size(); i++) {
+            run.partitions.add(new Partition(detailFile(runDir, i),
+                    LedgerArchiveFormat.Writer.resume(detailFile(runDir, i), lengths.get(i), blockRows)));
+        }
+        for (RestaurantSettlement settlement : checkpoint.getRestaurants()) {
+            run.partitions.get(partitionOf(settlement.getRestaurantId(), lengths.size()))
+                    .restaurants.put(settlement.getRestaurantId(), settlement);
+        }
+        return run;
+    }
+
+    /**
+     * Sync the detail files, then record the position they reflect
+     */
+    private void checkpoint(Run run) throws IOException {
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.setRows(run.rows);
+        checkpoint.setLastDate(run.lastDate);
+        checkpoint.setLastId(run.lastId);
+        List<Long> lengths = new ArrayList<>(run.partitions.size());
+        List<RestaurantSettlement> restaurants = new ArrayList<>();
+        for (Partition partition : run.partitions) {
+            lengths.add(partition.writer.checkpoint());
+            restaurants.addAll(partition.restaurants.values());
+        }
+        checkpoint.setFileLengths(lengths);
+        checkpoint.setRestaurants(restaurants);
+        writeAtomically(run.dir.resolve(CHECKPOINT_FILE), objectMapper.writeValueAsBytes(checkpoint));
+    }
+
+    // ==================== OUTPUT ====================
+
+    private SettlementReport finish(Run run, String runId, LocalDate from, LocalDate to) throws IOException {
+        List<RestaurantSettlement> restaurants = new ArrayList<>();
+        List<String> detailFiles = new ArrayList<>();
+        for (Partition partition : run.partitions) {
+            partition.writer.close();
+            sync(partition.file);
+            restaurants.addAll(partition.restaurants.values());
+            detailFiles.add(partition.file.getFileName().toString());
+        }
+        restaurants.sort(Comparator.comparing(RestaurantSettlement::getRestaurantId));
+        writeSummary(run.dir.resolve(SUMMARY_FILE), restaurants);
+
+        SettlementReport report = new SettlementReport();
+        report.setRunId(runId);
+        report.setFrom(from);
+        report.setTo(to);
+        report.setRows(run.rows);
+        report.setRestaurants(restaurants.size());
+        report.setPayoutPaise(restaurants.stream().mapToLong(RestaurantSettlement::getPayoutPaise).sum());
+        report.setResumedAtRow(run.resumedAtRow);
+        report.setSummaryFile(SUMMARY_FILE);
+        report.setDetailFiles(detailFiles);
+        report.setDurationMs(System.currentTimeMillis() - run.startedAt);
+        report.setCompletedAt(LocalDateTime.now());
+        writeAtomically(run.dir.resolve(REPORT_FILE), objectMapper.writeValueAsBytes(report));
+        Files.deleteIfExists(run.dir.resolve(CHECKPOINT_FILE));
+
+        logger.info("💰 Settlement {} complete: {} rows, {} restaurants, payout {} in {} ms",
+                runId, run.rows, restaurants.size(), Money.ofPaise(report.getPayoutPaise()), report.getDurationMs());
+        return report;
+    }
+
+    private void writeSummary(Path file, List<RestaurantSettlement> restaurants) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write(CSV_HEADER);
+            out.newLine();
+            for (RestaurantSettlement r : restaurants) {
+                out.write(String.join(",", csv(r.getRestaurantId()),
+                        Long.toString(r.getSuccessCount()), Money.ofPaise(r.getSuccessPaise()).toString(),
+                        Long.toString(r.getRefundedCount()), Money.ofPaise(r.getRefundedPaise()).toString(),
+                        Long.toString(r.getCompensatedCount()), Money.ofPaise(r.getCompensatedPaise()).toString(),
+                        Long.toString(r.getFailedCount()), Long.toString(r.getPendingCount()),
+                        Money.ofPaise(r.getPayoutPaise()).toString(),
+                        String.valueOf(r.getFirstPayment()), String.valueOf(r.getLastPayment())));
+                out.newLine();
+            }
+        }
+        sync(temp);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, content);
+        sync(temp);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void sync(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private static Path detailFile(Path runDir, int partition) {
+        return runDir.resolve("transactions-p" + partition + ".pla");
+    }
+
+    private static String runId(LocalDate from, LocalDate to) {
+        return "settlement-" + from + "_" + to;
+    }
+
+    // ==================== READ PATH ====================
+
+    /**
+     * Summary CSV of a completed run
+     * @param runId Run ID from the report (settlement-yyyy-MM-dd_yyyy-MM-dd)
+     */
+    public Path getSummaryFile(String runId) {
+        if (runId == null || !RUN_ID.matcher(runId).matches()) {
+            throw new IllegalArgumentException("Invalid settlement run ID: " + runId);
+        }
+        Path runDir = Paths.get(settlementDir).resolve(runId);
+        if (!Files.exists(runDir.resolve(REPORT_FILE))) {
+            throw new ResourceNotFoundException("No completed settlement " + runId);
+        }
+        return runDir.resolve(SUMMARY_FILE);
+    }
+
+    // ==================== RUN STATE ====================
+
+    private static final class Run {
+        private final Path dir;
+        private final List<Partition> partitions = new ArrayList<>();
+        private final long startedAt = System.currentTimeMillis();
+        private long rows;
+        private long resumedAtRow;
+        private LocalDateTime lastDate;
+        private UUID lastId;
+
+        Run(Path dir) {
+            this.dir = dir;
+        }
+    }
+
+    /**
+     * The restaurants of one hash partition; touched by one fork-join task at a time
+     */
+    private static final class Partition {
+        private final Path file;
+        private final LedgerArchiveFormat.Writer writer;
+        private final Map<String, RestaurantSettlement> restaurants = new HashMap<>();
+
+        Partition(Path file, LedgerArchiveFormat.Writer writer) {
+            this.file = file;
+            this.writer = writer;
+        }
+
+        void settle(List<Transaction> rows) throws IOException {
+            for (Transaction tx : rows) {
+                restaurants.computeIfAbsent(tx.getRestaurantId(), RestaurantSettlement::new).add(tx);
+                writer.add(tx);
+            }
+        }
+    }
+
+    /**
+     * Content of checkpoint.json
+     */
+    static final class Checkpoint {
+        private long rows;
+        private LocalDateTime lastDate;
+        private UUID lastId;
+        private List<Long> fileLengths;
+        private List<RestaurantSettlement> restaurants;
+
+        public long getRows() { return rows; }
+        public void setRows(long rows) { this.rows = rows; }
+
+        public LocalDateTime getLastDate() { return lastDate; }
+        public void setLastDate(LocalDateTime lastDate) { this.lastDate = lastDate; }
+
+        public UUID getLastId() { return lastId; }
+        public void setLastId(UUID lastId) { this.lastId = lastId; }
+
+        public List<Long> getFileLengths() { return fileLengths; }
+        public void setFileLengths(List<Long> fileLengths) { this.fileLengths = fileLengths; }
+
+        public List<RestaurantSettlement> getRestaurants() { return restaurants; }
+        public void setRestaurants(List<RestaurantSettlement> restaurants) { this.restaurants = restaurants; }
+    }
+}
@@ -0,0 +1,84 @@
+package com.cognizant.paymentservice.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free count and sum over a sliding time window
+ *
+ * The window is a ring of buckets, each holding a LongAdder for the count and one
+ * for the sum, stamped with the bucket's epoch (time / bucket length). A bucket whose
+ * stamp is older than the window is recycled by the first writer that wins the CAS
+ * on its stamp. Reads add up the buckets still inside the window.
+ *
+ * Approximate by design: the window slides in whole buckets, and an add racing with
+ * the recycling of its bucket can be lost. Callers pass the time (System.nanoTime()).
+ */
+final class SlidingWindowCounter {
+
+    private final int buckets;
+    private final long bucketNanos;
+    private final AtomicLongArray epochs;
+    private final LongAdder[] counts;
+    private final LongAdder[] sums;
+
+    SlidingWindowCounter(int buckets, long bucketNanos) {
+        this.buckets = buckets;
+        this.bucketNanos = bucketNanos;
+        this.epochs = new AtomicLongArray(buckets);
+        this.counts = new LongAdder[buckets];
+        this.sums = new LongAdder[buckets];
+        for (int i = 0; i < buckets; i++) {
+            epochs.set(i, Long.MIN_VALUE);
+            counts[i] = new LongAdder();
+            sums[i] = new LongAdder();
+        }
+    }
+
+    void add(long now, long value) {
+        add(now, 1, value);
+    }
+
+    /**
+     * Record several adds at once, totalling value
+     */
+    void add(long now, long adds, long value) {
+        long epoch = Math.floorDiv(now, bucketNanos);
+        int slot = (int) Math.floorMod(epoch, (long) buckets);
+        long stamp = epochs.get(slot);
+        if (stamp < epoch && epochs.compareAndSet(slot, stamp, epoch)) {
+            counts[slot].reset();
+            sums[slot].reset();
+        }
+        counts[slot].add(adds);
+        sums[slot].add(value);
+    }
+
+    /**
+     * Number of adds within the window ending at now
+     */
+    long count(long now) {
+        long oldest = Math.floorDiv(now, bucketNanos) - buckets;
+        long total = 0;
+        for (int i = 0; i < buckets; i++) {
+            if (epochs.get(i) > oldest) {
+                total += counts[i].sum();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sum of the values added within the window ending at now
+     */
+    long sum(long now) {
+        long oldest = Math.floorDiv(now, bucketNanos) - buckets;
+        long total = 0;
+        for (int i = 0; i < buckets; i++) {
+            if (epochs.get(i) > oldest) {
+                total += sums[i].sum();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,235 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.PaymentRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process velocity limits on payments, per user and per card
+ *
+ * Each user and each card fingerprint has a SlidingWindowCounter of the payments it
+ * made within payment.velocity.window-seconds. A payment is admitted only if neither
+ * the count nor the amount limit would be exceeded by it, and is then counted; it
+ * stays counted whether or not it is approved later. No database query is involved.
+ * A batch is checked once per user, for all of that user's payments together: each
+ * item counts as one payment against the user's count limit and its card's.
+ *
+ * Counters live in bounded caches that drop a key once it has been idle for a whole
+ * window (it holds nothing by then) or, under pressure, beyond max-keys.
+ * Check and count are not one atomic step, so a burst of concurrent payments from
+ * one key can overshoot a limit by the number of requests in flight.
+ *
+ * Meters:
+ * - payment.velocity.rejections   rejected payments (tags: scope=user|card, limit=count|amount)
+ * - payment.velocity.keys         tracked users / card fingerprints (tag: scope)
+ */
+@Service
+public class VelocityCheckService {
+
+    public static final String USER_COUNT_EXCEEDED = "VELOCITY_USER_COUNT";
+    public static final String USER_AMOUNT_EXCEEDED = "VELOCITY_USER_AMOUNT";
+    public static final String CARD_COUNT_EXCEEDED = "VELOCITY_CARD_COUNT";
+    public static final String CARD_AMOUNT_EXCEEDED = "VELOCITY_CARD_AMOUNT";
+
+    private final boolean enabled;
+    private final int buckets;
+    private final long bucketNanos;
+    private final long userMaxCount;
+    private final long userMaxPaise;
+    private final long cardMaxCount;
+    private final long cardMaxPaise;
+    private final Cache<String, SlidingWindowCounter> users;
+    private final Cache<String, SlidingWindowCounter> cards;
+    private final Counter userCountRejections;
+    private final Counter userAmountRejections;
+    private final Counter cardCountRejections;
+    private final Counter cardAmountRejections;
+
+    // Card numbers are only kept as salted hashes; the salt never leaves this process
+    private final byte[] fingerprintSalt = new byte[16];
+    private final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(VelocityCheckService::newSha256);
+
+    /**
+     * Limits of 0 are not checked
+     */
+    public VelocityCheckService(MeterRegistry meterRegistry,
+                                @Value("${payment.velocity.enabled:true}") boolean enabled,
+                                @Value("${payment.velocity.window-seconds:60}") int windowSeconds,
+                                @Value("${payment.velocity.buckets:12}") int buckets,
+                                @Value("${payment.velocity.user.max-count:20}") long userMaxCount,
+                                @Value("${payment.velocity.user.max-amount:50000.00}") String userMaxAmount,
+                                @Value("${payment.velocity.card.max-count:10}") long cardMaxCount,
+                                @Value("${payment.velocity.card.max-amount:50000.00}") String cardMaxAmount,
+                                @Value("${payment.velocity.max-keys:200000}") long maxKeys) {
+        if (windowSeconds <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("payment.velocity.window-seconds and buckets must be positive");
+        }
+        this.enabled = enabled;
+        this.buckets = buckets;
+        this.bucketNanos = TimeUnit.SECONDS.toNanos(windowSeconds) / buckets;
+        this.userMaxCount = userMaxCount;
+        this.userMaxPaise = Money.parse(userMaxAmount).paise();
+        this.cardMaxCount = cardMaxCount;
+        this.cardMaxPaise = Money.parse(cardMaxAmount).paise();
+        this.users = newCounterCache(maxKeys, windowSeconds);
+        this.cards = newCounterCache(maxKeys, windowSeconds);
+        new SecureRandom().nextBytes(fingerprintSalt);
+
+        this.userCountRejections = rejections(meterRegistry, "user", "count");
+        this.userAmountRejections = rejections(meterRegistry, "user", "amount");
+        this.cardCountRejections = rejections(meterRegistry, "card", "count");
+        this.cardAmountRejections = rejections(meterRegistry, "card", "amount");
+        Gauge.builder("payment.velocity.keys", users, Cache::estimatedSize)
+                .description("Users with a velocity window")
+                .tag("scope", "user")
+                .register(meterRegistry);
+        Gauge.builder("payment.velocity.keys", cards, Cache::estimatedSize)
+                .description("Card fingerprints with a velocity window")
+                .tag("scope", "card")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admit a validated payment request and count it against its user and card
+     * @param request Request with user ID and a positive amount
+     * @return null if admitted, otherwise the failure reason (nothing is counted then)
+     */
+    public String admit(PaymentRequest request) {
+        if (!enabled) {
+            return null;
+        }
+        String fingerprint = cardFingerprint(request);
+        Usage usage = new Usage(1, request.getAmount().paise());
+        return admit(request.getUserId(), usage, fingerprint == null ? Map.of() : Map.of(fingerprint, usage));
+    }
+
+    /**
+     * Admit one user's payments from a batch all or nothing: every request counts
+     * as one payment against the user's limits and its card's, and the amount
+     * limits are checked for their sum.
+     * @param userId User of every request
+     * @param requests Validated requests with positive amounts
+     * @return null if all are admitted, otherwise the failure reason for all of them (nothing is counted then)
+     */
+    public String admitBatch(String userId, List<PaymentRequest> requests) {
+        if (!enabled) {
+            return null;
+        }
+        Usage total = new Usage(0, 0);
+        Map<String, Usage> byCard = new HashMap<>();
+        for (PaymentRequest request : requests) {
+            Usage one = new Usage(1, request.getAmount().paise());
+            total = total.plus(one);
+            String fingerprint = cardFingerprint(request);
+            if (fingerprint != null) {
+                byCard.merge(fingerprint, one, Usage::plus);
+            }
+        }
+        return admit(userId, total, byCard);
+    }
+
+    private String admit(String userId, Usage usage, Map<String, Usage> usageByCard) {
+        long now = System.nanoTime();
+        long paise = usage.paise();
+
+        SlidingWindowCounter user = users.get(userId, key -> newCounter());
+        if (userMaxCount > 0 && user.count(now) + usage.payments() > userMaxCount) {
+            userCountRejections.increment();
+            return USER_COUNT_EXCEEDED;
+        }
+        if (userMaxPaise > 0 && user.sum(now) + paise > userMaxPaise) {
+            userAmountRejections.increment();
+            return USER_AMOUNT_EXCEEDED;
+        }
+
+        Map<SlidingWindowCounter, Usage> cardCounters = new HashMap<>();
+        for (Map.Entry<String, Usage> entry : usageByCard.entrySet()) {
+            SlidingWindowCounter card = cards.get(entry.getKey(), key -> newCounter());
+            Usage cardUsage = entry.getValue();
+            if (cardMaxCount > 0 && card.count(now) + cardUsage.payments() > cardMaxCount) {
+                cardCountRejections.increment();
+                return CARD_COUNT_EXCEEDED;
+            }
+            if (cardMaxPaise > 0 && card.sum(now) + cardUsage.paise() > cardMaxPaise) {
+                cardAmountRejections.increment();
+                return CARD_AMOUNT_EXCEEDED;
+            }
+            cardCounters.put(card, cardUsage);
+        }
+
+        user.add(now, usage.payments(), paise);
+        cardCounters.forEach((card, cardUsage) -> card.add(now, cardUsage.payments(), cardUsage.paise()));
+        return null;
+    }
+
+    /**
+     * Payments and their total amount, as counted against one user or card
+     */
+    private record Usage(long payments, long paise) {
+        Usage plus(Usage other) {
+            return new Usage(payments + other.payments, Math.addExact(paise, other.paise));
+        }
+    }
+
+    private SlidingWindowCounter newCounter() {
+        return new SlidingWindowCounter(buckets, bucketNanos);
+    }
+
+    /**
+     * Salted SHA-256 of the card number's digits, or null when the request is not a card payment
+     */
+    private String cardFingerprint(PaymentRequest request) {
+        if (request.getMethod() == null || !"CARD".equals(request.getMethod().toUpperCase(Locale.ROOT))
+                || request.getCardNumber() == null) {
+            return null;
+        }
+        String digits = request.getCardNumber().replaceAll("[^0-9]", "");
+        if (digits.isEmpty()) {
+            return null;
+        }
+        MessageDigest digest = sha256.get();
+        digest.update(fingerprintSalt);
+        byte[] hash = digest.digest(digits.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    private static Cache<String, SlidingWindowCounter> newCounterCache(long maxKeys, int windowSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofSeconds(windowSeconds))
+                .build();
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String scope, String limit) {
+        return Counter.builder("payment.velocity.rejections")
+                .description("Payments rejected by a velocity limit")
+                .tags("scope", scope, "limit", limit)
+                .register(meterRegistry);
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.exception.ResourceNotFoundException;
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.Wallet;
+import com.cognizant.paymentservice.model.WalletInvalidation;
+import com.cognizant.paymentservice.model.WalletSnapshot;
+import com.cognizant.paymentservice.repository.WalletRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Wallet reads and balance updates through a bounded cache of wallet snapshots
+ *
+ * Responsibilities:
+ * 1. Serve wallet reads from version-stamped snapshots, loading misses from the database
+ * 2. Write balance changes through the cache: an update conditioned on the snapshot's
+ *    version yields the new state without reading the row back
+ * 3. Broadcast each change on the invalidation channel so other nodes drop older snapshots
+ *
+ * A snapshot never authorizes a debit: every debit is a guarded UPDATE that re-checks
+ * the balance in the database, so a stale snapshot costs at most one extra statement.
+ * Only this service writes wallet balances.
+ */
+@Service
+public class WalletCacheService {
+    private static final Logger logger = LoggerFactory.getLogger(WalletCacheService.class);
+
+    private final WalletRepository walletRepository;
+    private final WalletInvalidationChannel channel;
+    private final Cache<String, WalletSnapshot> cache;  // null when disabled
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public WalletCacheService(WalletRepository walletRepository,
+                              WalletInvalidationChannel channel,
+                              @Value("${payment.wallet.cache.enabled:true}") boolean cacheEnabled,
+                              @Value("${payment.wallet.cache.max-size:100000}") long cacheMaxSize,
+                              @Value("${payment.wallet.cache.ttl-ms:60000}") long cacheTtlMs) {
+        this.walletRepository = walletRepository;
+        this.channel = channel;
+        this.cache = cacheEnabled
+                ? Caffeine.newBuilder()
+                        .maximumSize(cacheMaxSize)
+                        .expireAfterWrite(Duration.ofMillis(cacheTtlMs))
+                        .build()
+                : null;
+        channel.subscribe(this::onInvalidation);
+    }
+
+    // ==================== READS ====================
+
+    /**
+     * Wallet of a user, from the cache when present
+     * @return Detached wallet, empty if the user has none
+     */
+    public Optional<Wallet> find(String userId) {
+        WalletSnapshot snapshot = cache != null ? cache.getIfPresent(userId) : null;
+        if (snapshot == null) {
+            snapshot = load(userId);
+        }
+        return Optional.ofNullable(snapshot).map(WalletSnapshot::toWallet);
+    }
+
+    public boolean exists(String userId) {
+        return find(userId).isPresent();
+    }
+
+    // ==================== BALANCE UPDATES ====================
+
+    /**
+     * Debit a wallet if it holds enough balance
+     * @return Wallet after the debit, or null if the wallet is missing or the balance is insufficient
+     */
+    public Wallet debit(String userId, Money amount) {
+        LocalDateTime now = LocalDateTime.now();
+        WalletSnapshot snapshot = currentSnapshot(userId);
+        if (snapshot != null && !snapshot.getBalance().isLessThan(amount)
+                && walletRepository.debitIfSufficientAtVersion(userId, amount, snapshot.getVersion(), now) == 1) {
+            return changed(snapshot.withBalance(snapshot.getBalance().minus(amount), now));
+        }
+        // No snapshot, or it was stale or showed too little: let the guarded UPDATE decide
+        if (walletRepository.debitIfSufficient(userId, amount, now) == 0) {
+            load(userId);  // refresh for the caller's error message
+            return null;
+        }
+        return reloaded(userId);
+    }
+
+    /**
+     * Credit a wallet
+     * @return Wallet after the credit, or null if the wallet is missing
+     */
+    public Wallet credit(String userId, Money amount) {
+        LocalDateTime now = LocalDateTime.now();
+        WalletSnapshot snapshot = currentSnapshot(userId);
+        if (snapshot != null
+                && walletRepository.creditAtVersion(userId, amount, snapshot.getVersion(), now) == 1) {
+            return changed(snapshot.withBalance(snapshot.getBalance().plus(amount), now));
+        }
+        if (walletRepository.credit(userId, amount, now) == 0) {
+            return null;
+        }
+        return reloaded(userId);
+    }
+
+    /**
+     * Insert a new wallet
+     * @throws org.springframework.dao.DataIntegrityViolationException if the wallet already exists
+     */
+    public Wallet create(String userId, Money amount) {
+        walletRepository.insertWallet(userId, amount, LocalDateTime.now());
+        return reloaded(userId);
+    }
+
+    /**
+     * Drop a user's snapshot on this node
+     */
+    public void evict(String userId) {
+        if (cache != null) {
+            cache.invalidate(userId);
+        }
+    }
+
+    public long cacheSize() {
+        return cache != null ? cache.estimatedSize() : 0;
+    }
+
+    // ==================== CACHE MAINTENANCE ====================
+
+    private WalletSnapshot currentSnapshot(String userId) {
+        // Also inside a caller's transaction: the versioned UPDATE re-checks in the database
+        return cache != null ? cache.getIfPresent(userId) : null;
+    }
+
+    private WalletSnapshot load(String userId) {
+        WalletSnapshot snapshot = walletRepository.findById(userId).map(WalletSnapshot::of).orElse(null);
+        // A read inside a caller's transaction may see its own uncommitted changes
+        if (snapshot != null && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            putIfNewer(snapshot);
+        }
+        return snapshot;
+    }
+
+    private Wallet reloaded(String userId) {
+        WalletSnapshot snapshot = walletRepository.findById(userId).map(WalletSnapshot::of)
+                .orElseThrow(() -> new ResourceNotFoundException("Wallet not found for user: " + userId));
+        return changed(snapshot);
+    }
+
+    /**
+     * Record a committed change locally and tell the other nodes.
+     * Inside a caller's transaction the change is only visible after commit:
+     * the new snapshot is cached and broadcast then, or dropped on rollback.
+     * Until then the older snapshot stays cached, which its version makes harmless.
+     */
+    private Wallet changed(WalletSnapshot snapshot) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        putIfNewer(snapshot);
+                        broadcast(snapshot);
+                    } else {
+                        evict(snapshot.getUserId());
+                    }
+                }
+            });
+        } else {
+            putIfNewer(snapshot);
+            broadcast(snapshot);
+        }
+        return snapshot.toWallet();
+    }
+
+    private void putIfNewer(WalletSnapshot snapshot) {
+        if (cache == null) {
+            return;
+        }
+        cache.asMap().merge(snapshot.getUserId(), snapshot,
+                (cached, fresh) -> fresh.getVersion() >= cached.getVersion() ? fresh : cached);
+    }
+
+    private void broadcast(WalletSnapshot snapshot) {
+        try {
+            channel.publish(new WalletInvalidation(nodeId, snapshot.getUserId(), snapshot.getVersion()));
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ Wallet invalidation for user {} not sent: {}", snapshot.getUserId(), e.getMessage());
+        }
+    }
+
+    private void onInvalidation(WalletInvalidation invalidation) {
+        if (cache == null || nodeId.equals(invalidation.getSourceNode())) {
+            return;
+        }
+        cache.asMap().computeIfPresent(invalidation.getUserId(),
+                (userId, cached) -> cached.getVersion() < invalidation.getVersion() ? null : cached);
+    }
+}
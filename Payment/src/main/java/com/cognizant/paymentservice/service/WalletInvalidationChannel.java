@@ -0,0 +1,24 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.WalletInvalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Transport for wallet cache invalidations between payment nodes.
+ *
+ * Delivery may be asynchronous and at-most-once; a lost message only leaves a
+ * stale snapshot until its TTL, because debits are always re-checked by the database.
+ */
+public interface WalletInvalidationChannel {
+
+    /**
+     * Send an invalidation to every subscribed node, including the sender
+     */
+    void publish(WalletInvalidation invalidation);
+
+    /**
+     * Register a node's handler for invalidations
+     */
+    void subscribe(Consumer<WalletInvalidation> listener);
+}
@@ -19,7 +19,7 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
-            .authorizeHttpRequests(auth -> auth.requestMatchers("/actuator/health", "/actuator/info").permitAll()
+            .authorizeHttpRequests(auth -> auth.requestMatchers("/actuator/health", "/actuator/info", "/actuator/prometheus").permitAll()
             		.requestMatchers("/payment/pay").permitAll()
             		.requestMatchers("/payment/transactions").hasAnyRole("CUSTOMER","VENDOR","ADMIN").anyRequest().authenticated())
            
@@ -0,0 +1,147 @@
+package com.cognizant.paymentservice.benchmark;
+
+import com.cognizant.paymentservice.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wallet debit/credit and aggregate accumulation: boxed Double rupees vs long paise.
+ *
+ * The "boxed" benchmarks reproduce the old entity path (Double balance, Double
+ * amount, unboxed and re-boxed on every step); "paise" runs the same loop on
+ * primitives, and "money" on the immutable {@link Money} value type.
+ * Run with -prof gc to see the allocation rate per operation:
+ *
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.cognizant.paymentservice.benchmark.MoneyArithmeticBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    @Param({"10000"})
+    private int payments;
+
+    private Double[] boxedAmounts;
+    private long[] paiseAmounts;
+    private Money[] moneyAmounts;
+
+    @Setup
+    public void generate() {
+        Random random = new Random(42);
+        boxedAmounts = new Double[payments];
+        paiseAmounts = new long[payments];
+        moneyAmounts = new Money[payments];
+        for (int i = 0; i < payments; i++) {
+            long paise = 100 + random.nextInt(200_000);  // ₹1.00 .. ₹2,001.00
+            paiseAmounts[i] = paise;
+            boxedAmounts[i] = paise / 100.0;
+            moneyAmounts[i] = Money.ofPaise(paise);
+        }
+    }
+
+    // ==================== WALLET DEBIT / CREDIT ====================
+
+    @Benchmark
+    public Double walletBoxed() {
+        Double balance = 1_000_000.0;
+        for (int i = 0; i < payments; i++) {
+            Double amount = boxedAmounts[i];
+            if (balance >= amount) {
+                balance = balance - amount;
+            }
+            if ((i & 3) == 0) {
+                balance = balance + amount;  // refund / top-up
+            }
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public long walletPaise() {
+        long balance = 100_000_000L;
+        for (int i = 0; i < payments; i++) {
+            long amount = paiseAmounts[i];
+            if (balance >= amount) {
+                balance -= amount;
+            }
+            if ((i & 3) == 0) {
+                balance += amount;
+            }
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public Money walletMoney() {
+        Money balance = Money.ofPaise(100_000_000L);
+        for (int i = 0; i < payments; i++) {
+            Money amount = moneyAmounts[i];
+            if (!balance.isLessThan(amount)) {
+                balance = balance.minus(amount);
+            }
+            if ((i & 3) == 0) {
+                balance = balance.plus(amount);
+            }
+        }
+        return balance;
+    }
+
+    // ==================== AGGREGATES ====================
+
+    @Benchmark
+    public double aggregateBoxed() {
+        Long count = 0L;
+        Double total = 0.0;
+        Double sumSquares = 0.0;
+        for (int i = 0; i < payments; i++) {
+            Double amount = boxedAmounts[i];
+            count = count + 1;
+            total = total + amount;
+            sumSquares = sumSquares + amount * amount;
+        }
+        double mean = total / count;
+        return Math.sqrt(sumSquares / count - mean * mean);
+    }
+
+    @Benchmark
+    public double aggregatePaise() {
+        long count = 0;
+        long total = 0;
+        double sumSquares = 0;
+        for (int i = 0; i < payments; i++) {
+            long paise = paiseAmounts[i];
+            count++;
+            total += paise;
+            sumSquares += (double) paise * paise;
+        }
+        double mean = (double) total / count;
+        return Math.sqrt(sumSquares / count - mean * mean) / 100.0;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyArithmeticBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
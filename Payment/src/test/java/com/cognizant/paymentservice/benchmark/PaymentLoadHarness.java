@@ -0,0 +1,138 @@
+package com.cognizant.paymentservice.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load harness for POST /payment/pay: p50/p99 latency and throughput at a fixed
+ * number of concurrent in-flight payments.
+ *
+ * Run it once against an instance started in each threading mode and compare
+ * the printed lines:
+ *
+ *   platform:  java -jar paymentservice.jar --spring.threads.virtual.enabled=false
+ *   virtual:   java -jar paymentservice.jar --spring.threads.virtual.enabled=true   (Java 21+,
+ *              add -Djdk.tracePinnedThreads=short to log any carrier pinning)
+ *
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.cognizant.paymentservice.benchmark.PaymentLoadHarness \
+ *       -Dload.label=virtual -Dload.concurrency=2000 -Dload.requests=40000
+ *
+ * System properties (defaults in brackets):
+ *   load.url [http://localhost:8086]  load.concurrency [2000]  load.requests [20000]
+ *   load.warmup [2000]  load.users [500]  load.label [run]  load.token [none]
+ *
+ * Wallet payments are used so every request runs the full saga (guarded debit,
+ * transaction + outbox insert). Wallets are topped up before the run.
+ * Each user pays far more often than the velocity limits allow, so start the
+ * instance with --payment.velocity.enabled=false.
+ */
+public class PaymentLoadHarness {
+
+    private static final String URL = System.getProperty("load.url", "http://localhost:8086");
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 2000);
+    private static final int REQUESTS = Integer.getInteger("load.requests", 20_000);
+    private static final int WARMUP = Integer.getInteger("load.warmup", 2_000);
+    private static final int USERS = Integer.getInteger("load.users", 500);
+    private static final String LABEL = System.getProperty("load.label", "run");
+    private static final String TOKEN = System.getProperty("load.token");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    public static void main(String[] args) throws Exception {
+        new PaymentLoadHarness().run();
+    }
+
+    private void run() throws Exception {
+        topUpWallets();
+        fire(WARMUP, "warmup");
+        Result result = fire(REQUESTS, "measure");
+        System.out.printf("%-10s concurrency=%d requests=%d ok=%d errors=%d  throughput=%.0f req/s  "
+                        + "p50=%.1f ms  p99=%.1f ms  max=%.1f ms%n",
+                LABEL, CONCURRENCY, REQUESTS, result.ok, result.errors, result.throughput,
+                result.percentile(50), result.percentile(99), result.percentile(100));
+    }
+
+    // ==================== LOAD ====================
+
+    private Result fire(int count, String phase) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        long[] latencies = new long[count];
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        List<CompletableFuture<?>> pending = new ArrayList<>(count);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            int n = i;
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            pending.add(client.sendAsync(post("/payment/pay", payment(phase, n)), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies[n] = System.nanoTime() - sent;
+                        if (error == null && response.statusCode() == 200) {
+                            ok.incrementAndGet();
+                        } else {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        return new Result(latencies, ok.get(), errors.get(), count / seconds);
+    }
+
+    private void topUpWallets() throws Exception {
+        for (int u = 0; u < USERS; u++) {
+            String body = "{\"userId\":\"" + user(u) + "\",\"amount\":1000000.00,\"method\":\"UPI\",\"upiId\":\"load@upi\"}";
+            HttpResponse<Void> response = client.send(post("/payment/wallet/add", body), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Wallet top-up failed with HTTP " + response.statusCode());
+            }
+        }
+    }
+
+    private String payment(String phase, int n) {
+        return "{\"userId\":\"" + user(n % USERS) + "\",\"amount\":10.00,\"method\":\"WALLET\","
+                + "\"restaurant\":{\"id\":\"load-rest\",\"orderId\":\"" + runId + "-" + phase + "-" + n + "\"}}";
+    }
+
+    private String user(int u) {
+        return "load-" + runId + "-" + u;
+    }
+
+    private HttpRequest post(String path, String json) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(URL + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (TOKEN != null) {
+            builder.header("Authorization", "Bearer " + TOKEN);
+        }
+        return builder.build();
+    }
+
+    private record Result(long[] sortedLatencies, int ok, int errors, double throughput) {
+        double percentile(int p) {
+            int index = Math.min(sortedLatencies.length - 1, (int) Math.ceil(p / 100.0 * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.cognizant.paymentservice.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.model.TransactionStatus;
+import com.cognizant.paymentservice.service.PaymentEventLogger;
+import com.cognizant.paymentservice.service.PaymentService;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging cost of one successful wallet payment: the former banner lines vs one structured event.
+ *
+ * "banner" replays the INFO lines the payment path used to emit per payment
+ * (controller, saga banners, validation, method processing, step completions);
+ * "structured" emits the single payment.completed event, with the step detail
+ * behind isDebugEnabled() as in PaymentService now. Both run at INFO through the
+ * production JSON encoding (LogstashEncoder) into a discarding stream, on the
+ * calling thread so the encoding is part of the measured operation.
+ * Run with -prof gc to compare gc.alloc.rate.norm (bytes per payment):
+ *
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.cognizant.paymentservice.benchmark.PaymentLoggingBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentLoggingBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
+
+    private PaymentEventLogger paymentEvents;
+    private Transaction tx;
+    private Money balance;
+    private String sagaId;
+
+    @Setup
+    public void configureLogging() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        LogstashEncoder encoder = new LogstashEncoder();
+        encoder.setContext(context);
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        ch.qos.logback.classic.Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+
+        paymentEvents = new PaymentEventLogger();
+        tx = new Transaction("order-1042", "user-17", "rest-3", Money.parse("249.50"), "WALLET");
+        tx.setStatus(TransactionStatus.SUCCESS);
+        balance = Money.parse("750.50");
+        sagaId = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public void banner() {
+        String orderId = tx.getOrderId();
+        logger.info("🔄 Received payment request for order: {}", orderId);
+        logger.info("🔄 ╔════════════════════════════════════════╗");
+        logger.info("🔄 ║  SAGA START: {}  ║", sagaId.substring(0, Math.min(28, sagaId.length())));
+        logger.info("🔄 ╚════════════════════════════════════════╝");
+        logger.info("📋 STEP 1: Validating payment request for Order ID: {}", orderId);
+        logger.info("🔍 Validating: userId={}, restaurantId={}, orderId={}", tx.getUserId(), tx.getRestaurantId(), orderId);
+        logger.info("✅ Validation PASSED");
+        logger.info("✅ STEP 1 COMPLETE: Validation passed");
+        logger.info("📝 Transaction {} opened as PENDING", tx.getId());
+        logger.info("💳 Processing payment by method: {}", tx.getMethod());
+        logger.info("💳 Processing {} payment for amount: {}", tx.getMethod().toUpperCase(), tx.getAmount());
+        logger.info("🔄 Processing Wallet payment...");
+        logger.info("✅ Wallet payment processed. New Balance: {}", balance);
+        logger.info("✅ Payment processed successfully");
+        logger.info("✅ Transaction {} committed, order status event released", tx.getId());
+        logger.info("📤 Order status update queued for Order ID: {}", orderId);
+        logger.info("✅ ╔════════════════════════════════════════╗");
+        logger.info("✅ ║  PAYMENT DURABLE - ORDER UPDATE QUEUED ║");
+        logger.info("✅ ╚════════════════════════════════════════╝");
+        logger.info("✅ Payment processed successfully - Saga completed");
+    }
+
+    @Benchmark
+    public void structured() {
+        long start = System.nanoTime();
+        if (logger.isDebugEnabled()) {
+            logger.debug("🔄 Saga {} started for order {}", sagaId, tx.getOrderId());
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("📝 Transaction {} opened as PENDING", tx.getId());
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("💳 {} payment of {} for order {}: {}", tx.getMethod(), tx.getAmount(), tx.getOrderId(), "processed");
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("✅ Transaction {} committed, order status event released", tx.getId());
+        }
+        paymentEvents.paymentCompleted(sagaId, tx, null, start);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PaymentLoggingBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,294 @@
+package com.cognizant.paymentservice.benchmark;
+
+import com.cognizant.paymentservice.client.OrderClient;
+import com.cognizant.paymentservice.dto.OrderResponseDto;
+import com.cognizant.paymentservice.dto.OrderStatusUpdateDto;
+import com.cognizant.paymentservice.dto.OrderStatusUpdateResultDto;
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.PaymentRequest;
+import com.cognizant.paymentservice.model.PaymentResponse;
+import com.cognizant.paymentservice.model.RestaurantInfo;
+import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.model.TransactionStatus;
+import com.cognizant.paymentservice.model.WalletTopUpRequest;
+import com.cognizant.paymentservice.model.WalletTopUpResponse;
+import com.cognizant.paymentservice.repository.TransactionRepository;
+import com.cognizant.paymentservice.repository.WalletRepository;
+import com.cognizant.paymentservice.service.IdempotencyService;
+import com.cognizant.paymentservice.service.InMemoryWalletInvalidationChannel;
+import com.cognizant.paymentservice.service.OrderServiceGateway;
+import com.cognizant.paymentservice.service.OrderStatusOutboxRelay;
+import com.cognizant.paymentservice.service.OrderStatusOutboxService;
+import com.cognizant.paymentservice.service.PaymentAggregateService;
+import com.cognizant.paymentservice.service.PaymentEventLogger;
+import com.cognizant.paymentservice.service.PaymentMetrics;
+import com.cognizant.paymentservice.service.PaymentService;
+import com.cognizant.paymentservice.service.SagaEngine;
+import com.cognizant.paymentservice.service.VelocityCheckService;
+import com.cognizant.paymentservice.service.WalletCacheService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PaymentService end to end against an embedded H2 ledger and an in-process Order Service stub.
+ *
+ * Each benchmark runs in its own fork with a fresh Spring context holding the
+ * payment-path beans (saga engine, outbox, wallet cache, aggregates) and the
+ * DataSource/JPA auto-configuration that the repository tests use:
+ *
+ *   payContended          every thread pays from one wallet (guarded-UPDATE contention on one row)
+ *   payUniform            wallet payments spread over USERS wallets
+ *   payOrderServiceDown   payment, then a relay run against an Order Service that answers 503:
+ *                         the event runs out of attempts and the payment is compensated
+ *   topUpWallet           addMoneyToWallet over USERS wallets
+ *   payAndRefund          wallet payment followed by refundPayment (subtract payUniform for the refund)
+ *
+ * Latency percentiles (SampleTime) are written as JSON for regression tracking, to
+ * target/jmh/payment-service.json unless -Djmh.result says otherwise:
+ *
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.cognizant.paymentservice.benchmark.PaymentServiceBenchmark \
+ *       [-Dexec.args=payUniform]
+ *
+ * H2 numbers are for comparing builds with each other, not for sizing MySQL.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class PaymentServiceBenchmark {
+
+    private static final int USERS = 1000;
+    private static final String HOT_USER = "bench-hot";
+    private static final Money OPENING_BALANCE = Money.parse("100000000.00");
+    private static final Money AMOUNT = Money.parse("10.00");
+
+    // ==================== CONTEXT ====================
+
+    @State(Scope.Benchmark)
+    public static class Payments {
+
+        ConfigurableApplicationContext context;
+        PaymentService paymentService;
+        OrderStatusOutboxRelay relay;
+        final AtomicLong orders = new AtomicLong();
+        final String runId = UUID.randomUUID().toString().substring(0, 8);
+
+        @Setup
+        public void start() {
+            context = new SpringApplicationBuilder(BenchmarkConfig.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(
+                            "spring.cloud.config.enabled=false",
+                            "spring.datasource.url=jdbc:h2:mem:payment-bench;DB_CLOSE_DELAY=-1",
+                            "spring.jpa.hibernate.ddl-auto=create-drop",
+                            "spring.jpa.show-sql=false",
+                            "logging.level.root=WARN",
+                            "logging.level.com.cognizant.paymentservice=ERROR",
+                            "payment.velocity.enabled=false",
+                            "payment.outbox.max-attempts=1")
+                    .run();
+            context.getBean(StubOrderClient.class).down = orderServiceDown();
+            paymentService = context.getBean(PaymentService.class);
+            relay = context.getBean(OrderStatusOutboxRelay.class);
+
+            WalletRepository wallets = context.getBean(WalletRepository.class);
+            wallets.insertWallet(HOT_USER, OPENING_BALANCE, LocalDateTime.now());
+            for (int u = 0; u < USERS; u++) {
+                wallets.insertWallet(user(u), OPENING_BALANCE, LocalDateTime.now());
+            }
+        }
+
+        @TearDown
+        public void stop() {
+            context.close();
+        }
+
+        boolean orderServiceDown() {
+            return false;
+        }
+
+        PaymentRequest walletPayment(String userId) {
+            RestaurantInfo restaurant = new RestaurantInfo();
+            restaurant.setId("bench-rest");
+            restaurant.setOrderId(runId + "-" + orders.incrementAndGet());
+            PaymentRequest request = new PaymentRequest();
+            request.setUserId(userId);
+            request.setRestaurant(restaurant);
+            request.setMethod("WALLET");
+            request.setAmount(AMOUNT);
+            return request;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PaymentsWithOrderServiceDown extends Payments {
+        @Override
+        boolean orderServiceDown() {
+            return true;
+        }
+    }
+
+    // Not a @Configuration: the application's component scan would otherwise pick it up
+    @AutoConfigureDataJpa
+    @EntityScan(basePackageClasses = Transaction.class)
+    @EnableJpaRepositories(basePackageClasses = TransactionRepository.class)
+    @Import({PaymentService.class, OrderStatusOutboxService.class, OrderServiceGateway.class, OrderStatusOutboxRelay.class,
+            PaymentAggregateService.class, IdempotencyService.class, WalletCacheService.class,
+            InMemoryWalletInvalidationChannel.class, SagaEngine.class, PaymentMetrics.class, PaymentEventLogger.class,
+            VelocityCheckService.class})
+    static class BenchmarkConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper().findAndRegisterModules();
+        }
+
+        @Bean(name = "taskExecutor")
+        ThreadPoolTaskExecutor taskExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(16);
+            executor.setMaxPoolSize(16);
+            executor.setQueueCapacity(10_000);
+            executor.setThreadNamePrefix("saga-bench-");
+            return executor;
+        }
+
+        @Bean
+        StubOrderClient orderClient() {
+            return new StubOrderClient();
+        }
+    }
+
+    /**
+     * Order Service that accepts every status update, or answers 503 while down
+     */
+    static class StubOrderClient implements OrderClient {
+
+        volatile boolean down;
+
+        @Override
+        public OrderResponseDto updateOrderStatusByPayment(String orderId, String paymentStatus) {
+            if (down) {
+                Request request = Request.create(Request.HttpMethod.PUT, "http://localhost:8083/api/orders/" + orderId
+                        + "/update-status", new HashMap<>(), null, StandardCharsets.UTF_8, null);
+                throw new FeignException.ServiceUnavailable("Order Service unavailable", request, null, null);
+            }
+            return new OrderResponseDto(null, "SUCCESS".equals(paymentStatus) ? "CONFIRMED" : "CANCELLED", null, null);
+        }
+
+        @Override
+        public List<OrderStatusUpdateResultDto> updateOrderStatusesByPayment(List<OrderStatusUpdateDto> updates) {
+            throw new UnsupportedOperationException("Batch payments are not benchmarked here");
+        }
+    }
+
+    // ==================== SCENARIOS ====================
+
+    @Benchmark
+    public PaymentResponse payContended(Payments payments) {
+        return expectStatus(payments.paymentService.processPayment(payments.walletPayment(HOT_USER)),
+                TransactionStatus.SUCCESS);
+    }
+
+    @Benchmark
+    public PaymentResponse payUniform(Payments payments) {
+        return expectStatus(payments.paymentService.processPayment(payments.walletPayment(randomUser())),
+                TransactionStatus.SUCCESS);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public PaymentResponse payOrderServiceDown(PaymentsWithOrderServiceDown payments) {
+        PaymentResponse response = payments.paymentService.processPayment(payments.walletPayment(randomUser()));
+        payments.relay.drain();  // one attempt is all it gets: compensates the payment, queues FAILED
+        return response;
+    }
+
+    @Benchmark
+    public WalletTopUpResponse topUpWallet(Payments payments) {
+        WalletTopUpRequest request = new WalletTopUpRequest();
+        request.setUserId(randomUser());
+        request.setAmount(AMOUNT);
+        request.setMethod("UPI");
+        request.setUpiId("bench@upi");
+        return payments.paymentService.addMoneyToWallet(request);
+    }
+
+    @Benchmark
+    public PaymentResponse payAndRefund(Payments payments) {
+        PaymentResponse paid = expectStatus(payments.paymentService.processPayment(payments.walletPayment(randomUser())),
+                TransactionStatus.SUCCESS);
+        return expectStatus(payments.paymentService.refundPayment(paid.getTransactionId()), TransactionStatus.REFUNDED);
+    }
+
+    private static PaymentResponse expectStatus(PaymentResponse response, TransactionStatus status) {
+        if (response.getTransaction().getStatus() != status) {
+            throw new IllegalStateException("Expected " + status + " but was " + response.getTransaction().getStatus()
+                    + " (" + response.getTransaction().getFailureReason() + ")");
+        }
+        return response;
+    }
+
+    private static String randomUser() {
+        return user(ThreadLocalRandom.current().nextInt(USERS));
+    }
+
+    private static String user(int u) {
+        return "bench-" + u;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String result = System.getProperty("jmh.result", "target/jmh/payment-service.json");
+        new File(result).getAbsoluteFile().getParentFile().mkdirs();
+        new Runner(new OptionsBuilder()
+                .include(PaymentServiceBenchmark.class.getSimpleName() + (args.length > 0 ? "." + args[0] : ""))
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .build()).run();
+    }
+}
@@ -0,0 +1,41 @@
+package com.cognizant.paymentservice.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Money keeps exact paise and round-trips through JSON as decimal rupees.
+ */
+class MoneyTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void sumsAreExact() {
+        Money total = Money.ZERO;
+        for (int i = 0; i < 10; i++) {
+            total = total.plus(Money.parse("0.10"));
+        }
+        assertEquals(Money.parse("1.00"), total);
+        assertEquals(100, total.paise());
+        assertEquals(new BigDecimal("1.00"), total.toRupees());
+    }
+
+    @Test
+    void jsonUsesDecimalRupees() throws Exception {
+        PaymentRequest request = mapper.readValue("{\"amount\": 250.5}", PaymentRequest.class);
+        assertEquals(25_050, request.getAmount().paise());
+        assertEquals(Money.ofPaise(1_999), mapper.readValue("\"19.99\"", Money.class));
+        assertEquals("250.50", mapper.writeValueAsString(Money.ofPaise(25_050)));
+    }
+
+    @Test
+    void subPaiseAmountsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("10.001"));
+    }
+}
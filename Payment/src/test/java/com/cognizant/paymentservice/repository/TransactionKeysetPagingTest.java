@@ -0,0 +1,104 @@
+package com.cognizant.paymentservice.repository;
+
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.model.TransactionCursor;
+import com.cognizant.paymentservice.model.TransactionPage;
+import com.cognizant.paymentservice.model.TransactionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Keyset pagination over (transactionDate, id).
+ *
+ * Many transactions share a timestamp, so walking the pages must rely on the
+ * id tie-break to return every row exactly once, newest first.
+ */
+@DataJpaTest
+class TransactionKeysetPagingTest {
+
+    private static final int ROWS = 230;
+    private static final int LIMIT = 25;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private List<Transaction> expected;
+
+    @BeforeEach
+    void seed() {
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Transaction tx = new Transaction();
+            tx.setOrderId("order-" + i);
+            tx.setUserId(i % 2 == 0 ? "user-even" : "user-odd");
+            tx.setRestaurantId("rest-1");
+            tx.setAmount(Money.ofPaise(1_000));
+            tx.setMethod("WALLET");
+            tx.setStatus(TransactionStatus.SUCCESS);
+            tx.setTransactionDate(base.minusMinutes(i / 7));  // 7 rows per timestamp
+            rows.add(tx);
+        }
+        transactionRepository.saveAll(rows);
+        expected = transactionRepository.findAll().stream()
+                .filter(t -> t.getUserId().equals("user-even"))
+                .sorted(Comparator.comparing(Transaction::getTransactionDate).thenComparing(t -> t.getId().toString()).reversed())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void pagesCoverEveryRowOnceNewestFirst() {
+        List<UUID> seen = new ArrayList<>();
+        TransactionCursor cursor = TransactionCursor.START;
+        int pages = 0;
+        while (true) {
+            List<Transaction> rows = transactionRepository.findPageByUserIdAfter("user-even",
+                    cursor.getTransactionDate(), cursor.getId(), PageRequest.of(0, LIMIT + 1));
+            TransactionPage page = TransactionPage.of(rows, LIMIT);
+            page.getItems().forEach(t -> seen.add(t.getId()));
+            pages++;
+            if (!page.isHasMore()) {
+                assertNull(page.getNextCursor());
+                break;
+            }
+            cursor = TransactionCursor.decode(page.getNextCursor());
+        }
+
+        assertEquals(expected.stream().map(Transaction::getId).collect(Collectors.toList()), seen);
+        assertEquals((expected.size() + LIMIT - 1) / LIMIT, pages);
+    }
+
+    @Test
+    void streamExportMatchesPagedOrder() {
+        List<UUID> streamed;
+        try (Stream<Transaction> rows = transactionRepository.streamByUserId("user-even")) {
+            streamed = rows.map(Transaction::getId).collect(Collectors.toList());
+        }
+        assertEquals(expected.stream().map(Transaction::getId).collect(Collectors.toList()), streamed);
+    }
+
+    @Test
+    void emptyCursorStartsAtFirstPage() {
+        List<Transaction> rows = transactionRepository.findPageAfter(
+                TransactionCursor.decode(null).getTransactionDate(), TransactionCursor.START.getId(), PageRequest.of(0, 3));
+        assertEquals(3, rows.size());
+        assertFalse(rows.get(0).getTransactionDate().isBefore(rows.get(2).getTransactionDate()));
+    }
+}
@@ -0,0 +1,134 @@
+package com.cognizant.paymentservice.repository;
+
+import com.cognizant.paymentservice.config.TransactionStatusMigration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Query latency before/after splitting transactions.status into enum status + failure_reason.
+ *
+ * Builds a synthetic ledger with legacy composite statuses, times the old
+ * leading-wildcard LIKE queries, runs {@link TransactionStatusMigration}, adds the
+ * composite indexes and times the equality queries that replaced them.
+ * Row count defaults to 200k so it runs with the normal build; pass
+ * -Dbenchmark.rows=10000000 for the full-size comparison.
+ */
+class TransactionStatusQueryBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 200_000);
+    private static final int USERS = 1_000;
+    private static final int RUNS = 50;
+    private static final String[] LEGACY_STATUSES = {
+        "SUCCESS", "SUCCESS", "SUCCESS", "SUCCESS", "SUCCESS", "SUCCESS",
+        "REFUNDED", "FAILED:INSUFFICIENT_BALANCE", "FAILED:MISSING_UPI_ID", "FAILED:COMPENSATED"
+    };
+
+    private static SingleConnectionDataSource dataSource;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void createLedger() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:status_bench;MODE=MySQL", true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE transactions (id UUID PRIMARY KEY, order_id VARCHAR(255), user_id VARCHAR(255), "
+                + "restaurant_id VARCHAR(255), amount DOUBLE, method VARCHAR(255), status VARCHAR(255), "
+                + "failure_reason VARCHAR(64), transaction_date TIMESTAMP)");
+        jdbc.execute("CREATE INDEX idx_user_id ON transactions (user_id)");
+        jdbc.execute("CREATE INDEX idx_status ON transactions (status)");
+
+        LocalDateTime start = LocalDateTime.now().minusDays(365);
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(new Object[] {
+                UUID.randomUUID(), String.valueOf(i), "user-" + (i % USERS), "rest-" + (i % 50),
+                10.0 + (i % 500), "WALLET", LEGACY_STATUSES[i % LEGACY_STATUSES.length],
+                Timestamp.valueOf(start.plusSeconds(i * 30L))
+            });
+            if (batch.size() == 10_000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+    }
+
+    @AfterAll
+    static void dropLedger() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void statusQueriesBeforeAndAfterSplit() {
+        // BEFORE: composite strings, leading-wildcard LIKE
+        long[] before = new long[2];
+        double beforeUserMs = time(() -> before[0] += jdbc.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE user_id = ? AND (status LIKE '%FAILED%' OR status LIKE '%COMPENSATED%')",
+                Long.class, nextUser()));
+        double beforeCompMs = time(() -> before[1] += jdbc.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE status LIKE '%COMPENSATED%'", Long.class));
+
+        // MIGRATION
+        long migrationStart = System.nanoTime();
+        TransactionStatusMigration migration = new TransactionStatusMigration(jdbc);
+        ReflectionTestUtils.setField(migration, "enabled", true);
+        ReflectionTestUtils.setField(migration, "chunkSize", 10_000);
+        migration.afterPropertiesSet();
+        long migrationMs = (System.nanoTime() - migrationStart) / 1_000_000;
+        jdbc.execute("CREATE INDEX idx_user_status_date ON transactions (user_id, status, transaction_date)");
+        jdbc.execute("CREATE INDEX idx_status_date ON transactions (status, transaction_date)");
+
+        // AFTER: enum status, equality / IN on composite indexes
+        long[] after = new long[2];
+        userCursor = 0;
+        double afterUserMs = time(() -> after[0] += jdbc.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE user_id = ? AND status IN ('FAILED', 'COMPENSATED')",
+                Long.class, nextUser()));
+        double afterCompMs = time(() -> after[1] += jdbc.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE status = 'COMPENSATED'", Long.class));
+
+        System.out.printf("status split benchmark, %,d rows (migration %d ms)%n", ROWS, migrationMs);
+        System.out.printf("  failed-by-user   before %.3f ms  after %.3f ms%n", beforeUserMs, afterUserMs);
+        System.out.printf("  compensated      before %.3f ms  after %.3f ms%n", beforeCompMs, afterCompMs);
+
+        assertEquals(before[0], after[0]);
+        assertEquals(before[1], after[1]);
+        assertEquals(0L, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE status LIKE '%:%'", Long.class));
+        assertEquals(ROWS / LEGACY_STATUSES.length, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE failure_reason = 'INSUFFICIENT_BALANCE'", Long.class));
+    }
+
+    // ==================== HELPERS ====================
+
+    private static int userCursor;
+
+    private static String nextUser() {
+        return "user-" + (userCursor++ % USERS);
+    }
+
+    private static double time(Runnable query) {
+        query.run();  // warm-up
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+
+    private static void insert(List<Object[]> batch) {
+        jdbc.batchUpdate("INSERT INTO transactions (id, order_id, user_id, restaurant_id, amount, method, status, transaction_date) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+}
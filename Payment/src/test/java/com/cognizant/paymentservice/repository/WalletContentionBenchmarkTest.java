@@ -0,0 +1,119 @@
+package com.cognizant.paymentservice.repository;
+
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.Wallet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Contention benchmark for the guarded wallet debit/credit statements.
+ *
+ * N threads hammer one wallet with more debits than the balance can cover.
+ * The result must match a sequential baseline: same number of successful
+ * debits, same final balance, and the balance never goes negative.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WalletContentionBenchmarkTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS = 2_000;
+    private static final Money OPENING_BALANCE = Money.ofPaise(100_000);
+    private static final Money DEBIT = Money.ofPaise(100);
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @AfterEach
+    void cleanUp() {
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentDebitsMatchSequentialBaseline() throws Exception {
+        // Sequential baseline
+        walletRepository.insertWallet("seq-user", OPENING_BALANCE, LocalDateTime.now());
+        long seqStart = System.nanoTime();
+        int seqSuccess = 0;
+        for (int i = 0; i < ATTEMPTS; i++) {
+            seqSuccess += walletRepository.debitIfSufficient("seq-user", DEBIT, LocalDateTime.now());
+        }
+        long seqNanos = System.nanoTime() - seqStart;
+        Money seqBalance = walletRepository.findById("seq-user").map(Wallet::getBalance).orElseThrow();
+
+        // Concurrent run against one wallet
+        walletRepository.insertWallet("hot-user", OPENING_BALANCE, LocalDateTime.now());
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                int ok = 0;
+                for (int i = 0; i < ATTEMPTS / THREADS; i++) {
+                    ok += walletRepository.debitIfSufficient("hot-user", DEBIT, LocalDateTime.now());
+                }
+                return ok;
+            }));
+        }
+        long concStart = System.nanoTime();
+        start.countDown();
+        int concSuccess = 0;
+        for (Future<Integer> f : results) {
+            concSuccess += f.get();
+        }
+        long concNanos = System.nanoTime() - concStart;
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        Money concBalance = walletRepository.findById("hot-user").map(Wallet::getBalance).orElseThrow();
+
+        System.out.printf("wallet debit sequential: %d ops in %d ms (%.0f ops/s)%n",
+                ATTEMPTS, seqNanos / 1_000_000, ATTEMPTS / (seqNanos / 1e9));
+        System.out.printf("wallet debit %d threads: %d ops in %d ms (%.0f ops/s)%n",
+                THREADS, ATTEMPTS, concNanos / 1_000_000, ATTEMPTS / (concNanos / 1e9));
+
+        assertEquals(seqSuccess, concSuccess);
+        assertEquals(seqBalance, concBalance);
+        assertEquals(Money.ZERO, concBalance);
+    }
+
+    @Test
+    void concurrentCreditsAreNotLost() throws Exception {
+        walletRepository.insertWallet("credit-user", Money.ZERO, LocalDateTime.now());
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(pool.submit(() -> {
+                int ok = 0;
+                for (int i = 0; i < ATTEMPTS / THREADS; i++) {
+                    ok += walletRepository.credit("credit-user", DEBIT, LocalDateTime.now());
+                }
+                return ok;
+            }));
+        }
+        int credited = 0;
+        for (Future<Integer> f : results) {
+            credited += f.get();
+        }
+        pool.shutdown();
+
+        assertEquals(ATTEMPTS, credited);
+        assertEquals(Money.ofPaise(ATTEMPTS * DEBIT.paise()), walletRepository.findById("credit-user").map(Wallet::getBalance).orElseThrow());
+    }
+}
@@ -0,0 +1,217 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.client.OrderClient;
+import com.cognizant.paymentservice.dto.OrderStatusUpdateDto;
+import com.cognizant.paymentservice.dto.OrderStatusUpdateResultDto;
+import com.cognizant.paymentservice.model.AggregateScope;
+import com.cognizant.paymentservice.model.BatchPaymentResponse;
+import com.cognizant.paymentservice.model.BatchPaymentResult;
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.OutboxStatus;
+import com.cognizant.paymentservice.model.PaymentAggregate;
+import com.cognizant.paymentservice.model.PaymentRequest;
+import com.cognizant.paymentservice.model.RestaurantInfo;
+import com.cognizant.paymentservice.model.TransactionStatus;
+import com.cognizant.paymentservice.repository.OrderStatusOutboxRepository;
+import com.cognizant.paymentservice.repository.PaymentAggregateRepository;
+import com.cognizant.paymentservice.repository.TransactionRepository;
+import com.cognizant.paymentservice.repository.WalletRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Batch payments: one guarded debit per user, all-or-nothing per wallet,
+ * per-item results in request order and a single bulk Order Service call.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=20",
+        "payment.velocity.user.max-count=50"  // each batch item counts as a payment
+})
+@Import({PaymentService.class, OrderStatusOutboxService.class, OrderServiceGateway.class, PaymentAggregateService.class,
+        IdempotencyService.class, WalletCacheService.class, InMemoryWalletInvalidationChannel.class,
+        SagaEngine.class, PaymentMetrics.class, PaymentEventLogger.class, VelocityCheckService.class,
+        BatchPaymentServiceTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BatchPaymentServiceTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean(name = "taskExecutor")
+        Executor taskExecutor() {
+            return Runnable::run;
+        }
+    }
+
+    @MockBean
+    private OrderClient orderClient;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private OrderStatusOutboxRepository outboxRepository;
+
+    @Autowired
+    private PaymentAggregateRepository aggregateRepository;
+
+    @AfterEach
+    void cleanUp() {
+        outboxRepository.deleteAll();
+        aggregateRepository.deleteAll();
+        transactionRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void walletDebitsAreGroupedPerUser() {
+        walletRepository.insertWallet("rich", Money.parse("1000.00"), LocalDateTime.now());
+        walletRepository.insertWallet("poor", Money.parse("150.00"), LocalDateTime.now());
+        when(orderClient.updateOrderStatusesByPayment(anyList())).thenAnswer(inv -> accept(inv.getArgument(0)));
+
+        List<PaymentRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            requests.add(request("rich", "order-r" + i, "WALLET", "20.00"));
+        }
+        requests.add(request("poor", "order-p1", "WALLET", "100.00"));
+        requests.add(request("poor", "order-p2", "WALLET", "100.00"));  // together more than the balance
+        requests.add(request("card-user", "order-c1", "CARD", "75.50"));
+        requests.add(request("rich", null, "WALLET", "10.00"));          // missing order id
+
+        BatchPaymentResponse response = paymentService.processBatch(requests);
+
+        assertEquals(49, response.getTotal());
+        assertEquals(46, response.getSucceeded());
+        assertEquals("DELIVERED", response.getOrderNotification());
+        List<BatchPaymentResult> results = response.getResults();
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        assertEquals("INSUFFICIENT_BALANCE", results.get(45).getFailureReason());
+        assertEquals("INSUFFICIENT_BALANCE", results.get(46).getFailureReason());
+        assertEquals(TransactionStatus.SUCCESS, results.get(47).getStatus());
+        assertEquals("MISSING_ORDER_ID", results.get(48).getFailureReason());
+        assertNull(results.get(48).getTransactionId());
+
+        assertEquals(Money.parse("100.00"), walletRepository.getBalance("rich"));
+        assertEquals(Money.parse("150.00"), walletRepository.getBalance("poor"));
+        assertEquals(48, transactionRepository.count());
+        assertNotNull(transactionRepository.findById(results.get(0).getTransactionId()).orElse(null));
+        assertEquals(900_00, aggregateRepository.findById(new PaymentAggregate.Key(AggregateScope.USER, "rich"))
+                .orElseThrow().getTotalPaise());
+
+        verify(orderClient, times(1)).updateOrderStatusesByPayment(anyList());
+        assertEquals(46, outboxRepository.countByStatus(OutboxStatus.DELIVERED));
+    }
+
+    @Test
+    void velocityLimitsCheckABatchPerUser() {
+        walletRepository.insertWallet("big", Money.parse("100000.00"), LocalDateTime.now());
+        when(orderClient.updateOrderStatusesByPayment(anyList())).thenAnswer(inv -> accept(inv.getArgument(0)));
+
+        // 60000.00 in total is over the default 50000.00 per user, whatever the single amounts
+        BatchPaymentResponse response = paymentService.processBatch(List.of(
+                request("big", "order-b1", "WALLET", "20000.00"),
+                request("big", "order-b2", "WALLET", "20000.00"),
+                request("card-user", "order-c1", "CARD", "75.50"),
+                request("big", "order-b3", "CARD", "20000.00")));
+
+        assertEquals(1, response.getSucceeded());
+        List<BatchPaymentResult> results = response.getResults();
+        for (int i : new int[] {0, 1, 3}) {
+            assertEquals(VelocityCheckService.USER_AMOUNT_EXCEEDED, results.get(i).getFailureReason());
+        }
+        assertEquals(TransactionStatus.SUCCESS, results.get(2).getStatus());
+        assertEquals(Money.parse("100000.00"), walletRepository.getBalance("big"));
+
+        // 51 small payments are over the per-user count of 50, however small their sum
+        List<PaymentRequest> many = new ArrayList<>();
+        for (int i = 0; i < 51; i++) {
+            many.add(request("big", "order-m" + i, "WALLET", "1.00"));
+        }
+        BatchPaymentResponse manyResponse = paymentService.processBatch(many);
+        assertEquals(0, manyResponse.getSucceeded());
+        assertEquals(VelocityCheckService.USER_COUNT_EXCEEDED, manyResponse.getResults().get(50).getFailureReason());
+        assertEquals(Money.parse("100000.00"), walletRepository.getBalance("big"));
+    }
+
+    @Test
+    void failedBulkCallLeavesEventsToTheRelay() {
+        walletRepository.insertWallet("u1", Money.parse("100.00"), LocalDateTime.now());
+        when(orderClient.updateOrderStatusesByPayment(anyList())).thenThrow(new IllegalStateException("order service down"));
+
+        BatchPaymentResponse response = paymentService.processBatch(List.of(
+                request("u1", "order-1", "WALLET", "10.00"),
+                request("u1", "order-2", "UPI", "10.00")));
+
+        assertEquals("QUEUED", response.getOrderNotification());
+        assertEquals(1, response.getSucceeded());  // UPI without upiId is declined
+        assertEquals(1, outboxRepository.countByStatus(OutboxStatus.PENDING));
+        assertEquals(0, outboxRepository.findAll().stream().filter(e -> e.getClaimedBy() != null).count());
+    }
+
+    private static List<OrderStatusUpdateResultDto> accept(List<OrderStatusUpdateDto> updates) {
+        List<OrderStatusUpdateResultDto> results = new ArrayList<>();
+        for (OrderStatusUpdateDto update : updates) {
+            OrderStatusUpdateResultDto result = new OrderStatusUpdateResultDto();
+            result.setOrderId(update.getOrderId());
+            result.setUpdated(true);
+            result.setOrderStatus("CONFIRMED");
+            results.add(result);
+        }
+        return results;
+    }
+
+    private static PaymentRequest request(String userId, String orderId, String method, String amount) {
+        RestaurantInfo restaurant = new RestaurantInfo();
+        restaurant.setId("rest-1");
+        restaurant.setOrderId(orderId);
+        PaymentRequest request = new PaymentRequest();
+        request.setUserId(userId);
+        request.setRestaurant(restaurant);
+        request.setMethod(method);
+        request.setAmount(Money.parse(amount));
+        request.setCardNumber("4111111111111111");
+        request.setCardExpiry("12/30");
+        return request;
+    }
+}
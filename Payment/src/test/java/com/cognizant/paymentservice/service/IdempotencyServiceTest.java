@@ -0,0 +1,111 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.PaymentResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Idempotency-Key deduplication: one payment per key, LRU bound, TTL and hit ratio.
+ */
+class IdempotencyServiceTest {
+
+    @Test
+    void concurrentDuplicatesRunPaymentOnce() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        IdempotencyService service = new IdempotencyService(registry, 100, 60_000);
+        AtomicInteger payments = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<PaymentResponse>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return service.execute("key-1", Optional::empty, () -> {
+                    payments.incrementAndGet();
+                    sleep(50);
+                    return new PaymentResponse();
+                });
+            }));
+        }
+        start.countDown();
+        PaymentResponse first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<PaymentResponse> result : results) {
+            assertSame(first, result.get(5, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        assertEquals(1, payments.get());
+        assertEquals(7.0, registry.get("payment.idempotency.requests").tag("result", "hit").counter().count());
+        assertEquals(7.0 / 8, registry.get("payment.idempotency.cache.hit.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void storedTransactionIsReplayedWithoutPaying() {
+        IdempotencyService service = new IdempotencyService(new SimpleMeterRegistry(), 100, 60_000);
+        PaymentResponse stored = new PaymentResponse();
+
+        PaymentResponse response = service.execute("key-2", () -> Optional.of(stored), () -> {
+            throw new AssertionError("payment must not run");
+        });
+
+        assertSame(stored, response);
+    }
+
+    @Test
+    void leastRecentlyUsedKeysAreEvicted() {
+        IdempotencyService service = new IdempotencyService(new SimpleMeterRegistry(), 2, 60_000);
+        AtomicInteger payments = new AtomicInteger();
+
+        service.execute("a", Optional::empty, () -> count(payments));
+        service.execute("b", Optional::empty, () -> count(payments));
+        service.execute("a", Optional::empty, () -> count(payments));  // touch a
+        service.execute("c", Optional::empty, () -> count(payments));  // evicts b
+
+        assertEquals(2, service.cacheSize());
+        service.execute("a", Optional::empty, () -> count(payments));
+        assertEquals(3, payments.get());
+        service.execute("b", Optional::empty, () -> count(payments));
+        assertEquals(4, payments.get());
+    }
+
+    @Test
+    void expiredEntriesAreLookedUpAgain() throws Exception {
+        IdempotencyService service = new IdempotencyService(new SimpleMeterRegistry(), 100, 20);
+        AtomicInteger payments = new AtomicInteger();
+
+        service.execute("k", Optional::empty, () -> count(payments));
+        Thread.sleep(40);
+        service.execute("k", Optional::empty, () -> count(payments));
+
+        assertEquals(2, payments.get());
+        assertTrue(service.hitRatio() < 1e-9);
+    }
+
+    private static PaymentResponse count(AtomicInteger payments) {
+        payments.incrementAndGet();
+        return new PaymentResponse();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
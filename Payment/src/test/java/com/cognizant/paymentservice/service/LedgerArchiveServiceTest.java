@@ -0,0 +1,293 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.AggregateScope;
+import com.cognizant.paymentservice.model.LedgerArchive;
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.PaymentAggregate;
+import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.model.TransactionPage;
+import com.cognizant.paymentservice.model.TransactionStatus;
+import com.cognizant.paymentservice.repository.LedgerArchiveRepository;
+import com.cognizant.paymentservice.repository.PaymentAggregateRepository;
+import com.cognizant.paymentservice.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Cold months leave the database for archive files, stay queryable by date range,
+ * and keep counting in the aggregates after a rebuild. A month is archived by one
+ * node only, and not at all while its rows change under the archiver.
+ */
+@DataJpaTest(properties = {
+        "payment.ledger.archive.after-months=12",
+        "payment.ledger.archive.block-rows=4"
+})
+@Import({LedgerArchiveService.class, LedgerPartitionService.class, PaymentAggregateService.class,
+        LedgerArchiveServiceTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LedgerArchiveServiceTest {
+
+    @TempDir
+    static Path archiveDir;
+
+    @DynamicPropertySource
+    static void archiveDir(DynamicPropertyRegistry registry) {
+        registry.add("payment.ledger.archive.dir", () -> archiveDir.toString());
+    }
+
+    // Runs once a month's archive file is written, before its rows are removed
+    private static volatile Runnable afterFileWritten = () -> { };
+
+    @TestConfiguration
+    static class Config {
+        @Bean(name = "taskExecutor")
+        Executor taskExecutor() {
+            return Runnable::run;
+        }
+
+        @Bean
+        @Primary
+        TransactionRepository hookedTransactionRepository(@Qualifier("transactionRepository") TransactionRepository real) {
+            TransactionRepository hooked = mock(TransactionRepository.class, delegatesTo(real));
+            doAnswer(inv -> real.streamBetween(inv.getArgument(0), inv.getArgument(1)).onClose(() -> afterFileWritten.run()))
+                    .when(hooked).streamBetween(any(), any());
+            return hooked;
+        }
+    }
+
+    @Autowired
+    private LedgerArchiveService archiveService;
+
+    @Autowired
+    private PaymentAggregateService aggregateService;
+
+    @Autowired
+    @Qualifier("transactionRepository")
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerArchiveRepository archiveRepository;
+
+    @Autowired
+    private PaymentAggregateRepository aggregateRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        afterFileWritten = () -> { };
+        archiveRepository.deleteAll();
+        aggregateRepository.deleteAll();
+        transactionRepository.deleteAll();
+    }
+
+    @Test
+    void coldMonthsMoveToArchiveFilesAndStayQueryable() throws Exception {
+        YearMonth oldest = YearMonth.now().minusMonths(15);
+        YearMonth blocked = YearMonth.now().minusMonths(13);
+        for (int i = 0; i < 10; i++) {
+            save(oldest.atDay(1 + i).atTime(10, 0), "u1", "r" + (i % 2), 100_00 + i, TransactionStatus.SUCCESS, null);
+            save(oldest.plusMonths(1).atDay(1 + i).atTime(11, 30), i % 3 == 0 ? "u1" : "u2", "r1", 50_00,
+                    i == 4 ? TransactionStatus.REFUNDED : TransactionStatus.SUCCESS, i == 0 ? "key-old" : null);
+        }
+        save(blocked.atDay(5).atStartOfDay(), "u1", "r1", 1_00, TransactionStatus.PENDING, null);
+        save(LocalDateTime.now().minusDays(1), "u1", "r0", 20_00, TransactionStatus.SUCCESS, null);
+        PaymentAggregate userBefore = aggregateService.getUserAggregate("u1");
+
+        List<YearMonth> archived = archiveService.archiveColdMonths();
+
+        assertEquals(List.of(oldest, oldest.plusMonths(1)), archived);  // stops at the month with a PENDING payment
+        assertEquals(2, transactionRepository.count());
+        assertTrue(transactionRepository.findByIdempotencyKey("key-old").isEmpty());
+        LedgerArchive catalog = archiveRepository.findById(oldest.toString()).orElseThrow();
+        assertEquals(10, catalog.getRowCount());
+        assertTrue(Files.exists(archiveDir.resolve(catalog.getFileName())));
+
+        // Range reads combine the database with the archive files, newest first
+        List<Transaction> u1 = range(oldest.atDay(1).atStartOfDay(), LocalDateTime.now(), "u1", null);
+        assertEquals(10 + 4 + 1 + 1, u1.size());
+        assertEquals(blocked.atDay(5).atStartOfDay(), u1.get(1).getTransactionDate());
+        assertEquals(oldest.atDay(1).atTime(10, 0), u1.get(u1.size() - 1).getTransactionDate());
+        assertEquals(Money.ofPaise(100_00), u1.get(u1.size() - 1).getAmount());
+        assertEquals("key-old", u1.stream().filter(tx -> "key-old".equals(tx.getIdempotencyKey())).findFirst()
+                .orElseThrow().getIdempotencyKey());
+
+        List<Transaction> r0InFirstWeek = range(oldest.atDay(1).atStartOfDay(),
+                oldest.atDay(7).atTime(23, 59), null, "r0");
+        assertEquals(4, r0InFirstWeek.size());
+
+        // Archived payments still count, also after rebuilding from the (now smaller) ledger
+        aggregateService.rebuild(AggregateScope.USER);
+        aggregateService.rebuild(AggregateScope.RESTAURANT);
+        PaymentAggregate userAfter = aggregateService.getUserAggregate("u1");
+        assertEquals(userBefore.getTxCount(), userAfter.getTxCount());
+        assertEquals(userBefore.getTotalPaise(), userAfter.getTotalPaise());
+        assertEquals(5 * 50_00, aggregateService.getUserAggregate("u2").getTotalPaise());  // one of six refunded
+    }
+
+    @Test
+    void walletTopUpsAreArchivedButNotAggregated() {
+        YearMonth month = YearMonth.now().minusMonths(14);
+        save(month.atDay(3).atTime(9, 0), "u3", "r3", 40_00, TransactionStatus.SUCCESS, null);
+        Transaction topUp = new Transaction("", "u3", "", Money.ofPaise(500_00), "UPI");  // as addMoneyToWallet stores it
+        topUp.setTransactionDate(month.atDay(4).atTime(9, 0));
+        topUp.setStatus(TransactionStatus.SUCCESS);
+        transactionRepository.save(topUp);
+
+        assertTrue(archiveService.archiveColdMonths().contains(month));
+
+        assertEquals(2, archiveRepository.findById(month.toString()).orElseThrow().getRowCount());
+        PaymentAggregate user = aggregateRepository.findById(new PaymentAggregate.Key(AggregateScope.USER, "u3")).orElseThrow();
+        assertEquals(1, user.getTxCount());
+        assertEquals(40_00, user.getTotalPaise());
+        assertEquals(1, user.getArchivedCount());
+        assertTrue(aggregateRepository.findById(new PaymentAggregate.Key(AggregateScope.RESTAURANT, "")).isEmpty());
+    }
+
+    @Test
+    void monthClaimedByAnotherNodeIsLeftToIt() {
+        YearMonth month = YearMonth.now().minusMonths(16);
+        save(month.atDay(2).atTime(9, 0), "u4", "r4", 30_00, TransactionStatus.SUCCESS, null);
+        LedgerArchive claim = new LedgerArchive(month, "transactions-" + month + ".pla", 0, 0);
+        claim.setClaimedBy("other-node");
+        claim.setClaimedUntil(LocalDateTime.now().plusMinutes(30));
+        archiveRepository.save(claim);
+
+        assertTrue(archiveService.archiveColdMonths().isEmpty());
+        assertEquals(1, transactionRepository.count());
+        assertEquals(0, aggregateService.getUserAggregate("u4").getArchivedCount());
+        assertEquals(1, range(month.atDay(1).atStartOfDay(), month.atDay(28).atStartOfDay(),
+                "u4", null).size());  // still read from the database only
+
+        // The other node stopped: its claim expires and the next run takes the month over
+        claim.setClaimedUntil(LocalDateTime.now().minusMinutes(1));
+        archiveRepository.save(claim);
+        assertTrue(archiveService.archiveColdMonths().contains(month));
+        LedgerArchive archived = archiveRepository.findById(month.toString()).orElseThrow();
+        assertNull(archived.getClaimedBy());
+        assertEquals(1, archived.getRowCount());
+        assertEquals(1, aggregateService.getUserAggregate("u4").getArchivedCount());
+        assertEquals(0, transactionRepository.count());
+    }
+
+    @Test
+    void monthChangedWhileArchivingIsLeftForTheNextRun() {
+        YearMonth month = YearMonth.now().minusMonths(17);
+        LocalDateTime paidAt = month.atDay(2).atTime(9, 0);
+        save(paidAt, "u5", "r5", 70_00, TransactionStatus.SUCCESS, null);
+        afterFileWritten = () -> jdbcTemplate.update("UPDATE transactions SET status = 'REFUNDED' WHERE user_id = 'u5'");
+
+        assertTrue(archiveService.archiveColdMonths().isEmpty());
+        assertEquals(1, transactionRepository.count());
+        assertTrue(archiveRepository.findById(month.toString()).isEmpty());
+        assertEquals(0, aggregateService.getUserAggregate("u5").getArchivedCount());
+
+        afterFileWritten = () -> { };
+        assertTrue(archiveService.archiveColdMonths().contains(month));
+        assertEquals(0, transactionRepository.count());
+        List<Transaction> archived = range(paidAt, paidAt, "u5", null);
+        assertEquals(TransactionStatus.REFUNDED, archived.get(0).getStatus());
+        assertEquals(0, aggregateService.getUserAggregate("u5").getArchivedCount());  // refunds are not payments
+    }
+
+    @Test
+    void rangeReadFailsWhenArchiveFileIsMissingOnThisNode() throws Exception {
+        YearMonth month = YearMonth.now().minusMonths(18);
+        save(month.atDay(2).atTime(9, 0), "u6", "r6", 10_00, TransactionStatus.SUCCESS, null);
+        assertTrue(archiveService.archiveColdMonths().contains(month));
+        Files.delete(archiveDir.resolve(archiveRepository.findById(month.toString()).orElseThrow().getFileName()));
+        save(LocalDateTime.now().minusDays(1), "u6", "r6", 20_00, TransactionStatus.SUCCESS, null);
+
+        assertThrows(UncheckedIOException.class,
+                () -> range(month.atDay(1).atStartOfDay(), LocalDateTime.now(), "u6", null));
+    }
+
+    @Test
+    void rangePagesCrossFromTheDatabaseIntoArchivedMonths() {
+        YearMonth older = YearMonth.now().minusMonths(20);
+        YearMonth newer = older.plusMonths(1);
+        for (int i = 0; i < 5; i++) {
+            save(older.atDay(1 + i).atTime(8, 0), "u7", "r7", 1_00 + i, TransactionStatus.SUCCESS, null);
+            save(newer.atDay(1 + i).atTime(8, 0), "u7", "r7", 2_00 + i, TransactionStatus.SUCCESS, null);
+        }
+        assertTrue(archiveService.archiveColdMonths().containsAll(List.of(older, newer)));
+        for (int i = 0; i < 3; i++) {
+            save(LocalDateTime.now().minusDays(1 + i), "u7", "r7", 3_00 + i, TransactionStatus.SUCCESS, null);
+        }
+
+        List<Transaction> all = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionPage page = archiveService.findByDateRange(older.atDay(1).atStartOfDay(), LocalDateTime.now(),
+                    null, "r7", cursor, 4);
+            assertTrue(page.getSize() <= 4);
+            all.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(4, pages);
+        assertEquals(13, all.size());
+        assertEquals(13, all.stream().map(Transaction::getId).distinct().count());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getTransactionDate().isAfter(all.get(i).getTransactionDate()));
+        }
+        assertEquals(Money.ofPaise(1_00), all.get(12).getAmount());
+    }
+
+    private List<Transaction> range(LocalDateTime from, LocalDateTime to, String userId, String restaurantId) {
+        return archiveService.findByDateRange(from, to, userId, restaurantId, null, 500).getItems();
+    }
+
+    private void save(LocalDateTime at, String userId, String restaurantId, long paise,
+                      TransactionStatus status, String idempotencyKey) {
+        Transaction tx = new Transaction("order-" + at, userId, restaurantId, Money.ofPaise(paise), "WALLET");
+        tx.setTransactionDate(at);
+        tx.setStatus(status);
+        tx.setIdempotencyKey(idempotencyKey);
+        new TransactionTemplate(transactionManager).executeWithoutResult(s -> {
+            Transaction saved = transactionRepository.save(tx);
+            if (status == TransactionStatus.SUCCESS) {
+                aggregateService.recordPayment(saved);
+            }
+        });
+    }
+}
@@ -0,0 +1,120 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.client.OrderClient;
+import com.cognizant.paymentservice.dto.OrderResponseDto;
+import feign.Request;
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.springboot3.bulkhead.autoconfigure.BulkheadAutoConfiguration;
+import io.github.resilience4j.springboot3.circuitbreaker.autoconfigure.CircuitBreakerAutoConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * An unreachable Order Service opens the circuit, after which calls fail fast
+ * without reaching OrderClient; calls beyond the bulkhead are turned away.
+ */
+@SpringBootTest(classes = OrderServiceGateway.class, properties = {
+        "resilience4j.circuitbreaker.instances.order-service.slidingWindowSize=4",
+        "resilience4j.circuitbreaker.instances.order-service.minimumNumberOfCalls=4",
+        "resilience4j.circuitbreaker.instances.order-service.waitDurationInOpenState=60s",
+        "resilience4j.circuitbreaker.instances.order-service.recordExceptions=feign.RetryableException",
+        "resilience4j.circuitbreaker.instances.order-service.ignoreExceptions=io.github.resilience4j.bulkhead.BulkheadFullException",
+        "resilience4j.bulkhead.instances.order-service.maxConcurrentCalls=1",
+        "resilience4j.bulkhead.instances.order-service.maxWaitDuration=0"
+})
+@ImportAutoConfiguration({AopAutoConfiguration.class, CircuitBreakerAutoConfiguration.class,
+        BulkheadAutoConfiguration.class})
+class OrderServiceGatewayTest {
+
+    @MockBean
+    private OrderClient orderClient;
+
+    @Autowired
+    private OrderServiceGateway gateway;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @BeforeEach
+    void closeCircuit() {
+        circuitBreakerRegistry.circuitBreaker(OrderServiceGateway.ORDER_SERVICE).reset();
+        reset(orderClient);
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingOrderService() {
+        when(orderClient.updateOrderStatusByPayment(anyString(), anyString())).thenThrow(connectionRefused());
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(RetryableException.class, () -> gateway.updateOrderStatusByPayment("o1", "SUCCESS"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN,
+                circuitBreakerRegistry.circuitBreaker(OrderServiceGateway.ORDER_SERVICE).getState());
+
+        CallNotPermittedException rejected = assertThrows(CallNotPermittedException.class,
+                () -> gateway.updateOrderStatusByPayment("o2", "SUCCESS"));
+        assertTrue(OrderServiceGateway.isRejected(rejected));
+
+        // Averaged so one GC pause or class load on a busy build machine does not decide it
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            assertThrows(CallNotPermittedException.class, () -> gateway.updateOrderStatusByPayment("o3", "SUCCESS"));
+        }
+        long averageMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) / 100;
+
+        assertTrue(averageMicros < 1000, "rejected in " + averageMicros + " us on average");
+        verify(orderClient, times(4)).updateOrderStatusByPayment(anyString(), anyString());
+    }
+
+    @Test
+    void callsBeyondTheBulkheadAreTurnedAway() throws Exception {
+        CountDownLatch inCall = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderClient.updateOrderStatusByPayment(anyString(), anyString())).thenAnswer(invocation -> {
+            inCall.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new OrderResponseDto();
+        });
+
+        CompletableFuture<OrderResponseDto> first = CompletableFuture.supplyAsync(
+                () -> gateway.updateOrderStatusByPayment("o1", "SUCCESS"));
+        assertTrue(inCall.await(5, TimeUnit.SECONDS));
+        assertThrows(BulkheadFullException.class, () -> gateway.updateOrderStatusByPayment("o2", "SUCCESS"));
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        // A full bulkhead says nothing about Order Service's health
+        assertEquals(0, circuitBreakerRegistry.circuitBreaker(OrderServiceGateway.ORDER_SERVICE)
+                .getMetrics().getNumberOfFailedCalls());
+    }
+
+    private static RetryableException connectionRefused() {
+        Request request = Request.create(Request.HttpMethod.PUT, "http://localhost:8083/api/orders/o1/update-status",
+                new HashMap<>(), null, StandardCharsets.UTF_8, null);
+        return new RetryableException(-1, "Connection refused", Request.HttpMethod.PUT, (Long) null, request);
+    }
+}
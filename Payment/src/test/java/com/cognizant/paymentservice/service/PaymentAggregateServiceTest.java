@@ -0,0 +1,174 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.AggregateScope;
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.PaymentAggregate;
+import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.model.TransactionStatus;
+import com.cognizant.paymentservice.repository.PaymentAggregateRepository;
+import com.cognizant.paymentservice.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Incremental aggregates must match a status = SUCCESS scan of the ledger,
+ * both after live updates and after a rebuild from scratch; a cached read never
+ * outlives the commit that evicted it.
+ */
+@DataJpaTest(properties = {
+        "payment.aggregates.rebuild-chunk-size=7",
+        "payment.aggregates.cache.enabled=true"
+})
+@Import({PaymentAggregateService.class, PaymentAggregateServiceTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentAggregateServiceTest {
+
+    private static final int USERS = 40;
+
+    @TestConfiguration
+    static class Config {
+        @Bean(name = "taskExecutor")
+        Executor taskExecutor() {
+            return Executors.newFixedThreadPool(4);
+        }
+    }
+
+    @Autowired
+    private PaymentAggregateService aggregateService;
+
+    @Autowired
+    private PaymentAggregateRepository aggregateRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        aggregateRepository.deleteAll();
+        transactionRepository.deleteAll();
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void liveUpdatesAndRebuildMatchLedger() {
+        TransactionTemplate inTx = new TransactionTemplate(transactionManager);
+        for (int n = 0; n < 300; n++) {
+            int i = n;
+            Transaction tx = inTx.execute(s -> {
+                Transaction saved = transactionRepository.save(payment("user-" + (i % USERS), "rest-" + (i % 6), 500 + (i % 37) * 101L));
+                aggregateService.recordPayment(saved);
+                return saved;
+            });
+            if (i % 5 == 0) {
+                tx.setStatus(TransactionStatus.REFUNDED);
+                inTx.executeWithoutResult(s -> aggregateService.reversePayment(transactionRepository.save(tx)));
+            }
+        }
+        assertMatchesLedger();
+
+        // Drift the table, then rebuild from the ledger
+        aggregateRepository.deleteAll(aggregateRepository.findAll().subList(0, 10));
+        inTx.executeWithoutResult(s -> aggregateRepository.overwrite(AggregateScope.USER, "user-11", 99, 100, 1.0, null, null));
+        assertEquals(USERS, aggregateService.rebuild(AggregateScope.USER));
+        assertEquals(6, aggregateService.rebuild(AggregateScope.RESTAURANT));
+        assertMatchesLedger();
+    }
+
+    @Test
+    void rebuildLeavesOutWalletTopUps() {
+        TransactionTemplate inTx = new TransactionTemplate(transactionManager);
+        inTx.executeWithoutResult(s -> aggregateService.recordPayment(
+                transactionRepository.save(payment("user-1", "rest-1", 250_00))));
+        // Saved as addMoneyToWallet does: no order, no restaurant, no aggregate update
+        Transaction topUp = payment("user-1", "", 1_000_00);
+        topUp.setOrderId("");
+        transactionRepository.save(topUp);
+        PaymentAggregate incremental = aggregateService.getUserAggregate("user-1");
+
+        aggregateService.rebuild(AggregateScope.USER);
+        aggregateService.rebuild(AggregateScope.RESTAURANT);
+
+        PaymentAggregate rebuilt = aggregateService.getUserAggregate("user-1");
+        assertEquals(1, incremental.getTxCount());
+        assertEquals(incremental.getTxCount(), rebuilt.getTxCount());
+        assertEquals(incremental.getTotalPaise(), rebuilt.getTotalPaise());
+        assertEquals(250_00, aggregateService.getRestaurantAggregate("rest-1").getTotalPaise());
+        assertEquals(2, aggregateRepository.count());  // user-1 and rest-1, no restaurant ""
+    }
+
+    @Test
+    void readOverlappingACommitDoesNotCacheTheOlderRow() {
+        TransactionTemplate inTx = new TransactionTemplate(transactionManager);
+        inTx.executeWithoutResult(s -> aggregateService.recordPayment(
+                transactionRepository.save(payment("user-1", "rest-1", 100_00))));
+
+        // The read loads the row, then a payment commits and evicts before the read caches it
+        PaymentAggregate.Key key = new PaymentAggregate.Key(AggregateScope.USER, "user-1");
+        PaymentAggregateRepository racing = mock(PaymentAggregateRepository.class, delegatesTo(aggregateRepository));
+        doAnswer(inv -> {
+            Optional<PaymentAggregate> loaded = aggregateRepository.findById(key);
+            inTx.executeWithoutResult(s -> aggregateService.recordPayment(
+                    transactionRepository.save(payment("user-1", "rest-1", 200_00))));
+            return loaded;
+        }).when(racing).findById(key);
+        ReflectionTestUtils.setField(aggregateService, "aggregateRepository", racing);
+        try {
+            assertEquals(1, aggregateService.getUserAggregate("user-1").getTxCount());
+        } finally {
+            ReflectionTestUtils.setField(aggregateService, "aggregateRepository", aggregateRepository);
+        }
+        assertEquals(2, aggregateService.getUserAggregate("user-1").getTxCount());
+    }
+
+    @SuppressWarnings("deprecation")
+    private void assertMatchesLedger() {
+        for (int u = 0; u < USERS; u++) {
+            String userId = "user-" + u;
+            PaymentAggregate aggregate = aggregateService.getUserAggregate(userId);
+            assertEquals(transactionRepository.countSuccessfulByUserId(userId).longValue(), aggregate.getTxCount(), userId);
+            assertEquals(transactionRepository.sumAmountByUserId(userId).longValue(), aggregate.getTotalPaise(), userId);
+            assertEquals(transactionRepository.averageAmountByUserId(userId) / 100.0, aggregate.getAverageAmount(), 1e-6, userId);
+        }
+        for (int r = 0; r < 6; r++) {
+            String restaurantId = "rest-" + r;
+            assertEquals(transactionRepository.sumAmountByRestaurantId(restaurantId).longValue(),
+                    aggregateService.getRestaurantAggregate(restaurantId).getTotalPaise(), restaurantId);
+        }
+        List<PaymentAggregate> all = aggregateRepository.findAll();
+        assertEquals(USERS + 6, all.size());
+    }
+
+    private static Transaction payment(String userId, String restaurantId, long paise) {
+        Transaction tx = new Transaction();
+        tx.setOrderId("order-" + userId);
+        tx.setUserId(userId);
+        tx.setRestaurantId(restaurantId);
+        tx.setAmount(Money.ofPaise(paise));
+        tx.setMethod("WALLET");
+        tx.setStatus(TransactionStatus.SUCCESS);
+        return tx;
+    }
+}
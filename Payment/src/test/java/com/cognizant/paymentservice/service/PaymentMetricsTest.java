@@ -0,0 +1,62 @@
+package com.cognizant.paymentservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stage meters carry method, outcome and reason tags; sampling thins the timers, never the counters.
+ */
+class PaymentMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void callsAreTaggedByMethodOutcomeAndReason() {
+        PaymentMetrics metrics = new PaymentMetrics(registry, true, 1.0, true, 10000);
+
+        metrics.success(PaymentMetrics.PROCESS, "wallet", metrics.start());
+        metrics.failure(PaymentMetrics.PROCESS, "WALLET", "INSUFFICIENT_BALANCE", metrics.start());
+        metrics.failure(PaymentMetrics.PROCESS, "crypto", "UNKNOWN_METHOD", metrics.start());
+        metrics.failure(PaymentMetrics.ORDER_NOTIFY, null, new IllegalStateException("down"), metrics.start());
+
+        assertEquals(1, calls(PaymentMetrics.PROCESS, "WALLET", "success", "NONE"));
+        assertEquals(1, calls(PaymentMetrics.PROCESS, "WALLET", "failure", "INSUFFICIENT_BALANCE"));
+        assertEquals(1, calls(PaymentMetrics.PROCESS, "OTHER", "failure", "UNKNOWN_METHOD"));
+        assertEquals(1, calls(PaymentMetrics.ORDER_NOTIFY, "NONE", "failure", "IllegalStateException"));
+        Timer timer = registry.find("payment.stage.duration").tags("stage", PaymentMetrics.PROCESS,
+                "method", "WALLET", "outcome", "success").timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    void samplingSkipsTimersButKeepsExactCounts() {
+        PaymentMetrics metrics = new PaymentMetrics(registry, true, 0.1, true, 10000);
+
+        for (int i = 0; i < 10_000; i++) {
+            metrics.success(PaymentMetrics.VALIDATION, "UPI", metrics.start());
+        }
+
+        assertEquals(10_000, calls(PaymentMetrics.VALIDATION, "UPI", "success", "NONE"));
+        long timed = registry.find("payment.stage.duration").tag("stage", PaymentMetrics.VALIDATION).timer().count();
+        assertTrue(timed > 500 && timed < 1500, "about a tenth timed, was " + timed);
+    }
+
+    @Test
+    void sampleRateMustBeAShare() {
+        assertThrows(IllegalArgumentException.class, () -> new PaymentMetrics(registry, true, 1.5, true, 10000));
+    }
+
+    private double calls(String stage, String method, String outcome, String reason) {
+        Counter counter = registry.find("payment.stage.calls")
+                .tags("stage", stage, "method", method, "outcome", outcome, "reason", reason).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,457 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.client.OrderClient;
+import com.cognizant.paymentservice.dto.OrderResponseDto;
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.OrderStatusOutbox;
+import com.cognizant.paymentservice.model.OutboxStatus;
+import com.cognizant.paymentservice.model.PaymentRequest;
+import com.cognizant.paymentservice.model.PaymentResponse;
+import com.cognizant.paymentservice.model.RestaurantInfo;
+import com.cognizant.paymentservice.model.SagaDetails;
+import com.cognizant.paymentservice.model.SagaInstance;
+import com.cognizant.paymentservice.model.SagaStatus;
+import com.cognizant.paymentservice.model.SagaStepLog;
+import com.cognizant.paymentservice.model.SagaStepStatus;
+import com.cognizant.paymentservice.model.TransactionStatus;
+import com.cognizant.paymentservice.repository.OrderStatusOutboxRepository;
+import com.cognizant.paymentservice.repository.PaymentAggregateRepository;
+import com.cognizant.paymentservice.repository.SagaInstanceRepository;
+import com.cognizant.paymentservice.repository.SagaStepLogRepository;
+import com.cognizant.paymentservice.repository.TransactionRepository;
+import com.cognizant.paymentservice.repository.WalletRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Payment saga: step log, parallel steps, compensation of a declined payment,
+ * recovery of a saga whose node stopped (and only once its lease expired), and
+ * end-to-end throughput against an in-process Order Service.
+ */
+@DataJpaTest
+@Import({PaymentService.class, OrderStatusOutboxService.class, OrderServiceGateway.class, OrderStatusOutboxRelay.class,
+        PaymentAggregateService.class, IdempotencyService.class, WalletCacheService.class,
+        InMemoryWalletInvalidationChannel.class, SagaEngine.class, PaymentMetrics.class, PaymentEventLogger.class,
+        VelocityCheckService.class, PaymentSagaTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentSagaTest {
+
+    private static final int THREADS = 16;
+    private static final int PAYMENTS = 800;
+    private static final int USERS = 40;
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean(name = "taskExecutor")
+        ThreadPoolTaskExecutor taskExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(THREADS);
+            executor.setMaxPoolSize(THREADS);
+            executor.setQueueCapacity(10_000);
+            executor.setThreadNamePrefix("saga-test-");
+            return executor;
+        }
+    }
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private SagaEngine sagaEngine;
+
+    @Autowired
+    private OrderStatusOutboxRelay relay;
+
+    @Autowired
+    private OrderStatusOutboxService outboxService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @MockBean
+    private OrderClient orderClient;
+
+    private final Map<String, String> statusByOrder = new ConcurrentHashMap<>();
+    private final AtomicInteger orderCalls = new AtomicInteger();
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private OrderStatusOutboxRepository outboxRepository;
+
+    @Autowired
+    private PaymentAggregateRepository aggregateRepository;
+
+    @Autowired
+    private SagaInstanceRepository sagaInstanceRepository;
+
+    @Autowired
+    private SagaStepLogRepository sagaStepLogRepository;
+
+    @AfterEach
+    void cleanUp() {
+        sagaStepLogRepository.deleteAll();
+        sagaInstanceRepository.deleteAll();
+        outboxRepository.deleteAll();
+        aggregateRepository.deleteAll();
+        transactionRepository.deleteAll();
+        walletRepository.deleteAll();
+        statusByOrder.clear();
+        orderCalls.set(0);
+    }
+
+    /**
+     * In-process Order Service: accepts every status update and counts them per order
+     */
+    @BeforeEach
+    void orderServiceAcceptsUpdates() {
+        when(orderClient.updateOrderStatusByPayment(anyString(), anyString())).thenAnswer(inv -> {
+            String paymentStatus = inv.getArgument(1);
+            orderCalls.incrementAndGet();
+            statusByOrder.put(inv.getArgument(0), paymentStatus);
+            return new OrderResponseDto(null, "SUCCESS".equals(paymentStatus) ? "CONFIRMED" : "CANCELLED", null, null);
+        });
+    }
+
+    @Test
+    void walletPaymentIsLoggedStepByStepAndReleasesTheOrderEvent() {
+        walletRepository.insertWallet("u1", Money.parse("100.00"), LocalDateTime.now());
+
+        PaymentResponse response = paymentService.processPayment(request("u1", "order-1", "WALLET", "30.00"));
+
+        assertEquals(TransactionStatus.SUCCESS, response.getTransaction().getStatus());
+        assertEquals(TransactionStatus.SUCCESS,
+                transactionRepository.findById(response.getTransactionId()).orElseThrow().getStatus());
+        assertEquals(Money.parse("70.00"), walletRepository.getBalance("u1"));
+        SagaDetails saga = sagaEngine.getSaga(response.getSagaId());
+        assertEquals(SagaStatus.COMPLETED, saga.getSaga().getStatus());
+        assertEquals(List.of(SagaStepStatus.SUCCEEDED), saga.getSteps().stream()
+                .map(SagaStepLog::getStatus).distinct().toList());
+        assertEquals(List.of(PaymentService.STEP_OPEN, PaymentService.STEP_DEBIT, PaymentService.STEP_HOLD_ORDER_EVENT,
+                        PaymentService.STEP_COMMIT),
+                saga.getSteps().stream().map(SagaStepLog::getStep).sorted(this::byDeclaration).toList());
+        assertTrue(saga.getSteps().get(0).getOutput().contains(response.getTransactionId().toString()));
+
+        OrderStatusOutbox event = outboxRepository.findAll().get(0);
+        assertEquals(response.getTransactionId(), event.getTransactionId());
+        assertEquals(OutboxStatus.PENDING, event.getStatus());
+        assertNull(event.getClaimedBy());  // released to the relay
+        assertTrue(sagaEngine.getInFlight(10).isEmpty());
+    }
+
+    @Test
+    void declinedPaymentCompensatesTheStepsThatRan() {
+        walletRepository.insertWallet("u2", Money.parse("5.00"), LocalDateTime.now());
+
+        PaymentResponse response = paymentService.processPayment(request("u2", "order-2", "WALLET", "10.00"));
+
+        assertEquals(TransactionStatus.FAILED, response.getTransaction().getStatus());
+        assertEquals("INSUFFICIENT_BALANCE", response.getTransaction().getFailureReason());
+        assertEquals(TransactionStatus.FAILED, transactionRepository.findAll().get(0).getStatus());
+        assertEquals(Money.parse("5.00"), walletRepository.getBalance("u2"));
+        assertEquals(0, outboxRepository.count());  // held event discarded, Order Service never hears of it
+
+        SagaDetails saga = sagaEngine.getSaga(response.getSagaId());
+        assertEquals(SagaStatus.ABORTED, saga.getSaga().getStatus());
+        assertEquals(PaymentService.STEP_DEBIT, saga.getSaga().getFailedStep());
+        Map<String, List<SagaStepStatus>> byStep = saga.getSteps().stream().collect(Collectors.groupingBy(
+                SagaStepLog::getStep, Collectors.mapping(SagaStepLog::getStatus, Collectors.toList())));
+        assertEquals(List.of(SagaStepStatus.FAILED), byStep.get(PaymentService.STEP_DEBIT));
+        assertEquals(List.of(SagaStepStatus.SUCCEEDED, SagaStepStatus.COMPENSATED), byStep.get(PaymentService.STEP_HOLD_ORDER_EVENT));
+        assertEquals(List.of(SagaStepStatus.SUCCEEDED, SagaStepStatus.COMPENSATED), byStep.get(PaymentService.STEP_OPEN));
+        assertNull(byStep.get(PaymentService.STEP_COMMIT));
+    }
+
+    @Test
+    void sagaLeftRunningByAStoppedNodeIsCompensatedFromItsLog() {
+        List<String> compensations = new CopyOnWriteArrayList<>();
+        SagaDefinition definition = SagaDefinition.builder("crash-test")
+                .step("reserve", s -> s.put("reservation", "r-42"), s -> compensations.add("reserve:" + s.get("reservation")))
+                .step("charge", s -> s.put("charge", "c-7"), s -> compensations.add("charge:" + s.get("charge")), "reserve")
+                .step("notify", s -> { }, null, "reserve")
+                .step("confirm", s -> { throw new NodeStopped(); }, null, "charge", "notify")
+                .build();
+        sagaEngine.register(definition);
+        SagaState state = new SagaState("crash-saga-1");
+        state.put("customer", "u3");
+
+        assertThrows(NodeStopped.class, () -> sagaEngine.execute(definition, state));
+        assertEquals(SagaStatus.RUNNING, sagaInstanceRepository.findById("crash-saga-1").orElseThrow().getStatus());
+        assertEquals(1, sagaEngine.getInFlight(10).size());
+        assertEquals(0, sagaEngine.recoverStaleSagas());  // lease still held by the "stopped" node
+
+        expireLease("crash-saga-1");
+        assertEquals(1, sagaEngine.recoverStaleSagas());
+
+        // Compensated latest first, with the values the steps logged before the crash
+        assertEquals(List.of("charge:c-7", "reserve:r-42"), compensations);
+        SagaDetails saga = sagaEngine.getSaga("crash-saga-1");
+        assertEquals(SagaStatus.ABORTED, saga.getSaga().getStatus());
+        assertEquals(3 + 2, saga.getSteps().size());
+        assertTrue(sagaEngine.getInFlight(10).isEmpty());
+    }
+
+    @Test
+    void sagaRenewsItsLeaseBeforeEachWave() throws Exception {
+        ExecutorService otherNode = Executors.newSingleThreadExecutor();
+        try {
+            SagaEngine recovery = otherNodeEngine();
+            SagaDefinition definition = SagaDefinition.builder("renew-test")
+                    .step("open", s -> { }, null)
+                    .step("slow", s -> runOn(otherNode, () -> expireLease("renew-saga-1")), null, "open")
+                    .step("check", s -> assertEquals(0, callOn(otherNode, recovery::recoverStaleSagas)), null, "slow")
+                    .build();
+            sagaEngine.register(definition);
+            recovery.register(definition);
+
+            assertTrue(sagaEngine.execute(definition, new SagaState("renew-saga-1")).isCompleted());
+            assertEquals(SagaStatus.COMPLETED, sagaInstanceRepository.findById("renew-saga-1").orElseThrow().getStatus());
+        } finally {
+            otherNode.shutdownNow();
+        }
+    }
+
+    @Test
+    void sagaTakenOverByRecoveryStopsWithoutOverwritingIt() throws Exception {
+        ExecutorService otherNode = Executors.newSingleThreadExecutor();
+        SagaEngine recovery = otherNodeEngine();
+        List<String> compensations = new CopyOnWriteArrayList<>();
+        try {
+            // The last step outlasts the lease; recovery compensates the saga meanwhile
+            SagaDefinition definition = SagaDefinition.builder("takeover-test")
+                    .step("reserve", s -> { }, s -> compensations.add("reserve"))
+                    .step("slow", s -> {
+                        runOn(otherNode, () -> expireLease("takeover-saga-1"));
+                        assertEquals(1, callOn(otherNode, recovery::recoverStaleSagas));
+                    }, null, "reserve")
+                    .build();
+            sagaEngine.register(definition);
+            recovery.register(definition);
+
+            SagaEngine.Outcome outcome = sagaEngine.execute(definition, new SagaState("takeover-saga-1"));
+            assertEquals(SagaStatus.COMPENSATING, outcome.getStatus());  // left to recovery
+            assertEquals(List.of("reserve"), compensations);
+            SagaDetails saga = sagaEngine.getSaga("takeover-saga-1");
+            assertEquals(SagaStatus.ABORTED, saga.getSaga().getStatus());
+            assertTrue(saga.getSteps().stream().noneMatch(e -> "slow".equals(e.getStep())));
+        } finally {
+            otherNode.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentRefundsCreditTheWalletOnce() throws Exception {
+        walletRepository.insertWallet("u4", Money.parse("100.00"), LocalDateTime.now());
+        PaymentResponse paid = paymentService.processPayment(request("u4", "order-4", "WALLET", "40.00"));
+        assertEquals(Money.parse("60.00"), walletRepository.getBalance("u4"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PaymentResponse>> refunds = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                refunds.add(pool.submit(() -> {
+                    start.await();
+                    return paymentService.refundPayment(paid.getTransactionId());
+                }));
+            }
+            start.countDown();
+            int succeeded = 0;
+            for (Future<PaymentResponse> refund : refunds) {
+                try {
+                    refund.get(30, TimeUnit.SECONDS);
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IllegalArgumentException, e.getCause().toString());
+                }
+            }
+            assertEquals(1, succeeded);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(Money.parse("100.00"), walletRepository.getBalance("u4"));
+        assertEquals(TransactionStatus.REFUNDED,
+                transactionRepository.findById(paid.getTransactionId()).orElseThrow().getStatus());
+        assertEquals(0, aggregateRepository.findAll().stream().mapToLong(a -> a.getTxCount()).sum());
+        assertEquals(1, outboxRepository.findAll().stream().filter(e -> "REFUNDED".equals(e.getPaymentStatus())).count());
+    }
+
+    @Test
+    void manualDeliveryLeavesEventsLeasedByTheRelay() {
+        outboxService.enqueue("order-5", UUID.randomUUID(), "FAILED");
+        assertEquals(1, outboxService.claimDueBatch(10, "relay-run", 60_000).size());
+
+        assertThrows(IllegalStateException.class, () -> outboxService.deliverNow("order-5"));
+        assertEquals(0, orderCalls.get());
+        assertEquals("relay-run", outboxRepository.findAll().get(0).getClaimedBy());
+
+        outboxService.releaseClaims("relay-run");
+        assertEquals("CANCELLED", outboxService.deliverNow("order-5").getOrderStatus());
+        assertEquals(1, orderCalls.get());
+        assertEquals(OutboxStatus.DELIVERED, outboxRepository.findAll().get(0).getStatus());
+        assertNull(outboxService.deliverNow("order-5"));
+    }
+
+    @Test
+    void throughputAgainstInProcessOrderService() throws Exception {
+        for (int u = 0; u < USERS; u++) {
+            walletRepository.insertWallet("tp-" + u, Money.parse("10000.00"), LocalDateTime.now());
+        }
+        ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+        List<Future<PaymentResponse>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < PAYMENTS; i++) {
+            int n = i;
+            String method = n % 4 == 0 ? "CARD" : "WALLET";
+            PaymentRequest request = request("tp-" + (n % USERS), "tp-order-" + n, method, "12.50");
+            request.setCardNumber(String.format("4111%012d", n));  // one card each: within the card velocity limit
+            results.add(clients.submit(() -> paymentService.processPayment(request)));
+        }
+        int succeeded = 0;
+        for (Future<PaymentResponse> result : results) {
+            if (result.get().getTransaction().getStatus() == TransactionStatus.SUCCESS) {
+                succeeded++;
+            }
+        }
+        long sagaNanos = System.nanoTime() - start;
+        clients.shutdown();
+        assertTrue(clients.awaitTermination(10, TimeUnit.SECONDS));
+
+        long drainStart = System.nanoTime();
+        while (outboxRepository.countByStatus(OutboxStatus.PENDING) > 0) {
+            relay.drain();
+        }
+        long drainNanos = System.nanoTime() - drainStart;
+
+        System.out.printf("payment saga %d client threads: %d payments in %d ms (%.0f payments/s)%n",
+                THREADS, PAYMENTS, sagaNanos / 1_000_000, PAYMENTS / (sagaNanos / 1e9));
+        System.out.printf("outbox relay to in-process order service: %d events in %d ms (%.0f events/s)%n",
+                PAYMENTS, drainNanos / 1_000_000, PAYMENTS / (drainNanos / 1e9));
+
+        assertEquals(PAYMENTS, succeeded);
+        assertEquals(PAYMENTS, orderCalls.get());
+        assertEquals(PAYMENTS, statusByOrder.size());
+        assertEquals(PAYMENTS, outboxRepository.countByStatus(OutboxStatus.DELIVERED));
+        assertTrue(sagaEngine.getInFlight(10).isEmpty());
+        long walletPaise = walletRepository.findAll().stream().mapToLong(w -> Money.paiseOf(w.getBalance())).sum();
+        assertEquals(USERS * 10000_00L - 1250L * (PAYMENTS * 3 / 4), walletPaise);  // every 4th payment is by card
+        assertNotNull(sagaEngine.getSaga(results.get(0).get().getSagaId()));
+    }
+
+    private int byDeclaration(String a, String b) {
+        List<String> order = List.of(PaymentService.STEP_OPEN, PaymentService.STEP_DEBIT,
+                PaymentService.STEP_HOLD_ORDER_EVENT, PaymentService.STEP_COMMIT);
+        return Integer.compare(order.indexOf(a), order.indexOf(b));
+    }
+
+    /**
+     * Stands in for the JVM dying mid-saga: an Error is not handled by the engine
+     */
+    private static class NodeStopped extends Error {
+    }
+
+    /**
+     * A second engine with its own node id, as on another instance of the service
+     */
+    private SagaEngine otherNodeEngine() {
+        SagaEngine engine = new SagaEngine(transactionManager);
+        beanFactory.autowireBean(engine);
+        return engine;
+    }
+
+    private void expireLease(String sagaId) {
+        SagaInstance instance = sagaInstanceRepository.findById(sagaId).orElseThrow();
+        instance.setLeaseUntil(LocalDateTime.now().minusSeconds(1));
+        sagaInstanceRepository.save(instance);
+    }
+
+    /**
+     * Run a call on another thread, outside the calling step's transaction
+     */
+    private static <T> T callOn(ExecutorService executor, Callable<T> call) {
+        try {
+            return executor.submit(call).get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void runOn(ExecutorService executor, Runnable call) {
+        callOn(executor, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private static PaymentRequest request(String userId, String orderId, String method, String amount) {
+        RestaurantInfo restaurant = new RestaurantInfo();
+        restaurant.setId("rest-1");
+        restaurant.setOrderId(orderId);
+        PaymentRequest request = new PaymentRequest();
+        request.setUserId(userId);
+        request.setRestaurant(restaurant);
+        request.setMethod(method);
+        request.setAmount(Money.parse(amount));
+        request.setCardNumber("4111111111111111");
+        request.setCardExpiry("12/30");
+        return request;
+    }
+}
@@ -0,0 +1,292 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.client.OrderClient;
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.OrderStatusOutbox;
+import com.cognizant.paymentservice.model.RefundJobProgress;
+import com.cognizant.paymentservice.model.RefundJobRequest;
+import com.cognizant.paymentservice.model.RefundQueueItem;
+import com.cognizant.paymentservice.model.RefundStatus;
+import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.model.TransactionStatus;
+import com.cognizant.paymentservice.repository.OrderStatusOutboxRepository;
+import com.cognizant.paymentservice.repository.PaymentAggregateRepository;
+import com.cognizant.paymentservice.repository.RefundJobRepository;
+import com.cognizant.paymentservice.repository.RefundQueueRepository;
+import com.cognizant.paymentservice.repository.TransactionRepository;
+import com.cognizant.paymentservice.repository.WalletRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bulk refunds: selection and de-duplication across jobs, one wallet credit per
+ * user per batch, aggregates and order events, skipped and failing items,
+ * and a bulk refund racing the single refund and the compensation of the same payment.
+ */
+@DataJpaTest(properties = {
+        "payment.refunds.max-attempts=2",
+        "payment.refunds.worker-interval-ms=3600000"  // the test drives the worker itself
+})
+@Import({RefundQueueService.class, RefundQueueWorker.class, PaymentService.class, OrderStatusOutboxService.class,
+        OrderServiceGateway.class, PaymentAggregateService.class, IdempotencyService.class, WalletCacheService.class,
+        InMemoryWalletInvalidationChannel.class, SagaEngine.class, PaymentMetrics.class, PaymentEventLogger.class,
+        VelocityCheckService.class, RefundQueueServiceTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefundQueueServiceTest {
+
+    private static final int USERS = 3;
+    private static final long BALANCE = 10_000;
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean(name = "taskExecutor")
+        Executor taskExecutor() {
+            return Executors.newFixedThreadPool(2);
+        }
+    }
+
+    @Autowired
+    private RefundQueueService refundQueueService;
+
+    @Autowired
+    private RefundQueueWorker worker;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentAggregateService aggregateService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private OrderClient orderClient;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private OrderStatusOutboxRepository outboxRepository;
+
+    @Autowired
+    private PaymentAggregateRepository aggregateRepository;
+
+    @Autowired
+    private RefundQueueRepository queueRepository;
+
+    @Autowired
+    private RefundJobRepository jobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        queueRepository.deleteAll();
+        jobRepository.deleteAll();
+        outboxRepository.deleteAll();
+        aggregateRepository.deleteAll();
+        transactionRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void refundsEachPaymentOnceWithOneCreditPerWallet() {
+        for (int u = 0; u < USERS; u++) {
+            walletRepository.insertWallet("user-" + u, Money.ofPaise(BALANCE), LocalDateTime.now());
+        }
+        List<Transaction> outage = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            outage.add(pay("user-" + (i % USERS), "rest-1", "order-" + i, 100 + i, "WALLET", TransactionStatus.SUCCESS));
+        }
+        outage.add(pay("user-0", "rest-1", "order-card", 700, "CARD", TransactionStatus.SUCCESS));
+        pay("user-1", "rest-1", "order-declined", 900, "WALLET", TransactionStatus.FAILED);
+        Transaction other = pay("user-2", "rest-2", "order-other", 300, "WALLET", TransactionStatus.SUCCESS);
+
+        RefundJobProgress byRestaurant = refundQueueService.enqueue(RefundJobRequest.forRestaurant(
+                "rest-1", LocalDateTime.now().minusHours(1), LocalDateTime.now().plusHours(1)));
+        assertEquals(13, byRestaurant.getJob().getQueued());
+        assertEquals(0, byRestaurant.getJob().getDuplicates());
+
+        // Three orders are already queued by the restaurant job
+        RefundJobProgress byOrders = refundQueueService.enqueue(RefundJobRequest.forOrders(
+                List.of("order-0", "order-1", "order-2", "order-2", "order-other", "order-declined")));
+        assertEquals(1, byOrders.getJob().getQueued());
+        assertEquals(3, byOrders.getJob().getDuplicates());
+        assertEquals(5, byOrders.getJob().getOrders());
+
+        double creditsBefore = meterRegistry.counter("payment.refunds.wallet.credits").count();
+        assertEquals(14, worker.drain());
+        assertEquals(0, worker.drain());
+
+        // One credit per user, for the sum of that user's wallet payments
+        assertEquals(USERS, meterRegistry.counter("payment.refunds.wallet.credits").count() - creditsBefore);
+        for (int u = 0; u < USERS; u++) {
+            String userId = "user-" + u;
+            long refunded = outage.stream()
+                    .filter(tx -> tx.getUserId().equals(userId) && "WALLET".equals(tx.getMethod()))
+                    .mapToLong(tx -> tx.getAmount().paise())
+                    .sum() + (userId.equals(other.getUserId()) ? other.getAmount().paise() : 0);
+            assertEquals(BALANCE + refunded, walletRepository.findByUserId(userId).orElseThrow().getBalance().paise(), userId);
+        }
+
+        assertEquals(14, transactionRepository.findByStatus(TransactionStatus.REFUNDED).size());
+        assertEquals(0, aggregateService.getRestaurantAggregate("rest-1").getTxCount());
+        assertEquals(0, aggregateService.getRestaurantAggregate("rest-2").getTxCount());
+        List<OrderStatusOutbox> events = outboxRepository.findAll();
+        assertEquals(14, events.size());
+        assertTrue(events.stream().allMatch(e -> "REFUNDED".equals(e.getPaymentStatus())));
+
+        RefundJobProgress progress = refundQueueService.getProgress(byRestaurant.getJob().getId());
+        assertEquals(13, progress.getRefunded());
+        assertTrue(progress.isComplete());
+        assertEquals(100.0, progress.getPercentDone());
+        assertEquals(1, refundQueueService.getProgress(byOrders.getJob().getId()).getRefunded());
+    }
+
+    @Test
+    void skipsRefundedPaymentsAndFailsAfterMaxAttempts() {
+        walletRepository.insertWallet("user-0", Money.ofPaise(BALANCE), LocalDateTime.now());
+        Transaction ok = pay("user-0", "rest-1", "order-ok", 100, "WALLET", TransactionStatus.SUCCESS);
+        Transaction refundedMeanwhile = pay("user-0", "rest-1", "order-refunded", 200, "WALLET", TransactionStatus.SUCCESS);
+        pay("user-gone", "rest-1", "order-gone", 300, "WALLET", TransactionStatus.SUCCESS);
+
+        String jobId = refundQueueService.enqueue(RefundJobRequest.forOrders(
+                List.of("order-ok", "order-refunded", "order-gone"))).getJob().getId();
+        refundedMeanwhile.setStatus(TransactionStatus.REFUNDED);
+        transactionRepository.save(refundedMeanwhile);
+
+        // The missing wallet fails the batch; the others go through item by item
+        assertEquals(1, worker.drain());
+        RefundJobProgress progress = refundQueueService.getProgress(jobId);
+        assertEquals(1, progress.getRefunded());
+        assertEquals(1, progress.getSkipped());
+        assertEquals(1, progress.getPending());
+
+        assertEquals(0, worker.drain());
+        progress = refundQueueService.getProgress(jobId);
+        assertEquals(1, progress.getFailed());
+        assertTrue(progress.isComplete());
+
+        RefundQueueItem failed = queueRepository.findAll().stream()
+                .filter(i -> i.getStatus() == RefundStatus.FAILED).findFirst().orElseThrow();
+        assertEquals(2, failed.getAttempts());
+        assertTrue(failed.getLastError().contains("user-gone"));
+        assertEquals(BALANCE + ok.getAmount().paise(),
+                walletRepository.findByUserId("user-0").orElseThrow().getBalance().paise());
+        assertEquals(TransactionStatus.SUCCESS,
+                transactionRepository.findByOrderId("order-gone").get(0).getStatus());
+    }
+
+    @Test
+    void racingRefundPathsCreditTheWalletOnce() throws Exception {
+        walletRepository.insertWallet("user-0", Money.ofPaise(BALANCE), LocalDateTime.now());
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            for (int round = 0; round < 5; round++) {
+                long before = walletRepository.findByUserId("user-0").orElseThrow().getBalance().paise();
+                Transaction tx = pay("user-0", "rest-1", "order-race-" + round, 500, "WALLET", TransactionStatus.SUCCESS);
+                refundQueueService.enqueue(RefundJobRequest.forOrders(List.of(tx.getOrderId())));
+
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Object>> paths = new ArrayList<>();
+                for (Callable<Object> path : List.<Callable<Object>>of(
+                        worker::drain,
+                        () -> paymentService.refundPayment(tx.getId()),
+                        () -> { paymentService.compensateUndeliveredPayment(tx.getId()); return null; })) {
+                    paths.add(pool.submit(() -> {
+                        start.await();
+                        return path.call();
+                    }));
+                }
+                start.countDown();
+                for (Future<Object> path : paths) {
+                    try {
+                        path.get(30, TimeUnit.SECONDS);
+                    } catch (ExecutionException e) {
+                        // The single refund rejects a payment another path already took
+                        assertTrue(e.getCause() instanceof IllegalArgumentException, e.getCause().toString());
+                    }
+                }
+
+                assertEquals(before + 500, walletRepository.findByUserId("user-0").orElseThrow().getBalance().paise(),
+                        "round " + round);
+                TransactionStatus status = transactionRepository.findById(tx.getId()).orElseThrow().getStatus();
+                assertTrue(status == TransactionStatus.REFUNDED || status == TransactionStatus.COMPENSATED, status.name());
+                RefundStatus item = queueRepository.findAll().stream()
+                        .filter(i -> i.getTransactionId().equals(tx.getId())).findFirst().orElseThrow().getStatus();
+                assertTrue(item == RefundStatus.REFUNDED || item == RefundStatus.SKIPPED, item.name());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, aggregateService.getRestaurantAggregate("rest-1").getTxCount());
+    }
+
+    @Test
+    void rejectsAmbiguousSelections() {
+        LocalDateTime now = LocalDateTime.now();
+        assertThrows(IllegalArgumentException.class, () -> refundQueueService.enqueue(new RefundJobRequest()));
+        assertThrows(IllegalArgumentException.class,
+                () -> refundQueueService.enqueue(RefundJobRequest.forRestaurant("rest-1", now, now)));
+        RefundJobRequest both = RefundJobRequest.forRestaurant("rest-1", now.minusDays(1), now);
+        both.setOrderIds(List.of("order-1"));
+        assertThrows(IllegalArgumentException.class, () -> refundQueueService.enqueue(both));
+    }
+
+    private Transaction pay(String userId, String restaurantId, String orderId, long paise, String method,
+                            TransactionStatus status) {
+        Transaction tx = new Transaction(orderId, userId, restaurantId, Money.ofPaise(paise), method);
+        tx.setStatus(status);
+        return new TransactionTemplate(transactionManager).execute(s -> {
+            Transaction saved = transactionRepository.save(tx);
+            if (status == TransactionStatus.SUCCESS) {
+                aggregateService.recordPayment(saved);
+            }
+            return saved;
+        });
+    }
+}
@@ -0,0 +1,200 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.exception.SettlementInProgressException;
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.SettlementReport;
+import com.cognizant.paymentservice.model.Transaction;
+import com.cognizant.paymentservice.model.TransactionStatus;
+import com.cognizant.paymentservice.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A settlement run interrupted mid-range resumes from its checkpoint and
+ * settles every row exactly once, with the right per-restaurant totals.
+ */
+@DataJpaTest(properties = {
+        "payment.settlement.parallelism=3",
+        "payment.settlement.chunk-rows=5",
+        "payment.settlement.block-rows=3",
+        "payment.settlement.checkpoint-every-chunks=2"
+})
+@Import({SettlementService.class, SettlementServiceTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SettlementServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 10);
+
+    @TempDir
+    static Path settlementDir;
+
+    @DynamicPropertySource
+    static void settlementDir(DynamicPropertyRegistry registry) {
+        registry.add("payment.settlement.dir", () -> settlementDir.toString());
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper().findAndRegisterModules();
+        }
+    }
+
+    @Autowired
+    private SettlementService settlementService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll();
+    }
+
+    @Test
+    void interruptedRunResumesFromCheckpoint() throws Exception {
+        // 53 rows over two days, all at the same time of day so ties are broken by ID
+        for (int i = 0; i < 53; i++) {
+            TransactionStatus status = i % 10 == 3 ? TransactionStatus.REFUNDED
+                    : i % 10 == 7 ? TransactionStatus.FAILED : TransactionStatus.SUCCESS;
+            save(DAY.plusDays(i % 2).atTime(12, 0), "r" + (i % 5), 100_00 + i, status);
+        }
+        save(DAY.minusDays(1).atTime(23, 59), "r0", 1_00, TransactionStatus.SUCCESS);  // outside the range
+        save(DAY.plusDays(2).atStartOfDay(), "r0", 1_00, TransactionStatus.SUCCESS);
+
+        assertNull(settlementService.settle(DAY, DAY.plusDays(1), 5));  // checkpoint after 4 chunks, stop after 5
+        Path runDir = settlementDir.resolve("settlement-2024-05-10_2024-05-11");
+        assertTrue(Files.exists(runDir.resolve(SettlementService.CHECKPOINT_FILE)));
+
+        SettlementReport report = settlementService.settle(DAY, DAY.plusDays(1));
+
+        assertEquals(20, report.getResumedAtRow());
+        assertEquals(53, report.getRows());
+        assertEquals(5, report.getRestaurants());
+        long expectedPayout = 0;
+        for (int i = 0; i < 53; i++) {
+            expectedPayout += i % 10 == 3 || i % 10 == 7 ? 0 : 100_00 + i;
+        }
+        assertEquals(expectedPayout, report.getPayoutPaise());
+        assertTrue(Files.notExists(runDir.resolve(SettlementService.CHECKPOINT_FILE)));
+
+        // Detail files hold every settled row exactly once
+        Set<UUID> ids = new HashSet<>();
+        int[] rows = new int[1];
+        for (String file : report.getDetailFiles()) {
+            LedgerArchiveFormat.read(runDir.resolve(file), null, null, null, null, tx -> {
+                rows[0]++;
+                ids.add(tx.getId());
+            });
+        }
+        assertEquals(53, rows[0]);
+        assertEquals(53, ids.size());
+
+        // r3: i = 3, 8, ..., 48; the odd ones (3, 13, 23, 33, 43) are refunded
+        List<String> summary = Files.readAllLines(runDir.resolve(SettlementService.SUMMARY_FILE));
+        assertEquals(6, summary.size());
+        String[] r3 = summary.get(4).split(",");
+        assertEquals("r3", r3[0]);
+        assertEquals("5", r3[1]);
+        assertEquals(Money.ofPaise(5 * 100_00 + 8 + 18 + 28 + 38 + 48).toString(), r3[9]);
+        assertEquals("5", r3[3]);
+        assertEquals(DAY.atTime(12, 0).toString(), r3[10]);
+        assertEquals(DAY.plusDays(1).atTime(12, 0).toString(), r3[11]);
+
+        // A settled range is not settled again
+        SettlementReport again = settlementService.settle(DAY, DAY.plusDays(1));
+        assertEquals(report.getDurationMs(), again.getDurationMs());
+        assertEquals(20, again.getResumedAtRow());
+        assertEquals(runDir.resolve(SettlementService.SUMMARY_FILE), settlementService.getSummaryFile(report.getRunId()));
+        assertThrows(IllegalArgumentException.class, () -> settlementService.getSummaryFile("../config"));
+    }
+
+    @Test
+    void walletTopUpsAreNotSettled() throws Exception {
+        LocalDate day = DAY.plusDays(30);
+        save(day.atTime(9, 0), "r1", 250_00, TransactionStatus.SUCCESS);
+        Transaction topUp = new Transaction("", "u1", "", Money.ofPaise(1_000_00), "UPI");  // as addMoneyToWallet stores it
+        topUp.setTransactionDate(day.atTime(10, 0));
+        topUp.setStatus(TransactionStatus.SUCCESS);
+        transactionRepository.save(topUp);
+
+        SettlementReport report = settlementService.settle(day, day);
+
+        assertEquals(2, report.getRows());
+        assertEquals(1, report.getRestaurants());
+        assertEquals(250_00, report.getPayoutPaise());
+    }
+
+    @Test
+    void rangeIncludingTodayIsSettledAgain() {
+        LocalDate today = LocalDate.now();
+        save(today.atStartOfDay(), "r1", 10_00, TransactionStatus.SUCCESS);
+        assertEquals(10_00, settlementService.settle(today, today).getPayoutPaise());
+
+        save(today.atStartOfDay().plusSeconds(1), "r1", 5_00, TransactionStatus.SUCCESS);
+        SettlementReport again = settlementService.settle(today, today);
+
+        assertEquals(2, again.getRows());
+        assertEquals(15_00, again.getPayoutPaise());
+    }
+
+    @Test
+    void requestDuringARunFailsInsteadOfWaiting() throws Exception {
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> run = CompletableFuture.runAsync(() -> {
+            settlementService.runLock.lock();  // stands in for a run in progress
+            try {
+                held.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                settlementService.runLock.unlock();
+            }
+        });
+        held.await();
+        try {
+            assertThrows(SettlementInProgressException.class, () -> settlementService.settle(DAY, DAY));
+        } finally {
+            release.countDown();
+            run.get();
+        }
+        assertEquals(0, settlementService.settle(DAY.minusDays(40), DAY.minusDays(40)).getRows());
+    }
+
+    private void save(LocalDateTime at, String restaurantId, long paise, TransactionStatus status) {
+        Transaction tx = new Transaction("order-" + UUID.randomUUID(), "u1", restaurantId, Money.ofPaise(paise), "UPI");
+        tx.setTransactionDate(at);
+        tx.setStatus(status);
+        transactionRepository.save(tx);
+    }
+}
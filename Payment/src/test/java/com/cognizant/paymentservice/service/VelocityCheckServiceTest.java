@@ -0,0 +1,130 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.PaymentRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Count and amount limits per user and per card fingerprint, batch items counted
+ * one by one against them, rejection meters, and a window that forgets payments once they slide out of it.
+ */
+class VelocityCheckServiceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void userCountAndAmountLimits() {
+        VelocityCheckService velocity = service(3, "100.00", 0, "0");
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(velocity.admit(request("u1", "UPI", null, "10.00")));
+        }
+        assertEquals(VelocityCheckService.USER_COUNT_EXCEEDED, velocity.admit(request("u1", "UPI", null, "10.00")));
+        assertNull(velocity.admit(request("u2", "UPI", null, "90.00")));
+        assertEquals(VelocityCheckService.USER_AMOUNT_EXCEEDED, velocity.admit(request("u2", "UPI", null, "10.01")));
+        assertNull(velocity.admit(request("u2", "UPI", null, "10.00")));  // rejected payments are not counted
+
+        assertEquals(1, rejections("user", "count"));
+        assertEquals(1, rejections("user", "amount"));
+        assertEquals(2, registry.get("payment.velocity.keys").tag("scope", "user").gauge().value());
+    }
+
+    @Test
+    void cardLimitSpansUsers() {
+        VelocityCheckService velocity = service(0, "0", 2, "0");
+
+        assertNull(velocity.admit(request("u1", "CARD", "4111 1111 1111 1111", "10.00")));
+        assertNull(velocity.admit(request("u2", "card", "4111-1111-1111-1111", "10.00")));
+        assertEquals(VelocityCheckService.CARD_COUNT_EXCEEDED,
+                velocity.admit(request("u3", "CARD", "4111111111111111", "10.00")));
+        assertNull(velocity.admit(request("u3", "CARD", "5500000000000004", "10.00")));
+        assertNull(velocity.admit(request("u3", "UPI", "4111111111111111", "10.00")));  // not a card payment
+
+        assertEquals(1, rejections("card", "count"));
+        assertEquals(2, registry.get("payment.velocity.keys").tag("scope", "card").gauge().value());
+    }
+
+    @Test
+    void batchCountsEachItemAgainstUserAndCard() {
+        VelocityCheckService velocity = service(6, "100.00", 4, "50.00");
+
+        List<PaymentRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            batch.add(request("u1", "CARD", "4111111111111111", "6.00"));
+        }
+        assertEquals(VelocityCheckService.CARD_COUNT_EXCEEDED, velocity.admitBatch("u1", batch));  // 5 on one card
+        batch.remove(4);
+        assertNull(velocity.admitBatch("u1", batch));                         // 4 payments of 24.00 in total
+        assertEquals(VelocityCheckService.CARD_COUNT_EXCEEDED,
+                velocity.admitBatch("u1", List.of(request("u1", "CARD", "4111111111111111", "1.00"))));
+        assertEquals(VelocityCheckService.USER_COUNT_EXCEEDED, velocity.admitBatch("u1", List.of(
+                request("u1", "UPI", null, "1.00"), request("u1", "UPI", null, "1.00"), request("u1", "UPI", null, "1.00"))));
+        assertNull(velocity.admitBatch("u1", List.of(
+                request("u1", "UPI", null, "1.00"), request("u1", "UPI", null, "1.00"))));  // the rejected batch was not counted
+        assertEquals(VelocityCheckService.USER_COUNT_EXCEEDED, velocity.admit(request("u1", "UPI", null, "1.00")));
+    }
+
+    @Test
+    void batchChecksAmountLimitsForItsTotal() {
+        VelocityCheckService velocity = service(0, "100.00", 0, "50.00");
+
+        assertEquals(VelocityCheckService.CARD_AMOUNT_EXCEEDED, velocity.admitBatch("u1", List.of(
+                request("u1", "CARD", "4111111111111111", "30.00"), request("u1", "CARD", "4111111111111111", "30.00"))));
+        assertNull(velocity.admitBatch("u1", List.of(
+                request("u1", "CARD", "4111111111111111", "30.00"), request("u1", "UPI", null, "60.00"))));
+        assertEquals(VelocityCheckService.USER_AMOUNT_EXCEEDED, velocity.admit(request("u1", "UPI", null, "10.01")));
+    }
+
+    @Test
+    void disabledAdmitsEverything() {
+        VelocityCheckService velocity = new VelocityCheckService(registry, false, 60, 12, 1, "1.00", 1, "1.00", 100);
+
+        for (int i = 0; i < 5; i++) {
+            assertNull(velocity.admit(request("u1", "CARD", "4111111111111111", "10.00")));
+        }
+    }
+
+    @Test
+    void windowSlidesInWholeBuckets() {
+        long bucket = TimeUnit.SECONDS.toNanos(5);
+        SlidingWindowCounter counter = new SlidingWindowCounter(12, bucket);  // one minute
+
+        counter.add(0, 100);
+        counter.add(bucket * 3, 50);
+        assertEquals(2, counter.count(bucket * 11));
+        assertEquals(150, counter.sum(bucket * 11));
+        assertEquals(1, counter.count(bucket * 12));   // the first bucket has slid out
+        assertEquals(50, counter.sum(bucket * 12));
+
+        counter.add(bucket * 12, 7);                   // recycles the first bucket's slot
+        assertEquals(2, counter.count(bucket * 12));
+        assertEquals(57, counter.sum(bucket * 12));
+        assertEquals(0, counter.count(bucket * 100));
+    }
+
+    private VelocityCheckService service(long userMaxCount, String userMaxAmount, long cardMaxCount, String cardMaxAmount) {
+        return new VelocityCheckService(registry, true, 60, 12, userMaxCount, userMaxAmount,
+                cardMaxCount, cardMaxAmount, 1000);
+    }
+
+    private double rejections(String scope, String limit) {
+        return registry.get("payment.velocity.rejections").tags("scope", scope, "limit", limit).counter().count();
+    }
+
+    private static PaymentRequest request(String userId, String method, String cardNumber, String amount) {
+        PaymentRequest request = new PaymentRequest();
+        request.setUserId(userId);
+        request.setMethod(method);
+        request.setCardNumber(cardNumber);
+        request.setAmount(Money.parse(amount));
+        return request;
+    }
+}
@@ -0,0 +1,96 @@
+package com.cognizant.paymentservice.service;
+
+import com.cognizant.paymentservice.model.Money;
+import com.cognizant.paymentservice.model.Wallet;
+import com.cognizant.paymentservice.repository.WalletRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Wallet snapshots are served from the cache, written through on balance updates,
+ * never authorize a debit on their own and are invalidated across nodes.
+ */
+@DataJpaTest
+@Import({WalletCacheService.class, InMemoryWalletInvalidationChannel.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WalletCacheServiceTest {
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private InMemoryWalletInvalidationChannel channel;
+
+    @Autowired
+    private WalletCacheService nodeA;
+
+    private WalletCacheService nodeB;
+
+    @BeforeEach
+    void secondNode() {
+        nodeB = new WalletCacheService(walletRepository, channel, true, 100, 60_000);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        walletRepository.deleteAll();
+        nodeA.evict("u1");
+    }
+
+    @Test
+    void readsAreServedFromTheCacheAndWritesGoThrough() {
+        walletRepository.insertWallet("u1", Money.parse("100.00"), LocalDateTime.now());
+        assertEquals(Money.parse("100.00"), nodeA.find("u1").orElseThrow().getBalance());
+
+        walletRepository.deleteAll();  // cached snapshot survives a change behind the cache's back
+        assertEquals(Money.parse("100.00"), nodeA.find("u1").orElseThrow().getBalance());
+
+        walletRepository.insertWallet("u1", Money.parse("100.00"), LocalDateTime.now());
+        Wallet debited = nodeA.debit("u1", Money.parse("30.00"));
+        assertNotNull(debited);
+        assertEquals(Money.parse("70.00"), debited.getBalance());
+        assertEquals(Money.parse("70.00"), walletRepository.getBalance("u1"));
+        assertEquals(Money.parse("70.00"), nodeA.find("u1").orElseThrow().getBalance());
+        assertEquals(Money.parse("95.50"), nodeA.credit("u1", Money.parse("25.50")).getBalance());
+        assertEquals(Money.parse("95.50"), walletRepository.getBalance("u1"));
+    }
+
+    @Test
+    void staleSnapshotCannotAuthorizeAnOverdraft() {
+        walletRepository.insertWallet("u1", Money.parse("100.00"), LocalDateTime.now());
+        nodeA.find("u1");
+        walletRepository.debitIfSufficient("u1", Money.parse("90.00"), LocalDateTime.now());  // not seen by the cache
+
+        assertNull(nodeA.debit("u1", Money.parse("50.00")));
+        assertEquals(Money.parse("10.00"), walletRepository.getBalance("u1"));
+        assertEquals(Money.parse("10.00"), nodeA.find("u1").orElseThrow().getBalance());  // refreshed by the decline
+
+        assertEquals(Money.parse("5.00"), nodeA.debit("u1", Money.parse("5.00")).getBalance());
+    }
+
+    @Test
+    void changesOnOneNodeInvalidateTheOther() {
+        walletRepository.insertWallet("u1", Money.parse("100.00"), LocalDateTime.now());
+        nodeA.find("u1");
+        nodeB.find("u1");
+
+        nodeA.debit("u1", Money.parse("40.00"));
+
+        assertEquals(0, nodeB.cacheSize());
+        assertEquals(Money.parse("60.00"), nodeB.find("u1").orElseThrow().getBalance());
+        assertEquals(Money.parse("80.00"), nodeB.credit("u1", Money.parse("20.00")).getBalance());
+        assertEquals(Money.parse("80.00"), nodeA.find("u1").orElseThrow().getBalance());
+    }
+}
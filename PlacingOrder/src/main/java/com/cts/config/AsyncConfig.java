@@ -0,0 +1,41 @@
+package com.cts.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+import com.notificationservice.service.RestaurantClient;
+
+/**
+ * Executor and clients for the downstream lookups of order placement
+ */
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Runs the cart and restaurant lookups of addOrders side by side.
+     * The caller's SecurityContext is carried over, so FeignClientInterceptor
+     * still forwards the JWT from the lookup threads.
+     */
+    @Bean(name = "orderLookupExecutor")
+    public ThreadPoolTaskExecutor orderLookupExecutor(@Value("${orders.lookup.threads:32}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("order-lookup-");
+        executor.setTaskDecorator(DelegatingSecurityContextRunnable::new);
+        return executor;
+    }
+
+    /**
+     * RestaurantClient lives in notification-service's package, outside this
+     * application's component scan, so it is registered here
+     */
+    @Bean
+    public RestaurantClient restaurantClient() {
+        return new RestaurantClient();
+    }
+}
@@ -1,7 +1,10 @@
 package com.cts.controller;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -17,7 +20,11 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.cts.dtos.NotificationDto;
+import com.cts.dtos.OrderFilter;
 import com.cts.dtos.OrderItemDto;
+import com.cts.dtos.OrderPage;
+import com.cts.dtos.OrderStatusUpdateRequest;
+import com.cts.dtos.OrderStatusUpdateResult;
 import com.cts.dtos.OrdersDto;
 import com.cts.entities.OrdersRequest;
 import com.cts.service.OrderService;
@@ -37,16 +44,35 @@ public class OrderController {
     // ==================== QUERY ENDPOINTS ====================
     
     /**
-     * GET /api/orders
-     * Retrieve all orders
+     * GET /api/orders?customerId=&restaurantId=&status=&createdFrom=&createdTo=&cursor=&limit=&expand=items
+     * 
+     * Keyset-paginated listing, newest order first. Filters are optional and combine with AND;
+     * created-at bounds are ISO date-times, createdFrom inclusive and createdTo exclusive.
+     * - cursor: nextCursor from the previous page; omit for the first page
+     * - limit: page size (default 50, capped at orders.query.max-page-size)
+     * - expand=items: include each order's items (omitted otherwise)
+     * The response carries items, size, hasMore and nextCursor.
      */
     @PreAuthorize("hasRole('VENDOR')")
     @GetMapping
-    public ResponseEntity<List<OrdersDto>> getAllOrders() {
-        logger.info("📋 Fetching all orders");
-        List<OrdersDto> list = orderService.getAllOrders();
-        logger.info("✅ Retrieved {} orders", list.size());
-        return ResponseEntity.ok(list);
+    public ResponseEntity<?> getOrders(
+            @RequestParam(required = false) Integer customerId,
+            @RequestParam(required = false) Integer restaurantId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String expand) {
+        try {
+            OrderFilter filter = OrderFilter.of(customerId, restaurantId, status, createdFrom, createdTo);
+            OrderPage page = orderService.getOrderPage(filter, cursor, limit, "items".equalsIgnoreCase(expand));
+            logger.info("✅ Retrieved {} orders, hasMore: {}", page.getSize(), page.isHasMore());
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException ex) {
+            logger.warn("❌ Invalid order listing request: {}", ex.getMessage());
+            return ResponseEntity.badRequest().body(createErrorResponse("VALIDATION_ERROR", ex.getMessage()));
+        }
     }
     
     /**
@@ -114,7 +140,7 @@ public class OrderController {
      *   "updatedAt": "2025-11-19T13:50:00.000000"
      * }
      */
-    @PreAuthorize("hasRole('CUSTOMER')")
+    @PreAuthorize("hasAnyRole('CUSTOMER','SERVICE')")  // SERVICE: Payment Service outbox
     @PutMapping("/{orderId}/update-status")
     public ResponseEntity<?> updateOrderStatusByPayment(
             @PathVariable("orderId") Long orderId,
@@ -173,6 +199,48 @@ public class OrderController {
         }
     }
 
+    /**
+     * PUT /api/orders/update-status/batch
+     * 
+     * Bulk variant of the saga callback, used by Payment Service batch payments.
+     * Each entry is applied in its own transaction with the same status mapping
+     * as the single endpoint; one bad entry does not fail the others.
+     * 
+     * @param updates Order ID and payment status per order
+     * @return One result per entry, in request order
+     */
+    @PreAuthorize("hasAnyRole('CUSTOMER','SERVICE')")  // SERVICE: Payment Service outbox
+    @PutMapping("/update-status/batch")
+    public ResponseEntity<List<OrderStatusUpdateResult>> updateOrderStatusesByPayment(
+            @RequestBody List<OrderStatusUpdateRequest> updates) {
+        
+        logger.info("🔔 Bulk SAGA CALLBACK from Payment Service: {} orders", updates.size());
+        
+        List<OrderStatusUpdateResult> results = new ArrayList<>(updates.size());
+        for (OrderStatusUpdateRequest update : updates) {
+            Long orderId = update.getOrderId();
+            String paymentStatus = update.getPaymentStatus() == null ? "" : update.getPaymentStatus().trim().toUpperCase();
+            
+            if (orderId == null || !isValidPaymentStatus(paymentStatus)) {
+                results.add(OrderStatusUpdateResult.failed(orderId, "INVALID_STATUS"));
+                continue;
+            }
+            try {
+                OrdersDto updated = orderService.updateOrderStatusByPayment(orderId, paymentStatus);
+                results.add(OrderStatusUpdateResult.updated(orderId, updated.getOrderStatus()));
+            } catch (IllegalArgumentException ex) {
+                results.add(OrderStatusUpdateResult.failed(orderId, "NOT_FOUND"));
+            } catch (Exception ex) {
+                logger.error("❌ Error updating order {} in bulk: {}", orderId, ex.getMessage());
+                results.add(OrderStatusUpdateResult.failed(orderId, ex.getMessage()));
+            }
+        }
+        
+        logger.info("✅ Bulk update done: {}/{} orders updated",
+                results.stream().filter(OrderStatusUpdateResult::isUpdated).count(), updates.size());
+        return ResponseEntity.ok(results);
+    }
+
     
     // ==================== LEGACY/MANUAL ENDPOINT ====================
     
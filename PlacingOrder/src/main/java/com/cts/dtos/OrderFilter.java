@@ -0,0 +1,68 @@
+package com.cts.dtos;
+
+import java.time.LocalDateTime;
+
+import com.cts.entities.OrderStatus;
+
+/**
+ * Criteria for the order listing. Every criterion is optional and they combine with AND;
+ * the created-at range is [createdFrom, createdTo).
+ */
+public class OrderFilter {
+
+    private Integer customerId;
+    private Integer restaurantId;
+    private OrderStatus status;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+
+    public static OrderFilter all() {
+        return new OrderFilter();
+    }
+
+    /**
+     * Build a filter from optional request parameters
+     *
+     * @throws IllegalArgumentException if the status is unknown or the range is empty
+     */
+    public static OrderFilter of(Integer customerId, Integer restaurantId, String status,
+                                 LocalDateTime createdFrom, LocalDateTime createdTo) {
+        OrderFilter filter = new OrderFilter();
+        filter.customerId = customerId;
+        filter.restaurantId = restaurantId;
+        if (status != null && !status.isBlank()) {
+            try {
+                filter.status = OrderStatus.valueOf(status.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown order status: " + status);
+            }
+        }
+        if (createdFrom != null && createdTo != null && !createdFrom.isBefore(createdTo)) {
+            throw new IllegalArgumentException("createdFrom must be before createdTo");
+        }
+        filter.createdFrom = createdFrom;
+        filter.createdTo = createdTo;
+        return filter;
+    }
+
+    public Integer getCustomerId() { return customerId; }
+
+    public Integer getRestaurantId() { return restaurantId; }
+
+    public OrderStatus getStatus() { return status; }
+
+    public LocalDateTime getCreatedFrom() { return createdFrom; }
+
+    public LocalDateTime getCreatedTo() { return createdTo; }
+
+    @Override
+    public String toString() {
+        return "OrderFilter{" +
+                "customerId=" + customerId +
+                ", restaurantId=" + restaurantId +
+                ", status=" + status +
+                ", createdFrom=" + createdFrom +
+                ", createdTo=" + createdTo +
+                '}';
+    }
+}
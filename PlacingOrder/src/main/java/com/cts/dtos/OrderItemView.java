@@ -0,0 +1,14 @@
+package com.cts.dtos;
+
+/**
+ * Projection of an order item row together with its order's ID,
+ * read for a whole page of orders in one query
+ */
+public interface OrderItemView {
+    Long getOrderId();
+    Long getMenuItemId();
+    String getName();
+    Double getUnitPrice();
+    Integer getQuantity();
+    Double getItemTotal();
+}
@@ -0,0 +1,85 @@
+package com.cts.dtos;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One page of the order listing, newest order first.
+ * Pass nextCursor back as ?cursor= to fetch the following page; it is absent on the last page.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderPage {
+
+    @JsonProperty("items")
+    private List<OrdersDto> items;
+
+    @JsonProperty("size")
+    private int size;
+
+    @JsonProperty("hasMore")
+    private boolean hasMore;
+
+    @JsonProperty("nextCursor")
+    private String nextCursor;
+
+    public OrderPage() {}
+
+    /**
+     * Build a page from a query that fetched limit + 1 rows
+     */
+    public static OrderPage of(List<OrdersDto> rows, int limit) {
+        OrderPage page = new OrderPage();
+        page.hasMore = rows.size() > limit;
+        page.items = page.hasMore ? rows.subList(0, limit) : rows;
+        page.size = page.items.size();
+        if (page.hasMore) {
+            page.nextCursor = encodeCursor(page.items.get(limit - 1).getOrderId());
+        }
+        return page;
+    }
+
+    // ==================== CURSOR ====================
+    // Opaque URL-safe token for the keyset position: the last orderId returned
+
+    public static String encodeCursor(Long orderId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("o:" + orderId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a client token; null or blank means the first page
+     *
+     * @return orderId to continue below, or null for the first page
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static Long decodeCursor(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!raw.startsWith("o:")) {
+                throw new IllegalArgumentException();
+            }
+            return Long.valueOf(raw.substring(2));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    public List<OrdersDto> getItems() { return items; }
+    public void setItems(List<OrdersDto> items) { this.items = items; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,16 @@
+package com.cts.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of a bulk order status update from Payment Service
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderStatusUpdateRequest {
+    private Long orderId;
+    private String paymentStatus;  // SUCCESS, CANCELLED, REFUNDED, FAILED
+}
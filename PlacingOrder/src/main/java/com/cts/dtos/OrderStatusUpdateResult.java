@@ -0,0 +1,29 @@
+package com.cts.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one entry of a bulk order status update
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderStatusUpdateResult {
+    private Long orderId;
+    private boolean updated;
+    private String orderStatus;  // new status when updated
+    private String error;        // reason when not updated
+
+    public static OrderStatusUpdateResult updated(Long orderId, Object orderStatus) {
+        return new OrderStatusUpdateResult(orderId, true, String.valueOf(orderStatus), null);
+    }
+
+    public static OrderStatusUpdateResult failed(Long orderId, String error) {
+        return new OrderStatusUpdateResult(orderId, false, null, error);
+    }
+}
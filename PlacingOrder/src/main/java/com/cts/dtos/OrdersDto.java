@@ -1,6 +1,8 @@
 package com.cts.dtos;
 
+import com.cts.entities.OrderStatus;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -34,9 +36,29 @@ public class OrdersDto {
     @JsonProperty("updatedAt")
     private LocalDateTime updatedAt;
     
+    // null (omitted) on list pages that were not asked to expand items
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     @JsonProperty("items")
     private List<OrderItemDto> items = new ArrayList<>();
 
+    public OrdersDto() {}
+
+    /**
+     * Projection used by the order listing query; items are not loaded
+     */
+    public OrdersDto(Long orderId, OrderStatus orderStatus, Integer customerId, Integer restaurantId, Integer cartId,
+                     Double subTotal, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.orderId = orderId;
+        this.orderStatus = orderStatus;
+        this.customerId = customerId;
+        this.restaurantId = restaurantId;
+        this.cartId = cartId;
+        this.subTotal = subTotal;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.items = null;
+    }
+
     // Getters and Setters
     public Long getOrderId() { return orderId; }
     public void setOrderId(Long orderId) { this.orderId = orderId; }
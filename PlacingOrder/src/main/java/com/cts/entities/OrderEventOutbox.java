@@ -0,0 +1,79 @@
+package com.cts.entities;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Kafka event written in the same transaction as the order it describes.
+ * OrderEventOutboxRelay publishes it and stamps sentAt; pending rows have sentAt = null.
+ * A failed event waits until nextAttemptAt; one that used up its attempts is
+ * dead-lettered (deadAt set) and no longer published or held in front of its key.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "order_event_outbox", indexes = {
+        @Index(name = "idx_order_event_outbox_pending", columnList = "sent_at, id"),
+        @Index(name = "idx_order_event_outbox_claim", columnList = "claimed_by"),
+        @Index(name = "idx_order_event_outbox_key_pending", columnList = "event_key, sent_at, id")
+})
+public class OrderEventOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false, length = 100)
+    private String topic;
+
+    // Record key: restaurantId, so one restaurant's events stay on one partition, in order
+    @Column(name = "event_key", length = 64)
+    private String eventKey;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "dead_at")
+    private LocalDateTime deadAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "claimed_by", length = 64)
+    private String claimedBy;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    public OrderEventOutbox(Long orderId, String topic, String eventKey, String payload) {
+        this.orderId = orderId;
+        this.topic = topic;
+        this.eventKey = eventKey;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+}
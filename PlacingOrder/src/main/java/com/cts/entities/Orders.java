@@ -1,13 +1,22 @@
 package com.cts.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.BatchSize;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Keyset listing: every filter is followed by order_id, the page order
+        @Index(name = "idx_orders_customer", columnList = "customer_id, order_id"),
+        @Index(name = "idx_orders_restaurant", columnList = "restaurant_id, order_id"),
+        @Index(name = "idx_orders_restaurant_status", columnList = "restaurant_id, order_status, order_id"),
+        @Index(name = "idx_orders_status", columnList = "order_status, order_id"),
+        @Index(name = "idx_orders_created", columnList = "created_at, order_id")
+})
 public class Orders {
     
     @Id
@@ -38,7 +47,11 @@ public class Orders {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
-    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    // Lazy: status updates never read items. Read paths fetch them with an entity
+    // graph (OrderRepository.findWithItemsByOrderId); any other access loads the
+    // items of up to 50 orders from the persistence context in one query
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     private List<OrderItem> items = new ArrayList<>();
 
     // ✅ Getters and Setters
@@ -80,7 +93,7 @@ public class Orders {
                 ", subTotal=" + subTotal +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
-                ", items=" + items +
+                ", items=" + (Hibernate.isInitialized(items) ? items : "<not loaded>") +
                 '}';
     }
 	public void setCartId(Long cartId2) {
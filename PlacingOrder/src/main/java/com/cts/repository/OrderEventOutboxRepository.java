@@ -0,0 +1,96 @@
+package com.cts.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.cts.entities.OrderEventOutbox;
+
+/**
+ * Repository for the order event outbox, drained by OrderEventOutboxRelay
+ */
+@Repository
+public interface OrderEventOutboxRepository extends JpaRepository<OrderEventOutbox, Long> {
+
+    /**
+     * Ids of the oldest unsent events that are due and no relay run currently leases
+     */
+    @Query("SELECT e.id FROM OrderEventOutbox e WHERE e.sentAt IS NULL AND e.deadAt IS NULL "
+            + "AND (e.nextAttemptAt IS NULL OR e.nextAttemptAt <= :now) "
+            + "AND (e.claimedUntil IS NULL OR e.claimedUntil < :now) ORDER BY e.id ASC")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Per key, the oldest unsent event that another relay run leases or that waits for its retry
+     * @return Rows of [eventKey, id]
+     */
+    @Query("SELECT e.eventKey, MIN(e.id) FROM OrderEventOutbox e WHERE e.eventKey IN :keys AND e.sentAt IS NULL "
+            + "AND e.deadAt IS NULL AND ((e.claimedUntil >= :now AND e.claimedBy <> :claimToken) "
+            + "OR e.nextAttemptAt > :now) GROUP BY e.eventKey")
+    List<Object[]> findFirstBlocking(@Param("keys") Collection<String> keys,
+                                     @Param("claimToken") String claimToken, @Param("now") LocalDateTime now);
+
+    /**
+     * Lease events for one relay run; rows leased by another instance are skipped
+     * @return Rows claimed
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderEventOutbox e SET e.claimedBy = :claimToken, e.claimedUntil = :leaseUntil "
+            + "WHERE e.id IN :ids AND e.sentAt IS NULL AND (e.claimedUntil IS NULL OR e.claimedUntil < :now)")
+    int claim(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken,
+              @Param("leaseUntil") LocalDateTime leaseUntil, @Param("now") LocalDateTime now);
+
+    List<OrderEventOutbox> findByClaimedByOrderByIdAsc(String claimToken);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderEventOutbox e SET e.claimedUntil = :leaseUntil WHERE e.claimedBy = :claimToken")
+    int renewClaims(@Param("claimToken") String claimToken, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderEventOutbox e SET e.sentAt = :sentAt, e.claimedBy = NULL, e.claimedUntil = NULL "
+            + "WHERE e.id IN :ids")
+    int markSent(@Param("ids") List<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderEventOutbox e SET e.attempts = :attempts, e.lastError = :error, "
+            + "e.nextAttemptAt = :nextAttemptAt, e.deadAt = :deadAt, e.claimedBy = NULL, e.claimedUntil = NULL "
+            + "WHERE e.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("attempts") int attempts, @Param("error") String error,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("deadAt") LocalDateTime deadAt);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderEventOutbox e SET e.claimedBy = NULL, e.claimedUntil = NULL "
+            + "WHERE e.id IN :ids AND e.claimedBy = :claimToken")
+    int release(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderEventOutbox e SET e.claimedBy = NULL, e.claimedUntil = NULL WHERE e.claimedBy = :claimToken")
+    int releaseClaims(@Param("claimToken") String claimToken);
+
+    long countBySentAtIsNullAndDeadAtIsNull();
+
+    long countByDeadAtIsNotNull();
+
+    /**
+     * Purge events published before a cut-off
+     * @return Rows deleted
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM OrderEventOutbox e WHERE e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,21 @@
+package com.cts.repository;
+
+import java.util.List;
+
+import com.cts.dtos.OrderFilter;
+import com.cts.dtos.OrdersDto;
+
+/**
+ * Order listing queries that need a WHERE clause built from the filter
+ */
+public interface OrderQueryRepository {
+
+    /**
+     * Keyset page of orders matching a filter, newest first, without their items
+     * @param filter Optional criteria
+     * @param beforeOrderId Continue below this orderId; null for the first page
+     * @param limit Rows to return (callers ask for page size + 1)
+     * @return Order projections
+     */
+    List<OrdersDto> findPage(OrderFilter filter, Long beforeOrderId, int limit);
+}
@@ -0,0 +1,58 @@
+package com.cts.repository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cts.dtos.OrderFilter;
+import com.cts.dtos.OrdersDto;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Only the criteria that are set go into the query, so the database can use
+ * the matching composite index instead of evaluating "(:x IS NULL OR ...)".
+ */
+public class OrderQueryRepositoryImpl implements OrderQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrdersDto> findPage(OrderFilter filter, Long beforeOrderId, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT new com.cts.dtos.OrdersDto(o.orderId, o.orderStatus, "
+                + "o.customerId, o.restaurantId, o.cartId, o.subTotal, o.createdAt, o.updatedAt) FROM Orders o WHERE 1 = 1");
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (filter.getCustomerId() != null) {
+            jpql.append(" AND o.customerId = :customerId");
+            params.put("customerId", filter.getCustomerId());
+        }
+        if (filter.getRestaurantId() != null) {
+            jpql.append(" AND o.restaurantId = :restaurantId");
+            params.put("restaurantId", filter.getRestaurantId());
+        }
+        if (filter.getStatus() != null) {
+            jpql.append(" AND o.orderStatus = :status");
+            params.put("status", filter.getStatus());
+        }
+        if (filter.getCreatedFrom() != null) {
+            jpql.append(" AND o.createdAt >= :createdFrom");
+            params.put("createdFrom", filter.getCreatedFrom());
+        }
+        if (filter.getCreatedTo() != null) {
+            jpql.append(" AND o.createdAt < :createdTo");
+            params.put("createdTo", filter.getCreatedTo());
+        }
+        if (beforeOrderId != null) {
+            jpql.append(" AND o.orderId < :beforeOrderId");
+            params.put("beforeOrderId", beforeOrderId);
+        }
+        jpql.append(" ORDER BY o.orderId DESC");
+
+        TypedQuery<OrdersDto> query = entityManager.createQuery(jpql.toString(), OrdersDto.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
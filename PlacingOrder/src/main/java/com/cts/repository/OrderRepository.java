@@ -1,11 +1,45 @@
 package com.cts.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.cts.dtos.OrderItemView;
 import com.cts.entities.Orders;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
-public interface OrderRepository extends JpaRepository<Orders, Long> {
+public interface OrderRepository extends JpaRepository<Orders, Long>, OrderQueryRepository {
+
+    /**
+     * One order with its items, joined in a single query
+     */
+    @EntityGraph(attributePaths = "items")
+    Optional<Orders> findWithItemsByOrderId(Long orderId);
+
+    /**
+     * One order, locked until the caller's transaction commits, so that two
+     * deliveries of the same payment outcome apply it once
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Orders o WHERE o.orderId = :orderId")
+    Optional<Orders> findForUpdate(@Param("orderId") Long orderId);
 
+    /**
+     * Items of a page of orders in one query (?expand=items on the listing)
+     * @param orderIds Orders on the page
+     * @return Item rows, grouped by order in insertion order
+     */
+    @Query("SELECT i.order.orderId AS orderId, i.menuItemId AS menuItemId, i.name AS name, "
+            + "i.unitPrice AS unitPrice, i.quantity AS quantity, i.itemTotal AS itemTotal "
+            + "FROM OrderItem i WHERE i.order.orderId IN :orderIds ORDER BY i.order.orderId, i.id")
+    List<OrderItemView> findItemsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
 }
@@ -0,0 +1,206 @@
+package com.cts.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.cts.entities.OrderEventOutbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Publishes the order event outbox to Kafka
+ *
+ * Every tick it leases the next batch of unsent events (so other instances
+ * skip them) and hands all of them to the producer before waiting for any
+ * acknowledgement, letting it pack records into per-partition batches
+ * (spring.kafka.producer.* tunes linger, batch size and compression).
+ * Records are keyed by restaurantId, so a restaurant's events keep their order
+ * on one partition. Acknowledged events are marked sent; a failed one is retried
+ * with exponential backoff and dead-lettered after orders.outbox.max-attempts.
+ * Once an event of a key fails, the key's later events in the run are not sent,
+ * or not marked sent if already on their way, and they wait behind the failed
+ * one until it is sent or dead-lettered (delivery is at-least-once).
+ * The lease is renewed while a batch is sent; if another instance has taken it
+ * over, the run stops sending so the two never publish the same events side by side.
+ * Producer timeouts (max.block.ms, delivery.timeout.ms) stay below the lease.
+ *
+ * Metrics:
+ * - orders.outbox.backlog    events waiting to be published
+ * - orders.outbox.dead       events given up after orders.outbox.max-attempts
+ * - orders.outbox.published  events acknowledged by Kafka
+ * - orders.outbox.failed     failed publish attempts
+ */
+@Component
+public class OrderEventOutboxRelay {
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventOutboxRelay.class);
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong dead = new AtomicLong();
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+
+    @Autowired
+    private OrderEventOutboxService outboxService;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Value("${orders.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${orders.outbox.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${orders.outbox.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    @Value("${orders.outbox.retention-hours:72}")
+    private long retentionHours;
+
+    public OrderEventOutboxRelay(MeterRegistry meterRegistry) {
+        Gauge.builder("orders.outbox.backlog", backlog, AtomicLong::get)
+                .description("Order events waiting to be published")
+                .register(meterRegistry);
+        Gauge.builder("orders.outbox.dead", dead, AtomicLong::get)
+                .description("Order events given up after the maximum number of attempts")
+                .register(meterRegistry);
+        this.publishedCounter = Counter.builder("orders.outbox.published")
+                .description("Order events acknowledged by Kafka")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("orders.outbox.failed")
+                .description("Failed order event publish attempts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publish the next batch of outbox events
+     * @return Events published
+     */
+    @Scheduled(initialDelayString = "${orders.outbox.relay-interval-ms:200}",
+            fixedDelayString = "${orders.outbox.relay-interval-ms:200}")
+    public int drain() {
+        String claimToken = nodeId + "-" + UUID.randomUUID();
+        List<OrderEventOutbox> batch = outboxService.claimDueBatch(batchSize, claimToken, leaseMs);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> sent = new ArrayList<>();
+        int failed = 0;
+        int deadLettered = 0;
+        Set<String> failedKeys = new HashSet<>();
+        String lastError = null;
+        long renewAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseMs / 2);
+        boolean leaseLost = false;
+        try {
+            List<CompletableFuture<SendResult<String, String>>> acks = new ArrayList<>(batch.size());
+            for (OrderEventOutbox event : batch) {
+                if (!leaseLost && System.nanoTime() >= renewAt) {
+                    leaseLost = outboxService.renewClaims(claimToken, leaseMs) < batch.size();
+                    renewAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseMs / 2);
+                }
+                if (leaseLost || event.getEventKey() != null && failedKeys.contains(event.getEventKey())) {
+                    acks.add(null);  // lease taken over, or held back behind the key's failed event
+                    continue;
+                }
+                try {
+                    acks.add(kafkaTemplate.send(event.getTopic(), event.getEventKey(), event.getPayload()));
+                } catch (RuntimeException e) {
+                    acks.add(CompletableFuture.failedFuture(e));
+                    if (event.getEventKey() != null) {
+                        failedKeys.add(event.getEventKey());
+                    }
+                }
+            }
+
+            if (leaseLost) {
+                logger.warn("⚠️ Outbox lease {} taken over by another relay, stopped sending", claimToken);
+            } else if (System.nanoTime() >= renewAt) {
+                outboxService.renewClaims(claimToken, leaseMs);  // covers the wait for acknowledgements
+            }
+
+            // Failed keys again, in event order, now including failed acknowledgements
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+            failedKeys.clear();
+            for (int i = 0; i < batch.size(); i++) {
+                if (acks.get(i) == null) {
+                    continue;
+                }
+                OrderEventOutbox event = batch.get(i);
+                boolean keyFailed = event.getEventKey() != null && failedKeys.contains(event.getEventKey());
+                try {
+                    acks.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (!keyFailed) {
+                        sent.add(event.getId());
+                    }
+                } catch (ExecutionException | TimeoutException e) {
+                    failed++;
+                    if (event.getEventKey() != null) {
+                        failedKeys.add(event.getEventKey());
+                    }
+                    lastError = e.getCause() != null ? e.getCause().getMessage() : e.toString();
+                    if (outboxService.recordFailure(event, lastError)) {
+                        deadLettered++;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            outboxService.markSent(sent);
+        } finally {
+            // Held-back events, and events not acknowledged before an interrupt, go back to the pool right away
+            outboxService.releaseClaims(claimToken);
+        }
+
+        publishedCounter.increment(sent.size());
+        failedCounter.increment(failed);
+        if (failed > deadLettered) {
+            logger.warn("⚠️ {} order events not published, will retry: {}", failed - deadLettered, lastError);
+        }
+        logger.info("📤 Outbox relay published {}/{} order events", sent.size(), batch.size());
+        return sent.size();
+    }
+
+    /**
+     * Refresh the backlog and dead-letter gauges from the outbox table
+     */
+    @Scheduled(fixedDelayString = "${orders.outbox.metrics-interval-ms:15000}")
+    public void refreshBacklogMetrics() {
+        backlog.set(outboxService.backlogSize());
+        dead.set(outboxService.deadCount());
+    }
+
+    /**
+     * Drop published events older than orders.outbox.retention-hours
+     */
+    @Scheduled(fixedDelayString = "${orders.outbox.purge-interval-ms:3600000}")
+    public void purgeSent() {
+        int purged = outboxService.purgeSentBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (purged > 0) {
+            logger.info("🧹 Purged {} published order events", purged);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.cts.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.cts.dtos.NotificationDto;
+import com.cts.entities.OrderEventOutbox;
+import com.cts.entities.Orders;
+import com.cts.repository.OrderEventOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes order events to the outbox and hands them to OrderEventOutboxRelay
+ *
+ * An event is stored in the transaction that saves its order, so it is
+ * published if and only if the order committed. The payload is the JSON that
+ * Kafka's JsonSerializer would have produced, so consumers see no difference.
+ * A failed event is retried with exponential backoff and dead-lettered after
+ * orders.outbox.max-attempts, so a record Kafka always rejects stops blocking its key.
+ */
+@Service
+public class OrderEventOutboxService {
+
+    public static final String ORDER_PLACED_TOPIC = "order_placed";
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventOutboxService.class);
+
+    @Autowired
+    private OrderEventOutboxRepository outboxRepository;
+
+    @Value("${orders.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${orders.outbox.backoff-initial-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${orders.outbox.backoff-max-ms:60000}")
+    private long maxBackoffMs;
+
+    /**
+     * Queue order_placed for a new order, inside the transaction that inserts it
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OrderEventOutbox enqueueOrderPlaced(Orders order, Long vendorId) {
+        NotificationDto notification = new NotificationDto();
+        notification.setOrderId(order.getOrderId());
+        notification.setRestaurantId(order.getRestaurantId());
+        notification.setVendorId(vendorId);
+        notification.setMessage("New order placed");
+        notification.setTimestamp(LocalDateTime.now());
+
+        String key = order.getRestaurantId() != null ? order.getRestaurantId().toString() : null;
+        return outboxRepository.save(new OrderEventOutbox(order.getOrderId(), ORDER_PLACED_TOPIC, key, toJson(notification)));
+    }
+
+    // ==================== RELAY SUPPORT ====================
+
+    /**
+     * Lease the oldest unsent events for one relay run
+     *
+     * An event stays out of the run while an older unsent event with the same key
+     * is leased by another run or waits for its retry, so a restaurant's events are
+     * never published out of order. Older unleased events of the key come first in the same batch.
+     * The check runs once per batch, after the claim, over the batch's keys only.
+     *
+     * @return Claimed events, oldest first; empty when nothing is due
+     */
+    public List<OrderEventOutbox> claimDueBatch(int batchSize, String claimToken, long leaseMs) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = outboxRepository.findDueIds(now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty() || outboxRepository.claim(ids, claimToken, now.plusNanos(leaseMs * 1_000_000), now) == 0) {
+            return List.of();
+        }
+        List<OrderEventOutbox> batch = outboxRepository.findByClaimedByOrderByIdAsc(claimToken);
+
+        Set<String> keys = new HashSet<>();
+        batch.forEach(event -> {
+            if (event.getEventKey() != null) {
+                keys.add(event.getEventKey());
+            }
+        });
+        if (keys.isEmpty()) {
+            return batch;
+        }
+        Map<String, Long> firstBlocking = new HashMap<>();
+        for (Object[] row : outboxRepository.findFirstBlocking(keys, claimToken, now)) {
+            firstBlocking.put((String) row[0], (Long) row[1]);
+        }
+        if (firstBlocking.isEmpty()) {
+            return batch;
+        }
+        List<OrderEventOutbox> runnable = new ArrayList<>(batch.size());
+        List<Long> heldBack = new ArrayList<>();
+        for (OrderEventOutbox event : batch) {
+            Long blocking = event.getEventKey() != null ? firstBlocking.get(event.getEventKey()) : null;
+            if (blocking != null && blocking < event.getId()) {
+                heldBack.add(event.getId());
+            } else {
+                runnable.add(event);
+            }
+        }
+        if (!heldBack.isEmpty()) {
+            outboxRepository.release(heldBack, claimToken);
+        }
+        return runnable;
+    }
+
+    /**
+     * Extend the lease of the events a relay run still holds
+     * @return Events still leased to claimToken; fewer than claimed once another run took some over
+     */
+    public int renewClaims(String claimToken, long leaseMs) {
+        return outboxRepository.renewClaims(claimToken, LocalDateTime.now().plusNanos(leaseMs * 1_000_000));
+    }
+
+    public void markSent(List<Long> ids) {
+        if (!ids.isEmpty()) {
+            outboxRepository.markSent(ids, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Schedule the next attempt of a failed event, or dead-letter it after orders.outbox.max-attempts
+     * @return Whether the event was dead-lettered
+     */
+    public boolean recordFailure(OrderEventOutbox event, String error) {
+        String message = error == null ? "unknown" : error;
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH);
+        }
+        int attempts = event.getAttempts() + 1;
+        LocalDateTime now = LocalDateTime.now();
+        if (attempts >= maxAttempts) {
+            outboxRepository.recordFailure(event.getId(), attempts, message, now, now);
+            logger.error("❌ Order event {} for order {} given up after {} attempts: {}",
+                    event.getId(), event.getOrderId(), attempts, message);
+            return true;
+        }
+        long backoffMs = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+        outboxRepository.recordFailure(event.getId(), attempts, message, now.plusNanos(backoffMs * 1_000_000), null);
+        return false;
+    }
+
+    public void releaseClaims(String claimToken) {
+        outboxRepository.releaseClaims(claimToken);
+    }
+
+    public long backlogSize() {
+        return outboxRepository.countBySentAtIsNullAndDeadAtIsNull();
+    }
+
+    public long deadCount() {
+        return outboxRepository.countByDeadAtIsNotNull();
+    }
+
+    public int purgeSentBefore(LocalDateTime before) {
+        return outboxRepository.deleteSentBefore(before);
+    }
+
+    private String toJson(Object event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order event: " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,12 +1,21 @@
 package com.cts.service;
 
-import java.util.List;
+import com.cts.dtos.OrderFilter;
+import com.cts.dtos.OrderPage;
 import com.cts.dtos.OrdersDto;
 import com.cts.entities.OrdersRequest;
 
 public interface OrderService {
     
-    List<OrdersDto> getAllOrders();
+    /**
+     * Keyset-paginated order listing
+     *
+     * @param filter Optional criteria (customer, restaurant, status, created-at range)
+     * @param cursor nextCursor of the previous page; null for the first page
+     * @param limit Page size; null for the default
+     * @param expandItems Include each order's items
+     */
+    OrderPage getOrderPage(OrderFilter filter, String cursor, Integer limit, boolean expandItems);
     
     OrdersDto getOrdersById(Long orderId);
     
@@ -3,14 +3,23 @@ package com.cts.service;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,8 +28,10 @@ import com.cts.clients.InventoryClient;
 import com.cts.clients.PaymentClient;
 import com.cts.dtos.InventoryUpdateItem;
 import com.cts.dtos.InventoryUpdateRequest;
-import com.cts.dtos.NotificationDto;
+import com.cts.dtos.OrderFilter;
 import com.cts.dtos.OrderItemDto;
+import com.cts.dtos.OrderItemView;
+import com.cts.dtos.OrderPage;
 import com.cts.dtos.OrdersDto;
 import com.cts.entities.CartItemResponse;
 import com.cts.entities.CartResponse;
@@ -28,7 +39,6 @@ import com.cts.entities.OrderStatus;
 import com.cts.entities.OrdersRequest;
 import com.cts.entities.Orders;
 import com.cts.repository.OrderRepository;
-import com.notificationservice.service.RestaurantClient;
 
 @Service
 @Transactional
@@ -50,31 +60,92 @@ public class OrderServiceImpl implements OrderService {
     private InventoryClient inventoryClient;
     
     @Autowired
-    private KafkaTemplate<String, NotificationDto> kafkaTemplate;
+    private OrderEventOutboxService outboxService;
 
     @Autowired
-    private RestaurantClient restaurantClient;
+    private RestaurantLookupService restaurantLookupService;
 
+    @Autowired
+    @Qualifier("orderLookupExecutor")
+    private Executor orderLookupExecutor;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${orders.query.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${orders.query.max-page-size:200}")
+    private int maxPageSize;
 
+
+    /**
+     * Keyset page of orders, newest first.
+     * Orders are read as projections, so their items are not loaded; with
+     * expandItems the items of the whole page come from one extra query.
+     *
+     * @param limit Page size (capped at orders.query.max-page-size)
+     * @throws IllegalArgumentException on a malformed cursor or a limit below 1
+     */
     @Override
     @Transactional(readOnly = true)
-    public List<OrdersDto> getAllOrders() {
-        logger.info("Fetching all orders from repository");
-        List<Orders> entities = orderRepository.findAll();
-        return entities.stream().map(this::convertToDto).toList();
+    public OrderPage getOrderPage(OrderFilter filter, String cursor, Integer limit, boolean expandItems) {
+        Long before = OrderPage.decodeCursor(cursor);
+        int pageSize = resolvePageSize(limit);
+        logger.info("📋 Fetching order page ({}), size {}, expand items: {}", filter, pageSize, expandItems);
+
+        // Fetch one extra row to know whether another page exists
+        OrderPage page = OrderPage.of(orderRepository.findPage(filter, before, pageSize + 1), pageSize);
+        if (expandItems && !page.getItems().isEmpty()) {
+            Map<Long, OrdersDto> byId = new HashMap<>();
+            for (OrdersDto order : page.getItems()) {
+                order.setItems(new ArrayList<>());
+                byId.put(order.getOrderId(), order);
+            }
+            for (OrderItemView row : orderRepository.findItemsByOrderIds(byId.keySet())) {
+                OrderItemDto item = new OrderItemDto();
+                item.setMenuItemId(row.getMenuItemId());
+                item.setName(row.getName());
+                item.setUnitPrice(row.getUnitPrice());
+                item.setQuantity(row.getQuantity());
+                item.setItemTotal(row.getItemTotal());
+                byId.get(row.getOrderId()).getItems().add(item);
+            }
+        }
+        return page;
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return Math.min(limit, maxPageSize);
     }
 
     @Override
     @Transactional(readOnly = true)
     public OrdersDto getOrdersById(Long orderId) {
         logger.info("Fetching order by ID: {}", orderId);
-        return orderRepository.findById(orderId)
+        return orderRepository.findWithItemsByOrderId(orderId)
             .map(this::convertToDto)
             .orElse(null);
     }
 
+    /**
+     * Place an order from a cart.
+     *
+     * The cart and restaurant lookups run concurrently on orderLookupExecutor,
+     * so the critical path is the slower of the two instead of their sum
+     * (the restaurant is usually served from RestaurantLookupService's cache).
+     * No DB connection is held while they run: only the insert is transactional.
+     * order_placed is written to the outbox in that same transaction, so it is
+     * published exactly when the order commits.
+     */
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public OrdersDto addOrders(OrdersRequest req) {
 
         Integer cartId = req.getCartId();
@@ -83,11 +154,18 @@ public class OrderServiceImpl implements OrderService {
             throw new IllegalArgumentException("cartId is required");
         }
 
-        CartResponse cart = cartClient.getCartById(cartId);
+        // -------------------- FAN OUT: CART + RESTAURANT --------------------
+        CompletableFuture<CartResponse> cartLookup =
+                CompletableFuture.supplyAsync(() -> cartClient.getCartById(cartId), orderLookupExecutor);
+        CompletableFuture<Long> vendorLookup = CompletableFuture.supplyAsync(
+                () -> restaurantLookupService.getVendorId(req.getRestaurantId()), orderLookupExecutor);
+
+        CartResponse cart = join(cartLookup);
         if (cart == null) {
             logger.error("❌ Cart not found for id: {}", cartId);
             throw new IllegalArgumentException("Cart not found for id: " + cartId);
         }
+        Long vendorId = join(vendorLookup);
 
         // -------------------- CREATE ORDER --------------------
         Orders entity = new Orders();
@@ -138,37 +216,32 @@ public class OrderServiceImpl implements OrderService {
             entity.setItems(items);
         }
 
-        // ---------- SAVE ----------
-        Orders saved = orderRepository.save(entity);
-        logger.info("✅ Order saved with ID: {}", saved.getOrderId());
-
-        // ==================================================================
-        //                 🔥 FETCH vendorId FROM RESTAURANT-SERVICE
-        // ==================================================================
-        var restaurant = restaurantClient.getRestaurantById(req.getRestaurantId());
-        if (restaurant == null || restaurant.getVendorId() == null) {
-            throw new IllegalStateException("VendorId missing for restaurantId: " + req.getRestaurantId());
-        }
-
-        Long vendorId = restaurant.getVendorId();
-
-        // ==================================================================
-        //                     🔥 SEND KAFKA NOTIFICATION
-        // ==================================================================
-        NotificationDto notification = new NotificationDto();
-        notification.setOrderId(saved.getOrderId());
-        notification.setRestaurantId(saved.getRestaurantId());
-        notification.setVendorId(vendorId);
-        notification.setMessage("New order placed");
-        notification.setTimestamp(LocalDateTime.now());
-
-//        Sending topic order_placed
-        kafkaTemplate.send("order_placed", notification);
-        logger.info("📩 Notification sent to vendorId {}", vendorId);
+        // ---------- SAVE + QUEUE order_placed (the only transactional step) ----------
+        // The event is committed with the order; OrderEventOutboxRelay publishes it
+        Orders saved = transactionTemplate.execute(status -> {
+            Orders order = orderRepository.save(entity);
+            outboxService.enqueueOrderPlaced(order, vendorId);
+            return order;
+        });
+        logger.info("✅ Order saved with ID: {}, order_placed queued for vendorId {}", saved.getOrderId(), vendorId);
 
         return convertToDto(saved);
     }
 
+    /**
+     * Wait for a lookup and rethrow its own exception, not the CompletionException wrapper
+     */
+    private static <T> T join(CompletableFuture<T> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
     private InventoryUpdateRequest buildInventoryUpdateRequestFromOrder1(Orders order) {
     	 
         InventoryUpdateRequest req = new InventoryUpdateRequest();
@@ -203,12 +276,20 @@ public class OrderServiceImpl implements OrderService {
      
         return req;
     }
+    /**
+     * Apply a payment outcome to an order.
+     * Items are only loaded on SUCCESS, to build the inventory update; the
+     * other transitions touch the order row alone, and their DTO has no items.
+     * Payment Service delivers outcomes at least once: the order row is locked,
+     * and an outcome the order already reflects is a no-op that returns the
+     * current order without calling Inventory again.
+     */
     @Override
     @Transactional
     public OrdersDto updateOrderStatusByPayment(Long orderId, String paymentStatus) {
         logger.info("Auto-updating order: {}, paymentStatus: {}", orderId, paymentStatus);
      
-        Orders order = orderRepository.findById(orderId)
+        Orders order = orderRepository.findForUpdate(orderId)
                 .orElseThrow(() -> {
                     logger.error("Order not found for id: {}", orderId);
                     return new IllegalArgumentException("Order not found for id: " + orderId);
@@ -229,6 +310,11 @@ public class OrderServiceImpl implements OrderService {
                 newStatus = order.getOrderStatus();
         }
      
+        if (newStatus == order.getOrderStatus()) {
+            logger.info("Order {} is already {}, ignoring repeated payment status {}", orderId, newStatus, paymentStatus);
+            return convertToDto(order);
+        }
+     
         String oldStatus = order.getOrderStatus().toString();
         order.setOrderStatus(newStatus);
         order.setUpdatedAt(LocalDateTime.now());
@@ -349,7 +435,7 @@ public class OrderServiceImpl implements OrderService {
     
     /**
      * Helper method to convert Order entity to OrdersDto
-     * Must be called within @Transactional context to access lazy collections
+     * Items are copied only when already loaded; the DTO's items stay null otherwise
      */
     private OrdersDto convertToDto(Orders entity) {
         com.cts.dtos.OrdersDto dto = new com.cts.dtos.OrdersDto();
@@ -362,8 +448,9 @@ public class OrderServiceImpl implements OrderService {
         dto.setUpdatedAt(entity.getUpdatedAt());
         dto.setSubTotal(entity.getSubTotal());
         
-        // ✅ Access lazy collection within transaction
-        if (entity.getItems() != null) {
+        if (!Hibernate.isInitialized(entity.getItems())) {
+            dto.setItems(null);
+        } else if (entity.getItems() != null) {
             for (com.cts.entities.OrderItem oi : entity.getItems()) {
                 com.cts.dtos.OrderItemDto i = new com.cts.dtos.OrderItemDto();
                 i.setMenuItemId(oi.getMenuItemId());
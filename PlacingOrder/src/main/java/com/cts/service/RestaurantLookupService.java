@@ -0,0 +1,89 @@
+package com.cts.service;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.notificationservice.model.RestaurantResponse;
+import com.notificationservice.service.RestaurantClient;
+
+/**
+ * Restaurant metadata (vendorId, name) for order placement, through a bounded cache
+ *
+ * - An entry older than refresh-after-ms is reloaded in the background on its next
+ *   read, while that read still gets the cached value.
+ * - Concurrent misses for one restaurant share a single call to restaurant-service.
+ * - If a reload fails, the cached value keeps being served until expire-after-ms,
+ *   so placement rides out a restaurant-service outage for known restaurants.
+ * - A message on the restaurant-changed topic (value = restaurantId) drops the entry.
+ */
+@Service
+public class RestaurantLookupService {
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantLookupService.class);
+
+    private final LoadingCache<Integer, RestaurantResponse> cache;
+
+    public RestaurantLookupService(RestaurantClient restaurantClient,
+                                   @Value("${orders.restaurant-cache.max-size:10000}") long maxSize,
+                                   @Value("${orders.restaurant-cache.refresh-after-ms:300000}") long refreshAfterMs,
+                                   @Value("${orders.restaurant-cache.expire-after-ms:86400000}") long expireAfterMs) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(Duration.ofMillis(refreshAfterMs))
+                .expireAfterWrite(Duration.ofMillis(expireAfterMs))
+                .build(restaurantClient::getRestaurantById);
+    }
+
+    /**
+     * Restaurant by ID, from the cache when present
+     * @return null when restaurant-service has no such restaurant
+     */
+    public RestaurantResponse getRestaurant(Integer restaurantId) {
+        return restaurantId != null ? cache.get(restaurantId) : null;
+    }
+
+    /**
+     * Vendor of a restaurant
+     */
+    public Long getVendorId(Integer restaurantId) {
+        RestaurantResponse restaurant = getRestaurant(restaurantId);
+        if (restaurant == null || restaurant.getVendorId() == null) {
+            throw new IllegalStateException("VendorId missing for restaurantId: " + restaurantId);
+        }
+        return restaurant.getVendorId();
+    }
+
+    public void evict(Integer restaurantId) {
+        cache.invalidate(restaurantId);
+    }
+
+    public long cacheSize() {
+        return cache.estimatedSize();
+    }
+
+    // ==================== INVALIDATION ====================
+
+    /**
+     * Each instance consumes every change in its own group, so all local caches drop the entry.
+     * The group is named after the instance's host and port, like its Eureka instance id,
+     * so a restart rejoins the same group instead of leaving another one on the broker.
+     */
+    @KafkaListener(topics = "${orders.restaurant-cache.invalidation-topic:restaurant_changed}",
+            groupId = "${orders.restaurant-cache.invalidation-group:"
+                    + "placingorder-restaurant-cache-${spring.cloud.client.hostname:localhost}-${server.port:8080}}",
+            autoStartup = "${orders.restaurant-cache.invalidation-enabled:true}")
+    public void onRestaurantChanged(String restaurantId) {
+        try {
+            evict(Integer.valueOf(restaurantId.trim()));
+            logger.info("🔄 Restaurant {} changed, cached metadata dropped", restaurantId);
+        } catch (NumberFormatException e) {
+            logger.warn("⚠️ Ignoring restaurant change event with invalid id: {}", restaurantId);
+        }
+    }
+}
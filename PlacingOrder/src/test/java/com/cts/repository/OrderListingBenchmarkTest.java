@@ -0,0 +1,146 @@
+package com.cts.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cts.dtos.OrderFilter;
+import com.cts.dtos.OrdersDto;
+import com.cts.entities.OrderStatus;
+import com.cts.entities.Orders;
+
+/**
+ * Order listing latency: the old unpaged findAll (every order with its items,
+ * loaded in batches) against keyset pages of projections on the composite indexes.
+ *
+ * Row count defaults to 100k so it runs with the normal build; pass
+ * -Dbenchmark.rows=5000000 (and a few GB of heap) for the full-size comparison.
+ * The unpaged findAll is skipped above 200k rows, where it no longer fits a test heap.
+ * H2 cannot read the primary key backwards, so unfiltered newest-first pages
+ * sort here; MySQL serves them with a backward index scan.
+ */
+@DataJpaTest(properties = "spring.cloud.config.enabled=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderListingBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 100_000);
+    private static final int LEGACY_MAX_ROWS = 200_000;
+    private static final int CUSTOMERS = 20_000;
+    private static final int RESTAURANTS = 500;
+    private static final int PAGE = 50;
+    private static final int RUNS = 50;
+    private static final OrderStatus[] STATUSES = {
+        OrderStatus.DELIVERED, OrderStatus.DELIVERED, OrderStatus.DELIVERED, OrderStatus.CONFIRMED,
+        OrderStatus.PLACED, OrderStatus.CANCELLED
+    };
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void keysetPagesAgainstUnpagedFindAll() {
+        LocalDateTime start = LocalDateTime.now().minusDays(365);
+        insertOrders(start);
+        try {
+            double legacyMs = Double.NaN;
+            if (ROWS <= LEGACY_MAX_ROWS) {
+                long t0 = System.nanoTime();
+                int[] counts = transactionTemplate.execute(status -> {
+                    List<Orders> all = orderRepository.findAll();
+                    return new int[] {all.size(), all.stream().mapToInt(o -> o.getItems().size()).sum()};
+                });
+                legacyMs = (System.nanoTime() - t0) / 1e6;
+                assertEquals(ROWS, counts[0]);
+                assertEquals(2 * ROWS, counts[1]);
+            }
+
+            long middle = jdbc.queryForObject("SELECT MIN(order_id) FROM orders", Long.class) + ROWS / 2;
+            double firstMs = time(() -> orderRepository.findPage(OrderFilter.all(), null, PAGE + 1));
+            double deepMs = time(() -> orderRepository.findPage(OrderFilter.all(), middle, PAGE + 1));
+            double restaurantMs = time(() -> orderRepository.findPage(
+                    OrderFilter.of(null, 42, "PLACED", null, null), null, PAGE + 1));
+            double customerMs = time(() -> orderRepository.findPage(
+                    OrderFilter.of(4242, null, null, null, null), null, PAGE + 1));
+            double rangeMs = time(() -> orderRepository.findPage(
+                    OrderFilter.of(null, null, null, start.plusDays(100), start.plusDays(101)), null, PAGE + 1));
+            double expandMs = time(() -> {
+                List<OrdersDto> page = orderRepository.findPage(OrderFilter.all(), middle, PAGE + 1);
+                return orderRepository.findItemsByOrderIds(page.stream().map(OrdersDto::getOrderId).toList());
+            });
+
+            System.out.printf("Order listing over %,d orders (%,d items), page of %d:%n", ROWS, 2 * ROWS, PAGE);
+            System.out.printf("  unpaged findAll + all items   : %s%n",
+                    Double.isNaN(legacyMs) ? "skipped" : String.format("%.0f ms", legacyMs));
+            System.out.printf("  first page                    : %.2f ms%n", firstMs);
+            System.out.printf("  page from the middle (cursor) : %.2f ms%n", deepMs);
+            System.out.printf("  restaurant + status           : %.2f ms%n", restaurantMs);
+            System.out.printf("  customer                      : %.2f ms%n", customerMs);
+            System.out.printf("  created-at day                : %.2f ms%n", rangeMs);
+            System.out.printf("  middle page, expand=items     : %.2f ms%n", expandMs);
+
+            assertEquals(PAGE + 1, orderRepository.findPage(OrderFilter.all(), middle, PAGE + 1).size());
+        } finally {
+            // TRUNCATE keeps no undo log, unlike DELETE on millions of rows
+            jdbc.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            jdbc.execute("TRUNCATE TABLE order_items");
+            jdbc.execute("TRUNCATE TABLE orders");
+            jdbc.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        }
+    }
+
+    private void insertOrders(LocalDateTime start) {
+        long secondsApart = Math.max(1, 365L * 24 * 3600 / ROWS);
+        List<Object[]> orders = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Timestamp created = Timestamp.valueOf(start.plusSeconds(i * secondsApart));
+            orders.add(new Object[] {
+                STATUSES[i % STATUSES.length].name(), i % CUSTOMERS, i % RESTAURANTS, i, 100.0 + i % 900, created, created
+            });
+            if (orders.size() == 10_000) {
+                flush(orders);
+            }
+        }
+        flush(orders);
+    }
+
+    private void flush(List<Object[]> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate("INSERT INTO orders (order_status, customer_id, restaurant_id, cart_id, sub_total, "
+                + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)", orders);
+        // Two items per order, for the orders just inserted
+        jdbc.update("INSERT INTO order_items (order_id, menu_item_id, name, unit_price, quantity, item_total) "
+                + "SELECT o.order_id, k.x, 'Item ' || k.x, 50.0, 1, 50.0 FROM orders o "
+                + "CROSS JOIN (SELECT 1 AS x UNION ALL SELECT 2) k "
+                + "WHERE o.order_id > COALESCE((SELECT MAX(order_id) FROM order_items), 0)");
+        orders.clear();
+    }
+
+    private static double time(Supplier<List<?>> query) {
+        query.get();  // warm-up
+        long t0 = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            query.get();
+        }
+        return (System.nanoTime() - t0) / 1e6 / RUNS;
+    }
+}
@@ -0,0 +1,344 @@
+package com.cts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cts.entities.OrderEventOutbox;
+import com.cts.entities.Orders;
+import com.cts.repository.OrderEventOutboxRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Outbox relay against an embedded broker: events follow their order's commit
+ * and keep per-restaurant order on one partition, also across a failed send,
+ * its backoff and a run that leases a restaurant's older event; an event that
+ * keeps failing is dead-lettered and stops holding up its restaurant, and a run
+ * whose lease another relay took over stops sending. Prints relay throughput with
+ * the tuned producer (linger, batch size, lz4) next to client defaults.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.producer.acks=all",
+        "spring.kafka.producer.properties.enable.idempotence=true",
+        "spring.kafka.producer.properties.linger.ms=10",
+        "spring.kafka.producer.batch-size=65536",
+        "spring.kafka.producer.compression-type=lz4",
+        "orders.outbox.backoff-initial-ms=0",      // failed events are due again right away
+        "orders.outbox.max-attempts=3",
+        "orders.outbox.relay-interval-ms=3600000"  // the test drives the relay itself
+})
+@EmbeddedKafka(partitions = 4, topics = OrderEventOutboxService.ORDER_PLACED_TOPIC)
+@ImportAutoConfiguration(KafkaAutoConfiguration.class)
+@Import({OrderEventOutboxService.class, OrderEventOutboxRelay.class, OrderEventOutboxRelayTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderEventOutboxRelayTest {
+
+    private static final int EVENTS = 10_000;
+    private static final int RESTAURANTS = 16;
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private OrderEventOutboxService outboxService;
+
+    @Autowired
+    private OrderEventOutboxRelay relay;
+
+    @Autowired
+    private OrderEventOutboxRepository outboxRepository;
+
+    @Autowired
+    private KafkaTemplate<String, String> tunedTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        ReflectionTestUtils.setField(relay, "kafkaTemplate", tunedTemplate);
+        ReflectionTestUtils.setField(outboxService, "initialBackoffMs", 0L);
+        ReflectionTestUtils.setField(relay, "leaseMs", 60_000L);
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void publishesKeyedByRestaurantFasterWithTunedProducer() {
+        Map<String, Object> defaults = new HashMap<>(KafkaTestUtils.producerProps(broker));
+        defaults.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        defaults.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        DefaultKafkaProducerFactory<String, String> defaultFactory = new DefaultKafkaProducerFactory<>(defaults);
+        try {
+            ReflectionTestUtils.setField(relay, "kafkaTemplate", new KafkaTemplate<>(defaultFactory));
+            double defaultRate = publishAll(0);
+            ReflectionTestUtils.setField(relay, "kafkaTemplate", tunedTemplate);
+            double tunedRate = publishAll(EVENTS);
+            System.out.printf("Outbox relay, %d order_placed events: client defaults %.0f events/s, "
+                    + "linger 10 ms + 64 KB batches + lz4 %.0f events/s%n", EVENTS, defaultRate, tunedRate);
+        } finally {
+            defaultFactory.destroy();
+        }
+        assertEquals(0, outboxService.backlogSize());
+
+        // Every event arrived once, each restaurant on one partition, in outbox order
+        Map<String, Integer> partitionOf = new HashMap<>();
+        Map<String, Long> lastOrderOf = new HashMap<>();
+        Set<Long> orders = new HashSet<>();
+        ObjectMapper mapper = new ObjectMapper();
+        try (Consumer<String, String> consumer = consumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, OrderEventOutboxService.ORDER_PLACED_TOPIC);
+            int received = 0;
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (received < 2 * EVENTS && System.currentTimeMillis() < deadline) {
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(500));
+                for (ConsumerRecord<String, String> record : records) {
+                    JsonNode event = readTree(mapper, record.value());
+                    long orderId = event.get("orderId").asLong();
+                    assertEquals(record.key(), event.get("restaurantId").asText());
+                    assertEquals(record.partition(), (int) partitionOf.computeIfAbsent(record.key(), k -> record.partition()));
+                    assertTrue(lastOrderOf.getOrDefault(record.key(), -1L) < orderId, "out of order for " + record.key());
+                    lastOrderOf.put(record.key(), orderId);
+                    orders.add(orderId);
+                    received++;
+                }
+            }
+            assertEquals(2 * EVENTS, received);
+        }
+        assertEquals(2 * EVENTS, orders.size());
+        assertEquals(RESTAURANTS, partitionOf.size());
+    }
+
+    @Test
+    void eventIsOnlyQueuedWithItsOrder() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        assertThrows(IllegalStateException.class, () -> tx.executeWithoutResult(status -> {
+            outboxService.enqueueOrderPlaced(order(1L, 7), 42L);
+            throw new IllegalStateException("order insert failed");
+        }));
+        assertEquals(0, outboxService.backlogSize());
+
+        assertThrows(IllegalTransactionStateException.class, () -> outboxService.enqueueOrderPlaced(order(2L, 7), 42L));
+        assertEquals(0, relay.drain());
+    }
+
+    @Test
+    void keyStopsAtItsFirstFailureAndResumesInOrder() {
+        enqueue(1L, 7, 2L, 8, 3L, 7, 4L, 7);
+        List<Long> sends = new ArrayList<>();
+        AtomicBoolean brokerDown = new AtomicBoolean(true);
+        ReflectionTestUtils.setField(relay, "kafkaTemplate", recordingTemplate(sends, orderId -> orderId == 1L
+                && brokerDown.getAndSet(false)));
+
+        assertEquals(1, relay.drain());           // order 1 failed; 3 and 4 wait behind it
+        assertEquals(List.of(2L), sends);
+        assertEquals(3, outboxService.backlogSize());
+
+        assertEquals(3, relay.drain());
+        assertEquals(List.of(2L, 1L, 3L, 4L), sends);
+        assertEquals(0, outboxService.backlogSize());
+    }
+
+    @Test
+    void keyWaitsForAnEventLeasedByAnotherRun() {
+        enqueue(1L, 7, 2L, 7, 3L, 8);
+        List<Long> sends = new ArrayList<>();
+        ReflectionTestUtils.setField(relay, "kafkaTemplate", recordingTemplate(sends, orderId -> false));
+        assertEquals(1, outboxService.claimDueBatch(1, "other-run", 60_000).size());  // leases order 1
+
+        assertEquals(1, relay.drain());
+        assertEquals(List.of(3L), sends);
+
+        outboxService.releaseClaims("other-run");
+        assertEquals(2, relay.drain());
+        assertEquals(List.of(3L, 1L, 2L), sends);
+    }
+
+    @Test
+    void keyWaitsForAFailedEventsBackoff() {
+        ReflectionTestUtils.setField(outboxService, "initialBackoffMs", 60_000L);
+        enqueue(1L, 7, 2L, 7, 3L, 8);
+        List<Long> sends = new ArrayList<>();
+        AtomicBoolean brokerDown = new AtomicBoolean(true);
+        ReflectionTestUtils.setField(relay, "kafkaTemplate", recordingTemplate(sends, orderId -> orderId == 1L
+                && brokerDown.getAndSet(false)));
+
+        assertEquals(1, relay.drain());           // order 1 failed, retry in 60 s
+        assertEquals(0, relay.drain());           // order 2 waits behind it
+        assertEquals(List.of(3L), sends);
+        assertEquals(2, outboxService.backlogSize());
+        OrderEventOutbox failed = outboxRepository.findAll().stream()
+                .filter(e -> e.getOrderId() == 1L).findFirst().orElseThrow();
+        assertEquals(1, failed.getAttempts());
+        assertTrue(failed.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(50)));
+    }
+
+    @Test
+    void poisonEventIsDeadLetteredAndReleasesItsKey() {
+        enqueue(1L, 7, 2L, 7);
+        List<Long> sends = new ArrayList<>();
+        ReflectionTestUtils.setField(relay, "kafkaTemplate", recordingTemplate(sends, orderId -> orderId == 1L));
+
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            assertEquals(0, relay.drain());
+        }
+        assertEquals(1, outboxService.deadCount());
+        assertEquals(1, outboxService.backlogSize());
+
+        assertEquals(1, relay.drain());
+        assertEquals(List.of(2L), sends);
+        assertEquals(0, relay.drain());           // dead events are not retried
+    }
+
+    @Test
+    void runStopsSendingOnceItsLeaseIsTakenOver() {
+        enqueue(1L, 7, 2L, 8, 3L, 9);
+        ReflectionTestUtils.setField(relay, "leaseMs", 0L);  // renewed before every send
+        List<Long> sends = new ArrayList<>();
+        ReflectionTestUtils.setField(relay, "kafkaTemplate", recordingTemplate(sends, orderId -> {
+            if (orderId == 1L) {               // lease expires while order 1 is sent; another relay claims the rest
+                List<OrderEventOutbox> events = outboxRepository.findAll();
+                events.forEach(e -> e.setClaimedBy("other-run"));
+                outboxRepository.saveAll(events);
+            }
+            return false;
+        }));
+
+        assertEquals(1, relay.drain());
+        assertEquals(List.of(1L), sends);
+        assertEquals(2, outboxService.backlogSize());
+    }
+
+    /**
+     * Queue order_placed events given as order id, restaurant id pairs
+     */
+    private void enqueue(Object... orderAndRestaurant) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < orderAndRestaurant.length; i += 2) {
+                outboxService.enqueueOrderPlaced(order((Long) orderAndRestaurant[i], (Integer) orderAndRestaurant[i + 1]), 42L);
+            }
+        });
+    }
+
+    /**
+     * Producer stand-in recording the order id of every record sent;
+     * a send for an order that fails throws like an unreachable broker
+     */
+    @SuppressWarnings("unchecked")
+    private static KafkaTemplate<String, String> recordingTemplate(List<Long> sends, Predicate<Long> fails) {
+        KafkaTemplate<String, String> template = mock(KafkaTemplate.class);
+        ObjectMapper mapper = new ObjectMapper();
+        when(template.send(anyString(), anyString(), anyString())).thenAnswer(inv -> {
+            long orderId = readTree(mapper, inv.getArgument(2)).get("orderId").asLong();
+            if (fails.test(orderId)) {
+                throw new KafkaException("broker down");
+            }
+            sends.add(orderId);
+            return CompletableFuture.completedFuture(null);
+        });
+        return template;
+    }
+
+    /**
+     * Queue EVENTS order_placed events and drain them
+     * @return Events per second through the relay
+     */
+    private double publishAll(long firstOrderId) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < EVENTS; i++) {
+                outboxService.enqueueOrderPlaced(order(firstOrderId + i, i % RESTAURANTS), 1000L + i % RESTAURANTS);
+            }
+        });
+
+        long start = System.nanoTime();
+        int published = 0;
+        for (int sent; (sent = relay.drain()) > 0; ) {
+            published += sent;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        assertEquals(EVENTS, published);
+        return EVENTS / seconds;
+    }
+
+    private Consumer<String, String> consumer() {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("outbox-relay-test", "false", broker);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000);
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new StringDeserializer())
+                .createConsumer();
+    }
+
+    private static JsonNode readTree(ObjectMapper mapper, String json) {
+        try {
+            return mapper.readTree(json);
+        } catch (Exception e) {
+            throw new AssertionError("Invalid payload: " + json, e);
+        }
+    }
+
+    private static Orders order(Long orderId, int restaurantId) {
+        Orders order = new Orders();
+        order.setOrderId(orderId);
+        order.setRestaurantId(restaurantId);
+        return order;
+    }
+}
@@ -0,0 +1,158 @@
+package com.cts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.cts.clients.CartClients;
+import com.cts.clients.InventoryClient;
+import com.cts.clients.PaymentClient;
+import com.cts.config.AsyncConfig;
+import com.cts.dtos.OrderFilter;
+import com.cts.dtos.OrderPage;
+import com.cts.dtos.OrdersDto;
+import com.cts.entities.OrderItem;
+import com.cts.entities.OrderStatus;
+import com.cts.entities.Orders;
+import com.cts.repository.OrderRepository;
+
+/**
+ * Keyset-paginated order listing: filters, cursors across pages and ?expand=items.
+ */
+@DataJpaTest(properties = {"spring.cloud.config.enabled=false", "orders.query.max-page-size=5"})
+@Import({OrderServiceImpl.class, RestaurantLookupService.class, OrderEventOutboxService.class, AsyncConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderListingTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @MockBean
+    private CartClients.CartClient cartClient;
+
+    @MockBean
+    private PaymentClient paymentClient;
+
+    @MockBean
+    private InventoryClient inventoryClient;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void createOrders() {
+        // 12 orders, one per hour: customers 1-3, restaurants 10/20, every third one CONFIRMED
+        for (int i = 0; i < 12; i++) {
+            Orders order = new Orders();
+            order.setCustomerId(1 + i % 3);
+            order.setRestaurantId(i % 2 == 0 ? 10 : 20);
+            order.setOrderStatus(i % 3 == 0 ? OrderStatus.CONFIRMED : OrderStatus.PLACED);
+            order.setCreatedAt(START.plusHours(i));
+            order.setUpdatedAt(START.plusHours(i));
+            order.setSubTotal(100.0 + i);
+            for (int k = 0; k < 2; k++) {
+                OrderItem item = new OrderItem();
+                item.setMenuItemId((long) k);
+                item.setName("item-" + i + "-" + k);
+                item.setUnitPrice(50.0);
+                item.setQuantity(1);
+                item.setItemTotal(50.0);
+                item.setOrder(order);
+                order.getItems().add(item);
+            }
+            ids.add(orderRepository.save(order).getOrderId());
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void pagesThroughEveryOrderNewestFirst() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            OrderPage page = orderService.getOrderPage(OrderFilter.all(), cursor, 100, false);
+            page.getItems().forEach(o -> {
+                assertNull(o.getItems(), "items are only loaded with expand=items");
+                seen.add(o.getOrderId());
+            });
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // limit 100 is capped at 5: pages of 5, 5, 2
+        assertEquals(3, pages);
+        List<Long> newestFirst = new ArrayList<>(ids);
+        newestFirst.sort((a, b) -> Long.compare(b, a));
+        assertEquals(newestFirst, seen);
+    }
+
+    @Test
+    void filtersCombine() {
+        OrderPage byRestaurantAndStatus = orderService.getOrderPage(
+                OrderFilter.of(null, 10, "confirmed", null, null), null, 5, false);
+        // i = 0 and 6 are CONFIRMED at restaurant 10
+        assertEquals(List.of(ids.get(6), ids.get(0)), orderIds(byRestaurantAndStatus));
+        assertFalse(byRestaurantAndStatus.isHasMore());
+
+        OrderPage byCustomerInRange = orderService.getOrderPage(
+                OrderFilter.of(2, null, null, START.plusHours(1), START.plusHours(7)), null, 5, false);
+        // customer 2 = i 1, 4, 7, 10; the range [1h, 7h) keeps 1 and 4
+        assertEquals(List.of(ids.get(4), ids.get(1)), orderIds(byCustomerInRange));
+
+        OrderPage firstTwo = orderService.getOrderPage(OrderFilter.of(null, 20, null, null, null), null, 2, false);
+        assertTrue(firstTwo.isHasMore());
+        OrderPage nextTwo = orderService.getOrderPage(
+                OrderFilter.of(null, 20, null, null, null), firstTwo.getNextCursor(), 2, false);
+        assertEquals(List.of(ids.get(11), ids.get(9)), orderIds(firstTwo));
+        assertEquals(List.of(ids.get(7), ids.get(5)), orderIds(nextTwo));
+    }
+
+    @Test
+    void expandsItemsForTheWholePage() {
+        OrderPage page = orderService.getOrderPage(OrderFilter.of(3, null, null, null, null), null, 5, true);
+        assertEquals(4, page.getSize());
+        for (OrdersDto order : page.getItems()) {
+            assertEquals(2, order.getItems().size());
+            int i = ids.indexOf(order.getOrderId());
+            assertEquals("item-" + i + "-0", order.getItems().get(0).getName());
+        }
+    }
+
+    @Test
+    void rejectsBadInput() {
+        assertThrows(IllegalArgumentException.class, () -> OrderFilter.of(null, null, "SHIPPED", null, null));
+        assertThrows(IllegalArgumentException.class, () -> OrderFilter.of(null, null, null, START, START));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.getOrderPage(OrderFilter.all(), "not-a-cursor", 5, false));
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrderPage(OrderFilter.all(), null, 0, false));
+    }
+
+    private static List<Long> orderIds(OrderPage page) {
+        return page.getItems().stream().map(OrdersDto::getOrderId).toList();
+    }
+}
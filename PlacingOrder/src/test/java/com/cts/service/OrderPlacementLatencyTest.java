@@ -0,0 +1,133 @@
+package com.cts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.cts.clients.CartClients;
+import com.cts.clients.InventoryClient;
+import com.cts.clients.PaymentClient;
+import com.cts.config.AsyncConfig;
+import com.cts.dtos.OrdersDto;
+import com.cts.entities.CartItemResponse;
+import com.cts.entities.CartResponse;
+import com.cts.entities.OrdersRequest;
+import com.cts.repository.OrderEventOutboxRepository;
+import com.cts.repository.OrderRepository;
+import com.notificationservice.model.RestaurantResponse;
+import com.notificationservice.service.RestaurantClient;
+
+/**
+ * Latency of addOrders against stubbed Cart and Restaurant services that each
+ * take LOOKUP_MS. Run one after another they would put 2 x LOOKUP_MS on the
+ * critical path; run side by side it is about one LOOKUP_MS plus the insert.
+ */
+@DataJpaTest(properties = "spring.cloud.config.enabled=false")
+@Import({OrderServiceImpl.class, RestaurantLookupService.class, OrderEventOutboxService.class, AsyncConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderPlacementLatencyTest {
+
+    private static final long LOOKUP_MS = 150;
+    private static final int WARMUP = 3;
+    private static final int ORDERS = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderEventOutboxRepository outboxRepository;
+
+    @MockBean
+    private CartClients.CartClient cartClient;
+
+    @MockBean
+    private RestaurantClient restaurantClient;
+
+    @MockBean
+    private PaymentClient paymentClient;
+
+    @MockBean
+    private InventoryClient inventoryClient;
+
+    private final Authentication caller = new TestingAuthenticationToken("customer", "jwt", "CUSTOMER");
+    private volatile Authentication seenByCartLookup;
+
+    @BeforeEach
+    void stubDownstreams() {
+        when(cartClient.getCartById(anyInt())).thenAnswer(inv -> {
+            seenByCartLookup = SecurityContextHolder.getContext().getAuthentication();
+            Thread.sleep(LOOKUP_MS);
+            CartItemResponse item = new CartItemResponse(11L, 7, 1, "Paneer Tikka", null, true, 120.0, 240.0, 2);
+            return new CartResponse(inv.getArgument(0), null, null, List.of(item), 240.0);
+        });
+        when(restaurantClient.getRestaurantById(anyInt())).thenAnswer(inv -> {
+            Thread.sleep(LOOKUP_MS);
+            RestaurantResponse restaurant = new RestaurantResponse();
+            restaurant.setRestaurantId(inv.getArgument(0));
+            restaurant.setVendorId(42L);
+            return restaurant;
+        });
+        SecurityContextHolder.getContext().setAuthentication(caller);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        outboxRepository.deleteAll();
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void lookupsRunConcurrentlyAndEventIsQueuedWithOrder() {
+        for (int i = 0; i < WARMUP; i++) {
+            placeOrder(i);
+        }
+
+        long[] micros = new long[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            long start = System.nanoTime();
+            OrdersDto dto = placeOrder(WARMUP + i);
+            micros[i] = (System.nanoTime() - start) / 1_000;
+            assertEquals(1, dto.getItems().size());
+        }
+        Arrays.sort(micros);
+        double meanMs = Arrays.stream(micros).average().orElse(0) / 1000.0;
+        System.out.printf("addOrders with %d ms cart + %d ms restaurant lookups: mean %.1f ms, p50 %.1f ms, max %.1f ms "
+                        + "(sequential lookups alone: %d ms)%n",
+                LOOKUP_MS, LOOKUP_MS, meanMs, micros[ORDERS / 2] / 1000.0, micros[ORDERS - 1] / 1000.0, 2 * LOOKUP_MS);
+
+        assertTrue(meanMs < 1.5 * LOOKUP_MS, "mean " + meanMs + " ms");
+        assertEquals(WARMUP + ORDERS, orderRepository.count());
+        assertEquals(WARMUP + ORDERS, outboxRepository.countBySentAtIsNullAndDeadAtIsNull(), "one order_placed queued per order");
+        assertSame(caller, seenByCartLookup, "caller's SecurityContext not propagated to the lookup thread");
+    }
+
+    private OrdersDto placeOrder(int n) {
+        OrdersRequest request = new OrdersRequest();
+        request.setCartId(1000 + n);
+        request.setCustomerId(5);
+        request.setRestaurantId(100 + n);  // a new restaurant each time, so the vendor lookup misses the cache
+        return orderService.addOrders(request);
+    }
+}
@@ -0,0 +1,174 @@
+package com.cts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cts.clients.CartClients;
+import com.cts.clients.InventoryClient;
+import com.cts.clients.PaymentClient;
+import com.cts.config.AsyncConfig;
+import com.cts.dtos.OrderFilter;
+import com.cts.dtos.OrderPage;
+import com.cts.dtos.OrdersDto;
+import com.cts.entities.OrderItem;
+import com.cts.entities.OrderStatus;
+import com.cts.entities.Orders;
+import com.cts.repository.OrderRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * SQL statements per order endpoint, counted with Hibernate statistics:
+ * items are lazy, fetched by entity graph or in batches where they are read,
+ * and never loaded by a status-only update.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({OrderServiceImpl.class, RestaurantLookupService.class, OrderEventOutboxService.class, AsyncConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderQueryCountTest {
+
+    private static final int ORDERS = 12;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private CartClients.CartClient cartClient;
+
+    @MockBean
+    private PaymentClient paymentClient;
+
+    @MockBean
+    private InventoryClient inventoryClient;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void createOrders() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (int i = 0; i < ORDERS; i++) {
+            Orders order = new Orders();
+            order.setCustomerId(1);
+            order.setRestaurantId(10);
+            order.setOrderStatus(OrderStatus.PLACED);
+            order.setCreatedAt(LocalDateTime.now());
+            order.setUpdatedAt(LocalDateTime.now());
+            order.setSubTotal(100.0);
+            for (int k = 0; k < 3; k++) {
+                OrderItem item = new OrderItem();
+                item.setMenuItemId((long) k);
+                item.setName("item-" + k);
+                item.setUnitPrice(50.0);
+                item.setQuantity(1);
+                item.setItemTotal(50.0);
+                item.setOrder(order);
+                order.getItems().add(item);
+            }
+            ids.add(orderRepository.save(order).getOrderId());
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void listingIsOneQueryPlusOneForItems() {
+        OrderPage page = count(1, () -> orderService.getOrderPage(OrderFilter.all(), null, 10, false));
+        assertEquals(10, page.getSize());
+
+        OrderPage expanded = count(2, () -> orderService.getOrderPage(OrderFilter.all(), null, 10, true));
+        expanded.getItems().forEach(o -> assertEquals(3, o.getItems().size()));
+    }
+
+    @Test
+    void orderByIdJoinsItsItems() {
+        OrdersDto order = count(1, () -> orderService.getOrdersById(ids.get(0)));
+        assertEquals(3, order.getItems().size());
+    }
+
+    @Test
+    void cancellingLeavesItemsUnloaded() {
+        // select order + update order
+        OrdersDto failed = count(2, () -> orderService.updateOrderStatusByPayment(ids.get(0), "FAILED"));
+        assertEquals(OrderStatus.CANCELLED, failed.getOrderStatus());
+        assertNull(failed.getItems());
+
+        OrdersDto refunded = count(2, () -> orderService.updateOrderStatusByPayment(ids.get(1), "REFUNDED"));
+        assertEquals(OrderStatus.CANCELLED, refunded.getOrderStatus());
+    }
+
+    @Test
+    void confirmingLoadsItemsForInventoryOnly() {
+        when(inventoryClient.updateInventory(any())).thenReturn(ResponseEntity.ok().build());
+
+        // select order + select items + update order
+        OrdersDto confirmed = count(3, () -> orderService.updateOrderStatusByPayment(ids.get(0), "SUCCESS"));
+        assertEquals(OrderStatus.CONFIRMED, confirmed.getOrderStatus());
+        assertEquals(3, confirmed.getItems().size());
+    }
+
+    @Test
+    void repeatedSuccessDeliveryIsANoOp() {
+        when(inventoryClient.updateInventory(any())).thenReturn(ResponseEntity.ok().build());
+        orderService.updateOrderStatusByPayment(ids.get(0), "SUCCESS");
+
+        // select order only: no item load, no update, no second inventory deduction
+        OrdersDto again = count(1, () -> orderService.updateOrderStatusByPayment(ids.get(0), "SUCCESS"));
+        assertEquals(OrderStatus.CONFIRMED, again.getOrderStatus());
+        verify(inventoryClient, times(1)).updateInventory(any());
+    }
+
+    @Test
+    void findAllBatchesItemLoads() {
+        // EAGER items cost one select per order (1 + 12); batched they cost 1 + 1
+        int items = count(2, () -> transactionTemplate.execute(status ->
+                orderRepository.findAll().stream().mapToInt(o -> o.getItems().size()).sum()));
+        assertEquals(3 * ORDERS, items);
+    }
+
+    private <T> T count(long expectedStatements, Supplier<T> call) {
+        statistics.clear();
+        T result = call.get();
+        assertEquals(expectedStatements, statistics.getPrepareStatementCount(), "SQL statements");
+        return result;
+    }
+}
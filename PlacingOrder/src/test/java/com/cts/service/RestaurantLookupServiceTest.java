@@ -0,0 +1,110 @@
+package com.cts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.notificationservice.model.RestaurantResponse;
+import com.notificationservice.service.RestaurantClient;
+
+/**
+ * Restaurant metadata cache: single-flight misses, stale reads while
+ * restaurant-service is down, and invalidation by change events.
+ */
+class RestaurantLookupServiceTest {
+
+    private static final long REFRESH_MS = 50;
+
+    private final RestaurantClient restaurantClient = mock(RestaurantClient.class);
+    private final RestaurantLookupService lookupService =
+            new RestaurantLookupService(restaurantClient, 100, 60_000, 600_000);
+
+    @Test
+    void concurrentMissesShareOneCall() throws Exception {
+        when(restaurantClient.getRestaurantById(7)).thenAnswer(inv -> {
+            Thread.sleep(100);
+            return restaurant(7, 42L);
+        });
+
+        int callers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> vendors = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                vendors.add(pool.submit(() -> {
+                    start.await();
+                    return lookupService.getVendorId(7);
+                }));
+            }
+            start.countDown();
+            for (Future<Long> vendor : vendors) {
+                assertEquals(42L, vendor.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(restaurantClient, times(1)).getRestaurantById(7);
+    }
+
+    @Test
+    void servesStaleValueWhileRestaurantServiceIsDown() throws Exception {
+        RestaurantLookupService shortRefresh = new RestaurantLookupService(restaurantClient, 100, REFRESH_MS, 60_000);
+        when(restaurantClient.getRestaurantById(7))
+                .thenReturn(restaurant(7, 42L))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+        assertEquals(42L, shortRefresh.getVendorId(7));
+
+        // Past refresh-after: the read triggers a reload, which fails, and still gets the cached vendor
+        Thread.sleep(REFRESH_MS * 2);
+        assertEquals(42L, shortRefresh.getVendorId(7));
+        verify(restaurantClient, timeout(1000).times(2)).getRestaurantById(7);
+        assertEquals(42L, shortRefresh.getVendorId(7));
+
+        // A restaurant that was never cached still fails
+        when(restaurantClient.getRestaurantById(8)).thenThrow(new ResourceAccessException("Connection refused"));
+        assertThrows(ResourceAccessException.class, () -> shortRefresh.getVendorId(8));
+    }
+
+    @Test
+    void changeEventDropsTheEntry() {
+        when(restaurantClient.getRestaurantById(7))
+                .thenReturn(restaurant(7, 42L))
+                .thenReturn(restaurant(7, 43L));
+        assertEquals(42L, lookupService.getVendorId(7));
+        assertEquals(42L, lookupService.getVendorId(7));
+
+        lookupService.onRestaurantChanged("7");
+        lookupService.onRestaurantChanged("not-a-number");
+        assertEquals(43L, lookupService.getVendorId(7));
+        verify(restaurantClient, times(2)).getRestaurantById(7);
+    }
+
+    @Test
+    void missingVendorIsRejected() {
+        when(restaurantClient.getRestaurantById(9)).thenReturn(restaurant(9, null));
+        assertThrows(IllegalStateException.class, () -> lookupService.getVendorId(9));
+        assertThrows(IllegalStateException.class, () -> lookupService.getVendorId(null));
+    }
+
+    private static RestaurantResponse restaurant(Integer restaurantId, Long vendorId) {
+        RestaurantResponse restaurant = new RestaurantResponse();
+        restaurant.setRestaurantId(restaurantId);
+        restaurant.setVendorId(vendorId);
+        return restaurant;
+    }
+}
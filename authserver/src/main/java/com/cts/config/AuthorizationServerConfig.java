@@ -82,7 +82,17 @@ public class AuthorizationServerConfig {
 				.tokenSettings(tokenSettings)
 				.build();
 		
-		RegisteredClientRepository registeredClientRepository=new InMemoryRegisteredClientRepository(adminClient,vendorClient,customerClient);
+		// Payment Service calling Order Service on its own behalf (outbox deliveries)
+		RegisteredClient paymentServiceClient=RegisteredClient.withId(UUID.randomUUID().toString())
+				.clientId("paymentservice")
+				.clientSecret(passwordEncoder.encode("paymentservice"))
+				.clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+				.authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+				.scope("internal")
+				.tokenSettings(tokenSettings)
+				.build();
+		
+		RegisteredClientRepository registeredClientRepository=new InMemoryRegisteredClientRepository(adminClient,vendorClient,customerClient,paymentServiceClient);
 		return registeredClientRepository;
 	}
 	
@@ -109,7 +119,10 @@ public class AuthorizationServerConfig {
 	@Bean
 	public OAuth2TokenCustomizer<JwtEncodingContext> jwtTokenCustomizer(){
 		return context->{
-			if(context.getPrincipal()!=null && context.getPrincipal().getAuthorities()!=null) {
+			if(AuthorizationGrantType.CLIENT_CREDENTIALS.equals(context.getAuthorizationGrantType())) {
+				context.getClaims().claim("roles", List.of("ROLE_SERVICE"));
+			}
+			else if(context.getPrincipal()!=null && context.getPrincipal().getAuthorities()!=null) {
 				List<String> roles=context.getPrincipal().getAuthorities().stream()
 						.map(auth->auth.getAuthority()).collect(Collectors.toList());
 			context.getClaims().claim("roles", roles);